@@ -19,6 +19,7 @@ import javax.persistence.MappedSuperclass;
 import org.codehaus.jackson.annotate.JsonIgnore;
 import org.hibernate.envers.Audited;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Norms;
 
 /**
  * In OpenMRS, we distinguish between data and metadata within our data model. Metadata represent
@@ -56,7 +57,7 @@ public abstract class BaseOpenmrsMetadata extends BaseOpenmrsObject implements O
 	private Date dateChanged;
 	
 	@Column(name = "retired", nullable = false)
-	@Field
+	@Field(norms = Norms.NO)
 	private Boolean retired = Boolean.FALSE;
 	
 	@Column(name = "date_retired")
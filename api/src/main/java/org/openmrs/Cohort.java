@@ -11,6 +11,7 @@ package org.openmrs;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.envers.Audited;
+import org.openmrs.util.CompressedIdSet;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,6 +36,12 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	
 	private Collection<CohortMembership> memberships;
 	
+	/**
+	 * The member ids of a cohort created from a {@link CompressedIdSet}, memberships are only
+	 * created from them when they are first accessed, e.g. when the cohort is saved
+	 */
+	private CompressedIdSet memberIdSet;
+	
 	public Cohort() {
 		memberships = new TreeSet<>();
 	}
@@ -115,6 +122,24 @@ public class Cohort extends BaseChangeableOpenmrsData {
 		}
 	}
 	
+	/**
+	 * Creates a cohort of the given patient ids without creating a membership for each of them.
+	 * Union, intersection and difference of such cohorts and {@link #contains(Integer)} work on the
+	 * compressed ids, memberships starting now are created when the cohort is saved through
+	 * {@link org.openmrs.api.CohortService#saveCohort(Cohort)} or its memberships are accessed.
+	 * 
+	 * @param name
+	 * @param description optional description
+	 * @param memberIds the ids of the patients, the set is copied
+	 * @since 2.8.0
+	 */
+	public Cohort(String name, String description, CompressedIdSet memberIds) {
+		this.name = name;
+		this.description = description;
+		this.memberIdSet = memberIds.copy();
+		this.memberships = null;
+	}
+	
 	/**
 	 * Convenience constructor taking in a string that is a list of comma separated patient ids This
 	 * constructor does not check whether the database contains patients with the given ids, but
@@ -138,6 +163,9 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	}
 	
 	public boolean contains(Integer patientId) {
+		if (memberIdSet != null) {
+			return patientId != null && memberIdSet.contains(patientId);
+		}
 		return getMemberships() != null
 		        && getMemberships().stream().anyMatch(m -> m.getPatientId().equals(patientId) && !m.getVoided());
 	}
@@ -148,13 +176,19 @@ public class Cohort extends BaseChangeableOpenmrsData {
 		if (getName() != null) {
 			sb.append(" name=").append(getName());
 		}
-		if (getMemberships() != null) {
+		if (memberIdSet != null) {
+			sb.append(" size=").append(memberIdSet.size());
+		} else if (getMemberships() != null) {
 			sb.append(" size=").append(getMemberships().size());
 		}
 		return sb.toString();
 	}
 	
 	public void addMember(Integer memberId) {
+		if (memberIdSet != null && memberId != null) {
+			memberIdSet.add(memberId);
+			return;
+		}
 		this.addMembership(new CohortMembership(memberId));
 	}
 	
@@ -194,6 +228,12 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	public Collection<CohortMembership> getMemberships() {
 		if (memberships == null) {
 			memberships = new TreeSet<>();
+			if (memberIdSet != null) {
+				CompressedIdSet memberIds = memberIdSet;
+				memberIdSet = null;
+				Date startDate = new Date();
+				memberIds.forEach(id -> addMembership(new CohortMembership(id, startDate)));
+			}
 		}
 		return memberships;
 	}
@@ -219,6 +259,9 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	}
 	
 	public int size() {
+		if (memberIdSet != null) {
+			return memberIdSet.size();
+		}
 		return getMemberships().stream().filter(m -> !m.getVoided()).collect(Collectors.toList())
 		        .size();
 	}
@@ -245,6 +288,13 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	 * @return Cohort
 	 */
 	public static Cohort union(Cohort a, Cohort b) {
+		if (isBackedByIds(a, b)) {
+			Cohort ret = fromIds(CompressedIdSet.union(idsOf(a), idsOf(b)));
+			if (a != null && b != null) {
+				ret.setName("(" + a.getName() + " + " + b.getName() + ")");
+			}
+			return ret;
+		}
 		Cohort ret = new Cohort();
 		if (a != null) {
 			ret.getMemberships().addAll(a.getMemberships());
@@ -266,9 +316,9 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	 * @return Cohort
 	 */
 	public static Cohort intersect(Cohort a, Cohort b) {
-		Cohort ret = new Cohort();
+		Cohort ret = isBackedByIds(a, b) ? fromIds(CompressedIdSet.intersect(idsOf(a), idsOf(b))) : new Cohort();
 		ret.setName("(" + (a == null ? "NULL" : a.getName()) + " * " + (b == null ? "NULL" : b.getName()) + ")");
-		if (a != null && b != null) {
+		if (a != null && b != null && ret.memberIdSet == null) {
 			ret.getMemberships().addAll(a.getMemberships());
 			ret.getMemberships().retainAll(b.getMemberships());
 		}
@@ -283,6 +333,13 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	 * @return Cohort
 	 */
 	public static Cohort subtract(Cohort a, Cohort b) {
+		if (isBackedByIds(a, b)) {
+			Cohort ret = fromIds(CompressedIdSet.subtract(idsOf(a), idsOf(b)));
+			if (a != null && b != null) {
+				ret.setName("(" + a.getName() + " - " + b.getName() + ")");
+			}
+			return ret;
+		}
 		Cohort ret = new Cohort();
 		if (a != null) {
 			ret.getMemberships().addAll(a.getMemberships());
@@ -294,6 +351,44 @@ public class Cohort extends BaseChangeableOpenmrsData {
 		return ret;
 	}
 	
+	/**
+	 * Cohorts created from ids are combined without creating memberships
+	 */
+	private static boolean isBackedByIds(Cohort a, Cohort b) {
+		return (a != null || b != null) && (a == null || a.memberIdSet != null) && (b == null || b.memberIdSet != null);
+	}
+	
+	private static CompressedIdSet idsOf(Cohort cohort) {
+		return cohort == null ? null : cohort.memberIdSet;
+	}
+	
+	private static Cohort fromIds(CompressedIdSet memberIds) {
+		Cohort cohort = new Cohort();
+		cohort.memberships = null;
+		cohort.memberIdSet = memberIds;
+		return cohort;
+	}
+	
+	/**
+	 * Returns the ids of the patients with non voided memberships as a compressed set, which can be
+	 * combined with other sets much faster and with much less memory than the memberships.
+	 * 
+	 * @return a new set of the member ids
+	 * @since 2.8.0
+	 */
+	public CompressedIdSet getMemberIdSet() {
+		if (memberIdSet != null) {
+			return memberIdSet.copy();
+		}
+		CompressedIdSet memberIds = new CompressedIdSet();
+		for (CohortMembership membership : getMemberships()) {
+			if (!membership.getVoided()) {
+				memberIds.add(membership.getPatientId());
+			}
+		}
+		return memberIds;
+	}
+	
 	// getters and setters
 	
 	public Integer getCohortId() {
@@ -326,6 +421,10 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	@Deprecated
 	public Set<Integer> getMemberIds() {
 		Set<Integer> memberIds = new TreeSet<>();
+		if (memberIdSet != null) {
+			memberIdSet.forEach(memberIds::add);
+			return memberIds;
+		}
 		for (CohortMembership member : getMemberships()) {
 			memberIds.add(member.getPatientId());
 		}
@@ -349,6 +448,7 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	}
 	
 	public void setMemberships(Collection<CohortMembership> members) {
+		this.memberIdSet = null;
 		this.memberships = members;
 	}
 	
@@ -381,6 +481,9 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	 * @return true if cohort has active membership for the requested patient             
 	 */
 	public boolean hasActiveMembership(int patientId) {
+		if (memberIdSet != null) {
+			return memberIdSet.contains(patientId);
+		}
 		return getMemberships().stream().anyMatch(m  -> m.getPatientId() == patientId && m.isActive());
 	}
 	
@@ -392,6 +495,9 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	 * @return  number of active memberships in the cohort
 	 */
 	public int activeMembershipSize() {
+		if (memberIdSet != null) {
+			return memberIdSet.size();
+		}
 		return getActiveMemberships().size();
 	}
 	
@@ -403,6 +509,9 @@ public class Cohort extends BaseChangeableOpenmrsData {
 	 * @return true if no active cohort exists
 	 **/
 	public boolean hasNoActiveMemberships() {
+		if (memberIdSet != null) {
+			return memberIdSet.isEmpty();
+		}
 		return getActiveMemberships().isEmpty();
 	}
 }
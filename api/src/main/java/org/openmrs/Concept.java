@@ -33,6 +33,7 @@ import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.FullTextFilterDef;
 import org.hibernate.search.annotations.FullTextFilterDefs;
 import org.hibernate.search.annotations.IndexedEmbedded;
+import org.hibernate.search.annotations.Norms;
 import org.openmrs.annotation.AllowDirectAccess;
 import org.openmrs.api.APIException;
 import org.openmrs.api.ConceptNameType;
@@ -82,7 +83,7 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	@DocumentId
 	private Integer conceptId;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	private Boolean retired = false;
 	
 	private User retiredBy;
@@ -29,16 +29,18 @@ import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.FieldBridge;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
+import org.hibernate.search.annotations.Norms;
 import org.hibernate.search.annotations.TokenFilterDef;
 import org.hibernate.search.annotations.TokenizerDef;
 import org.openmrs.api.ConceptNameType;
+import org.openmrs.api.db.hibernate.search.AsyncIndexingInterceptor;
 import org.openmrs.api.db.hibernate.search.bridge.LocaleFieldBridge;
 
 /**
  * ConceptName is the real world term used to express a Concept within the idiom of a particular
  * locale.
  */
-@Indexed
+@Indexed(interceptor = AsyncIndexingInterceptor.class)
 @AnalyzerDef(
 	name = "ConceptNameAnalyzer", tokenizer = @TokenizerDef(factory = StandardTokenizerFactory.class), filters = {
         @TokenFilterDef(factory = StandardFilterFactory.class), 
@@ -60,7 +62,7 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	@Field
 	private String name;
 	
-	@Field(analyze = Analyze.NO)
+	@Field(analyze = Analyze.NO, norms = Norms.NO)
 	@FieldBridge(impl = LocaleFieldBridge.class)
 	// ABK: upgraded from a plain string to a full locale object
 	private Locale locale; 
@@ -69,7 +71,7 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	
 	private Date dateCreated;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	private Boolean voided = false;
 	
 	private User voidedBy;
@@ -80,10 +82,10 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	
 	private Collection<ConceptNameTag> tags;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	private ConceptNameType conceptNameType;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	private Boolean localePreferred = false;
 	
 	private User changedBy;
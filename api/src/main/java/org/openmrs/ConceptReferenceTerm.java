@@ -16,6 +16,7 @@ import org.hibernate.envers.Audited;
 import org.hibernate.search.annotations.Analyze;
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Norms;
 
 /**
  * A concept reference term is typically name for a concept by which it is referred in another
@@ -35,7 +36,7 @@ public class ConceptReferenceTerm extends BaseChangeableOpenmrsMetadata {
 	private ConceptSource conceptSource;
 	
 	//The unique code used to identify the reference term in it's reference terminology
-	@Field(analyze = Analyze.NO)
+	@Field(analyze = Analyze.NO, norms = Norms.NO)
 	private String code;
 	
 	private String version;
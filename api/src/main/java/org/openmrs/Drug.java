@@ -22,11 +22,12 @@ import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.search.AsyncIndexingInterceptor;
 
 /**
  * Drug
  */
-@Indexed
+@Indexed(interceptor = AsyncIndexingInterceptor.class)
 @Audited
 public class Drug extends BaseChangeableOpenmrsMetadata {
 	
@@ -15,9 +15,11 @@ import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -80,6 +82,63 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 		PRELIMINARY, FINAL, AMENDED
 	}
 	
+	/**
+	 * The properties whose changes are tracked by {@link #isDirty(String)}, each one owns a bit of
+	 * the dirty property mask.
+	 */
+	private enum DirtyProperty {
+		
+		COMMENT("comment"),
+		CONCEPT("concept"),
+		ENCOUNTER("encounter"),
+		LOCATION("location"),
+		OBS_DATETIME("obsDatetime"),
+		OBS_GROUP("obsGroup"),
+		ORDER("order"),
+		PERSON_ID("personId"),
+		PERSON("person"),
+		VALUE_CODED("valueCoded"),
+		VALUE_CODED_NAME("valueCodedName"),
+		VALUE_DRUG("valueDrug"),
+		VALUE_DATETIME("valueDatetime"),
+		VALUE_GROUP_ID("valueGroupId"),
+		VALUE_MODIFIER("valueModifier"),
+		VALUE_NUMERIC("valueNumeric"),
+		VALUE_TEXT("valueText"),
+		VALUE_COMPLEX("valueComplex"),
+		COMPLEX_DATA("complexData"),
+		ACCESSION_NUMBER("accessionNumber"),
+		PREVIOUS_VERSION("previousVersion"),
+		CREATOR("creator"),
+		DATE_CREATED("dateCreated"),
+		FORM_NAMESPACE_AND_PATH("formNamespaceAndPath"),
+		INTERPRETATION("interpretation"),
+		STATUS("status");
+		
+		private static final Map<String, DirtyProperty> BY_NAME = new HashMap<>();
+		
+		static {
+			for (DirtyProperty property : values()) {
+				BY_NAME.put(property.propertyName, property);
+			}
+		}
+		
+		private final String propertyName;
+		
+		DirtyProperty(String propertyName) {
+			this.propertyName = propertyName;
+		}
+		
+		int mask() {
+			return 1 << ordinal();
+		}
+	}
+	
+	/**
+	 * Set when a subclass marks the obs as dirty without naming the changed property
+	 */
+	private static final int OTHER_PROPERTY_MASK = 1 << DirtyProperty.values().length;
+	
 	private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm";
 	
 	private static final String TIME_PATTERN = "HH:mm";
@@ -148,7 +207,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	
 	private Obs previousVersion;
 	
-	private Boolean dirty = Boolean.FALSE;
+	private int dirtyProperties;
 	
 	private Interpretation interpretation;
 	
@@ -250,7 +309,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param comment The comment to set.
 	 */
 	public void setComment(String comment) {
-		markAsDirty(this.comment, comment);
+		markAsDirty(this.comment, comment, DirtyProperty.COMMENT);
 		this.comment = comment;
 	}
 	
@@ -265,7 +324,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param concept The concept to set.
 	 */
 	public void setConcept(Concept concept) {
-		markAsDirty(this.concept, concept);
+		markAsDirty(this.concept, concept, DirtyProperty.CONCEPT);
 		this.concept = concept;
 	}
 	
@@ -297,7 +356,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param encounter The encounter to set.
 	 */
 	public void setEncounter(Encounter encounter) {
-		markAsDirty(this.encounter, encounter);
+		markAsDirty(this.encounter, encounter, DirtyProperty.ENCOUNTER);
 		this.encounter = encounter;
 	}
 	
@@ -312,7 +371,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param location The location to set.
 	 */
 	public void setLocation(Location location) {
-		markAsDirty(this.location, location);
+		markAsDirty(this.location, location, DirtyProperty.LOCATION);
 		this.location = location;
 	}
 	
@@ -327,7 +386,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param obsDatetime The obsDatetime to set.
 	 */
 	public void setObsDatetime(Date obsDatetime) {
-		markAsDirty(this.obsDatetime, obsDatetime);
+		markAsDirty(this.obsDatetime, obsDatetime, DirtyProperty.OBS_DATETIME);
 		this.obsDatetime = obsDatetime;
 	}
 	
@@ -350,7 +409,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param obsGroup the obsGroup to set
 	 */
 	public void setObsGroup(Obs obsGroup) {
-		markAsDirty(this.obsGroup, obsGroup);
+		markAsDirty(this.obsGroup, obsGroup, DirtyProperty.OBS_GROUP);
 		this.obsGroup = obsGroup;
 	}
 	
@@ -566,7 +625,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param order The order to set.
 	 */
 	public void setOrder(Order order) {
-		markAsDirty(this.order, order);
+		markAsDirty(this.order, order, DirtyProperty.ORDER);
 		this.order = order;
 	}
 	
@@ -590,7 +649,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param personId
 	 */
 	protected void setPersonId(Integer personId) {
-		markAsDirty(this.personId, personId);
+		markAsDirty(this.personId, personId, DirtyProperty.PERSON_ID);
 		this.personId = personId;
 	}
 	
@@ -611,7 +670,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param person the Patient/Person object that this obs is acting on
 	 */
 	public void setPerson(Person person) {
-		markAsDirty(this.person, person);
+		markAsDirty(this.person, person, DirtyProperty.PERSON);
 		this.person = person;
 		if (person != null) {
 			setPersonId(person.getPersonId());
@@ -689,7 +748,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueCoded The valueCoded to set.
 	 */
 	public void setValueCoded(Concept valueCoded) {
-		markAsDirty(this.valueCoded, valueCoded);
+		markAsDirty(this.valueCoded, valueCoded, DirtyProperty.VALUE_CODED);
 		this.valueCoded = valueCoded;
 	}
 	
@@ -708,7 +767,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueCodedName the name of the coded value
 	 */
 	public void setValueCodedName(ConceptName valueCodedName) {
-		markAsDirty(this.valueCodedName, valueCodedName);
+		markAsDirty(this.valueCodedName, valueCodedName, DirtyProperty.VALUE_CODED_NAME);
 		this.valueCodedName = valueCodedName;
 	}
 	
@@ -723,7 +782,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueDrug The valueDrug to set.
 	 */
 	public void setValueDrug(Drug valueDrug) {
-		markAsDirty(this.valueDrug, valueDrug);
+		markAsDirty(this.valueDrug, valueDrug, DirtyProperty.VALUE_DRUG);
 		this.valueDrug = valueDrug;
 	}
 	
@@ -738,7 +797,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueDatetime The valueDatetime to set.
 	 */
 	public void setValueDatetime(Date valueDatetime) {
-		markAsDirty(this.valueDatetime, valueDatetime);
+		markAsDirty(this.valueDatetime, valueDatetime, DirtyProperty.VALUE_DATETIME);
 		this.valueDatetime = valueDatetime;
 	}
 	
@@ -756,7 +815,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @since 1.9
 	 */
 	public void setValueDate(Date valueDate) {
-		markAsDirty(this.valueDatetime, valueDate);
+		markAsDirty(this.valueDatetime, valueDate, DirtyProperty.VALUE_DATETIME);
 		this.valueDatetime = valueDate;
 	}
 	
@@ -774,7 +833,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @since 1.9
 	 */
 	public void setValueTime(Date valueTime) {
-		markAsDirty(this.valueDatetime, valueTime);
+		markAsDirty(this.valueDatetime, valueTime, DirtyProperty.VALUE_DATETIME);
 		this.valueDatetime = valueTime;
 	}
 	
@@ -789,7 +848,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueGroupId The valueGroupId to set.
 	 */
 	public void setValueGroupId(Integer valueGroupId) {
-		markAsDirty(this.valueGroupId, valueGroupId);
+		markAsDirty(this.valueGroupId, valueGroupId, DirtyProperty.VALUE_GROUP_ID);
 		this.valueGroupId = valueGroupId;
 	}
 	
@@ -804,7 +863,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueModifier The valueModifier to set.
 	 */
 	public void setValueModifier(String valueModifier) {
-		markAsDirty(this.valueModifier, valueModifier);
+		markAsDirty(this.valueModifier, valueModifier, DirtyProperty.VALUE_MODIFIER);
 		this.valueModifier = valueModifier;
 	}
 	
@@ -819,7 +878,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueNumeric The valueNumeric to set.
 	 */
 	public void setValueNumeric(Double valueNumeric) {
-		markAsDirty(this.valueNumeric, valueNumeric);
+		markAsDirty(this.valueNumeric, valueNumeric, DirtyProperty.VALUE_NUMERIC);
 		this.valueNumeric = valueNumeric;
 	}
 	
@@ -834,7 +893,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param valueText The valueText to set.
 	 */
 	public void setValueText(String valueText) {
-		markAsDirty(this.valueText, valueText);
+		markAsDirty(this.valueText, valueText, DirtyProperty.VALUE_TEXT);
 		this.valueText = valueText;
 	}
 	
@@ -874,7 +933,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @since 1.5
 	 */
 	public void setValueComplex(String valueComplex) {
-		markAsDirty(this.valueComplex, valueComplex);
+		markAsDirty(this.valueComplex, valueComplex, DirtyProperty.VALUE_COMPLEX);
 		this.valueComplex = valueComplex;
 	}
 	
@@ -889,7 +948,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @since 1.5
 	 */
 	public void setComplexData(ComplexData complexData) {
-		markAsDirty(this.complexData, complexData);
+		markAsDirty(this.complexData, complexData, DirtyProperty.COMPLEX_DATA);
 		this.complexData = complexData;
 	}
 	
@@ -923,7 +982,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param accessionNumber The accessionNumber to set.
 	 */
 	public void setAccessionNumber(String accessionNumber) {
-		markAsDirty(this.accessionNumber, accessionNumber);
+		markAsDirty(this.accessionNumber, accessionNumber, DirtyProperty.ACCESSION_NUMBER);
 		this.accessionNumber = accessionNumber;
 	}
 	
@@ -1147,7 +1206,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @param previousVersion the Obs that this Obs superceeds
 	 */
 	public void setPreviousVersion(Obs previousVersion) {
-		markAsDirty(this.previousVersion, previousVersion);
+		markAsDirty(this.previousVersion, previousVersion, DirtyProperty.PREVIOUS_VERSION);
 		this.previousVersion = previousVersion;
 	}
 	
@@ -1161,7 +1220,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 */
 	@Override
 	public void setCreator(User creator) {
-		markAsDirty(getCreator(), creator);
+		markAsDirty(getCreator(), creator, DirtyProperty.CREATOR);
 		super.setCreator(creator);
 	}
 	
@@ -1171,7 +1230,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 */
 	@Override
 	public void setDateCreated(Date dateCreated) {
-		markAsDirty(getDateCreated(), dateCreated);
+		markAsDirty(getDateCreated(), dateCreated, DirtyProperty.DATE_CREATED);
 		super.setDateCreated(dateCreated);
 	}
 	
@@ -1182,7 +1241,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	public void setFormField(String namespace, String formFieldPath) {
 		String oldValue = formNamespaceAndPath;
 		super.setFormField(namespace, formFieldPath);
-		markAsDirty(oldValue, formNamespaceAndPath);
+		markAsDirty(oldValue, formNamespaceAndPath, DirtyProperty.FORM_NAMESPACE_AND_PATH);
 	}
 	
 	/**
@@ -1199,16 +1258,65 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * <strong>Should</strong> return true when an immutable field is changed from a non null to a null value
 	 */
 	public boolean isDirty() {
-		return dirty;
+		return dirtyProperties != 0;
+	}
+	
+	/**
+	 * Returns true if the property with the specified name has been changed since this Obs was
+	 * instantiated or loaded from the database. Changes made through subclasses that don't name the
+	 * changed property are reported for every property that isn't tracked individually.
+	 * 
+	 * @param propertyName the name of the property to check
+	 * @return true if the property was changed otherwise false
+	 * @since 2.8.0
+	 * <strong>Should</strong> return true only for the changed properties
+	 * <strong>Should</strong> return false for properties set before the obs was saved
+	 */
+	public boolean isDirty(String propertyName) {
+		DirtyProperty property = DirtyProperty.BY_NAME.get(propertyName);
+		if (property == null) {
+			return (dirtyProperties & OTHER_PROPERTY_MASK) != 0;
+		}
+		return (dirtyProperties & property.mask()) != 0;
+	}
+	
+	/**
+	 * Returns true if changes of the property with the specified name are tracked individually by
+	 * {@link #isDirty(String)}, for any other property the state has to be compared to find out
+	 * whether it changed.
+	 * 
+	 * @param propertyName the name of the property to check
+	 * @return true if changes of the property are tracked otherwise false
+	 * @since 2.8.0
+	 */
+	public static boolean isDirtyTrackedProperty(String propertyName) {
+		return DirtyProperty.BY_NAME.containsKey(propertyName);
 	}
 	
 	protected void markAsDirty(Object oldValue, Object newValue) {
+		markAsDirty(oldValue, newValue, OTHER_PROPERTY_MASK);
+	}
+	
+	private void markAsDirty(Object oldValue, Object newValue, DirtyProperty property) {
+		markAsDirty(oldValue, newValue, property.mask());
+	}
+	
+	private void markAsDirty(Object oldValue, Object newValue, int mask) {
 		//Should we ignore the case for Strings?
-		if (!isDirty() && obsId != null && !OpenmrsUtil.nullSafeEquals(oldValue, newValue)) {
-			dirty = true;
+		if ((dirtyProperties & mask) == 0 && obsId != null && !OpenmrsUtil.nullSafeEquals(oldValue, newValue)) {
+			dirtyProperties |= mask;
 		}
 	}
 	
+	/**
+	 * Clears the dirty state, called once hibernate has populated this Obs from the database.
+	 * 
+	 * @see ObsPostLoadEventListener
+	 */
+	void clearDirtyProperties() {
+		dirtyProperties = 0;
+	}
+	
 	/**
 	 * Similar to FHIR's Observation.interpretation. Supports a subset of FHIR's Observation
 	 * Interpretation Codes. See https://www.hl7.org/fhir/valueset-observation-interpretation.html
@@ -1223,7 +1331,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @since 2.1.0
 	 */
 	public void setInterpretation(Interpretation interpretation) {
-		markAsDirty(this.interpretation, interpretation);
+		markAsDirty(this.interpretation, interpretation, DirtyProperty.INTERPRETATION);
 		this.interpretation = interpretation;
 	}
 	
@@ -1243,7 +1351,7 @@ public class Obs extends BaseFormRecordableOpenmrsData {
 	 * @since 2.1.0
 	 */
 	public void setStatus(Status status) {
-		markAsDirty(this.status, status);
+		markAsDirty(this.status, status, DirtyProperty.STATUS);
 		this.status = status;
 	}
 
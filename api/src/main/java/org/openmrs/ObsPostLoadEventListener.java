@@ -9,8 +9,6 @@
  */
 package org.openmrs;
 
-import java.lang.reflect.Field;
-
 import javax.annotation.PostConstruct;
 
 import org.hibernate.SessionFactory;
@@ -19,8 +17,6 @@ import org.hibernate.event.spi.EventType;
 import org.hibernate.event.spi.PostLoadEvent;
 import org.hibernate.event.spi.PostLoadEventListener;
 import org.hibernate.internal.SessionFactoryImpl;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -39,8 +35,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class ObsPostLoadEventListener implements PostLoadEventListener {
 	
-	private static final Logger log = LoggerFactory.getLogger(ObsPostLoadEventListener.class);
-	
 	@Autowired
 	private SessionFactory sessionFactory;
 	
@@ -53,21 +47,8 @@ public class ObsPostLoadEventListener implements PostLoadEventListener {
 	
 	@Override
 	public void onPostLoad(PostLoadEvent event) {
-		if (Obs.class.isAssignableFrom(event.getEntity().getClass())) {
-			Field field = null;
-			try {
-				field = Obs.class.getDeclaredField("dirty");
-				field.setAccessible(true);
-				field.set(event.getEntity(), false);
-			}
-			catch (ReflectiveOperationException e) {
-				log.error("Failed to unset an Obs as dirty after being loaded from the database", e);
-			}
-			finally {
-				if (field != null) {
-					field.setAccessible(false);
-				}
-			}
+		if (event.getEntity() instanceof Obs) {
+			((Obs) event.getEntity()).clearDirtyProperties();
 		}
 	}
 }
@@ -23,7 +23,9 @@ import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.Fields;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
+import org.hibernate.search.annotations.Norms;
 import org.hibernate.search.annotations.SortableField;
+import org.openmrs.api.db.hibernate.search.AsyncIndexingInterceptor;
 import org.openmrs.api.db.hibernate.search.LuceneAnalyzers;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
@@ -37,7 +39,7 @@ import org.slf4j.LoggerFactory;
  *
  * @see org.openmrs.PatientIdentifierType
  */
-@Indexed
+@Indexed(interceptor = AsyncIndexingInterceptor.class)
 @Audited
 public class PatientIdentifier extends BaseChangeableOpenmrsData implements java.io.Serializable, Cloneable, Comparable<PatientIdentifier> {
 	
@@ -73,7 +75,7 @@ public class PatientIdentifier extends BaseChangeableOpenmrsData implements java
 	private PatientProgram patientProgram;
 	
 
-	@Field
+	@Field(norms = Norms.NO)
 	private Boolean preferred = false;
 	
 	/** default constructor */
@@ -14,6 +14,7 @@ import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.envers.Audited;
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Norms;
 
 import javax.persistence.AttributeOverride;
 import javax.persistence.AttributeOverrides;
@@ -87,7 +88,7 @@ public class PatientIdentifierType extends BaseChangeableOpenmrsMetadata {
 	@Column(name = "format")
 	private String format;
 
-	@Field
+	@Field(norms = Norms.NO)
 	@Column(name = "required", nullable = false)
 	private Boolean required = Boolean.FALSE;
 
@@ -32,6 +32,7 @@ import org.hibernate.search.annotations.DateBridge;
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.EncodingType;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Norms;
 import org.hibernate.search.annotations.Resolution;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
@@ -64,11 +65,11 @@ public class Person extends BaseChangeableOpenmrsData {
 	@ContainedIn
 	private Set<PersonAttribute> attributes = null;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	private String gender;
 	
 
-	@Field(analyze = Analyze.YES)
+	@Field(analyze = Analyze.YES, norms = Norms.NO)
 	@DateBridge(encoding = EncodingType.STRING, resolution = Resolution.DAY)
 	private Date birthdate;
 	
@@ -78,7 +79,7 @@ public class Person extends BaseChangeableOpenmrsData {
 	
 	private Boolean deathdateEstimated = false;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	private Boolean dead = false;
 	
 	private Date deathDate;
@@ -103,7 +104,7 @@ public class Person extends BaseChangeableOpenmrsData {
 	
 	private String personVoidReason;
 	
-	@Field
+	@Field(norms = Norms.NO)
 	@NotAudited
 	private boolean isPatient;
 	
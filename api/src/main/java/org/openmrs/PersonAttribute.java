@@ -25,6 +25,7 @@ import org.hibernate.search.annotations.Fields;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.search.AsyncIndexingInterceptor;
 import org.openmrs.api.db.hibernate.search.LuceneAnalyzers;
 import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsUtil;
@@ -42,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * @see org.openmrs.PersonAttributeType
  * @see org.openmrs.Attributable
  */
-@Indexed
+@Indexed(interceptor = AsyncIndexingInterceptor.class)
 @Audited
 public class PersonAttribute extends BaseChangeableOpenmrsData implements java.io.Serializable, Comparable<PersonAttribute> {
 	
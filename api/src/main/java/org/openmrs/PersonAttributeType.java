@@ -12,6 +12,7 @@ package org.openmrs;
 import org.codehaus.jackson.annotate.JsonIgnore;
 import org.hibernate.envers.Audited;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Norms;
 import org.openmrs.util.OpenmrsUtil;
 
 import javax.persistence.Column;
@@ -49,7 +50,7 @@ public class PersonAttributeType extends BaseChangeableOpenmrsMetadata implement
 	@Column(name = "sort_weight", nullable = false)
 	private Double sortWeight;
 
-	@Field
+	@Field(norms = Norms.NO)
 	@Column(name = "searchable", nullable = false)
 	private Boolean searchable = false;
 	
@@ -46,7 +46,9 @@ public @interface Authorized {
 	
 	/**
 	 * Returns the list of privileges needed to access a method. (i.e. "View Users"). Multiple
-	 * privileges are compared with an "or" unless <code>requireAll</code> is set to true
+	 * privileges are compared with an "or" unless <code>requireAll</code> is set to true. A blank
+	 * privilege anywhere in the list lets everyone access the method, even if all privileges are
+	 * required.
 	 * 
 	 * @return String[] The secure method attributes
 	 */
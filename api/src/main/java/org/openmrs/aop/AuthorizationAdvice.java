@@ -10,22 +10,25 @@
 package org.openmrs.aop;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.User;
-import org.openmrs.annotation.AuthorizedAnnotationAttributes;
 import org.openmrs.api.APIAuthenticationException;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Daemon;
-import org.openmrs.util.PrivilegeConstants;
+import org.openmrs.api.context.UserContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.MethodBeforeAdvice;
 
 /**
  * This class provides the authorization AOP advice performed before every service layer method
- * call.
+ * call. The {@link org.openmrs.annotation.Authorized} annotation of a method is only read the first
+ * time the method is called.
  */
 public class AuthorizationAdvice implements MethodBeforeAdvice {
 	
@@ -35,6 +38,18 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 	private static final Logger log = LoggerFactory.getLogger(AuthorizationAdvice.class);
         private static final String USER_IS_NOT_AUTHORIZED_TO_ACCESS = "User {} is not authorized to access {}";
 	
+	/**
+	 * The authorization plans of the service methods called so far by declaring class, so that the
+	 * plans of module classes go away with their class loader
+	 */
+	private static final ClassValue<Map<Method, AuthorizationPlan>> plans = new ClassValue<Map<Method, AuthorizationPlan>>() {
+		
+		@Override
+		protected Map<Method, AuthorizationPlan> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
 	/**
 	 * Allows us to check whether a user is authorized to access a particular method.
 	 * 
@@ -60,51 +75,48 @@ public class AuthorizationAdvice implements MethodBeforeAdvice {
 			return;
 		}
 		
-		AuthorizedAnnotationAttributes attributes = new AuthorizedAnnotationAttributes();
-		Collection<String> privileges = attributes.getAttributes(method);
-		boolean requireAll = attributes.getRequireAll(method);
+		AuthorizationPlan plan = plans.get(method.getDeclaringClass()).computeIfAbsent(method,
+		    AuthorizationPlan::of);
+		if (plan.isUnrestricted()) {
+			return;
+		}
+		
+		UserContext userContext = Context.getUserContext();
+		String[] privileges = plan.getPrivileges();
+		boolean requireAll = plan.isRequireAll();
 		
 		// Only execute if the "secure" method has authorization attributes
 		// Iterate through required privileges and return only if the user has
 		// one of them
-		if (!privileges.isEmpty()) {
-			try {
-				Context.addProxyPrivilege(PrivilegeConstants.GET_ROLES);
-				for (String privilege : privileges) {
-					// skip null privileges
-					if (privilege == null || privilege.isEmpty()) {
+		if (privileges.length > 0) {
+			for (String privilege : privileges) {
+				boolean hasPrivilege = userContext.hasPrivilege(privilege);
+				log.debug("User has privilege {}? {}", privilege, hasPrivilege);
+				
+				if (hasPrivilege) {
+					if (!requireAll) {
+						// if not all required, the first one that they have
+						// causes them to "pass"
 						return;
 					}
-					boolean hasPrivilege  = Context.hasPrivilege(privilege);
-					log.debug("User has privilege {}? {}", privilege, hasPrivilege);
-
-					if (hasPrivilege) {
-						if (!requireAll) {
-							// if not all required, the first one that they have
-							// causes them to "pass"
-							return;
-						}
-					} else {
-						if (requireAll) {
-							// if all are required, the first miss causes them
-							// to "fail"
-							throwUnauthorized(Context.getAuthenticatedUser(), method, privilege);
-						}
+				} else {
+					if (requireAll) {
+						// if all are required, the first miss causes them
+						// to "fail"
+						throwUnauthorized(userContext.getAuthenticatedUser(), method, privilege);
 					}
 				}
-			} finally {
-				Context.removeProxyPrivilege(PrivilegeConstants.GET_ROLES);
 			}
 			
 			if (!requireAll) {
 				// If there's no match, then we know there are privileges and
 				// that the user didn't have any of them. The user is not
 				// authorized to access the method
-				throwUnauthorized(Context.getAuthenticatedUser(), method, privileges);
+				throwUnauthorized(userContext.getAuthenticatedUser(), method, Arrays.asList(privileges));
 			}
 			
-		} else if (attributes.hasAuthorizedAnnotation(method) && !Context.isAuthenticated()) {
-			throwUnauthorized(Context.getAuthenticatedUser(), method);
+		} else if (plan.isAuthenticatedOnly() && !userContext.isAuthenticated()) {
+			throwUnauthorized(userContext.getAuthenticatedUser(), method);
 		}
 	}
 	
@@ -0,0 +1,99 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.annotation.Authorized;
+
+/**
+ * What a service method requires of the user calling it, read once from its {@link Authorized}
+ * annotation: the privileges, whether all of them are required, or only that the user is
+ * authenticated.
+ * 
+ * @since 2.8.0
+ */
+final class AuthorizationPlan {
+	
+	/**
+	 * The plan of methods without the annotation, and of methods that list a blank privilege
+	 * anywhere, also after privileges that are all required. The privileges used to be checked in
+	 * the iteration order of a HashSet, which in practice put the blank privilege first, except when
+	 * a privilege happened to share its bucket.
+	 */
+	static final AuthorizationPlan UNRESTRICTED = new AuthorizationPlan(new String[0], false, false);
+	
+	private static final AuthorizationPlan AUTHENTICATED = new AuthorizationPlan(new String[0], false, true);
+	
+	private final String[] privileges;
+	
+	private final boolean requireAll;
+	
+	private final boolean authenticatedOnly;
+	
+	private AuthorizationPlan(String[] privileges, boolean requireAll, boolean authenticatedOnly) {
+		this.privileges = privileges;
+		this.requireAll = requireAll;
+		this.authenticatedOnly = authenticatedOnly;
+	}
+	
+	/**
+	 * Reads the plan of the given method
+	 * 
+	 * @param method the service method
+	 * @return the plan
+	 */
+	static AuthorizationPlan of(Method method) {
+		Authorized authorized = method.getAnnotation(Authorized.class);
+		if (authorized == null) {
+			return UNRESTRICTED;
+		}
+		
+		Set<String> privileges = new LinkedHashSet<>();
+		for (String privilege : authorized.value()) {
+			if (StringUtils.isEmpty(privilege)) {
+				return UNRESTRICTED;
+			}
+			privileges.add(privilege);
+		}
+		if (privileges.isEmpty()) {
+			return AUTHENTICATED;
+		}
+		return new AuthorizationPlan(privileges.toArray(new String[0]), authorized.requireAll(), false);
+	}
+	
+	boolean isUnrestricted() {
+		return this == UNRESTRICTED;
+	}
+	
+	/**
+	 * @return the required privileges in the order of the annotation, not to be modified
+	 */
+	String[] getPrivileges() {
+		return privileges;
+	}
+	
+	/**
+	 * @return true if the user needs all privileges, false if one of them is enough
+	 */
+	boolean isRequireAll() {
+		return requireAll;
+	}
+	
+	/**
+	 * @return true if the method requires an authenticated user but no privileges
+	 */
+	boolean isAuthenticatedOnly() {
+		return authenticatedOnly;
+	}
+}
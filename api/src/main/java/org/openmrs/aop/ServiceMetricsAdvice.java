@@ -0,0 +1,113 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openmrs.api.db.hibernate.HibernateCallCounters;
+import org.openmrs.util.metrics.MetricsReporter;
+import org.openmrs.util.metrics.ServiceMethodStats;
+import org.openmrs.util.metrics.ServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * This class provides the "around" advice that measures the latency, the failures and the number
+ * of SQL statements and entity loads of every service method call. The statistics are kept in
+ * {@link ServiceMetrics} which is exposed over JMX, calls slower than the configured threshold are
+ * logged as warnings and every call is passed on to any {@link MetricsReporter} beans so modules
+ * can export them to a monitoring system. It is the outermost of the service interceptors, see
+ * applicationContext-service.xml
+ * 
+ * @since 2.8.0
+ */
+public class ServiceMetricsAdvice implements MethodInterceptor {
+	
+	private static final Logger log = LoggerFactory.getLogger(ServiceMetricsAdvice.class);
+	
+	private final ServiceMetrics metrics;
+	
+	private List<MetricsReporter> reporters = Collections.emptyList();
+	
+	public ServiceMetricsAdvice() {
+		this(ServiceMetrics.getInstance());
+	}
+	
+	public ServiceMetricsAdvice(ServiceMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	@Autowired(required = false)
+	public void setReporters(List<MetricsReporter> reporters) {
+		this.reporters = reporters == null ? Collections.emptyList() : reporters;
+	}
+	
+	@PostConstruct
+	public void registerMBean() {
+		metrics.registerMBean();
+	}
+	
+	@PreDestroy
+	public void unregisterMBean() {
+		metrics.unregisterMBean();
+	}
+	
+	/**
+	 * @see org.aopalliance.intercept.MethodInterceptor#invoke(org.aopalliance.intercept.MethodInvocation)
+	 */
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		if (!metrics.isEnabled()) {
+			return invocation.proceed();
+		}
+		
+		long statements = HibernateCallCounters.getStatementCount();
+		long loads = HibernateCallCounters.getEntityLoadCount();
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			Object result = invocation.proceed();
+			failed = false;
+			return result;
+		}
+		finally {
+			record(invocation.getMethod(), System.nanoTime() - start, failed,
+			    HibernateCallCounters.getStatementCount() - statements, HibernateCallCounters.getEntityLoadCount() - loads);
+		}
+	}
+	
+	private void record(Method method, long nanos, boolean failed, long statements, long loads) {
+		ServiceMethodStats stats = metrics.getStats(method);
+		stats.record(nanos, failed, statements, loads);
+		
+		if (metrics.isSlow(nanos)) {
+			log.warn("Slow service call {} took {} ms, {} SQL statements, {} entities loaded{}", stats.getName(),
+			    TimeUnit.NANOSECONDS.toMillis(nanos), statements, loads, failed ? ", failed" : "");
+		}
+		
+		for (MetricsReporter reporter : reporters) {
+			try {
+				reporter.recordServiceCall(method, nanos, failed, statements, loads);
+			}
+			catch (RuntimeException e) {
+				log.debug("Metrics reporter {} failed", reporter.getClass().getName(), e);
+			}
+		}
+	}
+}
@@ -9,6 +9,7 @@
  */
 package org.openmrs.api;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -76,6 +77,18 @@ public interface DatatypeService extends OpenmrsService {
 	 */
 	ClobDatatypeStorage getClobDatatypeStorageByUuid(String uuid);
 	
+	/**
+	 * Gets the clob storage objects with the given uuids in a single query, this is much faster than
+	 * calling {@link #getClobDatatypeStorageByUuid(String)} once per value
+	 * 
+	 * @param uuids
+	 * @return the clob storage objects found, in no particular order
+	 * @since 2.8.0
+	 * <strong>Should</strong> return all clob storage objects with the given uuids
+	 * <strong>Should</strong> return an empty list if no uuids are given
+	 */
+	List<ClobDatatypeStorage> getClobDatatypeStoragesByUuids(Collection<String> uuids);
+	
 	/**
 	 * Creates or updates a clob storage object
 	 * 
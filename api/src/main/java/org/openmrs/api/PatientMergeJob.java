@@ -0,0 +1,195 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A merge of several patients into a preferred patient that runs in a background thread. Every
+ * not preferred patient is merged in its own transaction, so patients merged before a failure stay
+ * merged and the job stops at the first failure.
+ * <p>
+ * The job runs as the user that was authenticated when it was created, in a user context of its
+ * own, so it is not affected by the caller logging out or changing its context meanwhile.
+ * 
+ * @see PatientService#mergePatientsInBackground(Patient, List)
+ * @since 2.8.0
+ */
+public class PatientMergeJob implements Runnable {
+	
+	private static final Logger log = LoggerFactory.getLogger(PatientMergeJob.class);
+	
+	public enum Status {
+		PENDING, RUNNING, COMPLETED, FAILED
+	}
+	
+	private final Integer preferredPatientId;
+	
+	private final List<Integer> notPreferredPatientIds;
+	
+	private final UserContext.Snapshot userContextSnapshot;
+	
+	private final AtomicInteger mergedCount = new AtomicInteger();
+	
+	private volatile Status status = Status.PENDING;
+	
+	private volatile Integer failedPatientId;
+	
+	private volatile Throwable failure;
+	
+	private volatile Future<?> future;
+	
+	/**
+	 * @param preferred the patient the others are merged into
+	 * @param notPreferred the patients to merge
+	 * @param userContext the user context whose authenticated user, locale and location the merges
+	 *            run with
+	 */
+	public PatientMergeJob(Patient preferred, List<Patient> notPreferred, UserContext userContext) {
+		this.preferredPatientId = preferred.getPatientId();
+		List<Integer> ids = new ArrayList<>(notPreferred.size());
+		for (Patient patient : notPreferred) {
+			ids.add(patient.getPatientId());
+		}
+		this.notPreferredPatientIds = Collections.unmodifiableList(ids);
+		this.userContextSnapshot = userContext.snapshot();
+	}
+	
+	@Override
+	public void run() {
+		status = Status.RUNNING;
+		Context.openSession();
+		try {
+			UserContext userContext = userContextSnapshot != null
+			        ? new UserContext(Context.getAuthenticationScheme(), userContextSnapshot)
+			        : null;
+			if (userContext == null || !userContext.isAuthenticated()) {
+				throw new APIAuthenticationException("The user who started the merge is not available anymore");
+			}
+			Context.setUserContext(userContext);
+			PatientService patientService = Context.getPatientService();
+			for (Integer id : notPreferredPatientIds) {
+				failedPatientId = id;
+				patientService.mergePatients(patientService.getPatient(preferredPatientId), patientService.getPatient(id));
+				// keeps the session small and makes the next merge start from the committed state
+				Context.clearSession();
+				mergedCount.incrementAndGet();
+				log.debug("Merged patient {} into {} ({} of {})", id, preferredPatientId, mergedCount.get(),
+				    notPreferredPatientIds.size());
+			}
+			failedPatientId = null;
+			status = Status.COMPLETED;
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to merge patient {} into {}", failedPatientId, preferredPatientId, e);
+			failure = e;
+			status = Status.FAILED;
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	/**
+	 * Waits for the job to finish
+	 * 
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if the job has finished, false if the timeout elapsed
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		Future<?> f = future;
+		if (f == null) {
+			return isDone();
+		}
+		try {
+			f.get(timeout, unit);
+		}
+		catch (TimeoutException e) {
+			return false;
+		}
+		catch (ExecutionException e) {
+			// failures are reported through getFailure()
+		}
+		return true;
+	}
+	
+	/**
+	 * @param future the future of the submitted job, used by {@link #await(long, TimeUnit)}
+	 */
+	public void setFuture(Future<?> future) {
+		this.future = future;
+	}
+	
+	public Integer getPreferredPatientId() {
+		return preferredPatientId;
+	}
+	
+	public List<Integer> getNotPreferredPatientIds() {
+		return notPreferredPatientIds;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	public boolean isDone() {
+		return status == Status.COMPLETED || status == Status.FAILED;
+	}
+	
+	/**
+	 * @return the number of patients merged so far
+	 */
+	public int getMergedCount() {
+		return mergedCount.get();
+	}
+	
+	/**
+	 * @return the number of patients to merge
+	 */
+	public int getTotalCount() {
+		return notPreferredPatientIds.size();
+	}
+	
+	/**
+	 * @return the percentage of patients merged so far
+	 */
+	public int getProgress() {
+		return notPreferredPatientIds.isEmpty() ? 100 : mergedCount.get() * 100 / notPreferredPatientIds.size();
+	}
+	
+	/**
+	 * @return the id of the patient whose merge failed, null unless the job failed
+	 */
+	public Integer getFailedPatientId() {
+		return status == Status.FAILED ? failedPatientId : null;
+	}
+	
+	/**
+	 * @return the exception that made the job fail, null unless the job failed
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+}
@@ -25,6 +25,8 @@ import org.openmrs.annotation.Authorized;
 import org.openmrs.api.db.PatientDAO;
 import org.openmrs.comparator.PatientIdentifierTypeDefaultComparator;
 import org.openmrs.patient.IdentifierValidator;
+import org.openmrs.patient.duplicate.DuplicateCandidateWriter;
+import org.openmrs.patient.duplicate.DuplicatePatientDetector;
 import org.openmrs.person.PersonMergeLogData;
 import org.openmrs.serialization.SerializationException;
 import org.openmrs.util.PrivilegeConstants;
@@ -491,6 +493,24 @@ public interface PatientService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.GET_PATIENTS })
 	public List<Patient> getDuplicatePatientsByAttributes(List<String> attributes) throws APIException;
 	
+	/**
+	 * Finds likely duplicate patients with a {@link DuplicatePatientDetector}. Unlike
+	 * {@link #getDuplicatePatientsByAttributes(List)} names are matched by similarity and only
+	 * patients sharing a blocking key are compared, so the cost grows with the number of patients
+	 * rather than with its square.
+	 * 
+	 * @param changedSince only pairs involving a patient created or changed after this date are
+	 *            scored, null to score all pairs
+	 * @param writer receives the candidate pairs block by block while the detection runs
+	 * @return the number of candidate pairs written
+	 * @throws APIException if the candidates cannot be written
+	 * <strong>Should</strong> find patients with similar names and the same birthdate
+	 * <strong>Should</strong> only score pairs involving patients changed since the given date
+	 * @since 2.8.0
+	 */
+	@Authorized( { PrivilegeConstants.GET_PATIENTS })
+	public int findDuplicatePatients(Date changedSince, DuplicateCandidateWriter writer) throws APIException;
+	
 	/**
 	 * Convenience method to join two patients' information into one record.
 	 * <ol>
@@ -564,6 +584,21 @@ public interface PatientService extends OpenmrsService {
 	 * <strong>Should</strong> merge all non Preferred patients in the the notPreferred list to preferred patient
 	 */
 	public void mergePatients(Patient preferred, List<Patient> notPreferred) throws APIException, SerializationException;
+	
+	/**
+	 * Merges multiple patients into one in a background thread, each not preferred patient in its
+	 * own transaction, and returns immediately. The progress and the outcome of the merge are
+	 * reported by the returned job.
+	 * 
+	 * @param preferred
+	 * @param notPreferred
+	 * @return the job merging the patients
+	 * @since 2.8.0
+	 * <strong>Should</strong> merge all patients and report progress
+	 * <strong>Should</strong> stop and report the failing patient if a merge fails
+	 */
+	@Authorized( { PrivilegeConstants.EDIT_PATIENTS })
+	public PatientMergeJob mergePatientsInBackground(Patient preferred, List<Patient> notPreferred) throws APIException;
 		
 	/**
 	 * Convenience method to establish that a patient has died. In addition to exiting the patient
@@ -9,6 +9,7 @@
  */
 package org.openmrs.api;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -165,6 +166,26 @@ public interface UserService extends OpenmrsService {
 	@Authorized( { PrivilegeConstants.EDIT_USERS })
 	public User retireUser(User user, String reason) throws APIException;
 	
+	/**
+	 * Retires the next batch of users that are not retired and did not log in since the given date,
+	 * or never logged in and were created before it, with a single update. Superusers are never
+	 * retired. Callers retiring many users can pass the id of the last user retired by the previous
+	 * batch and retire each batch in its own transaction.
+	 * 
+	 * @param inactiveSince users inactive since this date are retired
+	 * @param reason the retire reason
+	 * @param afterUserId only users with a greater id are retired, null to start at the first
+	 * @param batchSize the maximum number of users to retire
+	 * @return the ids of the retired users in ascending order, an empty list if there are none left
+	 * @throws APIException
+	 * @since 2.8.0
+	 * <strong>Should</strong> retire users that did not log in since the given date
+	 * <strong>Should</strong> not retire superusers
+	 */
+	@Authorized( { PrivilegeConstants.EDIT_USERS })
+	public List<Integer> retireInactiveUsers(Date inactiveSince, String reason, Integer afterUserId, int batchSize)
+	        throws APIException;
+	
 	/**
 	 * Clears retired flag for a user.
 	 * 
@@ -393,4 +393,41 @@ public interface VisitService extends OpenmrsService {
 	 */
 	@Authorized(PrivilegeConstants.EDIT_VISITS)
 	public void stopVisits(Date maximumStartDate);
+	
+	/**
+	 * Stops the next batch of active visits started before or on the specified date which match any
+	 * of the visit types specified by the {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE} global
+	 * property, with a single update. Callers stopping many visits can pass the id of the last visit
+	 * stopped by the previous batch and stop each batch in its own transaction.
+	 * 
+	 * @param maximumStartDate Visits started on or before this date time value will get stopped, null
+	 *            for now
+	 * @param afterVisitId only visits with a greater id are stopped, null to start at the first
+	 * @param batchSize the maximum number of visits to stop
+	 * @return the ids of the stopped visits in ascending order, an empty list if there are none left
+	 * @since 2.8.0
+	 * <strong>Should</strong> stop at most the given number of visits
+	 * <strong>Should</strong> set the changed by and date changed of the stopped visits
+	 */
+	@Authorized(PrivilegeConstants.EDIT_VISITS)
+	public List<Integer> stopVisits(Date maximumStartDate, Integer afterVisitId, int batchSize);
+	
+	/**
+	 * Gets the visit an encounter of a patient at a location and date belongs to, i.e. the most
+	 * recently started non voided visit of the patient that started on or before the date, did not
+	 * stop before it and has no location or a location the given location is in the hierarchy of.
+	 * The visit found for a patient is remembered for a few seconds, so that encounters created in
+	 * bulk for the same patient do not search for it again.
+	 * 
+	 * @param patient the patient
+	 * @param location the location of the encounter, may be null
+	 * @param date the date of the encounter
+	 * @return the matching visit or null
+	 * <strong>Should</strong> return the most recently started visit matching the patient, location and date
+	 * <strong>Should</strong> not return visits which stopped before the date
+	 * <strong>Should</strong> not return a remembered visit after it was voided
+	 * @since 2.8.0
+	 */
+	@Authorized(PrivilegeConstants.GET_VISITS)
+	public Visit getOpenVisit(Patient patient, Location location, Date date) throws APIException;
 }
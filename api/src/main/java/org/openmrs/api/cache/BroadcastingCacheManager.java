@@ -0,0 +1,139 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Decorates the API cache manager so that evictions of Spring cache entries are also sent to the
+ * other nodes by the {@link CacheInvalidationBus}. The caches of the delegate are returned as they
+ * are while no transport is configured.
+ * 
+ * @since 2.8.0
+ */
+public class BroadcastingCacheManager implements CacheManager, InitializingBean {
+	
+	private final CacheManager delegate;
+	
+	public BroadcastingCacheManager(CacheManager delegate) {
+		this.delegate = delegate;
+	}
+	
+	/**
+	 * @return the decorated cache manager
+	 */
+	public CacheManager getDelegate() {
+		return delegate;
+	}
+	
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (delegate instanceof InitializingBean) {
+			((InitializingBean) delegate).afterPropertiesSet();
+		}
+	}
+	
+	@Override
+	public Cache getCache(String name) {
+		Cache cache = delegate.getCache(name);
+		if (cache == null || CacheInvalidationBus.getInstance() == null) {
+			return cache;
+		}
+		return new BroadcastingCache(cache);
+	}
+	
+	@Override
+	public Collection<String> getCacheNames() {
+		return delegate.getCacheNames();
+	}
+	
+	private static class BroadcastingCache implements Cache {
+		
+		private final Cache cache;
+		
+		BroadcastingCache(Cache cache) {
+			this.cache = cache;
+		}
+		
+		@Override
+		public String getName() {
+			return cache.getName();
+		}
+		
+		@Override
+		public Object getNativeCache() {
+			return cache.getNativeCache();
+		}
+		
+		@Override
+		public ValueWrapper get(Object key) {
+			return cache.get(key);
+		}
+		
+		@Override
+		public <T> T get(Object key, Class<T> type) {
+			return cache.get(key, type);
+		}
+		
+		@Override
+		public <T> T get(Object key, Callable<T> valueLoader) {
+			return cache.get(key, valueLoader);
+		}
+		
+		@Override
+		public void put(Object key, Object value) {
+			cache.put(key, value);
+		}
+		
+		@Override
+		public ValueWrapper putIfAbsent(Object key, Object value) {
+			return cache.putIfAbsent(key, value);
+		}
+		
+		@Override
+		public void evict(Object key) {
+			cache.evict(key);
+			broadcast(key);
+		}
+		
+		@Override
+		public boolean evictIfPresent(Object key) {
+			boolean present = cache.evictIfPresent(key);
+			broadcast(key);
+			return present;
+		}
+		
+		@Override
+		public void clear() {
+			cache.clear();
+			broadcast(null);
+		}
+		
+		@Override
+		public boolean invalidate() {
+			boolean invalidated = cache.invalidate();
+			broadcast(null);
+			return invalidated;
+		}
+		
+		private void broadcast(Object key) {
+			CacheInvalidationBus bus = CacheInvalidationBus.getInstance();
+			if (bus != null) {
+				// keys which cannot be sent, such as the SimpleKeys of multi-argument methods, clear the cache
+				bus.invalidate(CacheInvalidation.namedCache(cache.getName(), key));
+			}
+		}
+	}
+}
@@ -36,7 +36,7 @@ public class CacheConfig {
 
     @Bean(name = "apiCacheManager")
     public CacheManager cacheManager() {
-        return new EhCacheCacheManager(apiCacheManagerFactoryBean().getObject());
+        return new BroadcastingCacheManager(new EhCacheCacheManager(apiCacheManagerFactoryBean().getObject()));
     }
 
 
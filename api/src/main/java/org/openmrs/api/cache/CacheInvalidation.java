@@ -0,0 +1,119 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A cache entry or region that has to be evicted on the other nodes of a cluster, see
+ * {@link CacheInvalidationBus}. Only keys of type Integer, Long and String are sent to other nodes,
+ * an invalidation of any other key invalidates the whole region or cache instead.
+ * 
+ * @since 2.8.0
+ */
+public final class CacheInvalidation {
+	
+	public enum Type {
+		/**
+		 * An entity in the Hibernate second level cache, the name is the entity name
+		 */
+		ENTITY,
+		/**
+		 * A collection in the Hibernate second level cache, the name is the collection role and the
+		 * key is the id of the owner
+		 */
+		COLLECTION,
+		/**
+		 * An entry of a Spring cache, the name is the cache name
+		 */
+		NAMED_CACHE
+	}
+	
+	private final Type type;
+	
+	private final String name;
+	
+	private final Serializable key;
+	
+	public CacheInvalidation(Type type, String name, Object key) {
+		this.type = Objects.requireNonNull(type);
+		this.name = Objects.requireNonNull(name);
+		this.key = isSupportedKey(key) ? (Serializable) key : null;
+	}
+	
+	/**
+	 * @param entityName the entity name
+	 * @param id the id of the entity or null to invalidate all entities of the type
+	 * @return the invalidation
+	 */
+	public static CacheInvalidation entity(String entityName, Object id) {
+		return new CacheInvalidation(Type.ENTITY, entityName, id);
+	}
+	
+	/**
+	 * @param role the collection role
+	 * @param ownerId the id of the owner or null to invalidate the collections of all owners
+	 * @return the invalidation
+	 */
+	public static CacheInvalidation collection(String role, Object ownerId) {
+		return new CacheInvalidation(Type.COLLECTION, role, ownerId);
+	}
+	
+	/**
+	 * @param cacheName the name of the Spring cache
+	 * @param key the key of the entry or null to clear the cache
+	 * @return the invalidation
+	 */
+	public static CacheInvalidation namedCache(String cacheName, Object key) {
+		return new CacheInvalidation(Type.NAMED_CACHE, cacheName, key);
+	}
+	
+	static boolean isSupportedKey(Object key) {
+		return key instanceof Integer || key instanceof Long || key instanceof String;
+	}
+	
+	public Type getType() {
+		return type;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return the key or null if the whole region or cache is invalidated
+	 */
+	public Serializable getKey() {
+		return key;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CacheInvalidation)) {
+			return false;
+		}
+		CacheInvalidation other = (CacheInvalidation) o;
+		return type == other.type && name.equals(other.name) && Objects.equals(key, other.key);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, name, key);
+	}
+	
+	@Override
+	public String toString() {
+		return type + ":" + name + (key == null ? "" : "#" + key);
+	}
+}
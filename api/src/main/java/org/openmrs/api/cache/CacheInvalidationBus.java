@@ -0,0 +1,417 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openmrs.api.context.Context;
+import org.openmrs.util.OpenmrsClassLoader;
+import org.openmrs.util.metrics.LatencyHistogram;
+import org.openmrs.util.metrics.MBeans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the Hibernate second level cache, the Spring caches and registered
+ * {@link CacheInvalidationListener}s of several OpenMRS nodes sharing one database coherent.
+ * <p>
+ * Invalidations caused by a transaction are collected and sent to the other nodes once it has
+ * committed, each receiving node then evicts the affected entries from its own caches. Nothing is
+ * sent unless a transport is configured with the runtime property
+ * <tt>cache.invalidation.transport</tt>, which is either <tt>udp</tt> for the
+ * {@link UdpCacheInvalidationTransport} or the class name of a {@link CacheInvalidationTransport}.
+ * <p>
+ * Changes made with bulk HQL or SQL statements bypass the Hibernate interceptor and are only
+ * broadcast if they are reported with {@link #entitiesChanged(Class, Collection)}, query cache
+ * regions are never broadcast.
+ * 
+ * @since 2.8.0
+ */
+@Component
+public class CacheInvalidationBus implements CacheInvalidationBusMBean {
+	
+	private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+	
+	public static final String OBJECT_NAME = "org.openmrs:type=CacheInvalidationBus";
+	
+	public static final String TRANSPORT_PROPERTY = "cache.invalidation.transport";
+	
+	private static volatile CacheInvalidationBus instance;
+	
+	private final String nodeId = UUID.randomUUID().toString();
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	@Qualifier("apiCacheManager")
+	private CacheManager cacheManager;
+	
+	@Autowired(required = false)
+	private List<CacheInvalidationListener> listeners = Collections.emptyList();
+	
+	private volatile CacheInvalidationTransport transport;
+	
+	private final LongAdder published = new LongAdder();
+	
+	private final LongAdder received = new LongAdder();
+	
+	private final LongAdder applied = new LongAdder();
+	
+	private final LongAdder failed = new LongAdder();
+	
+	private final LatencyHistogram lag = new LatencyHistogram();
+	
+	private volatile long lastReceived;
+	
+	public CacheInvalidationBus() {
+	}
+	
+	CacheInvalidationBus(SessionFactory sessionFactory, CacheManager cacheManager, List<CacheInvalidationListener> listeners) {
+		this.sessionFactory = sessionFactory;
+		this.cacheManager = cacheManager;
+		this.listeners = listeners;
+	}
+	
+	/**
+	 * @return the bus or null if no transport is configured
+	 */
+	public static CacheInvalidationBus getInstance() {
+		return instance;
+	}
+	
+	@PostConstruct
+	public void init() {
+		Properties properties = Context.getRuntimeProperties();
+		String transportName = properties.getProperty(TRANSPORT_PROPERTY, "none").trim();
+		if (StringUtils.isBlank(transportName) || "none".equalsIgnoreCase(transportName)) {
+			return;
+		}
+		try {
+			CacheInvalidationTransport newTransport;
+			if ("udp".equalsIgnoreCase(transportName)) {
+				newTransport = new UdpCacheInvalidationTransport();
+			} else {
+				newTransport = (CacheInvalidationTransport) OpenmrsClassLoader.getInstance().loadClass(transportName)
+				        .newInstance();
+			}
+			start(newTransport, properties);
+		}
+		catch (IOException | ReflectiveOperationException | ClassCastException e) {
+			log.error("Unable to start the cache invalidation transport {}, caches of other nodes will not be invalidated",
+			    transportName, e);
+			return;
+		}
+		MBeans.register(this, OBJECT_NAME);
+		log.info("Broadcasting cache invalidations from node {} using {}", nodeId, transport.getClass().getName());
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		stop();
+		MBeans.unregister(OBJECT_NAME);
+	}
+	
+	/**
+	 * Starts broadcasting invalidations with the given transport
+	 * 
+	 * @param transport the transport to use
+	 * @param properties passed on to the transport
+	 * @throws IOException if the transport cannot be started
+	 */
+	void start(CacheInvalidationTransport transport, Properties properties) throws IOException {
+		transport.start(properties, this::receive);
+		this.transport = transport;
+		instance = this;
+	}
+	
+	void stop() {
+		if (instance == this) {
+			instance = null;
+		}
+		CacheInvalidationTransport stopped = transport;
+		transport = null;
+		if (stopped != null) {
+			stopped.stop();
+		}
+	}
+	
+	/**
+	 * @return the id of this node
+	 */
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+	
+	/**
+	 * Broadcasts an invalidation of the entity if its type is cached in the second level cache.
+	 * 
+	 * @param entity the changed or deleted entity
+	 * @param id the id of the entity
+	 */
+	public void entityChanged(Object entity, Serializable id) {
+		EntityPersister persister;
+		try {
+			persister = getSessionFactoryImplementor().getMetamodel().entityPersister(Hibernate.getClass(entity));
+		}
+		catch (HibernateException e) {
+			return;
+		}
+		if (persister.canWriteToCache()) {
+			invalidate(CacheInvalidation.entity(persister.getEntityName(), id));
+		}
+	}
+	
+	/**
+	 * Broadcasts invalidations of the entities if their type is cached in the second level cache,
+	 * meant for entities changed with bulk statements.
+	 * 
+	 * @param entityClass the type of the changed or deleted entities
+	 * @param ids the ids of the entities
+	 */
+	public void entitiesChanged(Class<?> entityClass, Collection<? extends Serializable> ids) {
+		if (transport == null || ids.isEmpty()) {
+			return;
+		}
+		EntityPersister persister;
+		try {
+			persister = getSessionFactoryImplementor().getMetamodel().entityPersister(entityClass);
+		}
+		catch (HibernateException e) {
+			return;
+		}
+		if (persister.canWriteToCache()) {
+			for (Serializable id : ids) {
+				invalidate(CacheInvalidation.entity(persister.getEntityName(), id));
+			}
+		}
+	}
+	
+	/**
+	 * Broadcasts an invalidation of the collection if its role is cached in the second level cache.
+	 * 
+	 * @param collection the changed or removed persistent collection
+	 * @param ownerId the id of the owner of the collection
+	 */
+	public void collectionChanged(Object collection, Serializable ownerId) {
+		if (!(collection instanceof PersistentCollection)) {
+			return;
+		}
+		String role = ((PersistentCollection) collection).getRole();
+		if (role == null) {
+			return;
+		}
+		CollectionPersister persister;
+		try {
+			persister = getSessionFactoryImplementor().getMetamodel().collectionPersister(role);
+		}
+		catch (HibernateException e) {
+			return;
+		}
+		if (persister.hasCache()) {
+			invalidate(CacheInvalidation.collection(role, ownerId));
+		}
+	}
+	
+	/**
+	 * Sends the invalidation to the other nodes once the current transaction commits, or immediately
+	 * if there is no transaction.
+	 * 
+	 * @param invalidation the invalidation to send
+	 */
+	public void invalidate(CacheInvalidation invalidation) {
+		if (transport == null) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publish(Collections.singletonList(invalidation));
+			return;
+		}
+		PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new PendingInvalidations();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		pending.invalidations.add(invalidation);
+	}
+	
+	private void publish(List<CacheInvalidation> invalidations) {
+		CacheInvalidationTransport current = transport;
+		if (current == null || invalidations.isEmpty()) {
+			return;
+		}
+		try {
+			current.publish(new CacheInvalidationMessage(nodeId, System.currentTimeMillis(), invalidations));
+			published.add(invalidations.size());
+		}
+		catch (IOException e) {
+			log.error("Failed to send {} cache invalidations to the other nodes", invalidations.size(), e);
+		}
+	}
+	
+	/**
+	 * Applies the invalidations sent by another node to the local caches
+	 * 
+	 * @param message the received message
+	 */
+	public void receive(CacheInvalidationMessage message) {
+		if (nodeId.equals(message.getOrigin())) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		lastReceived = now;
+		received.add(message.getInvalidations().size());
+		lag.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - message.getSentAt())));
+		for (CacheInvalidation invalidation : message.getInvalidations()) {
+			try {
+				apply(invalidation);
+				applied.increment();
+			}
+			catch (RuntimeException e) {
+				failed.increment();
+				log.error("Failed to apply the cache invalidation {}", invalidation, e);
+			}
+		}
+	}
+	
+	private void apply(CacheInvalidation invalidation) {
+		org.hibernate.Cache cache = sessionFactory.getCache();
+		switch (invalidation.getType()) {
+			case ENTITY:
+				if (invalidation.getKey() == null) {
+					cache.evictEntityData(invalidation.getName());
+				} else {
+					cache.evictEntityData(invalidation.getName(), invalidation.getKey());
+				}
+				break;
+			case COLLECTION:
+				if (invalidation.getKey() == null) {
+					cache.evictCollectionData(invalidation.getName());
+				} else {
+					cache.evictCollectionData(invalidation.getName(), invalidation.getKey());
+				}
+				break;
+			case NAMED_CACHE:
+				CacheManager manager = cacheManager instanceof BroadcastingCacheManager
+				        ? ((BroadcastingCacheManager) cacheManager).getDelegate()
+				        : cacheManager;
+				Cache namedCache = manager.getCache(invalidation.getName());
+				if (namedCache != null) {
+					if (invalidation.getKey() == null) {
+						namedCache.clear();
+					} else {
+						namedCache.evict(invalidation.getKey());
+					}
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown invalidation type " + invalidation.getType());
+		}
+		for (CacheInvalidationListener listener : listeners) {
+			listener.cacheInvalidated(invalidation);
+		}
+	}
+	
+	private SessionFactoryImplementor getSessionFactoryImplementor() {
+		return (SessionFactoryImplementor) sessionFactory;
+	}
+	
+	@Override
+	public String getTransport() {
+		CacheInvalidationTransport current = transport;
+		return current == null ? null : current.getClass().getName();
+	}
+	
+	@Override
+	public long getPublishedCount() {
+		return published.sum();
+	}
+	
+	@Override
+	public long getReceivedCount() {
+		return received.sum();
+	}
+	
+	@Override
+	public long getAppliedCount() {
+		return applied.sum();
+	}
+	
+	@Override
+	public long getFailedCount() {
+		return failed.sum();
+	}
+	
+	@Override
+	public long getLagPercentileMillis(double percentile) {
+		return TimeUnit.NANOSECONDS.toMillis(lag.getPercentile(percentile));
+	}
+	
+	@Override
+	public long getLastReceived() {
+		return lastReceived;
+	}
+	
+	@Override
+	public void reset() {
+		published.reset();
+		received.reset();
+		applied.reset();
+		failed.reset();
+		lag.reset();
+	}
+	
+	/**
+	 * The invalidations collected by one transaction, sent once it commits
+	 */
+	private class PendingInvalidations implements TransactionSynchronization {
+		
+		private final Set<CacheInvalidation> invalidations = new LinkedHashSet<>();
+		
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationBus.this);
+			if (status == STATUS_COMMITTED) {
+				publish(new ArrayList<>(invalidations));
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+/**
+ * JMX view of the cache invalidation bus, registered as
+ * <code>org.openmrs:type=CacheInvalidationBus</code>
+ * 
+ * @since 2.8.0
+ */
+public interface CacheInvalidationBusMBean {
+	
+	/**
+	 * @return the id of this node as sent with every message
+	 */
+	String getNodeId();
+	
+	/**
+	 * @return the class name of the transport, null if invalidations are not broadcast
+	 */
+	String getTransport();
+	
+	long getPublishedCount();
+	
+	long getReceivedCount();
+	
+	long getAppliedCount();
+	
+	long getFailedCount();
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the time between sending and applying a message at the given percentile
+	 */
+	long getLagPercentileMillis(double percentile);
+	
+	/**
+	 * @return the time the last message from another node was received in milliseconds since the
+	 *         epoch, 0 if none was received yet
+	 */
+	long getLastReceived();
+	
+	/**
+	 * Discards all recorded statistics
+	 */
+	void reset();
+}
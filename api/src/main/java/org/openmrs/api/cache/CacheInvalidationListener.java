@@ -0,0 +1,26 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+/**
+ * Implemented by Spring beans that keep in-memory state which has to follow changes made on other
+ * nodes of a cluster. Listeners are called for every invalidation received from another node after
+ * it has been applied to the Hibernate and Spring caches.
+ * 
+ * @see CacheInvalidationBus
+ * @since 2.8.0
+ */
+public interface CacheInvalidationListener {
+	
+	/**
+	 * @param invalidation the invalidation received from another node
+	 */
+	void cacheInvalidated(CacheInvalidation invalidation);
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The invalidations of one committed transaction as sent from one node to the others.
+ * 
+ * @since 2.8.0
+ */
+public final class CacheInvalidationMessage {
+	
+	private final String origin;
+	
+	private final long sentAt;
+	
+	private final List<CacheInvalidation> invalidations;
+	
+	/**
+	 * @param origin the id of the sending node
+	 * @param sentAt the time the message was sent in milliseconds since the epoch
+	 * @param invalidations the invalidations
+	 */
+	public CacheInvalidationMessage(String origin, long sentAt, List<CacheInvalidation> invalidations) {
+		this.origin = origin;
+		this.sentAt = sentAt;
+		this.invalidations = Collections.unmodifiableList(invalidations);
+	}
+	
+	public String getOrigin() {
+		return origin;
+	}
+	
+	public long getSentAt() {
+		return sentAt;
+	}
+	
+	public List<CacheInvalidation> getInvalidations() {
+		return invalidations;
+	}
+}
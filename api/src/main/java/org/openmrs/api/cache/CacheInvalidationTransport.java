@@ -0,0 +1,46 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link CacheInvalidationMessage}s between the nodes of a cluster. Implementations need a
+ * public no-argument constructor and are selected with the runtime property
+ * <tt>cache.invalidation.transport</tt>, see {@link CacheInvalidationBus}.
+ * 
+ * @since 2.8.0
+ */
+public interface CacheInvalidationTransport {
+	
+	/**
+	 * Connects to the other nodes.
+	 * 
+	 * @param properties the runtime properties
+	 * @param receiver to be called with every message received from another node
+	 * @throws IOException if the transport cannot be started
+	 */
+	void start(Properties properties, Consumer<CacheInvalidationMessage> receiver) throws IOException;
+	
+	/**
+	 * Sends the message to all other nodes.
+	 * 
+	 * @param message the message to send
+	 * @throws IOException if the message could not be sent
+	 */
+	void publish(CacheInvalidationMessage message) throws IOException;
+	
+	/**
+	 * Disconnects from the other nodes
+	 */
+	void stop();
+}
@@ -0,0 +1,413 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+import org.openmrs.api.ConceptNameType;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.ConceptEntry;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.ConceptNameEntry;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.Mapping;
+import org.openmrs.api.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps an immutable {@link ConceptDictionarySnapshot} of the concept dictionary in memory for
+ * read paths that resolve many concepts, such as forms, HL7 processing and reports.
+ * <p>
+ * The snapshot is disabled by default and enabled by setting the runtime property
+ * <tt>concept.dictionary.snapshot</tt> to true. It is loaded in the background whenever the
+ * application context is refreshed. Concepts saved, retired or purged through the
+ * {@link org.openmrs.api.ConceptService} are reloaded once their transaction commits, and changes
+ * of concept sources and reference terms reload the whole dictionary. Concepts changed on other
+ * nodes are reloaded when the {@link CacheInvalidationBus} reports them.
+ * <p>
+ * Callers must fall back to the database when {@link #getSnapshot()} returns null, which is the
+ * case while the snapshot is disabled or being loaded and for transactions that changed the
+ * dictionary and have not committed yet.
+ * 
+ * @since 2.8.0
+ */
+@Component
+public class ConceptDictionary implements ApplicationListener<ContextRefreshedEvent>, CacheInvalidationListener {
+	
+	private static final Logger log = LoggerFactory.getLogger(ConceptDictionary.class);
+	
+	public static final String ENABLED_PROPERTY = "concept.dictionary.snapshot";
+	
+	private static final Set<String> CONCEPT_ENTITY_NAMES = new HashSet<>(
+	        Arrays.asList("org.openmrs.Concept", "org.openmrs.ConceptNumeric", "org.openmrs.ConceptComplex"));
+	
+	private static final String CONCEPT_COLLECTION_PREFIX = "org.openmrs.Concept.";
+	
+	private static volatile ConceptDictionary instance;
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private volatile ConceptDictionarySnapshot snapshot;
+	
+	private final Set<Integer> changedWhileLoading = new HashSet<>();
+	
+	private boolean loading;
+	
+	private ExecutorService loader;
+	
+	public ConceptDictionary() {
+	}
+	
+	ConceptDictionary(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+	
+	@PostConstruct
+	public void init() {
+		if (Boolean.parseBoolean(Context.getRuntimeProperties().getProperty(ENABLED_PROPERTY, "false"))) {
+			start();
+		}
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		if (instance == this) {
+			instance = null;
+		}
+		if (loader != null) {
+			loader.shutdownNow();
+			loader = null;
+		}
+	}
+	
+	/**
+	 * Enables the snapshot, it is loaded with the next context refresh or call to
+	 * {@link #reload()}
+	 */
+	void start() {
+		loader = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "OpenMRS concept dictionary loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		instance = this;
+	}
+	
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		// child contexts, e.g. of modules started without a refresh, do not change the dictionary
+		if (instance == this && event.getApplicationContext().getParent() == null) {
+			reload();
+		}
+	}
+	
+	/**
+	 * @return the current snapshot, or null if it is disabled, not loaded yet or the current
+	 *         transaction changed the dictionary
+	 */
+	public static ConceptDictionarySnapshot getSnapshot() {
+		ConceptDictionary dictionary = instance;
+		if (dictionary == null || TransactionSynchronizationManager.hasResource(dictionary)) {
+			return null;
+		}
+		return dictionary.snapshot;
+	}
+	
+	/**
+	 * Reloads the concept once the current transaction commits
+	 * 
+	 * @param conceptId the id of the saved, retired or purged concept
+	 */
+	public static void conceptChanged(Integer conceptId) {
+		ConceptDictionary dictionary = instance;
+		if (dictionary != null && conceptId != null) {
+			dictionary.changed(conceptId, false);
+		}
+	}
+	
+	/**
+	 * Reloads the whole dictionary once the current transaction commits, used for changes that
+	 * affect many concepts such as renaming a concept source
+	 */
+	public static void dictionaryChanged() {
+		ConceptDictionary dictionary = instance;
+		if (dictionary != null) {
+			dictionary.changed(null, true);
+		}
+	}
+	
+	private void changed(Integer conceptId, boolean reloadAll) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			if (reloadAll) {
+				reload();
+			} else {
+				refresh(Collections.singleton(conceptId));
+			}
+			return;
+		}
+		PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new PendingChanges();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		if (conceptId != null) {
+			pending.conceptIds.add(conceptId);
+		}
+		pending.reloadAll |= reloadAll;
+	}
+	
+	@Override
+	public void cacheInvalidated(CacheInvalidation invalidation) {
+		if (instance != this) {
+			return;
+		}
+		String name = invalidation.getName();
+		boolean conceptChanged = invalidation.getType() == CacheInvalidation.Type.ENTITY
+		        ? CONCEPT_ENTITY_NAMES.contains(name)
+		        : invalidation.getType() == CacheInvalidation.Type.COLLECTION && name.startsWith(CONCEPT_COLLECTION_PREFIX);
+		if (!conceptChanged) {
+			return;
+		}
+		if (invalidation.getKey() instanceof Integer) {
+			refresh(Collections.singleton((Integer) invalidation.getKey()));
+		} else {
+			reload();
+		}
+	}
+	
+	/**
+	 * Discards the snapshot and loads the whole dictionary in the background
+	 */
+	public void reload() {
+		synchronized (this) {
+			snapshot = null;
+			if (loading) {
+				return;
+			}
+			loading = true;
+			changedWhileLoading.clear();
+		}
+		loader.execute(this::loadAll);
+	}
+	
+	/**
+	 * Loads the whole dictionary and replaces the snapshot
+	 */
+	void loadAll() {
+		long start = System.nanoTime();
+		ConceptDictionarySnapshot loaded = null;
+		try {
+			loaded = new ConceptDictionarySnapshot(load(null));
+			log.info("Loaded {} concepts into the concept dictionary snapshot in {} ms", loaded.size(),
+			    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to load the concept dictionary snapshot, concepts are read from the database", e);
+		}
+		Set<Integer> changed;
+		synchronized (this) {
+			loading = false;
+			changed = new HashSet<>(changedWhileLoading);
+			changedWhileLoading.clear();
+			snapshot = loaded;
+		}
+		if (loaded != null && !changed.isEmpty()) {
+			refresh(changed);
+		}
+	}
+	
+	/**
+	 * Reloads the given concepts into the snapshot
+	 * 
+	 * @param conceptIds the ids of changed, added or deleted concepts
+	 */
+	void refresh(Collection<Integer> conceptIds) {
+		boolean failed = false;
+		synchronized (this) {
+			if (loading) {
+				changedWhileLoading.addAll(conceptIds);
+				return;
+			}
+			if (snapshot == null) {
+				return;
+			}
+			try {
+				List<ConceptEntry> entries = load(conceptIds);
+				Set<Integer> removed = new HashSet<>(conceptIds);
+				for (ConceptEntry entry : entries) {
+					removed.remove(entry.getConceptId());
+				}
+				snapshot = snapshot.update(entries, removed);
+			}
+			catch (RuntimeException e) {
+				log.error("Failed to refresh concepts {} in the concept dictionary snapshot, reloading it", conceptIds, e);
+				failed = true;
+			}
+		}
+		if (failed) {
+			reload();
+		}
+	}
+	
+	/**
+	 * Loads the given concepts
+	 * 
+	 * @param conceptIds the ids of the concepts to load or null to load all concepts
+	 * @return the loaded concepts
+	 */
+	List<ConceptEntry> load(Collection<Integer> conceptIds) {
+		Map<Integer, EntryBuilder> builders = new LinkedHashMap<>();
+		Session session = sessionFactory.openSession();
+		try {
+			session.setDefaultReadOnly(true);
+			for (Object[] row : list(session,
+			    "select c.conceptId, c.uuid, d.conceptDatatypeId, cc.conceptClassId, c.retired, c.set from Concept c"
+			            + " left join c.datatype d left join c.conceptClass cc",
+			    null, "c.conceptId", "c.conceptId", conceptIds)) {
+				builders.put((Integer) row[0], new EntryBuilder(row));
+			}
+			for (Object[] row : list(session,
+			    "select n.concept.conceptId, n.conceptNameId, n.name, n.locale, n.conceptNameType, n.localePreferred"
+			            + " from ConceptName n",
+			    "n.voided = false", "n.concept.conceptId", "n.conceptNameId", conceptIds)) {
+				EntryBuilder builder = builders.get(row[0]);
+				if (builder != null) {
+					builder.names.add(new ConceptNameEntry((Integer) row[1], (String) row[2], (Locale) row[3],
+					        (ConceptNameType) row[4], Boolean.TRUE.equals(row[5])));
+				}
+			}
+			for (Object[] row : list(session, "select a.concept.conceptId, a.answerConcept.conceptId from ConceptAnswer a",
+			    null, "a.concept.conceptId", "a.sortWeight, a.conceptAnswerId", conceptIds)) {
+				EntryBuilder builder = builders.get(row[0]);
+				if (builder != null) {
+					builder.answerIds.add((Integer) row[1]);
+				}
+			}
+			for (Object[] row : list(session, "select s.conceptSet.conceptId, s.concept.conceptId from ConceptSet s", null,
+			    "s.conceptSet.conceptId", "s.sortWeight, s.conceptSetId", conceptIds)) {
+				EntryBuilder builder = builders.get(row[0]);
+				if (builder != null) {
+					builder.setMemberIds.add((Integer) row[1]);
+				}
+			}
+			for (Object[] row : list(session,
+			    "select m.concept.conceptId, t.code, s.name, s.hl7Code from ConceptMap m join m.conceptReferenceTerm t"
+			            + " join t.conceptSource s",
+			    null, "m.concept.conceptId", "m.conceptMapId", conceptIds)) {
+				EntryBuilder builder = builders.get(row[0]);
+				if (builder != null) {
+					builder.mappings.add(new Mapping((String) row[1], (String) row[2], (String) row[3]));
+				}
+			}
+		}
+		finally {
+			session.close();
+		}
+		
+		List<ConceptEntry> entries = new ArrayList<>(builders.size());
+		for (EntryBuilder builder : builders.values()) {
+			entries.add(builder.build());
+		}
+		return entries;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<Object[]> list(Session session, String select, String where, String conceptIdProperty, String orderBy,
+	        Collection<Integer> conceptIds) {
+		StringBuilder hql = new StringBuilder(select);
+		if (where != null) {
+			hql.append(" where ").append(where);
+		}
+		if (conceptIds != null) {
+			hql.append(where == null ? " where " : " and ").append(conceptIdProperty).append(" in (:conceptIds)");
+		}
+		hql.append(" order by ").append(orderBy);
+		Query<Object[]> query = session.createQuery(hql.toString());
+		if (conceptIds != null) {
+			query.setParameterList("conceptIds", conceptIds);
+		}
+		return query.list();
+	}
+	
+	/**
+	 * Collects the rows of one concept
+	 */
+	private static class EntryBuilder {
+		
+		private final Object[] concept;
+		
+		private final List<ConceptNameEntry> names = new ArrayList<>();
+		
+		private final List<Integer> answerIds = new ArrayList<>();
+		
+		private final List<Integer> setMemberIds = new ArrayList<>();
+		
+		private final List<Mapping> mappings = new ArrayList<>();
+		
+		EntryBuilder(Object[] concept) {
+			this.concept = concept;
+		}
+		
+		ConceptEntry build() {
+			return new ConceptEntry((Integer) concept[0], (String) concept[1], (Integer) concept[2], (Integer) concept[3],
+			        Boolean.TRUE.equals(concept[4]), Boolean.TRUE.equals(concept[5]), names,
+			        answerIds.stream().mapToInt(Integer::intValue).toArray(),
+			        setMemberIds.stream().mapToInt(Integer::intValue).toArray(), mappings);
+		}
+	}
+	
+	/**
+	 * The concepts changed by one transaction, reloaded once it commits
+	 */
+	private class PendingChanges implements TransactionSynchronization {
+		
+		private final Set<Integer> conceptIds = new LinkedHashSet<>();
+		
+		private boolean reloadAll;
+		
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(ConceptDictionary.this);
+			if (status != STATUS_COMMITTED) {
+				return;
+			}
+			if (reloadAll) {
+				reload();
+			} else if (!conceptIds.isEmpty()) {
+				refresh(conceptIds);
+			}
+		}
+	}
+}
@@ -0,0 +1,481 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.api.ConceptNameType;
+import org.openmrs.util.LocaleUtility;
+
+/**
+ * Immutable read model of the concept dictionary, see {@link ConceptDictionary}. Concepts are kept
+ * in an array sorted by concept id and looked up by binary search, answers and set members as
+ * arrays of concept ids, so that reads neither allocate nor touch a Hibernate session.
+ * <p>
+ * Name lookups follow the same order of preference as {@link org.openmrs.Concept#getName()} and
+ * {@link org.openmrs.Concept#getName(Locale)}, with names of one concept considered in the order
+ * of their ids.
+ * 
+ * @since 2.8.0
+ */
+public final class ConceptDictionarySnapshot {
+	
+	private static final int[] NO_IDS = new int[0];
+	
+	private static final ConceptDictionarySnapshot EMPTY = new ConceptDictionarySnapshot(Collections.emptyList());
+	
+	private final int[] conceptIds;
+	
+	private final ConceptEntry[] entries;
+	
+	private final Map<String, ConceptEntry> entriesByUuid;
+	
+	private final Map<String, int[]> conceptIdsByMapping;
+	
+	/**
+	 * @param concepts the concepts of the dictionary
+	 */
+	public ConceptDictionarySnapshot(Collection<ConceptEntry> concepts) {
+		entries = concepts.toArray(new ConceptEntry[0]);
+		Arrays.sort(entries, Comparator.comparingInt(ConceptEntry::getConceptId));
+		conceptIds = new int[entries.length];
+		entriesByUuid = new HashMap<>(entries.length * 2);
+		Map<String, List<Integer>> mappings = new HashMap<>();
+		for (int i = 0; i < entries.length; i++) {
+			ConceptEntry entry = entries[i];
+			conceptIds[i] = entry.getConceptId();
+			entriesByUuid.put(entry.getUuid(), entry);
+			for (Mapping mapping : entry.mappings) {
+				addMapping(mappings, mapping.getSourceName(), mapping.getCode(), entry.getConceptId());
+				addMapping(mappings, mapping.getSourceHl7Code(), mapping.getCode(), entry.getConceptId());
+			}
+		}
+		conceptIdsByMapping = new HashMap<>(mappings.size() * 2);
+		for (Map.Entry<String, List<Integer>> mapping : mappings.entrySet()) {
+			conceptIdsByMapping.put(mapping.getKey(), mapping.getValue().stream().distinct().mapToInt(Integer::intValue)
+			        .toArray());
+		}
+	}
+	
+	/**
+	 * @return a snapshot without any concepts
+	 */
+	public static ConceptDictionarySnapshot empty() {
+		return EMPTY;
+	}
+	
+	private static void addMapping(Map<String, List<Integer>> mappings, String source, String code, int conceptId) {
+		if (source != null && code != null) {
+			mappings.computeIfAbsent(mappingKey(source, code), k -> new ArrayList<>(1)).add(conceptId);
+		}
+	}
+	
+	private static String mappingKey(String source, String code) {
+		return source.toLowerCase() + '\u0000' + code.toLowerCase();
+	}
+	
+	/**
+	 * Creates a new snapshot with the given concepts replaced.
+	 * 
+	 * @param changed the new state of changed and added concepts
+	 * @param removedConceptIds the ids of deleted concepts
+	 * @return the new snapshot, this snapshot is left unchanged
+	 */
+	public ConceptDictionarySnapshot update(Collection<ConceptEntry> changed, Collection<Integer> removedConceptIds) {
+		Map<Integer, ConceptEntry> concepts = new LinkedHashMap<>(entries.length * 2);
+		for (ConceptEntry entry : entries) {
+			concepts.put(entry.getConceptId(), entry);
+		}
+		for (Integer removed : removedConceptIds) {
+			concepts.remove(removed);
+		}
+		for (ConceptEntry entry : changed) {
+			concepts.put(entry.getConceptId(), entry);
+		}
+		return new ConceptDictionarySnapshot(concepts.values());
+	}
+	
+	/**
+	 * @return the number of concepts
+	 */
+	public int size() {
+		return entries.length;
+	}
+	
+	/**
+	 * @param conceptId the id of the concept
+	 * @return the concept or null if there is no concept with the id
+	 */
+	public ConceptEntry getConcept(int conceptId) {
+		int index = Arrays.binarySearch(conceptIds, conceptId);
+		return index < 0 ? null : entries[index];
+	}
+	
+	/**
+	 * @param uuid the uuid of the concept
+	 * @return the concept or null if there is no concept with the uuid
+	 */
+	public ConceptEntry getConceptByUuid(String uuid) {
+		return entriesByUuid.get(uuid);
+	}
+	
+	/**
+	 * @param conceptId the id of the concept
+	 * @return the ids of the answers in the order of their sort weight, empty if the concept does not
+	 *         exist or has no answers
+	 */
+	public int[] getAnswerIds(int conceptId) {
+		ConceptEntry entry = getConcept(conceptId);
+		return entry == null ? NO_IDS : entry.getAnswerIds();
+	}
+	
+	/**
+	 * @param conceptId the id of the concept
+	 * @return the ids of the set members in the order of their sort weight, empty if the concept does
+	 *         not exist or is not a set
+	 */
+	public int[] getSetMemberIds(int conceptId) {
+		ConceptEntry entry = getConcept(conceptId);
+		return entry == null ? NO_IDS : entry.getSetMemberIds();
+	}
+	
+	/**
+	 * Looks up concepts by the code of a reference term, in the same way as
+	 * {@link org.openmrs.api.ConceptService#getConceptIdsByMapping(String, String, boolean)}
+	 * 
+	 * @param code the code of the reference term
+	 * @param sourceName the name or HL7 code of the concept source
+	 * @param includeRetired whether retired concepts are included, after all non retired ones
+	 * @return the ids of the mapped concepts
+	 */
+	public List<Integer> getConceptIdsByMapping(String code, String sourceName, boolean includeRetired) {
+		int[] ids = conceptIdsByMapping.get(mappingKey(sourceName, code));
+		if (ids == null) {
+			return Collections.emptyList();
+		}
+		List<Integer> result = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			if (!getConcept(id).isRetired()) {
+				result.add(id);
+			}
+		}
+		if (includeRetired) {
+			for (int id : ids) {
+				if (getConcept(id).isRetired()) {
+					result.add(id);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param conceptId the id of the concept
+	 * @return the name to display in the current locale, see {@link org.openmrs.Concept#getName()}
+	 */
+	public ConceptNameEntry getName(int conceptId) {
+		ConceptEntry entry = getConcept(conceptId);
+		return entry == null ? null : entry.getName();
+	}
+	
+	/**
+	 * @param conceptId the id of the concept
+	 * @param locale the locale
+	 * @return the best name in the locale, see {@link org.openmrs.Concept#getName(Locale)}
+	 */
+	public ConceptNameEntry getName(int conceptId, Locale locale) {
+		ConceptEntry entry = getConcept(conceptId);
+		return entry == null ? null : entry.getName(locale);
+	}
+	
+	/**
+	 * A concept of the snapshot
+	 */
+	public static final class ConceptEntry {
+		
+		private final int conceptId;
+		
+		private final String uuid;
+		
+		private final Integer datatypeId;
+		
+		private final Integer conceptClassId;
+		
+		private final boolean retired;
+		
+		private final boolean set;
+		
+		private final ConceptNameEntry[] names;
+		
+		private final int[] answerIds;
+		
+		private final int[] setMemberIds;
+		
+		private final Mapping[] mappings;
+		
+		public ConceptEntry(int conceptId, String uuid, Integer datatypeId, Integer conceptClassId, boolean retired,
+		    boolean set, List<ConceptNameEntry> names, int[] answerIds, int[] setMemberIds, List<Mapping> mappings) {
+			this.conceptId = conceptId;
+			this.uuid = uuid;
+			this.datatypeId = datatypeId;
+			this.conceptClassId = conceptClassId;
+			this.retired = retired;
+			this.set = set;
+			this.names = names.toArray(new ConceptNameEntry[0]);
+			Arrays.sort(this.names, Comparator.comparingInt(ConceptNameEntry::getConceptNameId));
+			this.answerIds = answerIds.clone();
+			this.setMemberIds = setMemberIds.clone();
+			this.mappings = mappings.toArray(new Mapping[0]);
+		}
+		
+		public int getConceptId() {
+			return conceptId;
+		}
+		
+		public String getUuid() {
+			return uuid;
+		}
+		
+		public Integer getDatatypeId() {
+			return datatypeId;
+		}
+		
+		public Integer getConceptClassId() {
+			return conceptClassId;
+		}
+		
+		public boolean isRetired() {
+			return retired;
+		}
+		
+		public boolean isSet() {
+			return set;
+		}
+		
+		/**
+		 * @return the non voided names ordered by id
+		 */
+		public List<ConceptNameEntry> getNames() {
+			return Collections.unmodifiableList(Arrays.asList(names));
+		}
+		
+		public int[] getAnswerIds() {
+			return answerIds.clone();
+		}
+		
+		public int[] getSetMemberIds() {
+			return setMemberIds.clone();
+		}
+		
+		public List<Mapping> getMappings() {
+			return Collections.unmodifiableList(Arrays.asList(mappings));
+		}
+		
+		/**
+		 * @return the name to display in the current locale, see {@link org.openmrs.Concept#getName()}
+		 */
+		public ConceptNameEntry getName() {
+			if (names.length == 0) {
+				return null;
+			}
+			for (Locale locale : LocaleUtility.getLocalesInOrder()) {
+				ConceptNameEntry name = getPreferredOrFullySpecifiedName(locale);
+				if (name != null) {
+					return name;
+				}
+				if (!StringUtils.isBlank(locale.getCountry()) || !StringUtils.isBlank(locale.getVariant())) {
+					name = getPreferredOrFullySpecifiedName(new Locale(locale.getLanguage()));
+					if (name != null) {
+						return name;
+					}
+				}
+			}
+			for (ConceptNameEntry name : names) {
+				if (name.isFullySpecifiedName()) {
+					return name;
+				}
+			}
+			for (ConceptNameEntry name : names) {
+				if (name.isSynonym()) {
+					return name;
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * @param locale the locale
+		 * @return the best name in the locale, see {@link org.openmrs.Concept#getName(Locale)}
+		 */
+		public ConceptNameEntry getName(Locale locale) {
+			if (names.length == 0) {
+				return null;
+			}
+			ConceptNameEntry name = getNameInLocale(locale);
+			if (name == null) {
+				name = getNameInLocale(new Locale(locale.getLanguage()));
+			}
+			return name != null ? name : getName();
+		}
+		
+		private ConceptNameEntry getNameInLocale(Locale locale) {
+			ConceptNameEntry name = getPreferredOrFullySpecifiedName(locale);
+			if (name != null) {
+				return name;
+			}
+			for (ConceptNameEntry candidate : names) {
+				if (candidate.isSynonym() && candidate.getLocale().equals(locale)) {
+					return candidate;
+				}
+			}
+			return null;
+		}
+		
+		private ConceptNameEntry getPreferredOrFullySpecifiedName(Locale locale) {
+			ConceptNameEntry preferred = findName(locale, true);
+			return preferred != null ? preferred : findName(locale, false);
+		}
+		
+		/**
+		 * Finds the locale preferred or the fully specified name in the locale, falling back to names
+		 * of the same language and then of the same country
+		 */
+		private ConceptNameEntry findName(Locale locale, boolean preferred) {
+			ConceptNameEntry sameCountry = null;
+			boolean hasNameInLocale = false;
+			for (ConceptNameEntry name : names) {
+				Locale nameLocale = name.getLocale();
+				boolean matches = preferred ? name.isLocalePreferred() : name.isFullySpecifiedName();
+				if (nameLocale.equals(locale)) {
+					hasNameInLocale = true;
+					if (matches) {
+						return name;
+					}
+				}
+			}
+			if (!preferred && !hasNameInLocale) {
+				return null;
+			}
+			String country = locale.getCountry();
+			for (ConceptNameEntry name : names) {
+				boolean matches = preferred ? name.isLocalePreferred() : name.isFullySpecifiedName();
+				if (!matches) {
+					continue;
+				}
+				Locale nameLocale = name.getLocale();
+				if (locale.getLanguage().equals(nameLocale.getLanguage())) {
+					return name;
+				}
+				if (sameCountry == null && StringUtils.isNotBlank(country) && country.equals(nameLocale.getCountry())) {
+					sameCountry = name;
+				}
+			}
+			return sameCountry;
+		}
+	}
+	
+	/**
+	 * A non voided name of a concept
+	 */
+	public static final class ConceptNameEntry {
+		
+		private final int conceptNameId;
+		
+		private final String name;
+		
+		private final Locale locale;
+		
+		private final ConceptNameType conceptNameType;
+		
+		private final boolean localePreferred;
+		
+		public ConceptNameEntry(int conceptNameId, String name, Locale locale, ConceptNameType conceptNameType,
+		    boolean localePreferred) {
+			this.conceptNameId = conceptNameId;
+			this.name = name;
+			this.locale = locale;
+			this.conceptNameType = conceptNameType;
+			this.localePreferred = localePreferred;
+		}
+		
+		public int getConceptNameId() {
+			return conceptNameId;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public Locale getLocale() {
+			return locale;
+		}
+		
+		public ConceptNameType getConceptNameType() {
+			return conceptNameType;
+		}
+		
+		public boolean isLocalePreferred() {
+			return localePreferred;
+		}
+		
+		public boolean isFullySpecifiedName() {
+			return conceptNameType == ConceptNameType.FULLY_SPECIFIED;
+		}
+		
+		public boolean isSynonym() {
+			return conceptNameType == null;
+		}
+		
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+	
+	/**
+	 * A mapping of a concept to a reference term
+	 */
+	public static final class Mapping {
+		
+		private final String code;
+		
+		private final String sourceName;
+		
+		private final String sourceHl7Code;
+		
+		public Mapping(String code, String sourceName, String sourceHl7Code) {
+			this.code = code;
+			this.sourceName = sourceName;
+			this.sourceHl7Code = sourceHl7Code;
+		}
+		
+		public String getCode() {
+			return code;
+		}
+		
+		public String getSourceName() {
+			return sourceName;
+		}
+		
+		public String getSourceHl7Code() {
+			return sourceHl7Code;
+		}
+	}
+}
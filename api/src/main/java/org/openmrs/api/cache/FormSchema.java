@@ -0,0 +1,536 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.openmrs.Concept;
+import org.openmrs.ConceptAnswer;
+import org.openmrs.ConceptName;
+import org.openmrs.Drug;
+import org.openmrs.Field;
+import org.openmrs.FieldType;
+import org.openmrs.Form;
+import org.openmrs.FormField;
+import org.openmrs.FormResource;
+import org.openmrs.util.FormUtil;
+
+/**
+ * Immutable, compiled schema of one version of a form, see {@link FormSchemaCache}. It holds the
+ * tree of form fields in the order of {@link FormUtil#getFormStructure(Form)} with their fields,
+ * field types, concepts and concept answers resolved, and the form resources of the form, so that
+ * rendering a form neither walks lazy associations nor touches a Hibernate session.
+ * 
+ * @since 2.8.0
+ */
+public final class FormSchema {
+	
+	private final Integer formId;
+	
+	private final String uuid;
+	
+	private final String name;
+	
+	private final String version;
+	
+	private final Date dateChanged;
+	
+	private final List<Node> roots;
+	
+	private final Map<Integer, Node> nodesByFormFieldId;
+	
+	private final Map<String, Resource> resources;
+	
+	private FormSchema(Form form, List<Node> roots, Map<Integer, Node> nodesByFormFieldId, Map<String, Resource> resources) {
+		this.formId = form.getFormId();
+		this.uuid = form.getUuid();
+		this.name = form.getName();
+		this.version = form.getVersion();
+		this.dateChanged = form.getDateChanged() == null ? null : new Date(form.getDateChanged().getTime());
+		this.roots = roots;
+		this.nodesByFormFieldId = nodesByFormFieldId;
+		this.resources = resources;
+	}
+	
+	/**
+	 * Compiles the schema of a form, the form fields and their associations are loaded as needed so
+	 * the form must be attached to an open session
+	 * 
+	 * @param form the form to compile
+	 * @param formResources the form resources of the form
+	 * @return the compiled schema
+	 */
+	public static FormSchema compile(Form form, Collection<FormResource> formResources) {
+		Map<Integer, TreeSet<FormField>> structure = FormUtil.getFormStructure(form);
+		Map<Integer, Node> nodesByFormFieldId = new HashMap<>();
+		List<Node> roots = compileNodes(structure.get(0), structure, nodesByFormFieldId);
+		
+		Map<String, Resource> resources = new LinkedHashMap<>();
+		if (formResources != null) {
+			for (FormResource formResource : formResources) {
+				resources.put(formResource.getName(), new Resource(formResource));
+			}
+		}
+		return new FormSchema(form, roots, Collections.unmodifiableMap(nodesByFormFieldId),
+		        Collections.unmodifiableMap(resources));
+	}
+	
+	private static List<Node> compileNodes(Collection<FormField> formFields, Map<Integer, TreeSet<FormField>> structure,
+	        Map<Integer, Node> nodesByFormFieldId) {
+		if (formFields == null || formFields.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Node> nodes = new ArrayList<>(formFields.size());
+		for (FormField formField : formFields) {
+			List<Node> children = compileNodes(structure.get(formField.getFormFieldId()), structure, nodesByFormFieldId);
+			Node node = new Node(formField, children);
+			nodes.add(node);
+			nodesByFormFieldId.put(node.getFormFieldId(), node);
+		}
+		return Collections.unmodifiableList(nodes);
+	}
+	
+	public Integer getFormId() {
+		return formId;
+	}
+	
+	public String getUuid() {
+		return uuid;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getVersion() {
+		return version;
+	}
+	
+	/**
+	 * @return the date the form was changed when the schema was compiled
+	 */
+	public Date getDateChanged() {
+		return dateChanged == null ? null : new Date(dateChanged.getTime());
+	}
+	
+	/**
+	 * @param form the form to compare with
+	 * @return true if the schema was compiled from the given version of the form
+	 */
+	public boolean isVersionOf(Form form) {
+		if (!uuid.equals(form.getUuid())) {
+			return false;
+		}
+		Date formDateChanged = form.getDateChanged();
+		if (dateChanged == null || formDateChanged == null) {
+			return dateChanged == null && formDateChanged == null;
+		}
+		return dateChanged.getTime() == formDateChanged.getTime();
+	}
+	
+	/**
+	 * @return the top level form fields
+	 */
+	public List<Node> getRoots() {
+		return roots;
+	}
+	
+	/**
+	 * @param formFieldId the id of a form field
+	 * @return the form field with the given id or null if the form has no such form field
+	 */
+	public Node getNode(Integer formFieldId) {
+		return nodesByFormFieldId.get(formFieldId);
+	}
+	
+	/**
+	 * @return the number of form fields of the form
+	 */
+	public int size() {
+		return nodesByFormFieldId.size();
+	}
+	
+	/**
+	 * @return the form resources keyed by their names
+	 */
+	public Map<String, Resource> getResources() {
+		return resources;
+	}
+	
+	/**
+	 * @param name the name of a form resource
+	 * @return the form resource or null if the form has no resource with the given name
+	 */
+	public Resource getResource(String name) {
+		return resources.get(name);
+	}
+	
+	/**
+	 * A form field with its field, field type and concept
+	 */
+	public static final class Node {
+		
+		private final Integer formFieldId;
+		
+		private final String uuid;
+		
+		private final Integer fieldNumber;
+		
+		private final String fieldPart;
+		
+		private final Integer pageNumber;
+		
+		private final Integer minOccurs;
+		
+		private final Integer maxOccurs;
+		
+		private final boolean required;
+		
+		private final Float sortWeight;
+		
+		private final Integer fieldId;
+		
+		private final String fieldName;
+		
+		private final Integer fieldTypeId;
+		
+		private final String fieldTypeName;
+		
+		private final boolean set;
+		
+		private final String tableName;
+		
+		private final String attributeName;
+		
+		private final String defaultValue;
+		
+		private final boolean selectMultiple;
+		
+		private final ConceptRef concept;
+		
+		private final List<Answer> answers;
+		
+		private final List<Node> children;
+		
+		Node(FormField formField, List<Node> children) {
+			formFieldId = formField.getFormFieldId();
+			uuid = formField.getUuid();
+			fieldNumber = formField.getFieldNumber();
+			fieldPart = formField.getFieldPart();
+			pageNumber = formField.getPageNumber();
+			minOccurs = formField.getMinOccurs();
+			maxOccurs = formField.getMaxOccurs();
+			required = Boolean.TRUE.equals(formField.getRequired());
+			sortWeight = formField.getSortWeight();
+			this.children = children;
+			
+			Field field = formField.getField();
+			fieldId = field.getFieldId();
+			fieldName = field.getName();
+			tableName = field.getTableName();
+			attributeName = field.getAttributeName();
+			defaultValue = field.getDefaultValue();
+			selectMultiple = Boolean.TRUE.equals(field.getSelectMultiple());
+			
+			FieldType fieldType = field.getFieldType();
+			fieldTypeId = fieldType == null ? null : fieldType.getFieldTypeId();
+			fieldTypeName = fieldType == null ? null : fieldType.getName();
+			set = fieldType != null && Boolean.TRUE.equals(fieldType.getIsSet());
+			
+			Concept fieldConcept = field.getConcept();
+			if (fieldConcept == null) {
+				concept = null;
+				answers = Collections.emptyList();
+			} else {
+				concept = new ConceptRef(fieldConcept);
+				List<ConceptAnswer> sortedAnswers = new ArrayList<>(fieldConcept.getAnswers(false));
+				Collections.sort(sortedAnswers);
+				List<Answer> conceptAnswers = new ArrayList<>(sortedAnswers.size());
+				for (ConceptAnswer conceptAnswer : sortedAnswers) {
+					conceptAnswers.add(new Answer(conceptAnswer));
+				}
+				answers = Collections.unmodifiableList(conceptAnswers);
+			}
+		}
+		
+		public Integer getFormFieldId() {
+			return formFieldId;
+		}
+		
+		public String getUuid() {
+			return uuid;
+		}
+		
+		public Integer getFieldNumber() {
+			return fieldNumber;
+		}
+		
+		public String getFieldPart() {
+			return fieldPart;
+		}
+		
+		public Integer getPageNumber() {
+			return pageNumber;
+		}
+		
+		public Integer getMinOccurs() {
+			return minOccurs;
+		}
+		
+		public Integer getMaxOccurs() {
+			return maxOccurs;
+		}
+		
+		public boolean isRequired() {
+			return required;
+		}
+		
+		public Float getSortWeight() {
+			return sortWeight;
+		}
+		
+		public Integer getFieldId() {
+			return fieldId;
+		}
+		
+		public String getFieldName() {
+			return fieldName;
+		}
+		
+		public Integer getFieldTypeId() {
+			return fieldTypeId;
+		}
+		
+		public String getFieldTypeName() {
+			return fieldTypeName;
+		}
+		
+		/**
+		 * @return true if the field type of the field is a set
+		 */
+		public boolean isSet() {
+			return set;
+		}
+		
+		public String getTableName() {
+			return tableName;
+		}
+		
+		public String getAttributeName() {
+			return attributeName;
+		}
+		
+		public String getDefaultValue() {
+			return defaultValue;
+		}
+		
+		public boolean isSelectMultiple() {
+			return selectMultiple;
+		}
+		
+		/**
+		 * @return the concept of the field or null if the field has none
+		 */
+		public ConceptRef getConcept() {
+			return concept;
+		}
+		
+		/**
+		 * @return the non retired answers of the concept of the field in their sort order
+		 */
+		public List<Answer> getAnswers() {
+			return answers;
+		}
+		
+		/**
+		 * @return the child form fields in the order of {@link FormUtil#getFormStructure(Form)}
+		 */
+		public List<Node> getChildren() {
+			return children;
+		}
+	}
+	
+	/**
+	 * The id, uuid, datatype, class and names of a concept
+	 */
+	public static final class ConceptRef {
+		
+		private final Integer conceptId;
+		
+		private final String uuid;
+		
+		private final String datatype;
+		
+		private final String conceptClass;
+		
+		private final boolean set;
+		
+		private final Map<Locale, String> names;
+		
+		ConceptRef(Concept concept) {
+			conceptId = concept.getConceptId();
+			uuid = concept.getUuid();
+			datatype = concept.getDatatype() == null ? null : concept.getDatatype().getHl7Abbreviation();
+			conceptClass = concept.getConceptClass() == null ? null : concept.getConceptClass().getName();
+			set = Boolean.TRUE.equals(concept.getSet());
+			
+			Map<Locale, String> preferredNames = new HashMap<>();
+			Map<Locale, String> fullySpecifiedNames = new HashMap<>();
+			for (ConceptName conceptName : concept.getNames(false)) {
+				if (Boolean.TRUE.equals(conceptName.isLocalePreferred())) {
+					preferredNames.put(conceptName.getLocale(), conceptName.getName());
+				} else if (Boolean.TRUE.equals(conceptName.isFullySpecifiedName())) {
+					fullySpecifiedNames.putIfAbsent(conceptName.getLocale(), conceptName.getName());
+				}
+			}
+			fullySpecifiedNames.putAll(preferredNames);
+			names = Collections.unmodifiableMap(fullySpecifiedNames);
+		}
+		
+		public Integer getConceptId() {
+			return conceptId;
+		}
+		
+		public String getUuid() {
+			return uuid;
+		}
+		
+		/**
+		 * @return the HL7 abbreviation of the datatype of the concept
+		 */
+		public String getDatatype() {
+			return datatype;
+		}
+		
+		/**
+		 * @return the name of the class of the concept
+		 */
+		public String getConceptClass() {
+			return conceptClass;
+		}
+		
+		public boolean isSet() {
+			return set;
+		}
+		
+		/**
+		 * Returns the locale preferred name of the concept in the given locale, falling back to the
+		 * fully specified name and then to the names in the language of the locale
+		 * 
+		 * @param locale the locale
+		 * @return the name or null if the concept has no name in the locale
+		 */
+		public String getName(Locale locale) {
+			String name = names.get(locale);
+			if (name == null && !locale.getCountry().isEmpty()) {
+				name = names.get(new Locale(locale.getLanguage()));
+			}
+			return name;
+		}
+	}
+	
+	/**
+	 * An answer of the concept of a field
+	 */
+	public static final class Answer {
+		
+		private final ConceptRef concept;
+		
+		private final Integer drugId;
+		
+		private final String drugName;
+		
+		Answer(ConceptAnswer conceptAnswer) {
+			concept = new ConceptRef(conceptAnswer.getAnswerConcept());
+			Drug drug = conceptAnswer.getAnswerDrug();
+			drugId = drug == null ? null : drug.getDrugId();
+			drugName = drug == null ? null : drug.getName();
+		}
+		
+		public ConceptRef getConcept() {
+			return concept;
+		}
+		
+		/**
+		 * @return the id of the answer drug or null if the answer is a concept
+		 */
+		public Integer getDrugId() {
+			return drugId;
+		}
+		
+		public String getDrugName() {
+			return drugName;
+		}
+	}
+	
+	/**
+	 * The stored value of a form resource
+	 */
+	public static final class Resource {
+		
+		private final String name;
+		
+		private final String datatypeClassname;
+		
+		private final String datatypeConfig;
+		
+		private final String preferredHandlerClassname;
+		
+		private final String handlerConfig;
+		
+		private final String valueReference;
+		
+		Resource(FormResource formResource) {
+			name = formResource.getName();
+			datatypeClassname = formResource.getDatatypeClassname();
+			datatypeConfig = formResource.getDatatypeConfig();
+			preferredHandlerClassname = formResource.getPreferredHandlerClassname();
+			handlerConfig = formResource.getHandlerConfig();
+			valueReference = formResource.getValueReference();
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public String getDatatypeClassname() {
+			return datatypeClassname;
+		}
+		
+		public String getDatatypeConfig() {
+			return datatypeConfig;
+		}
+		
+		public String getPreferredHandlerClassname() {
+			return preferredHandlerClassname;
+		}
+		
+		public String getHandlerConfig() {
+			return handlerConfig;
+		}
+		
+		/**
+		 * @return the serialized value of the resource, see
+		 *         {@link org.openmrs.customdatatype.CustomDatatype#fromReferenceString(String)}
+		 */
+		public String getValueReference() {
+			return valueReference;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openmrs.Form;
+import org.openmrs.FormResource;
+import org.openmrs.api.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches the compiled {@link FormSchema} of forms by form uuid. A cached schema is only returned
+ * for the version of the form it was compiled from, i.e. as long as the date changed of the form
+ * is the same.
+ * <p>
+ * Schemas of forms saved or purged through the {@link org.openmrs.api.FormService}, or whose form
+ * fields or form resources were saved or purged, are evicted right away and again once the
+ * transaction completes. Changes of fields, which can be shared by forms, and of concepts, whose
+ * names and answers are part of the schemas, evict all schemas. A transaction that changed forms
+ * compiles schemas without caching them until it completes.
+ * <p>
+ * The schemas of the published forms are compiled in the background whenever the application
+ * context is refreshed, unless the runtime property <tt>form.schema.preload</tt> is set to false.
+ * 
+ * @since 2.8.0
+ */
+@Component
+public class FormSchemaCache implements ApplicationListener<ContextRefreshedEvent>, CacheInvalidationListener {
+	
+	private static final Logger log = LoggerFactory.getLogger(FormSchemaCache.class);
+	
+	public static final String PRELOAD_PROPERTY = "form.schema.preload";
+	
+	private static final String FORM_ENTITY_PREFIX = "org.openmrs.Form";
+	
+	private static final String CONCEPT_ENTITY_PREFIX = "org.openmrs.Concept";
+	
+	private static volatile FormSchemaCache instance;
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private final Map<String, FormSchema> schemas = new ConcurrentHashMap<>();
+	
+	private long generation;
+	
+	private ExecutorService loader;
+	
+	public FormSchemaCache() {
+	}
+	
+	FormSchemaCache(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+	
+	@PostConstruct
+	public void init() {
+		if (Boolean.parseBoolean(Context.getRuntimeProperties().getProperty(PRELOAD_PROPERTY, "true"))) {
+			loader = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "OpenMRS form schema loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		instance = this;
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		if (instance == this) {
+			instance = null;
+		}
+		if (loader != null) {
+			loader.shutdownNow();
+			loader = null;
+		}
+	}
+	
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		// child contexts, e.g. of modules started without a refresh, do not change any forms
+		if (instance == this && loader != null && event.getApplicationContext().getParent() == null) {
+			loader.execute(this::preload);
+		}
+	}
+	
+	/**
+	 * Returns the schema of the given version of a form, compiling and caching it if needed. The
+	 * form must be attached to an open session.
+	 * 
+	 * @param form the form
+	 * @return the compiled schema of the form
+	 */
+	public static FormSchema getFormSchema(Form form) {
+		FormSchemaCache cache = instance;
+		if (cache == null || form.getFormId() == null || TransactionSynchronizationManager.hasResource(cache)) {
+			return FormSchema.compile(form, getFormResources(form));
+		}
+		return cache.get(form);
+	}
+	
+	/**
+	 * Evicts the schema of a form, and again once the current transaction completes
+	 * 
+	 * @param form the changed form
+	 */
+	public static void formChanged(Form form) {
+		FormSchemaCache cache = instance;
+		if (cache != null && form != null && form.getUuid() != null) {
+			cache.changed(form.getUuid());
+		}
+	}
+	
+	/**
+	 * Evicts all schemas, and again once the current transaction completes, used for changes that
+	 * can affect many forms such as changing a field
+	 */
+	public static void formsChanged() {
+		FormSchemaCache cache = instance;
+		if (cache != null) {
+			cache.changed(null);
+		}
+	}
+	
+	private static Collection<FormResource> getFormResources(Form form) {
+		if (form.getFormId() == null) {
+			return Collections.emptyList();
+		}
+		return Context.getFormService().getFormResourcesForForm(form);
+	}
+	
+	FormSchema get(Form form) {
+		FormSchema schema = schemas.get(form.getUuid());
+		if (schema != null && schema.isVersionOf(form)) {
+			return schema;
+		}
+		long compiledGeneration = getGeneration();
+		schema = FormSchema.compile(form, getFormResources(form));
+		put(schema, compiledGeneration);
+		return schema;
+	}
+	
+	/**
+	 * Caches a schema unless schemas were evicted since it started compiling
+	 */
+	private synchronized void put(FormSchema schema, long compiledGeneration) {
+		if (generation == compiledGeneration) {
+			schemas.put(schema.getUuid(), schema);
+		}
+	}
+	
+	private synchronized long getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * @param uuid the uuid of the form to evict or null to evict all forms
+	 */
+	synchronized void evict(String uuid) {
+		generation++;
+		if (uuid == null) {
+			schemas.clear();
+		} else {
+			schemas.remove(uuid);
+		}
+	}
+	
+	private void changed(String uuid) {
+		evict(uuid);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new PendingChanges();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		if (uuid == null) {
+			pending.evictAll = true;
+		} else {
+			pending.uuids.add(uuid);
+		}
+	}
+	
+	@Override
+	public void cacheInvalidated(CacheInvalidation invalidation) {
+		if (instance == this && invalidation.getType() == CacheInvalidation.Type.ENTITY
+		        && (invalidation.getName().startsWith(FORM_ENTITY_PREFIX)
+		                || invalidation.getName().startsWith(CONCEPT_ENTITY_PREFIX))) {
+			evict(null);
+		}
+	}
+	
+	/**
+	 * Compiles the schemas of the published forms that are not retired
+	 */
+	@SuppressWarnings("unchecked")
+	void preload() {
+		long start = System.nanoTime();
+		long compiledGeneration = getGeneration();
+		Session session = sessionFactory.openSession();
+		try {
+			session.setDefaultReadOnly(true);
+			List<Form> forms = session.createQuery("from Form f where f.published = true and f.retired = false")
+			        .list();
+			for (Form form : forms) {
+				List<FormResource> resources = session.createQuery("from FormResource r where r.form = :form")
+				        .setParameter("form", form).list();
+				put(FormSchema.compile(form, resources), compiledGeneration);
+			}
+			log.info("Compiled the schemas of {} published forms in {} ms", forms.size(),
+			    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to compile the schemas of the published forms, they are compiled when first used", e);
+		}
+		finally {
+			session.close();
+		}
+	}
+	
+	/**
+	 * The forms changed by one transaction, evicted again once it completes
+	 */
+	private class PendingChanges implements TransactionSynchronization {
+		
+		private final Set<String> uuids = new LinkedHashSet<>();
+		
+		private boolean evictAll;
+		
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(FormSchemaCache.this);
+			if (evictAll) {
+				evict(null);
+			} else {
+				for (String uuid : uuids) {
+					evict(uuid);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends invalidations as UDP datagrams to a fixed list of peers and only accepts datagrams from
+ * these peers. Several nodes can run on one machine by giving each its own port. Configured with
+ * the runtime properties:
+ * <ul>
+ * <li><tt>cache.invalidation.udp.bindAddress</tt> defaults to all interfaces</li>
+ * <li><tt>cache.invalidation.udp.port</tt> defaults to 45588</li>
+ * <li><tt>cache.invalidation.udp.peers</tt> comma separated list of host:port of the other
+ * nodes</li>
+ * </ul>
+ * Messages are encoded in a compact binary format rather than with Java serialization so that
+ * nothing but invalidations can be received.
+ * 
+ * @since 2.8.0
+ */
+public class UdpCacheInvalidationTransport implements CacheInvalidationTransport {
+	
+	private static final Logger log = LoggerFactory.getLogger(UdpCacheInvalidationTransport.class);
+	
+	public static final String BIND_ADDRESS_PROPERTY = "cache.invalidation.udp.bindAddress";
+	
+	public static final String PORT_PROPERTY = "cache.invalidation.udp.port";
+	
+	public static final String PEERS_PROPERTY = "cache.invalidation.udp.peers";
+	
+	public static final int DEFAULT_PORT = 45588;
+	
+	private static final int MAGIC = 0x4F4D4349;
+	
+	private static final int MAX_DATAGRAM_SIZE = 65507;
+	
+	private static final int MAX_INVALIDATIONS_PER_DATAGRAM = 128;
+	
+	private DatagramSocket socket;
+	
+	private volatile List<InetSocketAddress> peers = Collections.emptyList();
+	
+	private volatile Set<InetAddress> peerAddresses = Collections.emptySet();
+	
+	private Thread receiverThread;
+	
+	@Override
+	public void start(Properties properties, Consumer<CacheInvalidationMessage> receiver) throws IOException {
+		String bindAddress = properties.getProperty(BIND_ADDRESS_PROPERTY);
+		int port = Integer.parseInt(properties.getProperty(PORT_PROPERTY, String.valueOf(DEFAULT_PORT)));
+		InetSocketAddress address = StringUtils.isBlank(bindAddress) ? new InetSocketAddress(port)
+		        : new InetSocketAddress(bindAddress.trim(), port);
+		
+		List<InetSocketAddress> configuredPeers = new ArrayList<>();
+		for (String peer : StringUtils.split(properties.getProperty(PEERS_PROPERTY, ""), ',')) {
+			String hostAndPort = peer.trim();
+			int colon = hostAndPort.lastIndexOf(':');
+			if (colon < 0) {
+				configuredPeers.add(new InetSocketAddress(hostAndPort, DEFAULT_PORT));
+			} else {
+				configuredPeers.add(new InetSocketAddress(hostAndPort.substring(0, colon),
+				        Integer.parseInt(hostAndPort.substring(colon + 1))));
+			}
+		}
+		
+		start(address, configuredPeers, receiver);
+	}
+	
+	/**
+	 * @param address the local address to receive datagrams on
+	 * @param peers the addresses of the other nodes
+	 * @param receiver to be called with every message received from a peer
+	 * @throws IOException if the socket cannot be bound
+	 */
+	public void start(InetSocketAddress address, List<InetSocketAddress> peers, Consumer<CacheInvalidationMessage> receiver)
+	        throws IOException {
+		socket = new DatagramSocket(address);
+		setPeers(peers);
+		receiverThread = new Thread(() -> receive(receiver), "OpenMRS cache invalidation receiver");
+		receiverThread.setDaemon(true);
+		receiverThread.start();
+		log.info("Listening for cache invalidations on {}, sending to {}", socket.getLocalSocketAddress(), peers);
+	}
+	
+	/**
+	 * @param peers the addresses of the other nodes
+	 */
+	public void setPeers(List<InetSocketAddress> peers) {
+		Set<InetAddress> addresses = new HashSet<>();
+		for (InetSocketAddress peer : peers) {
+			if (peer.getAddress() != null) {
+				addresses.add(peer.getAddress());
+			}
+		}
+		this.peers = Collections.unmodifiableList(new ArrayList<>(peers));
+		this.peerAddresses = addresses;
+	}
+	
+	/**
+	 * @return the port datagrams are received on
+	 */
+	public int getLocalPort() {
+		return socket.getLocalPort();
+	}
+	
+	@Override
+	public void publish(CacheInvalidationMessage message) throws IOException {
+		List<CacheInvalidation> invalidations = message.getInvalidations();
+		for (int from = 0; from < invalidations.size(); from += MAX_INVALIDATIONS_PER_DATAGRAM) {
+			List<CacheInvalidation> chunk = invalidations.subList(from,
+			    Math.min(invalidations.size(), from + MAX_INVALIDATIONS_PER_DATAGRAM));
+			byte[] data = encode(new CacheInvalidationMessage(message.getOrigin(), message.getSentAt(), chunk));
+			for (InetSocketAddress peer : peers) {
+				socket.send(new DatagramPacket(data, data.length, peer));
+			}
+		}
+	}
+	
+	@Override
+	public void stop() {
+		if (socket != null) {
+			socket.close();
+		}
+		if (receiverThread != null) {
+			try {
+				receiverThread.join(1000);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	private void receive(Consumer<CacheInvalidationMessage> receiver) {
+		byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+		while (!socket.isClosed()) {
+			DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+			try {
+				socket.receive(packet);
+			}
+			catch (SocketException e) {
+				// closed by stop()
+				break;
+			}
+			catch (IOException e) {
+				log.warn("Failed to receive cache invalidations", e);
+				continue;
+			}
+			
+			if (!peerAddresses.contains(packet.getAddress())) {
+				log.debug("Ignoring datagram from {} which is not a configured peer", packet.getAddress());
+				continue;
+			}
+			try {
+				receiver.accept(decode(packet.getData(), packet.getOffset(), packet.getLength()));
+			}
+			catch (IOException e) {
+				log.warn("Ignoring malformed cache invalidation datagram from {}", packet.getAddress(), e);
+			}
+			catch (RuntimeException e) {
+				log.error("Failed to apply cache invalidations received from {}", packet.getAddress(), e);
+			}
+		}
+	}
+	
+	static byte[] encode(CacheInvalidationMessage message) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeUTF(message.getOrigin());
+		out.writeLong(message.getSentAt());
+		out.writeInt(message.getInvalidations().size());
+		for (CacheInvalidation invalidation : message.getInvalidations()) {
+			out.writeByte(invalidation.getType().ordinal());
+			out.writeUTF(invalidation.getName());
+			Object key = invalidation.getKey();
+			if (key instanceof Integer) {
+				out.writeByte(1);
+				out.writeInt((Integer) key);
+			} else if (key instanceof Long) {
+				out.writeByte(2);
+				out.writeLong((Long) key);
+			} else if (key instanceof String) {
+				out.writeByte(3);
+				out.writeUTF((String) key);
+			} else {
+				out.writeByte(0);
+			}
+		}
+		out.flush();
+		if (bytes.size() > MAX_DATAGRAM_SIZE) {
+			throw new IOException("Cache invalidation message exceeds the maximum datagram size");
+		}
+		return bytes.toByteArray();
+	}
+	
+	static CacheInvalidationMessage decode(byte[] data, int offset, int length) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a cache invalidation message");
+		}
+		String origin = in.readUTF();
+		long sentAt = in.readLong();
+		int count = in.readInt();
+		if (count < 0 || count > MAX_INVALIDATIONS_PER_DATAGRAM) {
+			throw new IOException("Invalid number of invalidations: " + count);
+		}
+		CacheInvalidation.Type[] types = CacheInvalidation.Type.values();
+		List<CacheInvalidation> invalidations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int type = in.readByte();
+			if (type < 0 || type >= types.length) {
+				throw new IOException("Invalid invalidation type: " + type);
+			}
+			String name = in.readUTF();
+			Object key;
+			byte keyType = in.readByte();
+			switch (keyType) {
+				case 0:
+					key = null;
+					break;
+				case 1:
+					key = in.readInt();
+					break;
+				case 2:
+					key = in.readLong();
+					break;
+				case 3:
+					key = in.readUTF();
+					break;
+				default:
+					throw new IOException("Invalid key type: " + keyType);
+			}
+			invalidations.add(new CacheInvalidation(types[type], name, key));
+		}
+		return new CacheInvalidationMessage(origin, sentAt, invalidations);
+	}
+}
@@ -63,6 +63,7 @@ import org.openmrs.util.InputRequiredException;
 import org.openmrs.util.LocaleUtility;
 import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.OpenmrsThreadPoolHolder;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
 import org.openmrs.validator.ValidateUtil;
@@ -254,14 +255,16 @@ public class Context {
 	 */
 	public static UserContext getUserContext() {
 		Object[] arr = userContextHolder.get();
-		log.trace("Getting user context {} from userContextHolder {}", Arrays.toString(arr), userContextHolder);
+		if (log.isTraceEnabled()) {
+			log.trace("Getting user context {} from userContextHolder {}", Arrays.toString(arr), userContextHolder);
+		}
 
 		if (arr == null) {
 			log.trace("userContext is null.");
 			throw new APIException(
 					"A user context must first be passed to setUserContext()...use Context.openSession() (and closeSession() to prevent memory leaks!) before using the API");
 		}
-		return (UserContext) userContextHolder.get()[0];
+		return (UserContext) arr[0];
 	}
 
 	/**
@@ -943,6 +946,8 @@ public class Context {
 		// this should be first in the startup routines so that the application
 		// data directory can be set from the runtime properties
 		OpenmrsUtil.startup(props);
+		
+		OpenmrsThreadPoolHolder.getDaemonExecutor().configure(props);
 
 		openSession();
 		clearSession();
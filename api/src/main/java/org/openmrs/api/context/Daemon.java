@@ -14,6 +14,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -29,6 +30,7 @@ import org.openmrs.module.ModuleException;
 import org.openmrs.module.ModuleFactory;
 import org.openmrs.scheduler.Task;
 import org.openmrs.scheduler.timer.TimerSchedulerTask;
+import org.openmrs.util.DaemonExecutor;
 import org.openmrs.util.OpenmrsSecurityManager;
 import org.openmrs.util.OpenmrsThreadPoolHolder;
 import org.springframework.context.support.AbstractRefreshableApplicationContext;
@@ -188,7 +190,9 @@ public final class Daemon {
 	/**
 	 * Call this method if you are inside a Daemon thread (for example in a Module activator or a
 	 * scheduled task) and you want to start up a new parallel Daemon thread. You may only call this
-	 * method from a Daemon thread.
+	 * method from a Daemon thread. Returns once the new thread runs, or right away if it has to wait
+	 * for room in the daemon executor. It counts against the limits of the module running the
+	 * calling thread.
 	 *
 	 * @param runnable what to run in a new thread
 	 * @return the newly spawned {@link Thread}
@@ -230,12 +234,11 @@ public final class Daemon {
 			}
 		};
 		
-		OpenmrsThreadPoolHolder.threadExecutor.execute(thread);
+		boolean started = OpenmrsThreadPoolHolder.getDaemonExecutor().executeOrQueue(getCallingTaskOwner(), thread);
 
 		// do not return until the thread is actually started to emulate the previous behaviour
-		try {
-			countDownLatch.await();
-		} catch (InterruptedException ignored) {
+		if (started) {
+			awaitStart(countDownLatch);
 		}
 
 		return thread;
@@ -257,7 +260,7 @@ public final class Daemon {
 			throw new APIAuthenticationException("Only daemon threads can spawn new daemon threads");
 		}
 
-		return runInDaemonThreadInternal(callable);
+		return runInDaemonThreadInternal(getCallingTaskOwner(), callable);
 	}
 
 	/**
@@ -276,7 +279,7 @@ public final class Daemon {
 			throw new APIAuthenticationException("Only daemon threads can spawn new daemon threads");
 		}
 		
-		return runInDaemonThreadInternal(runnable);
+		return runInDaemonThreadInternal(getCallingTaskOwner(), runnable);
 	}
 	
 	/**
@@ -363,7 +366,7 @@ public final class Daemon {
 			}
 		};
 
-		OpenmrsThreadPoolHolder.threadExecutor.execute(thread);
+		OpenmrsThreadPoolHolder.getDaemonExecutor().execute(token.getId(), thread);
 		return thread;
 	}
 
@@ -381,7 +384,7 @@ public final class Daemon {
 			throw new ContextAuthenticationException("Invalid token");
 		}
 		
-		return runInDaemonThreadInternal(callable);
+		return runInDaemonThreadInternal(token.getId(), callable);
 	}
 
 	/**
@@ -398,7 +401,7 @@ public final class Daemon {
 			throw new ContextAuthenticationException("Invalid token");
 		}
 
-		return runInDaemonThreadInternal(runnable);
+		return runInDaemonThreadInternal(token.getId(), runnable);
 	}
 	
 	/**
@@ -421,7 +424,11 @@ public final class Daemon {
 	}
 	
 	private static <T> Future<T> runInDaemonThreadInternal(Callable<T> callable) {
-		return OpenmrsThreadPoolHolder.threadExecutor.submit(() -> {
+		return runInDaemonThreadInternal(DaemonExecutor.CORE_OWNER, callable);
+	}
+	
+	private static <T> Future<T> runInDaemonThreadInternal(String owner, Callable<T> callable) {
+		return OpenmrsThreadPoolHolder.getDaemonExecutor().submit(owner, () -> {
 			isDaemonThread.set(true);
 			try {
 				Context.openSession();
@@ -439,12 +446,16 @@ public final class Daemon {
 	}
 	
 	private static Future<?> runInDaemonThreadInternal(Runnable runnable) {
+		return runInDaemonThreadInternal(DaemonExecutor.CORE_OWNER, runnable);
+	}
+	
+	private static Future<?> runInDaemonThreadInternal(String owner, Runnable runnable) {
 		// for Threads, we used to guarantee that Thread.start() was called before the function returned
 		// since we cannot guarantee that the executor actually started executing the thread, we use a CountDownLatch
 		// to emulate this behaviour when the user submits a Thread. Other runnables are unaffected.
 		CountDownLatch countDownLatch = getCountDownLatch(runnable instanceof Thread);
 
-		Future<?> result = OpenmrsThreadPoolHolder.threadExecutor.submit(() -> {
+		FutureTask<?> result = new FutureTask<>(() -> {
 			isDaemonThread.set(true);
 			try {
 				Context.openSession();
@@ -459,14 +470,36 @@ public final class Daemon {
 					daemonThreadUser.remove();
 				}
 			}
-		});
+		}, null);
 		
-		try {
-			countDownLatch.await();
-		} catch (InterruptedException ignored) {}
+		if (OpenmrsThreadPoolHolder.getDaemonExecutor().executeOrQueue(owner, result)) {
+			awaitStart(countDownLatch);
+		}
 		
 		return result;
 	}
+	
+	/**
+	 * Waits for a task that was started by the executor to run. Tasks that were queued are not
+	 * waited for, since the calling daemon task may hold the slot of the executor they need.
+	 */
+	private static void awaitStart(CountDownLatch countDownLatch) {
+		try {
+			countDownLatch.await();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * @return the owner of the daemon task running on the current thread, so that the tasks it
+	 *         starts count against the limits of the same module
+	 */
+	private static String getCallingTaskOwner() {
+		String owner = DaemonExecutor.getCurrentOwner();
+		return owner == null ? DaemonExecutor.CORE_OWNER : owner;
+	}
 
 	private static CountDownLatch getCountDownLatch(boolean isThread) {
 		return isThread ? new CountDownLatch(1) : new CountDownLatch(0);
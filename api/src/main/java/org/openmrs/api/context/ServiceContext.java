@@ -17,6 +17,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.aopalliance.aop.Advice;
 import org.openmrs.api.APIException;
@@ -80,18 +84,22 @@ public class ServiceContext implements ApplicationContextAware {
 
 	private ApplicationContext applicationContext;
 	
-	private static boolean refreshingContext = false;
+	private static volatile boolean refreshingContext = false;
 	
 	private static final Object refreshingContextLock = new Object();
 	
+	private static volatile long refreshStartedAt;
+	
+	private static volatile long refreshBlockingMillis;
+	
 	/**
 	 * Static variable holding whether or not to use the system classloader. By default this is
 	 * false so the openmrs classloader is used instead
 	 */
 	private boolean useSystemClassLoader = false;
 	
-	// Cached service objects
-	Map<Class, Object> services = new HashMap<>();
+	// Cached service objects, replaced as a whole by setService so it can be read without locking
+	volatile Map<Class, Object> services = Collections.emptyMap();
 	
 	// Advisors added to services by this service
 	Map<Class, Set<Advisor>> addedAdvisors = new HashMap<>();
@@ -107,6 +115,24 @@ public class ServiceContext implements ApplicationContextAware {
 	 */
 	Map<String, OpenmrsService> moduleOpenmrsServices = new HashMap<>();
 	
+	/**
+	 * Registered components by type. The maps are never modified once published, a lookup that
+	 * misses replaces the whole map with a copy containing the new entry.
+	 */
+	private final AtomicReference<Map<Class<?>, List<?>>> componentsByType = new AtomicReference<>(
+	        new HashMap<>());
+	
+	private final AtomicReference<Map<String, Object>> componentsByName = new AtomicReference<>(new HashMap<>());
+	
+	private final LongAdder componentIndexHits = new LongAdder();
+	
+	private final LongAdder componentIndexMisses = new LongAdder();
+	
+	/**
+	 * Child application contexts of modules started without refreshing the application context
+	 */
+	private final List<ApplicationContext> moduleApplicationContexts = new CopyOnWriteArrayList<>();
+	
 	/**
 	 * The default constructor is private so as to keep only one instance per java vm.
 	 *
@@ -155,10 +181,7 @@ public class ServiceContext implements ApplicationContextAware {
 				ServiceContextHolder.instance.removeAddedAOP(serviceClass);
 			}
 			
-			if (ServiceContextHolder.instance.services != null) {
-				ServiceContextHolder.instance.services.clear();
-				ServiceContextHolder.instance.services = null;
-			}
+			ServiceContextHolder.instance.services = null;
 			
 			if (ServiceContextHolder.instance.addedAdvisors != null) {
 				ServiceContextHolder.instance.addedAdvisors.clear();
@@ -661,7 +684,8 @@ public class ServiceContext implements ApplicationContextAware {
 	}
 	
 	/**
-	 * Returns the current proxy that is stored for the Class <code>cls</code>
+	 * Returns the current proxy that is stored for the Class <code>cls</code>. No lock is taken
+	 * unless a context refresh is in progress, in which case the call waits for it to finish.
 	 *
 	 * @param cls
 	 * @return Object that is a proxy for the <code>cls</code> class
@@ -674,19 +698,21 @@ public class ServiceContext implements ApplicationContextAware {
 		
 		// if the context is refreshing, wait until it is
 		// done -- otherwise a null service might be returned
-		synchronized (refreshingContextLock) {
-			try {
-				while (refreshingContext) {
-					log.debug("Waiting to get service: {} while the context is being refreshed", cls);
-					
-					refreshingContextLock.wait();
+		if (refreshingContext) {
+			synchronized (refreshingContextLock) {
+				try {
+					while (refreshingContext) {
+						log.debug("Waiting to get service: {} while the context is being refreshed", cls);
+						
+						refreshingContextLock.wait();
+						
+						log.debug("Finished waiting to get service {} while the context was being refreshed", cls);
+					}
 					
-					log.debug("Finished waiting to get service {} while the context was being refreshed", cls);
 				}
-				
-			}
-			catch (InterruptedException e) {
-				log.warn("Refresh lock was interrupted", e);
+				catch (InterruptedException e) {
+					log.warn("Refresh lock was interrupted", e);
+				}
 			}
 		}
 		
@@ -704,7 +730,7 @@ public class ServiceContext implements ApplicationContextAware {
 	 * @param cls Interface to proxy
 	 * @param classInstance the actual instance of the <code>cls</code> interface
 	 */
-	public void setService(Class<?> cls, Object classInstance) {
+	public synchronized void setService(Class<?> cls, Object classInstance) {
 		log.debug("Setting service: {}", cls);
 		
 		if (cls != null && classInstance != null) {
@@ -732,7 +758,10 @@ public class ServiceContext implements ApplicationContextAware {
 						moveAddedAOP(cachedService, advisedService);
 					}
 					
-					services.put(cls, advisedService);
+					// publish a new copy so getService never sees a map that is being modified
+					Map<Class, Object> newServices = new HashMap<>(services);
+					newServices.put(cls, advisedService);
+					services = newServices;
 				}
 				log.debug("Service: {} set successfully", cls);
 			}
@@ -838,7 +867,9 @@ public class ServiceContext implements ApplicationContextAware {
 	public void startRefreshingContext() {
 		synchronized (refreshingContextLock) {
 			log.info("Refreshing Context");
+			refreshStartedAt = System.nanoTime();
 			setRefreshingContext(true);
+			clearComponentIndex();
 		}
 	}
 	
@@ -848,8 +879,10 @@ public class ServiceContext implements ApplicationContextAware {
 	 */
 	public void doneRefreshingContext() {
 		synchronized (refreshingContextLock) {
-			log.info("Done refreshing Context");
+			refreshBlockingMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - refreshStartedAt);
+			log.info("Done refreshing Context, service lookups were blocked for {} ms", refreshBlockingMillis);
 			setRefreshingContext(false);
+			clearComponentIndex();
 			refreshingContextLock.notifyAll();
 		}
 	}
@@ -863,9 +896,15 @@ public class ServiceContext implements ApplicationContextAware {
 	 *         doneRefreshingContext()
 	 */
 	public boolean isRefreshingContext() {
-		synchronized (refreshingContextLock) {
-			return refreshingContext;
-		}
+		return refreshingContext;
+	}
+	
+	/**
+	 * @return how long calls to getService were blocked by the last context refresh in milliseconds
+	 * @since 2.8.0
+	 */
+	public long getLastRefreshBlockingTime() {
+		return refreshBlockingMillis;
 	}
 	
 	/**
@@ -874,6 +913,9 @@ public class ServiceContext implements ApplicationContextAware {
 	 * <p>
 	 * <b>NOTE: This method introspects top-level beans only.</b> It does <i>not</i> check nested
 	 * beans which might match the specified type as well.
+	 * <p>
+	 * The result is cached per type until the application context is refreshed or a module is
+	 * started or stopped. Each call returns a new list, which callers may modify.
 	 *
 	 * @see ApplicationContext#getBeansOfType(Class)
 	 * @param type the type of Bean to retrieve from the Spring {@link ApplicationContext}
@@ -882,12 +924,35 @@ public class ServiceContext implements ApplicationContextAware {
 	 * <strong>Should</strong> return a list of all registered beans of the passed type
 	 * <strong>Should</strong> return beans registered in a module
 	 * <strong>Should</strong> return an empty list if no beans have been registered of the passed type
+	 * <strong>Should</strong> not query the application context again for a type already looked up
+	 * <strong>Should</strong> return a list that can be modified without affecting later lookups
 	 */
-	
+	@SuppressWarnings("unchecked")
 	public <T> List<T> getRegisteredComponents(Class<T> type) {
+		Map<Class<?>, List<?>> index = componentsByType.get();
+		List<?> components = index.get(type);
+		if (components != null) {
+			componentIndexHits.increment();
+			// callers may modify the returned list, so hand out a copy of the cached one
+			return new ArrayList<>((List<T>) components);
+		}
+		
+		componentIndexMisses.increment();
 		Map<String, T> m = getRegisteredComponents(applicationContext, type);
+		for (ApplicationContext moduleApplicationContext : moduleApplicationContexts) {
+			m.putAll(moduleApplicationContext.getBeansOfType(type));
+		}
 		log.trace("getRegisteredComponents({}) = {}", type, m);
-		return new ArrayList<>(m.values());
+		List<T> result = new ArrayList<>(m.values());
+		
+		if (!refreshingContext) {
+			Map<Class<?>, List<?>> newIndex = new HashMap<>(index);
+			newIndex.put(type, Collections.unmodifiableList(new ArrayList<>(result)));
+			// if the index was cleared or extended meanwhile, leave it to the next lookup
+			componentsByType.compareAndSet(index, newIndex);
+		}
+		
+		return result;
 	}
 	
 	/**
@@ -900,12 +965,109 @@ public class ServiceContext implements ApplicationContextAware {
 	 * @since 1.9.4
 	 */
 	public <T> T getRegisteredComponent(String beanName, Class<T> type) throws APIException {
+		Map<String, Object> index = componentsByName.get();
+		Object component = index.get(beanName);
+		if (type.isInstance(component)) {
+			componentIndexHits.increment();
+			return type.cast(component);
+		}
+		
+		componentIndexMisses.increment();
+		ApplicationContext context = getApplicationContextDefining(beanName);
+		T result;
 		try {
-			return applicationContext.getBean(beanName, type);
+			result = context.getBean(beanName, type);
 		}
 		catch (BeansException beanException) {
 			throw new APIException("Error during getting registered component", beanException);
 		}
+		
+		if (!refreshingContext && context.isSingleton(beanName)) {
+			Map<String, Object> newIndex = new HashMap<>(index);
+			newIndex.put(beanName, result);
+			componentsByName.compareAndSet(index, newIndex);
+		}
+		
+		return result;
+	}
+	
+	private ApplicationContext getApplicationContextDefining(String beanName) {
+		for (ApplicationContext moduleApplicationContext : moduleApplicationContexts) {
+			if (moduleApplicationContext.containsLocalBean(beanName)) {
+				return moduleApplicationContext;
+			}
+		}
+		return applicationContext;
+	}
+	
+	/**
+	 * Adds the child application context of a module started without refreshing the application
+	 * context, so that its beans are found by {@link #getRegisteredComponents(Class)} and
+	 * {@link #getRegisteredComponent(String, Class)}
+	 * 
+	 * @param moduleApplicationContext the child application context
+	 * @since 2.8.0
+	 */
+	public void addModuleApplicationContext(ApplicationContext moduleApplicationContext) {
+		moduleApplicationContexts.add(moduleApplicationContext);
+		clearComponentIndex();
+	}
+	
+	/**
+	 * @param moduleApplicationContext the child application context of a module that is stopped
+	 * @see #addModuleApplicationContext(ApplicationContext)
+	 * @since 2.8.0
+	 */
+	public void removeModuleApplicationContext(ApplicationContext moduleApplicationContext) {
+		moduleApplicationContexts.remove(moduleApplicationContext);
+		clearComponentIndex();
+	}
+	
+	/**
+	 * Removes the services with interfaces loaded by the given class loader. A context refresh drops
+	 * all module services, this is needed when a module is stopped without one.
+	 * 
+	 * @param moduleClassLoader the class loader of a module that is stopped
+	 * @since 2.8.0
+	 */
+	public synchronized void removeModuleServices(ClassLoader moduleClassLoader) {
+		Map<Class, Object> newServices = new HashMap<>(services);
+		newServices.keySet().removeIf(cls -> cls.getClassLoader() == moduleClassLoader);
+		services = newServices;
+		addedAdvisors.keySet().removeIf(cls -> cls.getClassLoader() == moduleClassLoader);
+		addedAdvice.keySet().removeIf(cls -> cls.getClassLoader() == moduleClassLoader);
+		
+		moduleOpenmrsServices.values().removeIf(service -> service.getClass().getClassLoader() == moduleClassLoader);
+	}
+	
+	/**
+	 * Drops all components cached by {@link #getRegisteredComponents(Class)} and
+	 * {@link #getRegisteredComponent(String, Class)} so that they are looked up again from the
+	 * application context. This is called whenever the application context is replaced or refreshed
+	 * and when modules are started or stopped.
+	 * 
+	 * @since 2.8.0
+	 */
+	public void clearComponentIndex() {
+		componentsByType.set(new HashMap<>());
+		componentsByName.set(new HashMap<>());
+	}
+	
+	/**
+	 * @return the number of registered component lookups served without querying the application
+	 *         context
+	 * @since 2.8.0
+	 */
+	public long getComponentIndexHitCount() {
+		return componentIndexHits.sum();
+	}
+	
+	/**
+	 * @return the number of registered component lookups that had to query the application context
+	 * @since 2.8.0
+	 */
+	public long getComponentIndexMissCount() {
+		return componentIndexMisses.sum();
 	}
 	
 	/**
@@ -932,6 +1094,7 @@ public class ServiceContext implements ApplicationContextAware {
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) {
 		this.applicationContext = applicationContext;
+		clearComponentIndex();
 	}
 	
 	public ApplicationContext getApplicationContext() {
@@ -16,6 +16,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.Location;
@@ -29,9 +31,12 @@ import org.openmrs.api.APIAuthenticationException;
 import org.openmrs.api.LocationService;
 import org.openmrs.util.LocaleUtility;
 import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.PrivilegeConstants;
 import org.openmrs.util.RoleConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Represents an OpenMRS <code>User Context</code> which stores the current user information. Only
@@ -51,6 +56,12 @@ public class UserContext implements Serializable {
 	 */
 	private static final Logger log = LoggerFactory.getLogger(UserContext.class);
 	
+	/**
+	 * Notified with the id of a user, or null for all users, whenever snapshots taken for them must
+	 * no longer be restored
+	 */
+	private static final Set<Consumer<Integer>> snapshotInvalidationListeners = new CopyOnWriteArraySet<>();
+	
 	/**
 	 * User object containing details about the authenticated user
 	 */
@@ -96,6 +107,28 @@ public class UserContext implements Serializable {
 		this.authenticationScheme = authenticationScheme;
 	}
 	
+	/**
+	 * Creates a user context that is already authenticated as the user captured in the given
+	 * snapshot, without going through the authentication scheme again. Snapshots can only be taken
+	 * from contexts that were authenticated, see {@link #snapshot()}. The user is loaded again from
+	 * the current session, the context is left unauthenticated if it no longer exists or is
+	 * retired.
+	 *
+	 * @param authenticationScheme The auth. scheme that applies for this user context.
+	 * @param snapshot the authenticated state to restore
+	 * @since 2.8.0
+	 */
+	public UserContext(AuthenticationScheme authenticationScheme, Snapshot snapshot) {
+		this(authenticationScheme);
+		User snapshotUser = Context.getContextDAO().getUser(snapshot.userId);
+		if (snapshotUser == null || Boolean.TRUE.equals(snapshotUser.getRetired())) {
+			return;
+		}
+		this.user = snapshotUser;
+		this.locale = snapshot.locale;
+		this.locationId = snapshot.locationId;
+	}
+	
 	/**
 	 * Authenticate user with the provided credentials. The authentication scheme must be Spring wired, see {@link Context#getAuthenticationScheme()}.
 	 *
@@ -208,6 +241,73 @@ public class UserContext implements Serializable {
 		return user != null;
 	}
 	
+	/**
+	 * Captures the authenticated user, locale and location of this context in an immutable
+	 * snapshot, which can be used to cheaply rebuild an equivalent context for later requests of
+	 * the same client. Only the id of the user is kept, proxy privileges are never part of a
+	 * snapshot.
+	 *
+	 * @return the snapshot or <code>null</code> if no user is authenticated
+	 * @since 2.8.0
+	 */
+	public Snapshot snapshot() {
+		User authenticatedUser = user;
+		if (authenticatedUser == null) {
+			return null;
+		}
+		return new Snapshot(authenticatedUser.getUserId(), locale, locationId);
+	}
+	
+	/**
+	 * Registers a listener to be notified when snapshots of a user must no longer be restored,
+	 * because the password, roles or status of the user changed. The listener is passed the id of
+	 * the user or null if snapshots of all users are affected.
+	 *
+	 * @param listener the listener to add
+	 * @since 2.8.0
+	 */
+	public static void addSnapshotInvalidationListener(Consumer<Integer> listener) {
+		snapshotInvalidationListeners.add(listener);
+	}
+	
+	/**
+	 * @param listener the listener to remove
+	 * @since 2.8.0
+	 */
+	public static void removeSnapshotInvalidationListener(Consumer<Integer> listener) {
+		snapshotInvalidationListeners.remove(listener);
+	}
+	
+	/**
+	 * Notifies the snapshot invalidation listeners right away and, if a transaction is active, once
+	 * more after it has committed so that snapshots taken meanwhile from the old state are dropped
+	 * too.
+	 *
+	 * @param userId the id of the user whose snapshots are invalid or null for all users
+	 * @since 2.8.0
+	 */
+	public static void invalidateSnapshots(Integer userId) {
+		if (snapshotInvalidationListeners.isEmpty()) {
+			return;
+		}
+		notifySnapshotInvalidationListeners(userId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				
+				@Override
+				public void afterCommit() {
+					notifySnapshotInvalidationListeners(userId);
+				}
+			});
+		}
+	}
+	
+	private static void notifySnapshotInvalidationListeners(Integer userId) {
+		for (Consumer<Integer> listener : snapshotInvalidationListeners) {
+			listener.accept(userId);
+		}
+	}
+	
 	/**
 	 * logs out the "active" (authenticated) user within this UserContext
 	 *
@@ -331,11 +431,9 @@ public class UserContext implements Serializable {
 	public boolean hasPrivilege(String privilege) {
 		log.debug("Checking '{}' against proxies: {}", privilege, proxies);
 		// check proxied privileges
-		for (String s : new ArrayList<>(proxies)) {
-			if (s.equals(privilege)) {
-				notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
-				return true;
-			}
+		if (proxies.contains(privilege)) {
+			notifyPrivilegeListeners(getAuthenticatedUser(), privilege, true);
+			return true;
 		}
 		
 		// if a user has logged in, check their privileges
@@ -369,7 +467,14 @@ public class UserContext implements Serializable {
 			return anonymousRole;
 		}
 		
-		anonymousRole = Context.getUserService().getRole(RoleConstants.ANONYMOUS);
+		// the role is only looked up once, so callers checking privileges do not need to proxy Get Roles
+		addProxyPrivilege(PrivilegeConstants.GET_ROLES);
+		try {
+			anonymousRole = Context.getUserService().getRole(RoleConstants.ANONYMOUS);
+		}
+		finally {
+			removeProxyPrivilege(PrivilegeConstants.GET_ROLES);
+		}
 		if (anonymousRole == null) {
 			throw new RuntimeException(
 				"Database out of sync with code: " + RoleConstants.ANONYMOUS + " role does not exist");
@@ -390,7 +495,14 @@ public class UserContext implements Serializable {
 			return authenticatedRole;
 		}
 		
-		authenticatedRole = Context.getUserService().getRole(RoleConstants.AUTHENTICATED);
+		// the role is only looked up once, so callers checking privileges do not need to proxy Get Roles
+		addProxyPrivilege(PrivilegeConstants.GET_ROLES);
+		try {
+			authenticatedRole = Context.getUserService().getRole(RoleConstants.AUTHENTICATED);
+		}
+		finally {
+			removeProxyPrivilege(PrivilegeConstants.GET_ROLES);
+		}
 		if (authenticatedRole == null) {
 			throw new RuntimeException("Database out of sync with code: " + RoleConstants.AUTHENTICATED
 				+ " role does not exist");
@@ -534,4 +646,48 @@ public class UserContext implements Serializable {
 			userSessionListener.loggedInOrOut(user, event, status);
 		}
 	}
+	
+	/**
+	 * Immutable copy of the authenticated state of a {@link UserContext}.
+	 *
+	 * @see UserContext#snapshot()
+	 * @since 2.8.0
+	 */
+	public static final class Snapshot implements Serializable {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Integer userId;
+		
+		private final Locale locale;
+		
+		private final Integer locationId;
+		
+		private Snapshot(Integer userId, Locale locale, Integer locationId) {
+			this.userId = userId;
+			this.locale = locale;
+			this.locationId = locationId;
+		}
+		
+		/**
+		 * @return the id of the authenticated user
+		 */
+		public Integer getUserId() {
+			return userId;
+		}
+		
+		/**
+		 * @return the locale of the context, may be <code>null</code>
+		 */
+		public Locale getLocale() {
+			return locale;
+		}
+		
+		/**
+		 * @return the location id of the context, may be <code>null</code>
+		 */
+		public Integer getLocationId() {
+			return locationId;
+		}
+	}
 }
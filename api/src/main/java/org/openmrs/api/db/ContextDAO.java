@@ -66,6 +66,16 @@ public interface ContextDAO {
 	 */
 	public User getUserByUuid(String uuid) throws ContextAuthenticationException;
 	
+	/**
+	 * Gets a user given the id. Privilege checks are not done here because this is used to restore
+	 * the authenticated user of a {@link org.openmrs.api.context.UserContext.Snapshot}.
+	 * 
+	 * @param userId id of the user to fetch
+	 * @return the User from the database or null if there is none
+	 * @since 2.8.0
+	 */
+	public User getUser(Integer userId);
+	
 	/**
 	 * Gets a user given the username. Privilege checks are not done here because this is used by the
 	 * {@link Context#getAuthenticatedUser()} or {@link Context#authenticate(org.openmrs.api.context.Credentials)} methods.
@@ -9,6 +9,9 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Data access for custom datatypes
  * 
@@ -32,6 +35,15 @@ public interface DatatypeDAO {
 	 */
 	ClobDatatypeStorage getClobDatatypeStorageByUuid(String uuid);
 	
+	/**
+	 * Gets the clob storage objects with the given uuids
+	 * 
+	 * @param uuids
+	 * @return the clob storage objects found
+	 * @since 2.8.0
+	 */
+	List<ClobDatatypeStorage> getClobDatatypeStoragesByUuids(Collection<String> uuids);
+	
 	/**
 	 * Creates or updates a clob storage object
 	 * 
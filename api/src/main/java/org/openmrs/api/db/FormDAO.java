@@ -300,6 +300,15 @@ public interface FormDAO {
 	 */
 	public List<FormField> getFormFieldsByField(Field field);
 	
+	/**
+	 * Return the FormFields that use any of the given Fields
+	 * 
+	 * @param fields the fields
+	 * @return List of FormFields
+	 * @since 2.8.0
+	 */
+	public List<FormField> getFormFieldsByFields(Collection<Field> fields);
+	
 	/**
 	 * @see FormService#getFormResource(java.lang.Integer) 
 	 * @since 1.9
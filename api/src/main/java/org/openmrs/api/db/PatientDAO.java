@@ -9,7 +9,12 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.openmrs.Allergies;
 import org.openmrs.Allergy;
@@ -19,6 +24,7 @@ import org.openmrs.PatientIdentifier;
 import org.openmrs.PatientIdentifierType;
 import org.openmrs.PatientProgram;
 import org.openmrs.api.PatientService;
+import org.openmrs.patient.duplicate.PatientRecord;
 
 /**
  * Database methods for the PatientService
@@ -186,6 +192,24 @@ public interface PatientDAO {
 	 */
 	public List<Patient> getDuplicatePatientsByAttributes(List<String> attributes) throws DAOException;
 	
+	/**
+	 * Streams the data compared by duplicate detection of all non voided patients, one record per
+	 * patient with its preferred name, without loading the patients into the session
+	 * 
+	 * @param changedSince only patients whose patient, person or name data was created or changed
+	 *            after this date are returned, null to return all patients
+	 * @param consumer receives the records ordered by patient id
+	 * @since 2.8.0
+	 */
+	public void forEachDuplicateDetectionRecord(Date changedSince, Consumer<PatientRecord> consumer) throws DAOException;
+	
+	/**
+	 * @param patientIds the patients to get the identifiers of
+	 * @return the values of the non voided identifiers of the patients by patient id
+	 * @since 2.8.0
+	 */
+	public Map<Integer, Set<String>> getPatientIdentifierValues(Collection<Integer> patientIds) throws DAOException;
+	
 	/**
 	 * @see org.openmrs.api.PatientService#isIdentifierInUseByAnotherPatient(PatientIdentifier)
 	 */
@@ -305,4 +329,20 @@ public interface PatientDAO {
 	 */
 	public List getPatientIdentifierByProgram(PatientProgram patientProgram);
 	
+	/**
+	 * Reassigns the rows of a table that belong to one patient to another patient with set based
+	 * updates of at most batchSize rows each. The updates bypass the hibernate session, instances of
+	 * the reassigned rows that are loaded in the session are evicted and the second level cache
+	 * region of the table is invalidated.
+	 * 
+	 * @param table the table to update
+	 * @param from the patient whose rows are reassigned
+	 * @param to the patient the rows are reassigned to
+	 * @param batchSize the maximum number of rows changed by one statement
+	 * @return the uuids of the reassigned rows
+	 * @since 2.8.0
+	 */
+	public List<String> reassignPatientData(PatientMergeTable table, Patient from, Patient to, int batchSize)
+	        throws DAOException;
+	
 }
@@ -0,0 +1,119 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db;
+
+import org.openmrs.Diagnosis;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.Order;
+import org.openmrs.PatientProgram;
+import org.openmrs.Visit;
+
+/**
+ * The tables whose rows are reassigned by a bulk patient merge, in the order they are processed
+ * 
+ * @see PatientDAO#reassignPatientData(PatientMergeTable, org.openmrs.Patient, org.openmrs.Patient, int)
+ * @since 2.8.0
+ */
+public enum PatientMergeTable {
+	
+	/**
+	 * All visits, including voided ones
+	 */
+	VISIT(Visit.class, "visit", "visit_id", "patient_id", true, null),
+	
+	/**
+	 * All encounters, including voided ones
+	 */
+	ENCOUNTER(Encounter.class, "encounter", "encounter_id", "patient_id", true, null),
+	
+	/**
+	 * All obs contained in encounters, including voided ones and group members
+	 */
+	ENCOUNTER_OBS(Obs.class, "obs", "obs_id", "person_id", false, "encounter_id is not null"),
+	
+	/**
+	 * All orders, they always belong to an encounter
+	 */
+	ORDER(Order.class, "orders", "order_id", "patient_id", false, null),
+	
+	/**
+	 * All encounter diagnoses
+	 */
+	DIAGNOSIS(Diagnosis.class, "encounter_diagnosis", "diagnosis_id", "patient_id", true, null),
+	
+	/**
+	 * Non voided obs that are not contained in an encounter
+	 */
+	INDEPENDENT_OBS(Obs.class, "obs", "obs_id", "person_id", false, "encounter_id is null and voided = false"),
+	
+	/**
+	 * Non voided program enrollments
+	 */
+	PATIENT_PROGRAM(PatientProgram.class, "patient_program", "patient_program_id", "patient_id", true, "voided = false");
+	
+	private final Class<?> entityClass;
+	
+	private final String table;
+	
+	private final String idColumn;
+	
+	private final String patientColumn;
+	
+	private final boolean changeable;
+	
+	private final String restriction;
+	
+	PatientMergeTable(Class<?> entityClass, String table, String idColumn, String patientColumn, boolean changeable,
+	    String restriction) {
+		this.entityClass = entityClass;
+		this.table = table;
+		this.idColumn = idColumn;
+		this.patientColumn = patientColumn;
+		this.changeable = changeable;
+		this.restriction = restriction;
+	}
+	
+	/**
+	 * @return the mapped class of the rows in the table
+	 */
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+	
+	public String getTable() {
+		return table;
+	}
+	
+	public String getIdColumn() {
+		return idColumn;
+	}
+	
+	/**
+	 * @return the column referencing the patient
+	 */
+	public String getPatientColumn() {
+		return patientColumn;
+	}
+	
+	/**
+	 * @return true if the table has changed_by and date_changed columns
+	 */
+	public boolean isChangeable() {
+		return changeable;
+	}
+	
+	/**
+	 * @return an additional SQL condition the rows have to match to be reassigned, or null
+	 */
+	public String getRestriction() {
+		return restriction;
+	}
+}
@@ -9,6 +9,8 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.openmrs.Person;
@@ -216,4 +218,30 @@ public interface UserDAO {
 	 * @see UserService#getLastLoginTime(User)
 	 */
 	String getLastLoginTime(User user);
+	
+	/**
+	 * Gets the ids of the users that are not retired, do not have any of the given roles and did not
+	 * log in since the given date, or never logged in and were created before it, in ascending order
+	 * 
+	 * @param inactiveSince the date
+	 * @param excludedRoles the names of the roles of users that are never returned
+	 * @param afterUserId only users with a greater id are returned, null to start at the first
+	 * @param maxResults the maximum number of ids to return
+	 * @return the ids of the users
+	 * @since 2.8.0
+	 */
+	List<Integer> getIdsOfInactiveUsers(Date inactiveSince, Collection<String> excludedRoles, Integer afterUserId,
+	        int maxResults);
+	
+	/**
+	 * Retires the users with the given ids that are not retired with a single update, setting the same
+	 * fields retiring and saving the users would set
+	 * 
+	 * @param userIds the ids of the users
+	 * @param reason the retire reason
+	 * @param retiredBy the user retiring the users
+	 * @return the number of users retired
+	 * @since 2.8.0
+	 */
+	int retireUsers(Collection<Integer> userIds, String reason, User retiredBy);
 }
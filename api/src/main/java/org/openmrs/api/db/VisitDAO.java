@@ -17,6 +17,7 @@ import java.util.Map;
 import org.openmrs.Concept;
 import org.openmrs.Location;
 import org.openmrs.Patient;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
 import org.openmrs.VisitAttributeType;
@@ -169,4 +170,48 @@ public interface VisitDAO {
 	 */
 	public Visit getNextVisit(Visit previousVisit, Collection<VisitType> visitTypes, Date maximumStartDate);
 	
+	/**
+	 * Gets the ids of the next active visits which match the specified visit types in ascending order
+	 * 
+	 * @param afterVisitId only visits with a greater id are returned, null to start at the first
+	 * @param visitTypes a collection of visit types to match against
+	 * @param maximumStartDate the visits should have been started before or at this date time
+	 * @param maxResults the maximum number of ids to return
+	 * @return the ids of the visits
+	 * @since 2.8.0
+	 */
+	public List<Integer> getIdsOfVisitsToStop(Integer afterVisitId, Collection<VisitType> visitTypes,
+	        Date maximumStartDate, int maxResults);
+	
+	/**
+	 * Stops the active visits with the given ids with a single update, setting the same fields saving
+	 * the visits would set
+	 * 
+	 * @param visitIds the ids of the visits
+	 * @param stopDate the stop date time of the visits
+	 * @param changedBy the user stopping the visits
+	 * @return the number of visits stopped
+	 * @since 2.8.0
+	 */
+	public int stopVisits(Collection<Integer> visitIds, Date stopDate, User changedBy);
+	
+	/**
+	 * @see org.openmrs.api.VisitService#getOpenVisit(Patient, Location, Date)
+	 * @param patient the patient
+	 * @param locations the locations the visit may have besides none
+	 * @param date the date the visit must have started and not stopped by
+	 * @return the most recently started matching visit or null
+	 * @since 2.8.0
+	 */
+	public Visit getOpenVisit(Patient patient, Collection<Location> locations, Date date);
+	
+	/**
+	 * @param patient the patient
+	 * @param date the date after which to look
+	 * @return the earliest start date time after the given date of a not voided visit of the patient
+	 *         or null if there is none
+	 * @since 2.8.0
+	 */
+	public Date getNextVisitStartDatetime(Patient patient, Date date);
+	
 }
@@ -0,0 +1,70 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.openmrs.api.cache.CacheInvalidationBus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Passes updated and deleted entities and collections on to the {@link CacheInvalidationBus} so that
+ * they are evicted from the second level caches of the other nodes of a cluster. Does nothing
+ * unless a cache invalidation transport is configured.
+ * 
+ * @since 2.8.0
+ */
+@Component
+public class CacheInvalidationInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		CacheInvalidationBus bus = CacheInvalidationBus.getInstance();
+		if (bus != null) {
+			bus.entityChanged(entity, id);
+		}
+		return false;
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		CacheInvalidationBus bus = CacheInvalidationBus.getInstance();
+		if (bus != null) {
+			bus.entityChanged(entity, id);
+		}
+	}
+	
+	@Override
+	public void onCollectionRecreate(Object collection, Serializable key) {
+		collectionChanged(collection, key);
+	}
+	
+	@Override
+	public void onCollectionRemove(Object collection, Serializable key) {
+		collectionChanged(collection, key);
+	}
+	
+	@Override
+	public void onCollectionUpdate(Object collection, Serializable key) {
+		collectionChanged(collection, key);
+	}
+	
+	private void collectionChanged(Object collection, Serializable key) {
+		CacheInvalidationBus bus = CacheInvalidationBus.getInstance();
+		if (bus != null) {
+			bus.collectionChanged(collection, key);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import javax.annotation.PostConstruct;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the entities loaded by each thread, the listener is registered manually for the same
+ * reason as {@link org.openmrs.ObsPostLoadEventListener}
+ * 
+ * @see HibernateCallCounters
+ * @since 2.8.0
+ */
+@Component
+public class EntityLoadCountingListener implements PostLoadEventListener {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@PostConstruct
+	public void registerListener() {
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry().getService(
+		    EventListenerRegistry.class);
+		registry.getEventListenerGroup(EventType.POST_LOAD).appendListener(this);
+	}
+	
+	@Override
+	public void onPostLoad(PostLoadEvent event) {
+		HibernateCallCounters.entityLoaded();
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+/**
+ * Per thread counters of the SQL statements prepared and the entities loaded by hibernate. Unlike
+ * the global {@link org.hibernate.stat.Statistics} these can be attributed to a single service call
+ * even when many calls run concurrently.
+ * 
+ * @see StatementCountingInspector
+ * @see EntityLoadCountingListener
+ * @since 2.8.0
+ */
+public class HibernateCallCounters {
+	
+	private static final int STATEMENTS = 0;
+	
+	private static final int ENTITY_LOADS = 1;
+	
+	private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+	
+	private HibernateCallCounters() {
+	}
+	
+	/**
+	 * @return the number of SQL statements prepared by the current thread so far
+	 */
+	public static long getStatementCount() {
+		return COUNTERS.get()[STATEMENTS];
+	}
+	
+	/**
+	 * @return the number of entities loaded by the current thread so far
+	 */
+	public static long getEntityLoadCount() {
+		return COUNTERS.get()[ENTITY_LOADS];
+	}
+	
+	static void statementPrepared() {
+		COUNTERS.get()[STATEMENTS]++;
+	}
+	
+	static void entityLoaded() {
+		COUNTERS.get()[ENTITY_LOADS]++;
+	}
+}
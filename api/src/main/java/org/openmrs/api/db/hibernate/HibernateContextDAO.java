@@ -265,6 +265,15 @@ public class HibernateContextDAO implements ContextDAO {
 		return u;
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.ContextDAO#getUser(Integer)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public User getUser(Integer userId) {
+		return userDao.getUser(userId);
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.ContextDAO#getUserByUsername(String)
 	 */
@@ -9,6 +9,15 @@
  */
 package org.openmrs.api.db.hibernate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.openmrs.api.db.ClobDatatypeStorage;
@@ -23,6 +32,8 @@ import org.openmrs.api.db.DatatypeDAO;
  */
 public class HibernateDatatypeDAO implements DatatypeDAO {
 	
+	private static final int MAX_UUIDS_PER_QUERY = 1000;
+	
 	private SessionFactory sessionFactory;
 	
 	/**
@@ -59,6 +70,25 @@ public class HibernateDatatypeDAO implements DatatypeDAO {
 		return HibernateUtil.getUniqueEntityByUUID(sessionFactory, ClobDatatypeStorage.class, uuid);
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.DatatypeDAO#getClobDatatypeStoragesByUuids(java.util.Collection)
+	 */
+	@Override
+	public List<ClobDatatypeStorage> getClobDatatypeStoragesByUuids(Collection<String> uuids) {
+		List<String> distinctUuids = new ArrayList<>(new LinkedHashSet<>(uuids));
+		List<ClobDatatypeStorage> ret = new ArrayList<>(distinctUuids.size());
+		CriteriaBuilder cb = session().getCriteriaBuilder();
+		// keep the IN lists to a size all supported databases accept
+		for (int from = 0; from < distinctUuids.size(); from += MAX_UUIDS_PER_QUERY) {
+			List<String> chunk = distinctUuids.subList(from, Math.min(from + MAX_UUIDS_PER_QUERY, distinctUuids.size()));
+			CriteriaQuery<ClobDatatypeStorage> query = cb.createQuery(ClobDatatypeStorage.class);
+			Root<ClobDatatypeStorage> root = query.from(ClobDatatypeStorage.class);
+			query.where(root.get("uuid").in(chunk));
+			ret.addAll(session().createQuery(query).getResultList());
+		}
+		return ret;
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.DatatypeDAO#saveClobDatatypeStorage(org.openmrs.api.db.ClobDatatypeStorage)
 	 */
@@ -52,6 +52,8 @@ public class HibernateFormDAO implements FormDAO {
 	
 	private static final Logger log = LoggerFactory.getLogger(HibernateFormDAO.class);
 	
+	private static final int MAX_FIELDS_PER_QUERY = 1000;
+	
 	/**
 	 * Hibernate session factory
 	 */
@@ -647,6 +649,29 @@ public class HibernateFormDAO implements FormDAO {
 		return session.createQuery(cq).getResultList();
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.FormDAO#getFormFieldsByFields(Collection)
+	 */
+	@Override
+	public List<FormField> getFormFieldsByFields(Collection<Field> fields) {
+		List<FormField> formFields = new ArrayList<>();
+		if (fields.isEmpty()) {
+			return formFields;
+		}
+		
+		Session session = sessionFactory.getCurrentSession();
+		CriteriaBuilder cb = session.getCriteriaBuilder();
+		List<Field> fieldList = new ArrayList<>(fields);
+		for (int start = 0; start < fieldList.size(); start += MAX_FIELDS_PER_QUERY) {
+			CriteriaQuery<FormField> cq = cb.createQuery(FormField.class);
+			Root<FormField> root = cq.from(FormField.class);
+			int end = Math.min(start + MAX_FIELDS_PER_QUERY, fieldList.size());
+			cq.where(root.get("field").in(fieldList.subList(start, end)));
+			formFields.addAll(session.createQuery(cq).getResultList());
+		}
+		return formFields;
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.FormDAO#getFormResource(java.lang.Integer)
 	 */
@@ -11,14 +11,17 @@ package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -26,10 +29,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
 import org.openmrs.Allergies;
 import org.openmrs.Allergy;
 import org.openmrs.Location;
@@ -41,11 +49,14 @@ import org.openmrs.PatientProgram;
 import org.openmrs.Person;
 import org.openmrs.PersonAttribute;
 import org.openmrs.PersonName;
+import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.PatientDAO;
+import org.openmrs.api.db.PatientMergeTable;
 import org.openmrs.api.db.hibernate.search.LuceneQuery;
 import org.openmrs.collection.ListPart;
+import org.openmrs.patient.duplicate.PatientRecord;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
@@ -435,6 +446,70 @@ public class HibernatePatientDAO implements PatientDAO {
 		return patients;
 	}
 
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#forEachDuplicateDetectionRecord(Date, Consumer)
+	 */
+	@Override
+	public void forEachDuplicateDetectionRecord(Date changedSince, Consumer<PatientRecord> consumer) {
+		StringBuilder hql = new StringBuilder("select p.patientId, n.givenName, n.familyName, p.gender, p.birthdate, "
+		        + "p.dateCreated, p.dateChanged, p.personDateChanged, n.dateCreated, n.dateChanged "
+		        + "from Patient p join p.names n where p.voided = false and n.voided = false");
+		if (changedSince != null) {
+			hql.append(" and (p.dateCreated > :changedSince or p.dateChanged > :changedSince"
+			        + " or p.personDateChanged > :changedSince or n.dateCreated > :changedSince"
+			        + " or n.dateChanged > :changedSince)");
+		}
+		// the preferred name comes first, the other names of a patient are skipped
+		hql.append(" order by p.patientId, n.preferred desc, n.personNameId");
+		
+		Query query = sessionFactory.getCurrentSession().createQuery(hql.toString());
+		if (changedSince != null) {
+			query.setTimestamp("changedSince", changedSince);
+		}
+		query.setReadOnly(true);
+		query.setFetchSize(1000);
+		try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+			Integer previousPatientId = null;
+			while (results.next()) {
+				Object[] row = results.get();
+				Integer patientId = (Integer) row[0];
+				if (patientId.equals(previousPatientId)) {
+					continue;
+				}
+				previousPatientId = patientId;
+				Date lastChanged = null;
+				for (int i = 5; i < row.length; i++) {
+					Date date = (Date) row[i];
+					if (date != null && (lastChanged == null || date.after(lastChanged))) {
+						lastChanged = date;
+					}
+				}
+				consumer.accept(new PatientRecord(patientId, (String) row[1], (String) row[2], (String) row[3],
+				        (Date) row[4], lastChanged));
+			}
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getPatientIdentifierValues(Collection)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<Integer, Set<String>> getPatientIdentifierValues(Collection<Integer> patientIds) {
+		Map<Integer, Set<String>> identifiers = new HashMap<>();
+		if (patientIds.isEmpty()) {
+			return identifiers;
+		}
+		Query query = sessionFactory.getCurrentSession().createQuery(
+		    "select pi.patient.patientId, pi.identifier from PatientIdentifier pi "
+		            + "where pi.voided = false and pi.patient.patientId in (:patientIds)");
+		query.setParameterList("patientIds", patientIds);
+		for (Object[] row : (List<Object[]>) query.list()) {
+			identifiers.computeIfAbsent((Integer) row[0], id -> new HashSet<>()).add((String) row[1]);
+		}
+		return identifiers;
+	}
+	
 	private String getDuplicatePatientsSQLString(List<String> attributes) {
 		StringBuilder outerSelect = new StringBuilder("select distinct t1.patient_id from patient t1 ");
 		final String t5 = " = t5.";
@@ -1006,4 +1081,69 @@ public class HibernatePatientDAO implements PatientDAO {
         criteria.add(Restrictions.eq("patientProgram", patientProgram));
         return criteria.list();
     }
+
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#reassignPatientData(PatientMergeTable, Patient, Patient, int)
+	 */
+	@Override
+	public List<String> reassignPatientData(PatientMergeTable table, Patient from, Patient to, int batchSize)
+	        throws DAOException {
+		Session session = sessionFactory.getCurrentSession();
+		// pending changes have to reach the database before rows are moved behind the session's back
+		session.flush();
+		
+		String where = table.getPatientColumn() + " = :from"
+		        + (table.getRestriction() != null ? " and " + table.getRestriction() : "");
+		List<Object[]> rows = session.createSQLQuery(
+		    "select " + table.getIdColumn() + ", uuid from " + table.getTable() + " where " + where).setInteger("from",
+		    from.getPatientId()).list();
+		if (rows.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		List<Integer> ids = new ArrayList<>(rows.size());
+		List<String> uuids = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			ids.add(((Number) row[0]).intValue());
+			uuids.add((String) row[1]);
+		}
+		
+		User changedBy = Context.getAuthenticatedUser();
+		boolean setChanged = table.isChangeable() && changedBy != null;
+		String update = "update " + table.getTable() + " set " + table.getPatientColumn() + " = :to"
+		        + (setChanged ? ", changed_by = :changedBy, date_changed = :dateChanged" : "") + " where "
+		        + table.getIdColumn() + " in (:ids)";
+		Date now = new Date();
+		for (int start = 0; start < ids.size(); start += batchSize) {
+			SQLQuery query = session.createSQLQuery(update);
+			// limits the invalidation of the second level cache to the region of this entity
+			query.addSynchronizedEntityClass(table.getEntityClass());
+			query.setInteger("to", to.getPatientId());
+			if (setChanged) {
+				query.setInteger("changedBy", changedBy.getUserId());
+				query.setTimestamp("dateChanged", now);
+			}
+			query.setParameterList("ids", ids.subList(start, Math.min(start + batchSize, ids.size())));
+			query.executeUpdate();
+		}
+		
+		evictFromSession(session, table.getEntityClass(), ids);
+		return uuids;
+	}
+	
+	/**
+	 * Evicts the instances with the given ids from the session if they are loaded, without loading
+	 * the others
+	 */
+	private void evictFromSession(Session session, Class<?> entityClass, List<Integer> ids) {
+		SessionImplementor sessionImplementor = (SessionImplementor) session;
+		EntityPersister persister = sessionImplementor.getFactory().getMetamodel().entityPersister(entityClass);
+		for (Integer id : ids) {
+			Object entity = sessionImplementor.getPersistenceContext().getEntity(
+			    sessionImplementor.generateEntityKey(id, persister));
+			if (entity != null) {
+				session.evict(entity);
+			}
+		}
+	}
 }
@@ -29,6 +29,7 @@ import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.integrator.spi.Integrator;
 import org.hibernate.service.spi.SessionFactoryServiceRegistry;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.search.LuceneAnalyzerFactory;
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleFactory;
 import org.openmrs.util.OpenmrsUtil;
@@ -42,6 +43,21 @@ public class HibernateSessionFactoryBean extends LocalSessionFactoryBean impleme
 	
 	private static final Logger log = LoggerFactory.getLogger(HibernateSessionFactoryBean.class);
 	
+	/**
+	 * The search index profile, one of <tt>default</tt>, <tt>performance</tt> or <tt>compact</tt>
+	 * 
+	 * @see #applySearchIndexProfile(Properties)
+	 * @since 2.8.0
+	 */
+	public static final String SEARCH_INDEX_PROFILE = "hibernate.search.index_profile";
+	
+	/**
+	 * How the anywhere analyzer matches text within tokens, see {@link LuceneAnalyzerFactory}
+	 * 
+	 * @since 2.8.0
+	 */
+	public static final String SEARCH_ANYWHERE_MATCHING = "hibernate.search.anywhere_matching";
+	
 	protected Set<String> mappingResources = new HashSet<>();
 	
 	/**
@@ -139,6 +155,8 @@ public class HibernateSessionFactoryBean extends LocalSessionFactoryBean impleme
 			}
 		}
 		
+		applySearchIndexProfile(config);
+		
 		// load in the default hibernate properties
 		try {
 			InputStream propertyStream = getClass().getResourceAsStream("/hibernate.default.properties");
@@ -190,6 +208,34 @@ public class HibernateSessionFactoryBean extends LocalSessionFactoryBean impleme
 		super.afterPropertiesSet();
 	}
 	
+	/**
+	 * Expands the search index profile into the Hibernate Search settings it stands for. Settings
+	 * that are configured explicitly take precedence over the profile.
+	 * <ul>
+	 * <li><tt>default</tt> keeps the settings of hibernate.default.properties</li>
+	 * <li><tt>performance</tt> uses memory-mapped index files and near-real-time index readers, which
+	 * make changes searchable without committing the index on every transaction. The index may have
+	 * to be rebuilt after a crash.</li>
+	 * <li><tt>compact</tt> is <tt>performance</tt> with suffix based anywhere matching, which shrinks
+	 * the anywhere fields considerably. The index has to be rebuilt when switching to it.</li>
+	 * </ul>
+	 * 
+	 * @param config the hibernate properties
+	 * @since 2.8.0
+	 */
+	protected void applySearchIndexProfile(Properties config) {
+		String profile = config.getProperty(SEARCH_INDEX_PROFILE, "default").trim().toLowerCase();
+		if ("performance".equals(profile) || "compact".equals(profile)) {
+			config.putIfAbsent("hibernate.search.default.filesystem_access_type", "mmap");
+			config.putIfAbsent("hibernate.search.default.indexmanager", "near-real-time");
+		}
+		if ("compact".equals(profile)) {
+			config.putIfAbsent(SEARCH_ANYWHERE_MATCHING, LuceneAnalyzerFactory.SUFFIX_ANYWHERE_MATCHING);
+		}
+		LuceneAnalyzerFactory.setAnywhereMatching(config.getProperty(SEARCH_ANYWHERE_MATCHING));
+		log.debug("Using search index profile {}", profile);
+	}
+	
 	/**
 	 * @see org.springframework.orm.hibernate3.LocalSessionFactoryBean#destroy()
 	 */
@@ -10,12 +10,14 @@
 package org.openmrs.api.db.hibernate;
 
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -33,6 +35,7 @@ import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Daemon;
+import org.openmrs.api.cache.CacheInvalidationBus;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.LoginCredential;
 import org.openmrs.api.db.UserDAO;
@@ -718,4 +721,126 @@ public class HibernateUserDAO implements UserDAO {
 	public String getLastLoginTime(User user) {
 		return user.getUserProperty(OpenmrsConstants.USER_PROPERTY_LAST_LOGIN_TIMESTAMP);
 	}
+	
+	/**
+	 * @see org.openmrs.api.db.UserDAO#getIdsOfInactiveUsers(Date, Collection, Integer, int)
+	 */
+	@Override
+	public List<Integer> getIdsOfInactiveUsers(Date inactiveSince, Collection<String> excludedRoles, Integer afterUserId,
+	        int maxResults) {
+		Session session = sessionFactory.getCurrentSession();
+		String hql = "select u.userId, u.dateCreated from User u where u.retired = false and u.userId > :afterUserId";
+		if (!excludedRoles.isEmpty()) {
+			hql += " and u.userId not in (select e.userId from User e join e.roles r where r.role in (:excludedRoles))";
+		}
+		hql += " order by u.userId";
+		
+		// the last login time is kept as a string, so it is compared after fetching a batch of users
+		List<Integer> userIds = new ArrayList<>();
+		int lastUserId = afterUserId != null ? afterUserId : 0;
+		while (userIds.size() < maxResults) {
+			TypedQuery<Object[]> query = session.createQuery(hql, Object[].class).setParameter("afterUserId", lastUserId)
+			        .setMaxResults(maxResults);
+			if (!excludedRoles.isEmpty()) {
+				query.setParameter("excludedRoles", excludedRoles);
+			}
+			List<Object[]> users = query.getResultList();
+			if (users.isEmpty()) {
+				break;
+			}
+			
+			Map<Integer, String> lastLoginTimes = getLastLoginTimes(session, users);
+			for (Object[] user : users) {
+				lastUserId = (Integer) user[0];
+				Date lastActive = parseLastLoginTime(lastUserId, lastLoginTimes.get(lastUserId));
+				if (lastActive == null) {
+					lastActive = (Date) user[1];
+				}
+				if (lastActive != null && !lastActive.after(inactiveSince)) {
+					userIds.add(lastUserId);
+					if (userIds.size() == maxResults) {
+						break;
+					}
+				}
+			}
+			if (users.size() < maxResults) {
+				break;
+			}
+		}
+		return userIds;
+	}
+	
+	private Date parseLastLoginTime(Integer userId, String lastLoginTime) {
+		if (StringUtils.isBlank(lastLoginTime)) {
+			return null;
+		}
+		try {
+			return new Date(Long.parseLong(lastLoginTime.trim()));
+		}
+		catch (NumberFormatException e) {
+			log.warn("Ignoring the malformed last login time {} of user {}", lastLoginTime, userId);
+			return null;
+		}
+	}
+	
+	private Map<Integer, String> getLastLoginTimes(Session session, List<Object[]> users) {
+		List<Integer> userIds = new ArrayList<>(users.size());
+		for (Object[] user : users) {
+			userIds.add((Integer) user[0]);
+		}
+		
+		Map<Integer, String> lastLoginTimes = new HashMap<>();
+		List<Object[]> rows = session
+		        .createQuery("select u.userId, p from User u join u.userProperties p where key(p) = :property "
+		                + "and u.userId in (:userIds)", Object[].class)
+		        .setParameter("property", OpenmrsConstants.USER_PROPERTY_LAST_LOGIN_TIMESTAMP)
+		        .setParameterList("userIds", userIds).getResultList();
+		for (Object[] row : rows) {
+			lastLoginTimes.put((Integer) row[0], (String) row[1]);
+		}
+		return lastLoginTimes;
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.UserDAO#retireUsers(Collection, String, User)
+	 */
+	@Override
+	public int retireUsers(Collection<Integer> userIds, String reason, User retiredBy) {
+		if (userIds.isEmpty()) {
+			return 0;
+		}
+		
+		Session session = sessionFactory.getCurrentSession();
+		Date dateRetired = new Date();
+		if (HibernateUtil.isEnversEnabled(sessionFactory)) {
+			// bulk updates are not audited
+			int retired = 0;
+			for (Integer userId : userIds) {
+				User user = session.get(User.class, userId);
+				if (user != null && !Boolean.TRUE.equals(user.getRetired())) {
+					user.setRetired(true);
+					user.setRetireReason(reason);
+					user.setRetiredBy(retiredBy);
+					user.setDateRetired(dateRetired);
+					retired++;
+				}
+			}
+			session.flush();
+			return retired;
+		}
+		
+		int retired = session.createQuery(
+		    "update User u set u.retired = true, u.retireReason = :reason, u.retiredBy = :retiredBy, "
+		            + "u.dateRetired = :dateRetired, u.changedBy = :retiredBy, u.dateChanged = :dateRetired "
+		            + "where u.userId in (:userIds) and u.retired = false")
+		        .setParameter("reason", reason).setParameter("retiredBy", retiredBy)
+		        .setParameter("dateRetired", dateRetired).setParameterList("userIds", userIds).executeUpdate();
+		HibernateUtil.refreshLoadedEntities(session, User.class, userIds);
+		// bulk updates bypass the interceptor, the other nodes are told once the transaction commits
+		CacheInvalidationBus bus = CacheInvalidationBus.getInstance();
+		if (bus != null) {
+			bus.entitiesChanged(User.class, userIds);
+		}
+		return retired;
+	}
 }
@@ -9,9 +9,11 @@
  */
 package org.openmrs.api.db.hibernate;
 
+import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +34,8 @@ import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.HSQLDialect;
 import org.hibernate.dialect.PostgreSQL82Dialect;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.proxy.HibernateProxy;
 import org.openmrs.Location;
 import org.openmrs.LocationAttribute;
@@ -238,4 +242,39 @@ public class HibernateUtil {
 			.setFetchSize(fetchSize)
 			.scroll(ScrollMode.FORWARD_ONLY);
 	}
+
+	/**
+	 * Checks whether changes of audited entities are recorded by Hibernate Envers, which is the case
+	 * unless <tt>hibernate.integration.envers.enabled</tt> is set to false. Bulk updates are not
+	 * recorded, so audited entities have to be changed one by one while it is enabled.
+	 *
+	 * @param sessionFactory the session factory
+	 * @return true if Envers is enabled
+	 * @since 2.8.0
+	 */
+	public static boolean isEnversEnabled(SessionFactory sessionFactory) {
+		Object enabled = sessionFactory.getProperties().get("hibernate.integration.envers.enabled");
+		return enabled == null || Boolean.parseBoolean(enabled.toString());
+	}
+
+	/**
+	 * Refreshes the instances with the given ids that are loaded in the session, e.g. after they were
+	 * changed by a bulk update, without loading the others.
+	 *
+	 * @param session the session
+	 * @param entityClass the class of the entities
+	 * @param ids the ids of the entities
+	 * @since 2.8.0
+	 */
+	public static void refreshLoadedEntities(Session session, Class<?> entityClass, Collection<? extends Serializable> ids) {
+		SessionImplementor sessionImplementor = (SessionImplementor) session;
+		EntityPersister persister = sessionImplementor.getFactory().getMetamodel().entityPersister(entityClass);
+		for (Serializable id : ids) {
+			Object entity = sessionImplementor.getPersistenceContext().getEntity(
+			    sessionImplementor.generateEntityKey(id, persister));
+			if (entity != null) {
+				session.refresh(entity);
+			}
+		}
+	}
 }
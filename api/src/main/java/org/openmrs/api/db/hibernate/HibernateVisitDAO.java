@@ -25,10 +25,12 @@ import org.hibernate.SessionFactory;
 import org.openmrs.Concept;
 import org.openmrs.Location;
 import org.openmrs.Patient;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
 import org.openmrs.VisitAttributeType;
 import org.openmrs.VisitType;
+import org.openmrs.api.cache.CacheInvalidationBus;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.VisitDAO;
 import org.openmrs.parameter.VisitSearchCriteria;
@@ -242,6 +244,46 @@ public class HibernateVisitDAO implements VisitDAO {
 		return visits;
 	}
 
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getOpenVisit(Patient, Collection, Date)
+	 */
+	@Override
+	public Visit getOpenVisit(Patient patient, Collection<Location> locations, Date date) throws DAOException {
+		Session session = sessionFactory.getCurrentSession();
+		CriteriaBuilder cb = session.getCriteriaBuilder();
+		CriteriaQuery<Visit> cq = cb.createQuery(Visit.class);
+		Root<Visit> root = cq.from(Visit.class);
+		
+		Predicate location = cb.isNull(root.get("location"));
+		if (locations != null && !locations.isEmpty()) {
+			location = cb.or(location, root.get("location").in(locations));
+		}
+		
+		cq.where(cb.equal(root.get("patient"), patient), cb.isFalse(root.get("voided")),
+		    cb.lessThanOrEqualTo(root.get("startDatetime"), date),
+		    cb.or(cb.isNull(root.get("stopDatetime")), cb.greaterThanOrEqualTo(root.get("stopDatetime"), date)), location)
+		        .orderBy(cb.desc(root.get("startDatetime")), cb.desc(root.get("visitId")));
+		
+		List<Visit> visits = session.createQuery(cq).setMaxResults(1).getResultList();
+		return visits.isEmpty() ? null : visits.get(0);
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getNextVisitStartDatetime(Patient, Date)
+	 */
+	@Override
+	public Date getNextVisitStartDatetime(Patient patient, Date date) throws DAOException {
+		Session session = sessionFactory.getCurrentSession();
+		CriteriaBuilder cb = session.getCriteriaBuilder();
+		CriteriaQuery<Date> cq = cb.createQuery(Date.class);
+		Root<Visit> root = cq.from(Visit.class);
+		
+		cq.select(cb.least(root.<Date> get("startDatetime"))).where(cb.equal(root.get("patient"), patient),
+		    cb.isFalse(root.get("voided")), cb.greaterThan(root.get("startDatetime"), date));
+		
+		return session.createQuery(cq).getSingleResult();
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.VisitDAO#getVisits(org.openmrs.parameter.VisitSearchCriteria)
 	 */
@@ -372,10 +414,74 @@ public class HibernateVisitDAO implements VisitDAO {
 		CriteriaQuery<Visit> cq = cb.createQuery(Visit.class);
 		Root<Visit> root = cq.from(Visit.class);
 
+		cq.where(getVisitsToStopPredicates(cb, root, previousVisit != null ? previousVisit.getVisitId() : null, visitTypes,
+		    maximumStartDate)).orderBy(cb.asc(root.get("visitId")));
+
+		return session.createQuery(cq).setMaxResults(1).uniqueResult();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getIdsOfVisitsToStop(Integer, Collection, Date, int)
+	 */
+	@Override
+	public List<Integer> getIdsOfVisitsToStop(Integer afterVisitId, Collection<VisitType> visitTypes,
+	        Date maximumStartDate, int maxResults) {
+		Session session = sessionFactory.getCurrentSession();
+		CriteriaBuilder cb = session.getCriteriaBuilder();
+		CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+		Root<Visit> root = cq.from(Visit.class);
+		
+		cq.select(root.get("visitId"))
+		        .where(getVisitsToStopPredicates(cb, root, afterVisitId, visitTypes, maximumStartDate))
+		        .orderBy(cb.asc(root.get("visitId")));
+		
+		return session.createQuery(cq).setMaxResults(maxResults).getResultList();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#stopVisits(Collection, Date, User)
+	 */
+	@Override
+	public int stopVisits(Collection<Integer> visitIds, Date stopDate, User changedBy) {
+		if (visitIds.isEmpty()) {
+			return 0;
+		}
+		
+		Session session = sessionFactory.getCurrentSession();
+		if (HibernateUtil.isEnversEnabled(sessionFactory)) {
+			// bulk updates are not audited
+			int stopped = 0;
+			for (Integer visitId : visitIds) {
+				Visit visit = session.get(Visit.class, visitId);
+				if (visit != null && visit.getStopDatetime() == null) {
+					visit.setStopDatetime(stopDate);
+					stopped++;
+				}
+			}
+			session.flush();
+			return stopped;
+		}
+		
+		int stopped = session.createQuery(
+		    "update Visit v set v.stopDatetime = :stopDate, v.changedBy = :changedBy, v.dateChanged = :dateChanged "
+		            + "where v.visitId in (:visitIds) and v.stopDatetime is null")
+		        .setParameter("stopDate", stopDate).setParameter("changedBy", changedBy)
+		        .setParameter("dateChanged", new Date()).setParameterList("visitIds", visitIds).executeUpdate();
+		HibernateUtil.refreshLoadedEntities(session, Visit.class, visitIds);
+		// bulk updates bypass the interceptor, the other nodes are told once the transaction commits
+		CacheInvalidationBus bus = CacheInvalidationBus.getInstance();
+		if (bus != null) {
+			bus.entitiesChanged(Visit.class, visitIds);
+		}
+		return stopped;
+	}
+	
+	private Predicate[] getVisitsToStopPredicates(CriteriaBuilder cb, Root<Visit> root, Integer afterVisitId,
+	        Collection<VisitType> visitTypes, Date maximumStartDate) {
 		List<Predicate> predicates = new ArrayList<>();
 
 		predicates.add(cb.isFalse(root.get("voided")));
-		predicates.add(cb.greaterThan(root.get("visitId"), (previousVisit != null) ? previousVisit.getVisitId() : 0));
+		predicates.add(cb.greaterThan(root.get("visitId"), afterVisitId != null ? afterVisitId : 0));
 		predicates.add(cb.isNull(root.get("stopDatetime")));
 
 		if (maximumStartDate != null) {
@@ -385,10 +491,7 @@ public class HibernateVisitDAO implements VisitDAO {
 		if (CollectionUtils.isNotEmpty(visitTypes)) {
 			predicates.add(root.get("visitType").in(visitTypes));
 		}
-
-		cq.where(predicates.toArray(new Predicate[]{}))
-			.orderBy(cb.asc(root.get("visitId")));
-
-		return session.createQuery(cq).setMaxResults(1).uniqueResult();
+		
+		return predicates.toArray(new Predicate[] {});
 	}
 }
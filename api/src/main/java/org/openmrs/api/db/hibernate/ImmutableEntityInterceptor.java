@@ -68,6 +68,19 @@ public abstract class ImmutableEntityInterceptor extends EmptyInterceptor {
 		return false;
 	}
 	
+	/**
+	 * Subclasses can override this to skip comparing the state of a property the entity itself
+	 * knows hasn't been changed
+	 * 
+	 * @param entity the entity being flushed
+	 * @param property the name of the property
+	 * @return true if the property is known to be unchanged otherwise false
+	 * @since 2.8.0
+	 */
+	protected boolean isUnchangedProperty(Object entity, String property) {
+		return false;
+	}
+	
 	/**
 	 * @see org.hibernate.EmptyInterceptor#onFlushDirty(Object, java.io.Serializable, Object[],
 	 *      Object[], String[], org.hibernate.type.Type[])
@@ -75,26 +88,27 @@ public abstract class ImmutableEntityInterceptor extends EmptyInterceptor {
 	 * <strong>Should</strong> pass if an entity has changes for an allowed mutable property
 	 * <strong>Should</strong> pass if the edited object is voided or retired and ignore is set to true
 	 * <strong>Should</strong> fail if the edited object is voided or retired and ignore is set to false
+	 * <strong>Should</strong> pass if the changed property is known to be unchanged
 	 */
 	@Override
 	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
 	                            String[] propertyNames, Type[] types) {
 		
 		if (getSupportedType().isAssignableFrom(entity.getClass())) {
+			boolean isVoidedOrRetired = false;
+			if (Voidable.class.isAssignableFrom(entity.getClass())) {
+				isVoidedOrRetired = ((Voidable) entity).getVoided();
+			} else if (Retireable.class.isAssignableFrom(entity.getClass())) {
+				isVoidedOrRetired = ((Retireable) entity).getRetired();
+			}
+			if (isVoidedOrRetired && ignoreVoidedOrRetiredObjects()) {
+				return false;
+			}
+			
 			List<String> changedProperties = null;
 			for (int i = 0; i < propertyNames.length; i++) {
 				String property = propertyNames[i];
-				if (isMutableProperty(property)) {
-					continue;
-				}
-				
-				boolean isVoidedOrRetired = false;
-				if (Voidable.class.isAssignableFrom(entity.getClass())) {
-					isVoidedOrRetired = ((Voidable) entity).getVoided();
-				} else if (Retireable.class.isAssignableFrom(entity.getClass())) {
-					isVoidedOrRetired = ((Retireable) entity).getRetired();
-				}
-				if (isVoidedOrRetired && ignoreVoidedOrRetiredObjects()) {
+				if (isMutableProperty(property) || isUnchangedProperty(entity, property)) {
 					continue;
 				}
 				
@@ -48,4 +48,15 @@ public class ImmutableObsInterceptor extends ImmutableEntityInterceptor {
 	protected boolean ignoreVoidedOrRetiredObjects() {
 		return true;
 	}
+	
+	/**
+	 * Obs track changes of their own properties, so only the state of the properties they report
+	 * as dirty or don't track needs to be compared
+	 * 
+	 * @see ImmutableEntityInterceptor#isUnchangedProperty(Object, String)
+	 */
+	@Override
+	protected boolean isUnchangedProperty(Object entity, String property) {
+		return Obs.isDirtyTrackedProperty(property) && !((Obs) entity).isDirty(property);
+	}
 }
@@ -0,0 +1,28 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements prepared by each thread, it is registered through the
+ * <code>hibernate.session_factory.statement_inspector</code> property and never alters the SQL.
+ * 
+ * @see HibernateCallCounters
+ * @since 2.8.0
+ */
+public class StatementCountingInspector implements StatementInspector {
+	
+	@Override
+	public String inspect(String sql) {
+		HibernateCallCounters.statementPrepared();
+		return sql;
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import org.hibernate.search.indexes.interceptor.EntityIndexingInterceptor;
+import org.hibernate.search.indexes.interceptor.IndexingOverride;
+
+/**
+ * Hands index updates of new and changed entities over to the {@link SearchIndexUpdateQueue} so
+ * that they are analyzed and written by its background worker instead of the committing thread.
+ * Whenever the queue does not accept an update, e.g. because asynchronous indexing is disabled or
+ * the queue is full, Hibernate Search indexes the entity synchronously as usual. Deletes are always
+ * applied synchronously since they don't involve any analysis.
+ * 
+ * @since 2.8.0
+ */
+public class AsyncIndexingInterceptor implements EntityIndexingInterceptor<Object> {
+	
+	@Override
+	public IndexingOverride onAdd(Object entity) {
+		return submit(entity);
+	}
+	
+	@Override
+	public IndexingOverride onUpdate(Object entity) {
+		return submit(entity);
+	}
+	
+	@Override
+	public IndexingOverride onDelete(Object entity) {
+		return IndexingOverride.APPLY_DEFAULT;
+	}
+	
+	@Override
+	public IndexingOverride onCollectionUpdate(Object entity) {
+		return submit(entity);
+	}
+	
+	private IndexingOverride submit(Object entity) {
+		SearchIndexUpdateQueue queue = SearchIndexUpdateQueue.getInstance();
+		if (queue != null && queue.submit(entity)) {
+			return IndexingOverride.SKIP;
+		}
+		return IndexingOverride.APPLY_DEFAULT;
+	}
+}
@@ -17,6 +17,7 @@ import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
 import org.apache.lucene.analysis.ngram.NGramFilterFactory;
 import org.apache.lucene.analysis.standard.ClassicFilterFactory;
 import org.apache.lucene.analysis.phonetic.PhoneticFilterFactory;
+import org.apache.lucene.analysis.reverse.ReverseStringFilterFactory;
 import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
 import org.hibernate.search.annotations.Factory;
 import org.hibernate.search.cfg.SearchMapping;
@@ -31,9 +32,52 @@ import org.hibernate.search.cfg.SearchMapping;
  * 	exactAnalyzer, which allows searching for tokens that are identical
  * 	anywhereAnalyzer, which allows searching for text within tokens
  *
+ * The anywhereAnalyzer indexes all n-grams of a token by default, so that any text within the token
+ * can be found with a plain term query. With {@link #SUFFIX_ANYWHERE_MATCHING} it only indexes the
+ * suffixes of each token, which is a fraction of the terms, and text within tokens is found with a
+ * prefix query on the suffixes instead, see {@link LuceneQuery}. Changing the matching requires the
+ * search index to be rebuilt.
+ *
  * @since 2.4.0
  */
 public class LuceneAnalyzerFactory {
+	
+	/**
+	 * Matches text within tokens by indexing all their n-grams, the default
+	 * 
+	 * @since 2.8.0
+	 */
+	public static final String NGRAM_ANYWHERE_MATCHING = "ngram";
+	
+	/**
+	 * Matches text within tokens by indexing their suffixes and querying them by prefix
+	 * 
+	 * @since 2.8.0
+	 */
+	public static final String SUFFIX_ANYWHERE_MATCHING = "suffix";
+	
+	private static volatile String anywhereMatching = NGRAM_ANYWHERE_MATCHING;
+	
+	/**
+	 * Sets how the anywhereAnalyzer matches text within tokens, it must be set before the session
+	 * factory is built.
+	 * 
+	 * @param matching {@link #NGRAM_ANYWHERE_MATCHING} or {@link #SUFFIX_ANYWHERE_MATCHING}
+	 * @since 2.8.0
+	 */
+	public static void setAnywhereMatching(String matching) {
+		anywhereMatching = SUFFIX_ANYWHERE_MATCHING.equalsIgnoreCase(matching) ? SUFFIX_ANYWHERE_MATCHING
+		        : NGRAM_ANYWHERE_MATCHING;
+	}
+	
+	/**
+	 * @return true if fields analyzed by the anywhereAnalyzer contain the suffixes of tokens
+	 * @since 2.8.0
+	 */
+	public static boolean isSuffixAnywhereMatching() {
+		return SUFFIX_ANYWHERE_MATCHING.equals(anywhereMatching);
+	}
+	
 	@Factory
 	public SearchMapping getSearchMapping() {
 		SearchMapping mapping = new SearchMapping();
@@ -53,13 +97,26 @@ public class LuceneAnalyzerFactory {
 			.filter(EdgeNGramFilterFactory.class)
 			.param("minGramSize", "2")
 			.param("maxGramSize", "20");
-		mapping.analyzerDef(LuceneAnalyzers.ANYWHERE_ANALYZER, WhitespaceTokenizerFactory.class)
-			.filter(ClassicFilterFactory.class)
-			.filter(LowerCaseFilterFactory.class)
-			.filter(ASCIIFoldingFilterFactory.class)
-			.filter(NGramFilterFactory.class)
-			.param("minGramSize", "2")
-			.param("maxGramSize", "20");
+		if (isSuffixAnywhereMatching()) {
+			// the edge n-grams of the reversed token are the suffixes of the token
+			mapping.analyzerDef(LuceneAnalyzers.ANYWHERE_ANALYZER, WhitespaceTokenizerFactory.class)
+				.filter(ClassicFilterFactory.class)
+				.filter(LowerCaseFilterFactory.class)
+				.filter(ASCIIFoldingFilterFactory.class)
+				.filter(ReverseStringFilterFactory.class)
+				.filter(EdgeNGramFilterFactory.class)
+				.param("minGramSize", "2")
+				.param("maxGramSize", "255")
+				.filter(ReverseStringFilterFactory.class);
+		} else {
+			mapping.analyzerDef(LuceneAnalyzers.ANYWHERE_ANALYZER, WhitespaceTokenizerFactory.class)
+				.filter(ClassicFilterFactory.class)
+				.filter(LowerCaseFilterFactory.class)
+				.filter(ASCIIFoldingFilterFactory.class)
+				.filter(NGramFilterFactory.class)
+				.param("minGramSize", "2")
+				.param("maxGramSize", "20");
+		}
 		mapping.analyzerDef(LuceneAnalyzers.SOUNDEX_ANALYZER, StandardTokenizerFactory.class)
 			.filter(ClassicFilterFactory.class) 
 			.filter(LowerCaseFilterFactory.class)
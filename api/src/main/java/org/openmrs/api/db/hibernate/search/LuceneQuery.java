@@ -22,8 +22,12 @@ import org.apache.lucene.queries.TermsFilter;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 import org.hibernate.Session;
 import org.hibernate.search.FullTextQuery;
 import org.hibernate.search.FullTextSession;
@@ -54,6 +58,8 @@ public abstract class LuceneQuery<T> extends SearchQuery<T> {
 
 	boolean useOrQueryParser = false;
 	
+	private static final String ANYWHERE_FIELD_SUFFIX = "Anywhere";
+	
 	/**
 	 * Normal uses a textual match algorithm for the search
 	 * Soundex indicates to use a Phonetic search strategy
@@ -257,11 +263,55 @@ public abstract class LuceneQuery<T> extends SearchQuery<T> {
 		} else {
 			analyzer = getFullTextSession().getSearchFactory().getAnalyzer(getType());
 		}
-		MultiFieldQueryParser queryParser = new MultiFieldQueryParser(fields.toArray(new String[fields.size()]), analyzer);
+		MultiFieldQueryParser queryParser;
+		if (LuceneAnalyzerFactory.isSuffixAnywhereMatching()) {
+			queryParser = new MultiFieldQueryParser(fields.toArray(new String[fields.size()]), analyzer) {
+				
+				@Override
+				protected Query getFieldQuery(String field, String queryText, boolean quoted) throws ParseException {
+					return toSuffixPrefixQuery(super.getFieldQuery(field, queryText, quoted));
+				}
+			};
+		} else {
+			queryParser = new MultiFieldQueryParser(fields.toArray(new String[fields.size()]), analyzer);
+		}
 
 		setDefaultOperator(queryParser);
 		return queryParser;
 	}
+	
+	/**
+	 * Fields analyzed by the anywhereAnalyzer contain the suffixes of tokens if suffix matching is
+	 * enabled, so text within a token is found by a prefix query on these fields rather than by a
+	 * term query on its n-grams. Single characters are left as term queries, they never matched
+	 * n-grams either.
+	 * 
+	 * @param query the parsed query
+	 * @return the query with term queries on anywhere fields replaced by prefix queries
+	 * @see LuceneAnalyzerFactory#SUFFIX_ANYWHERE_MATCHING
+	 */
+	static Query toSuffixPrefixQuery(Query query) {
+		if (query instanceof TermQuery) {
+			Term term = ((TermQuery) query).getTerm();
+			if (term.field().endsWith(ANYWHERE_FIELD_SUFFIX) && term.text().length() > 1) {
+				PrefixQuery prefixQuery = new PrefixQuery(term);
+				prefixQuery.setBoost(query.getBoost());
+				return prefixQuery;
+			}
+		} else if (query instanceof BooleanQuery) {
+			BooleanQuery booleanQuery = (BooleanQuery) query;
+			BooleanQuery.Builder builder = new BooleanQuery.Builder();
+			builder.setDisableCoord(booleanQuery.isCoordDisabled());
+			builder.setMinimumNumberShouldMatch(booleanQuery.getMinimumNumberShouldMatch());
+			for (BooleanClause clause : booleanQuery.clauses()) {
+				builder.add(toSuffixPrefixQuery(clause.getQuery()), clause.getOccur());
+			}
+			Query rewritten = builder.build();
+			rewritten.setBoost(query.getBoost());
+			return rewritten;
+		}
+		return query;
+	}
 
 	private void setDefaultOperator(QueryParser queryParser) {
 		if (useOrQueryParser) {
@@ -0,0 +1,280 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.SearchFactory;
+import org.hibernate.search.indexes.IndexReaderAccessor;
+import org.openmrs.util.metrics.MBeans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the size of the search indexes per entity and field, to compare the index profiles and
+ * analyzers, see {@link LuceneAnalyzerFactory}. The time needed to scan all terms of a field is
+ * reported as well since it bounds the cost of prefix and wildcard queries on the field.
+ * 
+ * @since 2.8.0
+ */
+@Component
+public class SearchIndexStatistics implements SearchIndexStatisticsMBean {
+	
+	private static final Logger log = LoggerFactory.getLogger(SearchIndexStatistics.class);
+	
+	public static final String OBJECT_NAME = "org.openmrs:type=SearchIndexStatistics";
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@PostConstruct
+	public void registerMBean() {
+		MBeans.register(this, OBJECT_NAME);
+	}
+	
+	@PreDestroy
+	public void unregisterMBean() {
+		MBeans.unregister(OBJECT_NAME);
+	}
+	
+	/**
+	 * Collects the statistics of the indexes of all indexed entities.
+	 * 
+	 * @return the statistics ordered by entity name
+	 */
+	public List<IndexStatistics> getIndexStatistics() {
+		List<IndexStatistics> statistics = new ArrayList<>();
+		Session session = sessionFactory.openSession();
+		try {
+			FullTextSession fullTextSession = Search.getFullTextSession(session);
+			SearchFactory searchFactory = fullTextSession.getSearchFactory();
+			IndexReaderAccessor readerAccessor = searchFactory.getIndexReaderAccessor();
+			for (Class<?> type : searchFactory.getIndexedTypes()) {
+				IndexReader reader = readerAccessor.open(type);
+				try {
+					statistics.add(collect(type.getName(), reader));
+				}
+				catch (IOException e) {
+					log.warn("Unable to collect the search index statistics of {}", type.getName(), e);
+				}
+				finally {
+					readerAccessor.close(reader);
+				}
+			}
+		}
+		finally {
+			session.close();
+		}
+		statistics.sort(Comparator.comparing(IndexStatistics::getEntityName));
+		return statistics;
+	}
+	
+	@Override
+	public String[] getReport() {
+		List<String> report = new ArrayList<>();
+		for (IndexStatistics index : getIndexStatistics()) {
+			report.add(index.toString());
+			for (FieldStatistics field : index.getFields()) {
+				report.add("  " + field);
+			}
+		}
+		return report.toArray(new String[0]);
+	}
+	
+	static IndexStatistics collect(String entityName, IndexReader reader) throws IOException {
+		long sizeInBytes = 0;
+		for (LeafReaderContext leaf : reader.leaves()) {
+			if (leaf.reader() instanceof SegmentReader) {
+				sizeInBytes += ((SegmentReader) leaf.reader()).getSegmentInfo().sizeInBytes();
+			}
+		}
+		
+		List<FieldStatistics> fieldStatistics = new ArrayList<>();
+		Fields fields = MultiFields.getFields(reader);
+		if (fields != null) {
+			for (String field : fields) {
+				Terms terms = fields.terms(field);
+				if (terms == null) {
+					continue;
+				}
+				long start = System.nanoTime();
+				long uniqueTerms = 0;
+				long termBytes = 0;
+				TermsEnum termsEnum = terms.iterator();
+				for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+					uniqueTerms++;
+					termBytes += term.length;
+				}
+				fieldStatistics.add(new FieldStatistics(field, terms.getDocCount(), uniqueTerms, terms.getSumDocFreq(),
+				        termBytes, System.nanoTime() - start));
+			}
+		}
+		fieldStatistics.sort(Comparator.comparing(FieldStatistics::getName));
+		
+		return new IndexStatistics(entityName, reader.numDocs(), reader.numDeletedDocs(), sizeInBytes, fieldStatistics);
+	}
+	
+	/**
+	 * The statistics of the index of one entity
+	 */
+	public static class IndexStatistics {
+		
+		private final String entityName;
+		
+		private final int documents;
+		
+		private final int deletedDocuments;
+		
+		private final long sizeInBytes;
+		
+		private final List<FieldStatistics> fields;
+		
+		IndexStatistics(String entityName, int documents, int deletedDocuments, long sizeInBytes,
+		    List<FieldStatistics> fields) {
+			this.entityName = entityName;
+			this.documents = documents;
+			this.deletedDocuments = deletedDocuments;
+			this.sizeInBytes = sizeInBytes;
+			this.fields = Collections.unmodifiableList(fields);
+		}
+		
+		public String getEntityName() {
+			return entityName;
+		}
+		
+		public int getDocuments() {
+			return documents;
+		}
+		
+		public int getDeletedDocuments() {
+			return deletedDocuments;
+		}
+		
+		public long getSizeInBytes() {
+			return sizeInBytes;
+		}
+		
+		public List<FieldStatistics> getFields() {
+			return fields;
+		}
+		
+		/**
+		 * @param name the field name
+		 * @return the statistics of the field or null if the index has no such field
+		 */
+		public FieldStatistics getField(String name) {
+			for (FieldStatistics field : fields) {
+				if (field.getName().equals(name)) {
+					return field;
+				}
+			}
+			return null;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%s: documents=%d deleted=%d size=%dKB", entityName, documents, deletedDocuments,
+			    sizeInBytes / 1024);
+		}
+	}
+	
+	/**
+	 * The statistics of one field of an index
+	 */
+	public static class FieldStatistics {
+		
+		private final String name;
+		
+		private final int documents;
+		
+		private final long uniqueTerms;
+		
+		private final long postings;
+		
+		private final long termBytes;
+		
+		private final long scanNanos;
+		
+		FieldStatistics(String name, int documents, long uniqueTerms, long postings, long termBytes, long scanNanos) {
+			this.name = name;
+			this.documents = documents;
+			this.uniqueTerms = uniqueTerms;
+			this.postings = postings;
+			this.termBytes = termBytes;
+			this.scanNanos = scanNanos;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * @return the number of documents with at least one term in the field
+		 */
+		public int getDocuments() {
+			return documents;
+		}
+		
+		public long getUniqueTerms() {
+			return uniqueTerms;
+		}
+		
+		/**
+		 * @return the number of (term, document) pairs of the field
+		 */
+		public long getPostings() {
+			return postings;
+		}
+		
+		public long getTermBytes() {
+			return termBytes;
+		}
+		
+		public long getScanNanos() {
+			return scanNanos;
+		}
+		
+		/**
+		 * @return the average number of distinct terms per document
+		 */
+		public double getTermsPerDocument() {
+			return documents > 0 ? (double) postings / documents : 0;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%s: documents=%d terms=%d postings=%d termsPerDocument=%.1f termBytes=%d scanMicros=%d",
+			    name, documents, uniqueTerms, postings, getTermsPerDocument(), termBytes,
+			    TimeUnit.NANOSECONDS.toMicros(scanNanos));
+		}
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+/**
+ * JMX view of the search index statistics, registered as
+ * <code>org.openmrs:type=SearchIndexStatistics</code>
+ * 
+ * @since 2.8.0
+ */
+public interface SearchIndexStatisticsMBean {
+	
+	/**
+	 * @return one line per index followed by one line per field, with document and term counts,
+	 *         the size on disk and the time needed to scan the terms of each field
+	 */
+	String[] getReport();
+}
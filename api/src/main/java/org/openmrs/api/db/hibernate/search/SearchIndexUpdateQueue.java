@@ -0,0 +1,459 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.api.context.Context;
+import org.openmrs.util.metrics.LatencyHistogram;
+import org.openmrs.util.metrics.MBeans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded queue of search index updates that are applied in batches by a single background worker
+ * once the transaction that changed the entities has committed, see
+ * {@link AsyncIndexingInterceptor}.
+ * <p>
+ * Asynchronous indexing is disabled by default, in which case Hibernate Search keeps indexing
+ * synchronously at transaction completion, and is configured with the following runtime
+ * properties:
+ * <ul>
+ * <li><tt>search.indexing.async</tt> set to true to enable the background worker</li>
+ * <li><tt>search.indexing.queueCapacity</tt> the maximum number of pending updates, defaults to
+ * 10000</li>
+ * <li><tt>search.indexing.batchSize</tt> the maximum number of updates written in one index
+ * transaction, defaults to 100</li>
+ * <li><tt>search.indexing.maxLagMillis</tt> defaults to 1000</li>
+ * </ul>
+ * The queue applies back-pressure instead of growing: when it is full, or when the oldest pending
+ * update has waited longer than the maximum lag, further changes are indexed synchronously by the
+ * committing thread until the worker has caught up. Changes therefore become visible to searches
+ * within roughly the maximum lag plus the time needed to index one batch.
+ * 
+ * @since 2.8.0
+ */
+@Component
+public class SearchIndexUpdateQueue implements SearchIndexUpdateQueueMBean {
+	
+	private static final Logger log = LoggerFactory.getLogger(SearchIndexUpdateQueue.class);
+	
+	public static final String OBJECT_NAME = "org.openmrs:type=SearchIndexUpdateQueue";
+	
+	public static final String ASYNC_PROPERTY = "search.indexing.async";
+	
+	public static final String QUEUE_CAPACITY_PROPERTY = "search.indexing.queueCapacity";
+	
+	public static final String BATCH_SIZE_PROPERTY = "search.indexing.batchSize";
+	
+	public static final String MAX_LAG_PROPERTY = "search.indexing.maxLagMillis";
+	
+	private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+	
+	private static final int DEFAULT_BATCH_SIZE = 100;
+	
+	private static final long DEFAULT_MAX_LAG_MILLIS = 1000;
+	
+	private static volatile SearchIndexUpdateQueue instance;
+	
+	private static final ThreadLocal<Boolean> indexerThread = new ThreadLocal<>();
+	
+	/**
+	 * Applies a batch of updates to the index
+	 */
+	interface BatchIndexer {
+		
+		void index(Collection<IndexUpdate> updates);
+	}
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private BatchIndexer indexer = this::indexWithHibernateSearch;
+	
+	private final BlockingQueue<IndexUpdate> queue = new LinkedBlockingQueue<>();
+	
+	private final AtomicInteger inProgress = new AtomicInteger();
+	
+	private final LongAdder indexed = new LongAdder();
+	
+	private final LongAdder batches = new LongAdder();
+	
+	private final LongAdder failed = new LongAdder();
+	
+	private final LongAdder synchronousFallbacks = new LongAdder();
+	
+	private final LatencyHistogram visibilityLag = new LatencyHistogram();
+	
+	private Semaphore capacity;
+	
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	private long maxLagNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_LAG_MILLIS);
+	
+	private volatile boolean running;
+	
+	private Thread worker;
+	
+	public SearchIndexUpdateQueue() {
+	}
+	
+	SearchIndexUpdateQueue(BatchIndexer indexer, int queueCapacity, int batchSize, long maxLagMillis) {
+		this.indexer = indexer;
+		configure(queueCapacity, batchSize, maxLagMillis);
+	}
+	
+	/**
+	 * @return the running queue or null if asynchronous indexing is disabled
+	 */
+	public static SearchIndexUpdateQueue getInstance() {
+		return instance;
+	}
+	
+	@PostConstruct
+	public void init() {
+		Properties properties = Context.getRuntimeProperties();
+		if (!Boolean.parseBoolean(properties.getProperty(ASYNC_PROPERTY, "false"))) {
+			return;
+		}
+		try {
+			configure(Integer.parseInt(properties.getProperty(QUEUE_CAPACITY_PROPERTY, String.valueOf(DEFAULT_QUEUE_CAPACITY))),
+			    Integer.parseInt(properties.getProperty(BATCH_SIZE_PROPERTY, String.valueOf(DEFAULT_BATCH_SIZE))),
+			    Long.parseLong(properties.getProperty(MAX_LAG_PROPERTY, String.valueOf(DEFAULT_MAX_LAG_MILLIS))));
+		}
+		catch (NumberFormatException e) {
+			log.warn("Invalid search indexing runtime properties, indexing synchronously", e);
+			return;
+		}
+		start();
+		MBeans.register(this, OBJECT_NAME);
+		instance = this;
+		log.info("Search index updates are applied asynchronously in batches of up to {}", batchSize);
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		if (instance == this) {
+			instance = null;
+		}
+		stop();
+		MBeans.unregister(OBJECT_NAME);
+	}
+	
+	private void configure(int queueCapacity, int batchSize, long maxLagMillis) {
+		this.capacity = new Semaphore(Math.max(1, queueCapacity));
+		this.batchSize = Math.max(1, batchSize);
+		this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+	}
+	
+	/**
+	 * Starts the background worker
+	 */
+	void start() {
+		running = true;
+		worker = new Thread(this::processUpdates, "OpenMRS search index updater");
+		worker.setDaemon(true);
+		worker.start();
+	}
+	
+	/**
+	 * Stops the background worker after it has indexed all pending updates
+	 */
+	void stop() {
+		running = false;
+		if (worker != null) {
+			try {
+				worker.join(TimeUnit.SECONDS.toMillis(30));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			worker = null;
+		}
+	}
+	
+	/**
+	 * Queues the index update of the given entity once the current transaction commits.
+	 * 
+	 * @param entity the new or changed entity
+	 * @return true if the update will be applied by the background worker, false if it has to be
+	 *         applied synchronously
+	 */
+	public boolean submit(Object entity) {
+		if (!running || Boolean.TRUE.equals(indexerThread.get()) || !(entity instanceof OpenmrsObject)
+		        || !TransactionSynchronizationManager.isSynchronizationActive()) {
+			return false;
+		}
+		Serializable id = ((OpenmrsObject) entity).getId();
+		if (id == null) {
+			return false;
+		}
+		
+		PendingUpdates pending = (PendingUpdates) TransactionSynchronizationManager.getResource(this);
+		IndexUpdate update = new IndexUpdate(Hibernate.getClass(entity), id);
+		if (pending != null && pending.updates.contains(update)) {
+			return true;
+		}
+		if (isLagging() || !capacity.tryAcquire()) {
+			synchronousFallbacks.increment();
+			return false;
+		}
+		if (pending == null) {
+			pending = new PendingUpdates();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		pending.updates.add(update);
+		return true;
+	}
+	
+	/**
+	 * Adds committed updates to the queue, the capacity must already have been acquired
+	 */
+	void enqueue(Collection<IndexUpdate> updates) {
+		long now = System.nanoTime();
+		for (IndexUpdate update : updates) {
+			update.committedNanos = now;
+			inProgress.incrementAndGet();
+			queue.add(update);
+		}
+	}
+	
+	/**
+	 * Waits until all queued updates are visible in the index.
+	 * 
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if the queue is idle, false if the timeout elapsed first
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (inProgress.get() > 0) {
+			if (System.nanoTime() >= deadline) {
+				return false;
+			}
+			Thread.sleep(10);
+		}
+		return true;
+	}
+	
+	private boolean isLagging() {
+		IndexUpdate oldest = queue.peek();
+		return oldest != null && maxLagNanos > 0 && System.nanoTime() - oldest.committedNanos > maxLagNanos;
+	}
+	
+	private void processUpdates() {
+		indexerThread.set(Boolean.TRUE);
+		List<IndexUpdate> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				IndexUpdate first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				indexBatch(batch);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+	
+	private void indexBatch(List<IndexUpdate> batch) {
+		try {
+			Set<IndexUpdate> distinct = new LinkedHashSet<>(batch);
+			indexer.index(distinct);
+			indexed.add(distinct.size());
+		}
+		catch (RuntimeException e) {
+			failed.add(batch.size());
+			log.error("Failed to update the search index for {} entities", batch.size(), e);
+		}
+		finally {
+			long now = System.nanoTime();
+			for (IndexUpdate update : batch) {
+				visibilityLag.record(now - update.committedNanos);
+			}
+			batches.increment();
+			capacity.release(batch.size());
+			inProgress.addAndGet(-batch.size());
+		}
+	}
+	
+	private void indexWithHibernateSearch(Collection<IndexUpdate> updates) {
+		Session session = sessionFactory.openSession();
+		try {
+			FullTextSession fullTextSession = Search.getFullTextSession(session);
+			Transaction tx = fullTextSession.beginTransaction();
+			try {
+				for (IndexUpdate update : updates) {
+					Object entity = fullTextSession.get(update.getType(), update.getId());
+					if (entity != null) {
+						fullTextSession.index(entity);
+					} else {
+						fullTextSession.purge(update.getType(), update.getId());
+					}
+				}
+				tx.commit();
+			}
+			catch (RuntimeException e) {
+				tx.rollback();
+				throw e;
+			}
+		}
+		finally {
+			session.close();
+		}
+	}
+	
+	@Override
+	public boolean isAsynchronous() {
+		return running;
+	}
+	
+	@Override
+	public int getQueueDepth() {
+		return queue.size();
+	}
+	
+	@Override
+	public long getLagMillis() {
+		IndexUpdate oldest = queue.peek();
+		return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.committedNanos);
+	}
+	
+	@Override
+	public long getVisibilityLagPercentileMillis(double percentile) {
+		return TimeUnit.NANOSECONDS.toMillis(visibilityLag.getPercentile(percentile));
+	}
+	
+	@Override
+	public long getIndexedCount() {
+		return indexed.sum();
+	}
+	
+	@Override
+	public long getBatchCount() {
+		return batches.sum();
+	}
+	
+	@Override
+	public long getFailedCount() {
+		return failed.sum();
+	}
+	
+	@Override
+	public long getSynchronousFallbackCount() {
+		return synchronousFallbacks.sum();
+	}
+	
+	@Override
+	public void reset() {
+		indexed.reset();
+		batches.reset();
+		failed.reset();
+		synchronousFallbacks.reset();
+		visibilityLag.reset();
+	}
+	
+	/**
+	 * The updates collected by one transaction, queued once it commits
+	 */
+	private class PendingUpdates implements TransactionSynchronization {
+		
+		private final Set<IndexUpdate> updates = new LinkedHashSet<>();
+		
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(SearchIndexUpdateQueue.this);
+			if (status == STATUS_COMMITTED) {
+				enqueue(updates);
+			} else {
+				capacity.release(updates.size());
+			}
+		}
+	}
+	
+	/**
+	 * An entity whose index documents have to be updated
+	 */
+	static final class IndexUpdate {
+		
+		private final Class<?> type;
+		
+		private final Serializable id;
+		
+		private long committedNanos;
+		
+		IndexUpdate(Class<?> type, Serializable id) {
+			this.type = type;
+			this.id = id;
+		}
+		
+		Class<?> getType() {
+			return type;
+		}
+		
+		Serializable getId() {
+			return id;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof IndexUpdate)) {
+				return false;
+			}
+			IndexUpdate other = (IndexUpdate) o;
+			return type.equals(other.type) && id.equals(other.id);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, id);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+/**
+ * JMX view of the asynchronous search index update queue, registered as
+ * <code>org.openmrs:type=SearchIndexUpdateQueue</code>
+ * 
+ * @since 2.8.0
+ */
+public interface SearchIndexUpdateQueueMBean {
+	
+	/**
+	 * @return true if index updates are applied by the background worker
+	 */
+	boolean isAsynchronous();
+	
+	/**
+	 * @return the number of committed updates waiting to be indexed
+	 */
+	int getQueueDepth();
+	
+	/**
+	 * @return the age of the oldest update waiting to be indexed, 0 if there is none
+	 */
+	long getLagMillis();
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the time between commit and index visibility at the given percentile
+	 */
+	long getVisibilityLagPercentileMillis(double percentile);
+	
+	long getIndexedCount();
+	
+	long getBatchCount();
+	
+	long getFailedCount();
+	
+	/**
+	 * @return the number of updates that were indexed synchronously because the queue was full or
+	 *         lagging behind
+	 */
+	long getSynchronousFallbackCount();
+	
+	/**
+	 * Discards all recorded statistics
+	 */
+	void reset();
+}
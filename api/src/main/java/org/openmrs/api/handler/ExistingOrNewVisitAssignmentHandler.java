@@ -9,9 +9,11 @@
  */
 package org.openmrs.api.handler;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.Encounter;
@@ -33,11 +35,11 @@ import org.openmrs.util.OpenmrsUtil;
  */
 public class ExistingOrNewVisitAssignmentHandler extends ExistingVisitAssignmentHandler implements GlobalPropertyListener {
 	
-	private static volatile Map<EncounterType, VisitType> encounterVisitMapping;
+	private static volatile VisitTypeMapping visitTypeMapping;
 	
-	private static void setEncounterVisitMapping(Map<EncounterType, VisitType> encounterVisitMapping) {
-		ExistingOrNewVisitAssignmentHandler.encounterVisitMapping = encounterVisitMapping;
-	}
+	private static int visitTypeMappingVersion;
+	
+	private static volatile boolean listening;
 	
 	/**
 	 * @see org.openmrs.api.handler.ExistingVisitAssignmentHandler#getDisplayName(java.util.Locale)
@@ -70,23 +72,13 @@ public class ExistingOrNewVisitAssignmentHandler extends ExistingVisitAssignment
 		visit.setLocation(encounter.getLocation());
 		visit.setPatient(encounter.getPatient());
 		
-		if (encounterVisitMapping == null) {
+		if (!listening) {
 			//initial one-time setup
-			setEncounterVisitMapping(new HashMap<>());
+			listening = true;
 			Context.getAdministrationService().addGlobalPropertyListener(this);
 		}
 		
-		VisitType visitType = encounterVisitMapping.get(encounter.getEncounterType());
-		if (visitType == null) {
-			visitType = loadVisitType(encounter.getEncounterType());
-			
-			//replace reference instead of synchronizing
-			Map<EncounterType, VisitType> newMap = new HashMap<>(encounterVisitMapping);
-			newMap.put(encounter.getEncounterType(), visitType);
-			
-			setEncounterVisitMapping(newMap);
-		}
-		visit.setVisitType(visitType);
+		visit.setVisitType(getVisitType(encounter.getEncounterType()));
 		
 		//set stop date time to last millisecond of the encounter day.
 		visit.setStopDatetime(OpenmrsUtil.getLastMomentOfDay(encounter.getEncounterDatetime()));
@@ -95,50 +87,59 @@ public class ExistingOrNewVisitAssignmentHandler extends ExistingVisitAssignment
 	}
 	
 	/**
-	 * Get the visit type corresponding to an encounter type by reading valid mappings 
-	 * from a global property
+	 * Get the visit type corresponding to an encounter type from the mapping global property, which
+	 * is only parsed again after it changed. The ids of the resolved visit types are remembered rather
+	 * than the visit types, so that the visit type of the current session is used.
+	 * 
 	 * @param encounterType
 	 * @return
 	 * @throws APIException
 	 */
-	private static VisitType loadVisitType(EncounterType encounterType) throws APIException {
+	private static VisitType getVisitType(EncounterType encounterType) throws APIException {
+		VisitTypeMapping mapping = visitTypeMapping;
+		if (mapping == null) {
+			int version = getVisitTypeMappingVersion();
+			mapping = new VisitTypeMapping(Context.getAdministrationService().getGlobalPropertyValue(
+			    OpenmrsConstants.GP_ENCOUNTER_TYPE_TO_VISIT_TYPE_MAPPING, ""));
+			setVisitTypeMapping(mapping, version);
+		}
 		
-		String value = Context.getAdministrationService().getGlobalPropertyValue(
-		    OpenmrsConstants.GP_ENCOUNTER_TYPE_TO_VISIT_TYPE_MAPPING, "");
+		VisitService visitService = Context.getVisitService();
+		Integer encounterTypeId = encounterType.getEncounterTypeId();
+		if (encounterTypeId == null) {
+			// unsaved encounter types can only be matched by uuid and are not remembered
+			return mapping.loadVisitType(encounterType, visitService);
+		}
 		
-		// Value should be in this format "3:4, 5:2, 1:2, 2:2" for encounterTypeId:visitTypeId
-		// or encounterTypeUuid:visitTypeUuid o a mixture of uuids and id
-		if (!StringUtils.isBlank(value)) {
-			
-			VisitService visitService = Context.getVisitService();
-			String targetEncounterTypeId = encounterType.getId().toString();
-			
-			String[] mappings = value.split(",");
-			for (String mapping : mappings) {
-				int index = mapping.indexOf(':');
-				if (index > 0) {
-					String encounterTypeIdOrUuid = mapping.substring(0, index).trim();
-					if (targetEncounterTypeId.equals(encounterTypeIdOrUuid)
-					        || encounterType.getUuid().equals(encounterTypeIdOrUuid)) {
-						String visitTypeIdOrUuid = mapping.substring(index + 1).trim();
-						VisitType visitType;
-						if (StringUtils.isNumeric(visitTypeIdOrUuid)) {
-							visitType = visitService.getVisitType(Integer.parseInt(visitTypeIdOrUuid));
-						} else {
-							visitType = visitService.getVisitTypeByUuid(visitTypeIdOrUuid);
-						}
-						if (visitType != null) {
-							return visitType;
-						}
-					}
-				}
+		Integer visitTypeId = mapping.visitTypeIds.get(encounterTypeId);
+		if (visitTypeId != null) {
+			VisitType visitType = visitService.getVisitType(visitTypeId);
+			if (visitType != null) {
+				return visitType;
 			}
-			
-			// Reaching here means this encounter type is not in the user's mapping.
-			throw new APIException("GlobalProperty.error.loadVisitType", new Object[] { encounterType.getName() });
 		}
 		
-		return Context.getVisitService().getAllVisitTypes().get(0);
+		VisitType visitType = mapping.loadVisitType(encounterType, visitService);
+		mapping.visitTypeIds.put(encounterTypeId, visitType.getVisitTypeId());
+		return visitType;
+	}
+	
+	private static synchronized int getVisitTypeMappingVersion() {
+		return visitTypeMappingVersion;
+	}
+	
+	/**
+	 * Publishes a parsed mapping unless the global property changed while it was parsed
+	 */
+	private static synchronized void setVisitTypeMapping(VisitTypeMapping mapping, int version) {
+		if (version == visitTypeMappingVersion) {
+			visitTypeMapping = mapping;
+		}
+	}
+	
+	private static synchronized void clearVisitTypeMapping() {
+		visitTypeMappingVersion++;
+		visitTypeMapping = null;
 	}
 	
 	@Override
@@ -148,12 +149,62 @@ public class ExistingOrNewVisitAssignmentHandler extends ExistingVisitAssignment
 	
 	@Override
 	public void globalPropertyChanged(GlobalProperty newValue) {
-		setEncounterVisitMapping(new HashMap<>());
+		clearVisitTypeMapping();
 	}
 	
 	@Override
 	public void globalPropertyDeleted(String propertyName) {
-		setEncounterVisitMapping(new HashMap<>());
+		clearVisitTypeMapping();
 	}
 	
+	/**
+	 * The parsed value of the {@link OpenmrsConstants#GP_ENCOUNTER_TYPE_TO_VISIT_TYPE_MAPPING} global
+	 * property and the ids of the visit types resolved from it by encounter type id
+	 */
+	private static class VisitTypeMapping {
+		
+		private final List<String[]> mappings = new ArrayList<>();
+		
+		private final Map<Integer, Integer> visitTypeIds = new ConcurrentHashMap<>();
+		
+		VisitTypeMapping(String value) {
+			// Value should be in this format "3:4, 5:2, 1:2, 2:2" for encounterTypeId:visitTypeId
+			// or encounterTypeUuid:visitTypeUuid o a mixture of uuids and id
+			if (!StringUtils.isBlank(value)) {
+				for (String mapping : value.split(",")) {
+					int index = mapping.indexOf(':');
+					if (index > 0) {
+						mappings.add(new String[] { mapping.substring(0, index).trim(), mapping.substring(index + 1).trim() });
+					}
+				}
+			}
+		}
+		
+		VisitType loadVisitType(EncounterType encounterType, VisitService visitService) throws APIException {
+			if (mappings.isEmpty()) {
+				return visitService.getAllVisitTypes().get(0);
+			}
+			
+			String targetEncounterTypeId = String.valueOf(encounterType.getId());
+			for (String[] mapping : mappings) {
+				String encounterTypeIdOrUuid = mapping[0];
+				if (targetEncounterTypeId.equals(encounterTypeIdOrUuid)
+				        || encounterType.getUuid().equals(encounterTypeIdOrUuid)) {
+					String visitTypeIdOrUuid = mapping[1];
+					VisitType visitType;
+					if (StringUtils.isNumeric(visitTypeIdOrUuid)) {
+						visitType = visitService.getVisitType(Integer.parseInt(visitTypeIdOrUuid));
+					} else {
+						visitType = visitService.getVisitTypeByUuid(visitTypeIdOrUuid);
+					}
+					if (visitType != null) {
+						return visitType;
+					}
+				}
+			}
+			
+			// Reaching here means this encounter type is not in the user's mapping.
+			throw new APIException("GlobalProperty.error.loadVisitType", new Object[] { encounterType.getName() });
+		}
+	}
 }
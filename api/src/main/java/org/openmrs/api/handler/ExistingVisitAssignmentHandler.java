@@ -9,14 +9,9 @@
  */
 package org.openmrs.api.handler;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 
 import org.openmrs.Encounter;
-import org.openmrs.Location;
-import org.openmrs.Patient;
 import org.openmrs.Visit;
 import org.openmrs.annotation.Handler;
 import org.openmrs.api.context.Context;
@@ -53,34 +48,10 @@ public class ExistingVisitAssignmentHandler extends BaseEncounterVisitHandler {
 			return;
 		}
 		
-		List<Patient> patients = new ArrayList<>();
-		patients.add(encounter.getPatient());
-		
-		//Fetch visits for this patient that haven't ended by the encounter date.
-		List<Visit> visits = Context.getVisitService().getVisits(null, patients, null, null, null,
-		    encounter.getEncounterDatetime(), null, null, null, true, false);
-		
-		if (visits == null) {
-			return;
-		}
-		
-		Date encounterDate = encounter.getEncounterDatetime();
-		
-		for (Visit visit : visits) {
-			//skip visits which are started after the encounter date.
-			if (visit.getStartDatetime().after(encounterDate)) {
-				continue;
-			}
-			
-			//skip visits which ended before the encounter date
-			if (visit.getStopDatetime() != null && visit.getStopDatetime().before(encounterDate)) {
-				continue;
-			}
-			
-			if (visit.getLocation() == null || Location.isInHierarchy(encounter.getLocation(), visit.getLocation())) {
-				encounter.setVisit(visit);
-				return;
-			}
+		Visit visit = Context.getVisitService().getOpenVisit(encounter.getPatient(), encounter.getLocation(),
+		    encounter.getEncounterDatetime());
+		if (visit != null) {
+			encounter.setVisit(visit);
 		}
 	}
 }
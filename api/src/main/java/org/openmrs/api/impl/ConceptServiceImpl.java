@@ -60,6 +60,9 @@ import org.openmrs.api.ConceptNameInUseException;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.ConceptStopWordException;
 import org.openmrs.api.ConceptsLockedException;
+import org.openmrs.api.cache.ConceptDictionary;
+import org.openmrs.api.cache.ConceptDictionarySnapshot;
+import org.openmrs.api.cache.FormSchemaCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ConceptDAO;
 import org.openmrs.api.db.DAOException;
@@ -183,7 +186,11 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 			concept.setSet(true);
 		}
 
-		return dao.saveConcept(concept);
+		Concept savedConcept = dao.saveConcept(concept);
+		ConceptDictionary.conceptChanged(savedConcept.getConceptId());
+		// compiled form schemas embed the names and answers of their concepts
+		FormSchemaCache.formsChanged();
+		return savedConcept;
 	}
 
 	private void ensureConceptMapTypeIsSet(Concept concept) {
@@ -280,6 +287,9 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 		}
 		
 		dao.purgeConcept(concept);
+		ConceptDictionary.conceptChanged(concept.getConceptId());
+		// compiled form schemas embed the names and answers of their concepts
+		FormSchemaCache.formsChanged();
 	}
 	
 	/**
@@ -1009,6 +1019,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Override
 	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public ConceptSource purgeConceptSource(ConceptSource cs) throws APIException {
+		ConceptDictionary.dictionaryChanged();
 		return dao.deleteConceptSource(cs);
 	}
 	
@@ -1027,6 +1038,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Override
 	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public ConceptSource saveConceptSource(ConceptSource conceptSource) throws APIException {
+		if (conceptSource.getConceptSourceId() != null) {
+			// the name or HL7 code of an existing source may have changed
+			ConceptDictionary.dictionaryChanged();
+		}
 		return dao.saveConceptSource(conceptSource);
 	}
 	
@@ -1232,6 +1247,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Transactional(readOnly = true)
 	@Cacheable(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME)
 	public List<Integer> getConceptIdsByMapping(String code, String sourceName, boolean includeRetired) throws APIException {
+		ConceptDictionarySnapshot snapshot = ConceptDictionary.getSnapshot();
+		if (snapshot != null) {
+			return snapshot.getConceptIdsByMapping(code, sourceName, includeRetired);
+		}
 		return dao.getConceptIdsByMapping(code, sourceName, includeRetired);
 	}
 	
@@ -1799,6 +1818,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Override
 	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public ConceptReferenceTerm saveConceptReferenceTerm(ConceptReferenceTerm conceptReferenceTerm) throws APIException {
+		if (conceptReferenceTerm.getConceptReferenceTermId() != null) {
+			// the code or source of an existing term may have changed
+			ConceptDictionary.dictionaryChanged();
+		}
 		return dao.saveConceptReferenceTerm(conceptReferenceTerm);
 	}
 	
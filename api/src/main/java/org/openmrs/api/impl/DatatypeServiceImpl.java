@@ -12,6 +12,8 @@ package org.openmrs.api.impl;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -34,11 +36,12 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeService {
 	
-	private List<Class<? extends CustomDatatype>> datatypeClasses;
+	// the following are immutable once published, so they can be read without locking
+	private volatile List<Class<? extends CustomDatatype>> datatypeClasses;
 	
-	private List<Class<? extends CustomDatatypeHandler>> handlerClasses;
+	private volatile List<Class<? extends CustomDatatypeHandler>> handlerClasses;
 	
-	private transient Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritizedHandlerClasses;
+	private transient volatile Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritizedHandlerClasses;
 	
 	private DatatypeDAO dao;
 	
@@ -56,11 +59,12 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	 */
 	@Override
 	@Transactional(readOnly = true)
-	public synchronized Set<Class<? extends CustomDatatype<?>>> getAllDatatypeClasses() {
-		if (datatypeClasses == null) {
-			populateBeanListsFromContext();
+	public Set<Class<? extends CustomDatatype<?>>> getAllDatatypeClasses() {
+		List<Class<? extends CustomDatatype>> classes = datatypeClasses;
+		if (classes == null) {
+			classes = populateDatatypeClasses();
 		}
-		return new LinkedHashSet(datatypeClasses);
+		return new LinkedHashSet(classes);
 	}
 	
 	/**
@@ -68,29 +72,37 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	 */
 	@Override
 	@Transactional(readOnly = true)
-	public synchronized Set<Class<? extends CustomDatatypeHandler<?, ?>>> getAllHandlerClasses() {
-		if (handlerClasses == null) {
-			populateBeanListsFromContext();
+	public Set<Class<? extends CustomDatatypeHandler<?, ?>>> getAllHandlerClasses() {
+		List<Class<? extends CustomDatatypeHandler>> classes = handlerClasses;
+		if (classes == null) {
+			classes = populateHandlerClasses();
 		}
-		return new LinkedHashSet(handlerClasses);
+		return new LinkedHashSet(classes);
 	}
 	
-	private synchronized void populateBeanListsFromContext() {
-		if (datatypeClasses == null) {
-			List<CustomDatatype> datatypeBeans = Context.getRegisteredComponents(CustomDatatype.class);
-			datatypeClasses = new ArrayList<>();
-			for (CustomDatatype<?> dt : datatypeBeans) {
-				datatypeClasses.add(dt.getClass());
-			}
-			
+	/**
+	 * Concurrent callers may both build the list, which is harmless since they build the same one
+	 */
+	private List<Class<? extends CustomDatatype>> populateDatatypeClasses() {
+		List<CustomDatatype> datatypeBeans = Context.getRegisteredComponents(CustomDatatype.class);
+		List<Class<? extends CustomDatatype>> classes = new ArrayList<>(datatypeBeans.size());
+		for (CustomDatatype<?> dt : datatypeBeans) {
+			classes.add(dt.getClass());
 		}
-		if (handlerClasses == null) {
-			List<CustomDatatypeHandler> handlerBeans = Context.getRegisteredComponents(CustomDatatypeHandler.class);
-			handlerClasses = new ArrayList<>();
-			for (CustomDatatypeHandler<?, ?> h : handlerBeans) {
-				handlerClasses.add(h.getClass());
-			}
+		classes = Collections.unmodifiableList(classes);
+		datatypeClasses = classes;
+		return classes;
+	}
+	
+	private List<Class<? extends CustomDatatypeHandler>> populateHandlerClasses() {
+		List<CustomDatatypeHandler> handlerBeans = Context.getRegisteredComponents(CustomDatatypeHandler.class);
+		List<Class<? extends CustomDatatypeHandler>> classes = new ArrayList<>(handlerBeans.size());
+		for (CustomDatatypeHandler<?, ?> h : handlerBeans) {
+			classes.add(h.getClass());
 		}
+		classes = Collections.unmodifiableList(classes);
+		handlerClasses = classes;
+		return classes;
 	}
 	
 	/**
@@ -162,11 +174,12 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	 */
 	@Override
 	@Transactional(readOnly = true)
-	public synchronized CustomDatatypeHandler<?, ?> getHandler(CustomDatatype<?> datatype, String handlerConfig) {
-		if (prioritizedHandlerClasses == null) {
-			prioritizeHandlers();
+	public CustomDatatypeHandler<?, ?> getHandler(CustomDatatype<?> datatype, String handlerConfig) {
+		Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritized = prioritizedHandlerClasses;
+		if (prioritized == null) {
+			prioritized = prioritizeHandlers();
 		}
-		Class<? extends CustomDatatypeHandler> clazz = prioritizedHandlerClasses.get(datatype.getClass());
+		Class<? extends CustomDatatypeHandler> clazz = prioritized.get(datatype.getClass());
 		if (clazz == null) {
 			return null;
 		}
@@ -185,18 +198,19 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 	 * private method that prioritizes all registered handlers so we can quickly determine which to use for
 	 * each datatype
 	 */
-	private synchronized void prioritizeHandlers() {
-		if (prioritizedHandlerClasses == null) {
-			prioritizedHandlerClasses = new LinkedHashMap<>();
-			for (Class dt : getAllDatatypeClasses()) {
-				List<Class<? extends CustomDatatypeHandler>> handlerClasses = getHandlerClasses(dt);
-				if (handlerClasses == null || handlerClasses.isEmpty()) {
-					prioritizedHandlerClasses.put(dt, null);
-				} else {
-					prioritizedHandlerClasses.put(dt, handlerClasses.get(0));
-				}
+	private Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritizeHandlers() {
+		Map<Class<? extends CustomDatatype>, Class<? extends CustomDatatypeHandler>> prioritized = new LinkedHashMap<>();
+		for (Class dt : getAllDatatypeClasses()) {
+			List<Class<? extends CustomDatatypeHandler>> handlerClasses = getHandlerClasses(dt);
+			if (handlerClasses == null || handlerClasses.isEmpty()) {
+				prioritized.put(dt, null);
+			} else {
+				prioritized.put(dt, handlerClasses.get(0));
 			}
 		}
+		prioritized = Collections.unmodifiableMap(prioritized);
+		prioritizedHandlerClasses = prioritized;
+		return prioritized;
 	}
 	
 	/**
@@ -217,6 +231,18 @@ public class DatatypeServiceImpl extends BaseOpenmrsService implements DatatypeS
 		return dao.getClobDatatypeStorageByUuid(uuid);
 	}
 	
+	/**
+	 * @see org.openmrs.api.DatatypeService#getClobDatatypeStoragesByUuids(java.util.Collection)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<ClobDatatypeStorage> getClobDatatypeStoragesByUuids(Collection<String> uuids) {
+		if (uuids == null || uuids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return dao.getClobDatatypeStoragesByUuids(uuids);
+	}
+	
 	/**
 	 * @see org.openmrs.api.DatatypeService#saveClobDatatypeStorage(org.openmrs.api.db.ClobDatatypeStorage)
 	 */
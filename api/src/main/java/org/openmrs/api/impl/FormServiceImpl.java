@@ -15,6 +15,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,6 +36,7 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.FormService;
 import org.openmrs.api.FormsLockedException;
 import org.openmrs.api.InvalidFileTypeException;
+import org.openmrs.api.cache.FormSchemaCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.FormDAO;
 import org.openmrs.api.handler.SaveHandler;
@@ -448,6 +450,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 			throw new APIException("general.not.yet.implemented", (Object[]) null);
 		} else {
 			dao.deleteField(field);
+			FormSchemaCache.formsChanged();
 		}
 	}
 	
@@ -475,6 +478,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 		}
 		
 		dao.deleteForm(form);
+		FormSchemaCache.formChanged(form);
 	}
 	
 	/**
@@ -483,6 +487,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 	@Override
 	public void purgeFormField(FormField formField) throws APIException {
 		dao.deleteFormField(formField);
+		FormSchemaCache.formChanged(formField.getForm());
 	}
 	
 	/**
@@ -503,7 +508,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 	 */
 	@Override
 	public Field saveField(Field field) throws APIException {
-		return dao.saveField(field);
+		Field savedField = dao.saveField(field);
+		FormSchemaCache.formsChanged();
+		return savedField;
 	}
 	
 	/**
@@ -528,7 +535,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 			}
 		}
 		
-		return dao.saveForm(form);
+		Form savedForm = dao.saveForm(form);
+		FormSchemaCache.formChanged(savedForm);
+		return savedForm;
 	}
 	
 	/**
@@ -553,6 +562,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 		}
 
 		FormField tmpFormField = dao.saveFormField(formField);
+		FormSchemaCache.formChanged(tmpFormField.getForm());
 		
 		//Include all formfields from all serializable complex obs handlers
 		Concept concept = tmpFormField.getField().getConcept();
@@ -640,41 +650,35 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 	 */
 	@Override
 	public int mergeDuplicateFields() throws APIException {
-		
-		List<Field> fields = dao.getAllFields(true);
-		Set<Field> fieldsToDelete = new HashSet<>();
-		
-		Map<String, Integer> fieldNameAsKeyAndFieldIdAsValueMap = new HashMap<>();
-		
-		for (Field field : fields) {
-			if (fieldNameAsKeyAndFieldIdAsValueMap.containsKey(field.getName())) {
-				Field fieldToCompareTo = dao.getField(fieldNameAsKeyAndFieldIdAsValueMap.get(field.getName()));
-				if (fieldsAreSimilar(field, fieldToCompareTo)) {
-					
-					//get the formFields that use this duplicate field
-					List<FormField> formFields = dao.getFormFieldsByField(field);
-					
-					//for each of the formFields that use this duplicate field
-					//replace with field from outer loop
-					for (FormField formField : formFields) {
-						formField.setField(fieldToCompareTo);
-						dao.saveFormField(formField);
-						
-						fieldsToDelete.add(field);
-					}
-				} else {
-					fieldNameAsKeyAndFieldIdAsValueMap.put(field.getName(), field.getId());
-				}
-				
+		// pick the field each duplicate is merged into, a field that isn't similar to the previous
+		// field with the same name becomes the field later duplicates of that name are merged into
+		Map<String, Field> fieldsByName = new HashMap<>();
+		Map<Field, Field> replacements = new LinkedHashMap<>();
+		for (Field field : dao.getAllFields(true)) {
+			Field fieldToCompareTo = fieldsByName.get(field.getName());
+			if (fieldToCompareTo != null && fieldsAreSimilar(field, fieldToCompareTo)) {
+				replacements.put(field, fieldToCompareTo);
 			} else {
-				fieldNameAsKeyAndFieldIdAsValueMap.put(field.getName(), field.getId());
+				fieldsByName.put(field.getName(), field);
 			}
-			
+		}
+		if (replacements.isEmpty()) {
+			return 0;
+		}
+		
+		//replace the duplicates in the formFields that use them, the duplicates are deleted afterwards
+		Set<Field> fieldsToDelete = new HashSet<>();
+		for (FormField formField : dao.getFormFieldsByFields(replacements.keySet())) {
+			Field field = formField.getField();
+			formField.setField(replacements.get(field));
+			dao.saveFormField(formField);
+			fieldsToDelete.add(field);
 		}
 		
 		for (Field field : fieldsToDelete) {
 			dao.deleteField(field);
 		}
+		FormSchemaCache.formsChanged();
 		
 		return fieldsToDelete.size();
 	}
@@ -743,7 +747,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 		    throw new InvalidFileTypeException(ex.getMessage(), ex);
 		}
 		
-		return dao.saveFormResource(toPersist);
+		FormResource savedFormResource = dao.saveFormResource(toPersist);
+		FormSchemaCache.formChanged(savedFormResource.getForm());
+		return savedFormResource;
 	}
 	
 	/**
@@ -752,6 +758,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService {
 	@Override
 	public void purgeFormResource(FormResource formResource) throws APIException {
 		dao.deleteFormResource(formResource);
+		FormSchemaCache.formChanged(formResource.getForm());
 	}
 	
 	/**
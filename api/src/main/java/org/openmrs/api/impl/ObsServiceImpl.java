@@ -155,7 +155,8 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService {
 
 		unsetVoidedAndCreationProperties(newObs,obs);
 		
-		Obs.Status originalStatus = dao.getSavedStatus(obs);
+		// the saved status only has to be looked up if it was changed since the obs was loaded
+		Obs.Status originalStatus = obs.isDirty("status") ? dao.getSavedStatus(obs) : obs.getStatus();
 		updateStatusIfNecessary(newObs, originalStatus);
 
 		RequiredDataAdvice.recursivelyHandle(SaveHandler.class, newObs, changeMessage);
@@ -53,10 +53,12 @@ import org.openmrs.order.OrderUtil;
 import org.openmrs.parameter.OrderSearchCriteria;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.StripedLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Field;
@@ -68,6 +70,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import static org.openmrs.Order.Action.DISCONTINUE;
 import static org.openmrs.Order.Action.REVISE;
@@ -90,6 +94,11 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	protected OrderDAO dao;
 	
 	private static OrderNumberGenerator orderNumberGenerator = null;
+	
+	// the duplicate and overlap checks of an order must see the committed orders of the patient
+	private final StripedLock patientLocks = new StripedLock(256);
+	
+	private volatile long patientLockTimeoutMillis = 30000;
 
 	public OrderServiceImpl() {
 	}
@@ -106,8 +115,8 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveOrder(Order order, OrderContext orderContext) throws APIException {
-		return saveOrder(order, orderContext, false);
+	public Order saveOrder(Order order, OrderContext orderContext) throws APIException {
+		return saveOrderLockingPatient(order, orderContext, false);
 	}
 	
 	/**
@@ -151,8 +160,56 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 * @see org.openmrs.api.OrderService#saveOrder(org.openmrs.Order, org.openmrs.api.OrderContext)
 	 */
 	@Override
-	public synchronized Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
-		return saveOrder(order, orderContext, true);
+	public Order saveRetrospectiveOrder(Order order, OrderContext orderContext) {
+		return saveOrderLockingPatient(order, orderContext, true);
+	}
+	
+	/**
+	 * Saves the order holding the lock of its patient until the transaction completes, so orders
+	 * of the same patient are checked against each other while orders of other patients are saved
+	 * in parallel
+	 */
+	private Order saveOrderLockingPatient(Order order, OrderContext orderContext, boolean isRetrospective) {
+		Integer patientId = order.getPatient() == null ? null : order.getPatient().getPatientId();
+		Lock lock = null;
+		try {
+			boolean locked;
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				locked = patientLocks.lockUntilTransactionCompletes(patientId, patientLockTimeoutMillis,
+				    TimeUnit.MILLISECONDS);
+			} else {
+				lock = patientLocks.getLock(patientId);
+				locked = lock.tryLock(patientLockTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+			// e.g. two transactions saving orders of several patients in a different order
+			if (!locked) {
+				throw new APIException("Order.patient.lock.timeout", new Object[] { patientId });
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Order.patient.lock.timeout", new Object[] { patientId }, e);
+		}
+		
+		try {
+			return saveOrder(order, orderContext, isRetrospective);
+		}
+		finally {
+			if (lock != null) {
+				lock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Sets how long saving an order waits for a concurrent transaction saving an order of the same
+	 * patient, defaults to 30 seconds
+	 * 
+	 * @param patientLockTimeoutMillis the timeout in milliseconds
+	 * @since 2.8.0
+	 */
+	public void setPatientLockTimeoutMillis(long patientLockTimeoutMillis) {
+		this.patientLockTimeoutMillis = patientLockTimeoutMillis;
 	}
 
 	private Order saveOrder(Order order, OrderContext orderContext, boolean isRetrospective) {
@@ -670,7 +727,7 @@ public class OrderServiceImpl extends BaseOpenmrsService implements OrderService
 	 */
 	@Override
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
-	public synchronized Long getNextOrderNumberSeedSequenceValue() {
+	public Long getNextOrderNumberSeedSequenceValue() {
 		return dao.getNextOrderNumberSeedSequenceValue();
 	}
 	
@@ -51,6 +51,7 @@ import org.openmrs.api.MissingRequiredIdentifierException;
 import org.openmrs.api.ObsService;
 import org.openmrs.api.PatientIdentifierException;
 import org.openmrs.api.PatientIdentifierTypeLockedException;
+import org.openmrs.api.PatientMergeJob;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.PersonService;
 import org.openmrs.api.ProgramWorkflowService;
@@ -58,15 +59,19 @@ import org.openmrs.api.UserService;
 import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.PatientDAO;
+import org.openmrs.api.db.PatientMergeTable;
 import org.openmrs.api.db.hibernate.HibernateUtil;
 import org.openmrs.parameter.EncounterSearchCriteria;
 import org.openmrs.parameter.EncounterSearchCriteriaBuilder;
 import org.openmrs.patient.IdentifierValidator;
+import org.openmrs.patient.duplicate.DuplicateCandidateWriter;
+import org.openmrs.patient.duplicate.DuplicatePatientDetector;
 import org.openmrs.patient.impl.LuhnIdentifierValidator;
 import org.openmrs.person.PersonMergeLog;
 import org.openmrs.person.PersonMergeLogData;
 import org.openmrs.serialization.SerializationException;
 import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.OpenmrsThreadPoolHolder;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
 import org.openmrs.validator.PatientIdentifierValidator;
@@ -88,6 +93,8 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 	
 	private static final Logger log = LoggerFactory.getLogger(PatientServiceImpl.class);
 	
+	private static final int DEFAULT_MERGE_BATCH_SIZE = 1000;
+	
 	private PatientDAO dao;
 	
 	/**
@@ -538,6 +545,15 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		return dao.getDuplicatePatientsByAttributes(attributes);
 	}
 	
+	/**
+	 * @see org.openmrs.api.PatientService#findDuplicatePatients(Date, DuplicateCandidateWriter)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public int findDuplicatePatients(Date changedSince, DuplicateCandidateWriter writer) throws APIException {
+		return new DuplicatePatientDetector(dao).detect(changedSince, writer);
+	}
+	
 	/**
 	 * generate a relationship hash for use in mergePatients; follows the convention:
 	 * [relationshipType][A|B][relativeId]
@@ -573,11 +589,16 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		}
 		requireNoActiveOrderOfSameType(preferred,notPreferred);
 		PersonMergeLogData mergedData = new PersonMergeLogData();
-		mergeVisits(preferred, notPreferred, mergedData);
-		mergeEncounters(preferred, notPreferred, mergedData);
-		mergeProgramEnrolments(preferred, notPreferred, mergedData);
-		mergeRelationships(preferred, notPreferred, mergedData);
-		mergeObservationsNotContainedInEncounters(preferred, notPreferred, mergedData);
+		if (isBulkMergeEnabled()) {
+			mergeInBulk(preferred, notPreferred, mergedData);
+			mergeRelationships(preferred, notPreferred, mergedData);
+		} else {
+			mergeVisits(preferred, notPreferred, mergedData);
+			mergeEncounters(preferred, notPreferred, mergedData);
+			mergeProgramEnrolments(preferred, notPreferred, mergedData);
+			mergeRelationships(preferred, notPreferred, mergedData);
+			mergeObservationsNotContainedInEncounters(preferred, notPreferred, mergedData);
+		}
 		mergeIdentifiers(preferred, notPreferred, mergedData);
 		
 		mergeNames(preferred, notPreferred, mergedData);
@@ -625,6 +646,56 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		}));
 	}
 
+	private boolean isBulkMergeEnabled() {
+		return Boolean.parseBoolean(Context.getAdministrationService().getGlobalProperty(
+		    OpenmrsConstants.GP_PATIENT_MERGE_BULK_UPDATES, "false"));
+	}
+	
+	/**
+	 * Moves visits, encounters with their obs, orders and diagnoses, independent obs and program
+	 * enrollments with set based updates instead of saving each of them, see
+	 * {@link OpenmrsConstants#GP_PATIENT_MERGE_BULK_UPDATES}
+	 */
+	private void mergeInBulk(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
+		int batchSize = DEFAULT_MERGE_BATCH_SIZE;
+		String batchSizeValue = Context.getAdministrationService().getGlobalProperty(
+		    OpenmrsConstants.GP_PATIENT_MERGE_BATCH_SIZE);
+		if (StringUtils.isNotBlank(batchSizeValue)) {
+			try {
+				batchSize = Math.max(1, Integer.parseInt(batchSizeValue.trim()));
+			}
+			catch (NumberFormatException e) {
+				log.warn("Invalid value {} for global property {}, using {}", batchSizeValue,
+				    OpenmrsConstants.GP_PATIENT_MERGE_BATCH_SIZE, DEFAULT_MERGE_BATCH_SIZE);
+			}
+		}
+		
+		for (PatientMergeTable table : PatientMergeTable.values()) {
+			List<String> uuids = dao.reassignPatientData(table, notPreferred, preferred, batchSize);
+			log.debug("Moved {} rows of {} from patient {} to {}", uuids.size(), table.getTable(),
+			    notPreferred.getPatientId(), preferred.getPatientId());
+			if (uuids.isEmpty()) {
+				continue;
+			}
+			switch (table) {
+				case VISIT:
+					mergedData.addMovedVisits(uuids);
+					break;
+				case ENCOUNTER:
+					mergedData.addMovedEncounters(uuids);
+					break;
+				case INDEPENDENT_OBS:
+					mergedData.addMovedIndependentObservations(uuids);
+					break;
+				case PATIENT_PROGRAM:
+					mergedData.addMovedPrograms(uuids);
+					break;
+				default:
+					// rows contained in moved encounters are not audited separately
+			}
+		}
+	}
+	
 	private void mergeProgramEnrolments(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
 		// copy all program enrollments
 		ProgramWorkflowService programService = Context.getProgramWorkflowService();
@@ -1364,6 +1435,17 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		}
 	}
 	
+	/**
+	 * @see org.openmrs.api.PatientService#mergePatientsInBackground(org.openmrs.Patient, java.util.List)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public PatientMergeJob mergePatientsInBackground(Patient preferred, List<Patient> notPreferred) throws APIException {
+		PatientMergeJob job = new PatientMergeJob(preferred, notPreferred, Context.getUserContext());
+		job.setFuture(OpenmrsThreadPoolHolder.threadExecutor.submit(job));
+		return job;
+	}
+	
 	/**
 	 * @see org.openmrs.api.PatientService#savePatientIdentifier(org.openmrs.PatientIdentifier)
 	 */
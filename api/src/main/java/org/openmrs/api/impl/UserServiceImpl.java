@@ -20,6 +20,7 @@ import org.openmrs.annotation.Logging;
 import org.openmrs.api.*;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Daemon;
+import org.openmrs.api.context.UserContext;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.LoginCredential;
 import org.openmrs.api.db.UserDAO;
@@ -175,6 +176,8 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 				+ " is already in use.");
 		}
 		
+		// roles or the retired flag may have changed
+		UserContext.invalidateSnapshots(user.getUserId());
 		return dao.saveUser(user, null);
 	}
 	
@@ -199,6 +202,35 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 		return Context.getUserService().unretireUser(user);
 	}
 	
+	/**
+	 * @see org.openmrs.api.UserService#retireInactiveUsers(Date, String, Integer, int)
+	 */
+	@Override
+	@CacheEvict(value = "userSearchLocales", allEntries = true)
+	public List<Integer> retireInactiveUsers(Date inactiveSince, String reason, Integer afterUserId, int batchSize)
+	        throws APIException {
+		List<Integer> userIds = dao.getIdsOfInactiveUsers(inactiveSince, getSuperUserRoles(), afterUserId, batchSize);
+		dao.retireUsers(userIds, reason, Context.getAuthenticatedUser());
+		if (!userIds.isEmpty()) {
+			UserContext.invalidateSnapshots(null);
+		}
+		return userIds;
+	}
+	
+	/**
+	 * @return the names of the roles that make users superusers, directly or by inheritance
+	 */
+	private Set<String> getSuperUserRoles() {
+		Set<String> superUserRoles = new HashSet<>();
+		for (Role role : dao.getAllRoles()) {
+			if (RoleConstants.SUPERUSER.equalsIgnoreCase(role.getRole()) || role.getAllParentRoles().stream()
+			        .anyMatch(parent -> RoleConstants.SUPERUSER.equalsIgnoreCase(parent.getRole()))) {
+				superUserRoles.add(role.getRole());
+			}
+		}
+		return superUserRoles;
+	}
+	
 	/**
 	 * @see org.openmrs.api.UserService#unretireUser(org.openmrs.User)
 	 */
@@ -327,6 +359,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	 */
 	@Override
 	public void changeHashedPassword(User user, String hashedPassword, String salt) throws APIException {
+		UserContext.invalidateSnapshots(user.getUserId());
 		dao.changeHashedPassword(user, hashedPassword, salt);
 	}
 	
@@ -496,6 +529,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	 */
 	@Override
 	public void purgeUser(User user) throws APIException {
+		UserContext.invalidateSnapshots(user.getUserId());
 		dao.deleteUser(user);
 	}
 	
@@ -508,6 +542,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 			throw new APIException("cascade.do.not.think", (Object[]) null);
 		}
 		
+		UserContext.invalidateSnapshots(user.getUserId());
 		dao.deleteUser(user);
 	}
 	
@@ -667,6 +702,7 @@ public class UserServiceImpl extends BaseOpenmrsService implements UserService {
 	
 	private void updatePassword(User user, String newPassword) {
 		OpenmrsUtil.validatePassword(user.getUsername(), newPassword, user.getSystemId());
+		UserContext.invalidateSnapshots(user.getUserId());
 		dao.changePassword(user, newPassword);
 	}
 	
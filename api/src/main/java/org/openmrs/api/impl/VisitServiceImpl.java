@@ -15,6 +15,8 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -45,8 +47,19 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class VisitServiceImpl extends BaseOpenmrsService implements VisitService {
 	
+	private static final long OPEN_VISIT_CACHE_MILLIS = 10000;
+	
+	private static final int OPEN_VISIT_CACHE_SIZE = 10000;
+	
+	private static final int STOP_VISITS_BATCH_SIZE = 1000;
+	
 	private VisitDAO dao;
 	
+	/**
+	 * The visit last returned by {@link #getOpenVisit(Patient, Location, Date)} by patient id
+	 */
+	private final Map<Integer, OpenVisit> openVisits = new ConcurrentHashMap<>();
+	
 	/**
 	 * Method used to inject the visit data access object.
 	 *
@@ -177,6 +190,7 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 		}
 		
 		CustomDatatypeUtil.saveAttributesIfNecessary(visit);
+		forgetOpenVisit(visit);
 		return dao.saveVisit(visit);
 	}
 	
@@ -199,6 +213,7 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 	 */
 	@Override
 	public Visit voidVisit(Visit visit, String reason) throws APIException {
+		forgetOpenVisit(visit);
 		return dao.saveVisit(visit);
 	}
 	
@@ -221,6 +236,7 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 		if (!Context.getEncounterService().getEncountersByVisit(visit, true).isEmpty()) {
 			throw new APIException("Visit.purge.inUse", (Object[]) null);
 		}
+		forgetOpenVisit(visit);
 		dao.deleteVisit(visit);
 	}
 	
@@ -371,20 +387,87 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 			return;
 		}
 		
-		int counter = 0;
 		Date stopDate = new Date();
-		Visit nextVisit = dao.getNextVisit(null, visitTypesToStop, maximumStartDate);
-		while (nextVisit != null) {
-			nextVisit.setStopDatetime(stopDate);
-			dao.saveVisit(nextVisit);
-			if (counter++ > 50) {
-				//ensure changes are persisted to DB before reclaiming memory
-				Context.flushSession();
-				Context.clearSession();
-				counter = 0;
+		List<Integer> stoppedVisitIds = stopVisits(visitTypesToStop, maximumStartDate, null, STOP_VISITS_BATCH_SIZE,
+		    stopDate);
+		while (!stoppedVisitIds.isEmpty()) {
+			stoppedVisitIds = stopVisits(visitTypesToStop, maximumStartDate,
+			    stoppedVisitIds.get(stoppedVisitIds.size() - 1), STOP_VISITS_BATCH_SIZE, stopDate);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.api.VisitService#stopVisits(Date, Integer, int)
+	 */
+	@Override
+	public List<Integer> stopVisits(Date maximumStartDate, Integer afterVisitId, int batchSize) {
+		List<VisitType> visitTypesToStop = getVisitTypesToStop();
+		if (visitTypesToStop.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		return stopVisits(visitTypesToStop, maximumStartDate != null ? maximumStartDate : new Date(), afterVisitId,
+		    batchSize, new Date());
+	}
+	
+	private List<Integer> stopVisits(List<VisitType> visitTypesToStop, Date maximumStartDate, Integer afterVisitId,
+	        int batchSize, Date stopDate) {
+		List<Integer> visitIds = dao.getIdsOfVisitsToStop(afterVisitId, visitTypesToStop, maximumStartDate, batchSize);
+		dao.stopVisits(visitIds, stopDate, Context.getAuthenticatedUser());
+		return visitIds;
+	}
+	
+	/**
+	 * @see org.openmrs.api.VisitService#getOpenVisit(Patient, Location, Date)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Visit getOpenVisit(Patient patient, Location location, Date date) throws APIException {
+		if (patient == null || patient.getPatientId() == null || date == null) {
+			return null;
+		}
+		
+		// the remembered visit stays the most recently started one from the date it was looked up for
+		// until the next visit of the patient starts, as long as it is open. It is checked again
+		// since it may have been changed by another node or directly through the dao, e.g. when
+		// visits are stopped
+		long now = System.currentTimeMillis();
+		long time = date.getTime();
+		OpenVisit openVisit = openVisits.get(patient.getPatientId());
+		if (openVisit != null && openVisit.expires > now && openVisit.from <= time && time < openVisit.until
+		        && Objects.equals(openVisit.locationId, location == null ? null : location.getLocationId())) {
+			Visit visit = dao.getVisit(openVisit.visitId);
+			if (visit != null && isOpen(visit, patient, location, date)) {
+				return visit;
+			}
+		}
+		
+		List<Location> locations = new ArrayList<>();
+		for (Location l = location; l != null && !locations.contains(l); l = l.getParentLocation()) {
+			locations.add(l);
+		}
+		Visit visit = dao.getOpenVisit(patient, locations, date);
+		if (visit != null) {
+			Date nextStart = dao.getNextVisitStartDatetime(patient, date);
+			if (openVisits.size() >= OPEN_VISIT_CACHE_SIZE) {
+				openVisits.clear();
 			}
-					
-		nextVisit = dao.getNextVisit(nextVisit, visitTypesToStop, maximumStartDate);
+			openVisits.put(patient.getPatientId(), new OpenVisit(visit.getVisitId(),
+			        location == null ? null : location.getLocationId(), time,
+			        nextStart == null ? Long.MAX_VALUE : nextStart.getTime(), now + OPEN_VISIT_CACHE_MILLIS));
+		}
+		return visit;
+	}
+	
+	private boolean isOpen(Visit visit, Patient patient, Location location, Date date) {
+		return !visit.getVoided() && patient.equals(visit.getPatient()) && !visit.getStartDatetime().after(date)
+		        && (visit.getStopDatetime() == null || !visit.getStopDatetime().before(date))
+		        && (visit.getLocation() == null || Location.isInHierarchy(location, visit.getLocation()));
+	}
+	
+	private void forgetOpenVisit(Visit visit) {
+		if (visit.getPatient() != null && visit.getPatient().getPatientId() != null) {
+			openVisits.remove(visit.getPatient().getPatientId());
 		}
 	}
 	
@@ -417,4 +500,30 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 		return result;
 	}
 
+	
+	/**
+	 * A visit returned by {@link #getOpenVisit(Patient, Location, Date)}, the location it was
+	 * returned for, the dates from which until before which it is the most recently started visit
+	 * and when to forget it
+	 */
+	private static class OpenVisit {
+		
+		private final Integer visitId;
+		
+		private final Integer locationId;
+		
+		private final long from;
+		
+		private final long until;
+		
+		private final long expires;
+		
+		OpenVisit(Integer visitId, Integer locationId, long from, long until, long expires) {
+			this.visitId = visitId;
+			this.locationId = locationId;
+			this.from = from;
+			this.until = until;
+			this.expires = expires;
+		}
+	}
 }
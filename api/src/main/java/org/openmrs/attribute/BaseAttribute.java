@@ -127,6 +127,26 @@ public abstract class BaseAttribute<AT extends AttributeType, OwningType extends
 		value = typedValue;
 	}
 	
+	/**
+	 * Sets the typed value that corresponds to the persisted value reference, without marking this
+	 * attribute as dirty. This is used to populate values that were loaded in bulk.
+	 * 
+	 * @param typedValue the value that would be returned by converting the value reference
+	 * @see CustomDatatypeUtil#loadValues(java.util.Collection)
+	 * @since 2.8.0
+	 */
+	public void setLoadedValue(Object typedValue) {
+		value = typedValue;
+	}
+	
+	/**
+	 * @return whether the typed value has been set or converted from the value reference already
+	 * @since 2.8.0
+	 */
+	public boolean isValueLoaded() {
+		return value != null;
+	}
+	
 	/**
 	 * @return the dirty
 	 */
@@ -10,10 +10,14 @@
 package org.openmrs.customdatatype;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.ConceptDatatype;
@@ -21,22 +25,71 @@ import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
 import org.openmrs.attribute.Attribute;
 import org.openmrs.attribute.AttributeType;
+import org.openmrs.attribute.BaseAttribute;
+import org.openmrs.customdatatype.datatype.LongFreeTextDatatype;
 import org.openmrs.serialization.SerializationException;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
 
 /**
- * Helper methods for dealing with custom datatypes and their handlers
+ * Helper methods for dealing with custom datatypes and their handlers. Configured datatypes and
+ * handlers are cached by class name and configuration, and the cache is cleared whenever the spring
+ * context is refreshed i.e. when modules are started or stopped.
  * @since 1.9
  */
-public class CustomDatatypeUtil {
+@Component
+public class CustomDatatypeUtil implements ApplicationListener<ContextRefreshedEvent> {
 
 	private CustomDatatypeUtil() {
 	}
 	
 	private static final Logger log = LoggerFactory.getLogger(CustomDatatypeUtil.class);
 	
+	private static final ConcurrentMap<ConfiguredType, CustomDatatype<?>> cachedDatatypes = new ConcurrentHashMap<>();
+	
+	private static final ConcurrentMap<ConfiguredType, CustomDatatypeHandler> cachedHandlers = new ConcurrentHashMap<>();
+	
+	private static final ConcurrentMap<ConfiguredType, CustomDatatypeHandler> cachedDefaultHandlers = new ConcurrentHashMap<>();
+	
+	/**
+	 * Cache key of a class name and a configuration
+	 */
+	private static final class ConfiguredType {
+		
+		private final String classname;
+		
+		private final String config;
+		
+		private final int hash;
+		
+		ConfiguredType(String classname, String config) {
+			this.classname = classname;
+			this.config = config;
+			this.hash = Objects.hash(classname, config);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ConfiguredType)) {
+				return false;
+			}
+			ConfiguredType other = (ConfiguredType) obj;
+			return Objects.equals(classname, other.classname) && Objects.equals(config, other.config);
+		}
+	}
+	
 	/**
 	 * @param descriptor
 	 * @return a configured datatype appropriate for descriptor
@@ -46,18 +99,28 @@ public class CustomDatatypeUtil {
 	}
 	
 	/**
+	 * The returned instance is shared by all callers asking for the same classname and configuration,
+	 * so it must not be reconfigured.
+	 * 
 	 * @param datatypeClassname
 	 * @param datatypeConfig
 	 * @return a configured datatype with the given classname and configuration
+	 * <strong>Should</strong> return the same instance for the same classname and configuration
 	 */
 	public static CustomDatatype<?> getDatatype(String datatypeClassname, String datatypeConfig) {
+		ConfiguredType key = new ConfiguredType(datatypeClassname, datatypeConfig);
+		CustomDatatype<?> cached = cachedDatatypes.get(key);
+		if (cached != null) {
+			return cached;
+		}
 		try {
 			Class dtClass = Context.loadClass(datatypeClassname);
 			CustomDatatype<?> ret = (CustomDatatype<?>) Context.getDatatypeService().getDatatype(dtClass, datatypeConfig);
 			if (ret == null) {
 				throw new CustomDatatypeException("Can't find datatype: " + datatypeClassname);
 			}
-			return ret;
+			cached = cachedDatatypes.putIfAbsent(key, ret);
+			return cached != null ? cached : ret;
 		}
 		catch (Exception ex) {
 			throw new CustomDatatypeException("Error loading " + datatypeClassname + " and configuring it with "
@@ -88,6 +151,9 @@ public class CustomDatatypeUtil {
 	}
 	
 	/**
+	 * The returned instance is shared by all callers asking for the same handler and configuration, so
+	 * it must not be reconfigured.
+	 * 
 	 * @param dt the datatype that this handler should be for
 	 * @param preferredHandlerClassname
 	 * @param handlerConfig
@@ -96,6 +162,11 @@ public class CustomDatatypeUtil {
 	public static CustomDatatypeHandler getHandler(CustomDatatype<?> dt, String preferredHandlerClassname,
 	        String handlerConfig) {
 		if (preferredHandlerClassname != null) {
+			ConfiguredType key = new ConfiguredType(preferredHandlerClassname, handlerConfig);
+			CustomDatatypeHandler cached = cachedHandlers.get(key);
+			if (cached != null) {
+				return cached;
+			}
 			try {
 				Class<? extends CustomDatatypeHandler> clazz = (Class<? extends CustomDatatypeHandler>) Context
 				        .loadClass(preferredHandlerClassname);
@@ -103,7 +174,8 @@ public class CustomDatatypeUtil {
 				if (handlerConfig != null) {
 					handler.setHandlerConfiguration(handlerConfig);
 				}
-				return handler;
+				cached = cachedHandlers.putIfAbsent(key, handler);
+				return cached != null ? cached : handler;
 			}
 			catch (Exception ex) {
 				log.warn("Failed to instantiate and configure preferred handler with class " + preferredHandlerClassname
@@ -112,7 +184,80 @@ public class CustomDatatypeUtil {
 		}
 		
 		// if we couldn't get the preferred handler (or none was specified) we get the default one by datatype
-		return Context.getDatatypeService().getHandler(dt, handlerConfig);
+		ConfiguredType key = new ConfiguredType(dt.getClass().getName(), handlerConfig);
+		CustomDatatypeHandler cached = cachedDefaultHandlers.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		CustomDatatypeHandler handler = Context.getDatatypeService().getHandler(dt, handlerConfig);
+		if (handler == null) {
+			return null;
+		}
+		cached = cachedDefaultHandlers.putIfAbsent(key, handler);
+		return cached != null ? cached : handler;
+	}
+	
+	/**
+	 * Clears the cached datatypes and handlers, this has to be called when classes that were cached
+	 * may have been unloaded
+	 * 
+	 * @since 2.8.0
+	 */
+	public static void clearCachedDatatypesAndHandlers() {
+		cachedDatatypes.clear();
+		cachedHandlers.clear();
+		cachedDefaultHandlers.clear();
+	}
+	
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		clearCachedDatatypesAndHandlers();
+	}
+	
+	/**
+	 * Loads the values of all given attributes that are stored as {@link LongFreeTextDatatype} with
+	 * a single query instead of one query per attribute. Attributes whose values are already loaded,
+	 * or that use other datatypes, are left alone and keep being converted on first access.
+	 * 
+	 * @param attributes
+	 * @since 2.8.0
+	 * <strong>Should</strong> load the values of long free text attributes
+	 */
+	public static void loadValues(Collection<? extends BaseAttribute<?, ?>> attributes) {
+		LongFreeTextDatatype longFreeTextDatatype = null;
+		Map<String, List<BaseAttribute<?, ?>>> attributesByReference = new HashMap<>();
+		for (BaseAttribute<?, ?> attribute : attributes) {
+			if (attribute.isValueLoaded() || attribute.getAttributeType() == null) {
+				continue;
+			}
+			CustomDatatype<?> datatype;
+			try {
+				datatype = getDatatype(attribute.getAttributeType());
+			}
+			catch (CustomDatatypeException ex) {
+				continue;
+			}
+			if (datatype instanceof LongFreeTextDatatype) {
+				try {
+					attributesByReference.computeIfAbsent(attribute.getValueReference(), k -> new ArrayList<>()).add(
+					    attribute);
+					longFreeTextDatatype = (LongFreeTextDatatype) datatype;
+				}
+				catch (NotYetPersistedException ex) {
+					// nothing to load
+				}
+			}
+		}
+		
+		if (longFreeTextDatatype == null) {
+			return;
+		}
+		Map<String, String> values = longFreeTextDatatype.fromReferenceStrings(attributesByReference.keySet());
+		for (Map.Entry<String, String> e : values.entrySet()) {
+			for (BaseAttribute<?, ?> attribute : attributesByReference.get(e.getKey())) {
+				attribute.setLoadedValue(e.getValue());
+			}
+		}
 	}
 	
 	/**
@@ -9,6 +9,10 @@
  */
 package org.openmrs.customdatatype.datatype;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ClobDatatypeStorage;
 import org.openmrs.customdatatype.CustomDatatype;
@@ -64,6 +68,21 @@ public class LongFreeTextDatatype implements CustomDatatype<String> {
 		return Context.getDatatypeService().getClobDatatypeStorageByUuid(referenceString).getValue();
 	}
 	
+	/**
+	 * Bulk version of {@link #fromReferenceString(String)} which loads all values with a single query
+	 * 
+	 * @param referenceStrings
+	 * @return a map from each reference string found to its value
+	 * @since 2.8.0
+	 */
+	public Map<String, String> fromReferenceStrings(Collection<String> referenceStrings) {
+		Map<String, String> ret = new HashMap<>();
+		for (ClobDatatypeStorage storage : Context.getDatatypeService().getClobDatatypeStoragesByUuids(referenceStrings)) {
+			ret.put(storage.getUuid(), storage.getValue());
+		}
+		return ret;
+	}
+	
 	/**
 	 * @see org.openmrs.customdatatype.CustomDatatype#getTextSummary(java.lang.String)
 	 */
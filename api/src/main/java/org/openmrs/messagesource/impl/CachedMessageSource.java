@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.messagesource.MutableMessageSource;
 import org.openmrs.messagesource.PresentationMessage;
@@ -24,12 +25,15 @@ import org.springframework.context.support.AbstractMessageSource;
 /**
  * A MutableMessageSource backed by a localized map of PresentationMessageCollections, providing
  * in-memory storage of PresentationMessages. Useful for temporary storage, as a cache for other
- * sources, and for testing.
+ * sources, and for testing. Messages are resolved from a {@link MessageTable} per locale which is
+ * rebuilt whenever the messages are changed.
  */
 public class CachedMessageSource extends AbstractMessageSource implements MutableMessageSource {
 	
 	Map<Locale, PresentationMessageMap> localizedMap = new HashMap<>();
 	
+	private volatile Map<Locale, MessageTable> messageTables = new ConcurrentHashMap<>();
+	
 	/* (non-Javadoc)
 	 * @see org.openmrs.messagesource.MutableMessageSource#addPresentation(org.openmrs.api.PresentationMessage)
 	 */
@@ -38,6 +42,7 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 		PresentationMessageMap codeMessageMap = localizedMap
 				.computeIfAbsent(message.getLocale(), k -> new PresentationMessageMap(message.getLocale()));
 		codeMessageMap.put(message.getCode(), message);
+		clearMessageTables();
 	}
 	
 	/**
@@ -71,6 +76,7 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 		PresentationMessageMap codeMessageMap = localizedMap.get(message.getLocale());
 		if ((codeMessageMap != null) && codeMessageMap.containsKey(message.getCode())) {
 			codeMessageMap.remove(message.getCode());
+			clearMessageTables();
 		}
 	}
 	
@@ -115,13 +121,31 @@ public class CachedMessageSource extends AbstractMessageSource implements Mutabl
 	 */
 	@Override
 	protected MessageFormat resolveCode(String code, Locale locale) {
-		MessageFormat resolvedMessageFormatForCode = null;
-		
-		PresentationMessage pmForCode = getPresentation(code, locale);
-		if (pmForCode != null) {
-			resolvedMessageFormatForCode = new MessageFormat(pmForCode.getMessage());
+		Map<Locale, MessageTable> tables = messageTables;
+		MessageTable table = tables.get(locale);
+		if (table == null) {
+			table = tables.computeIfAbsent(locale, this::compileMessageTable);
+		}
+		return table.getMessageFormat(code);
+	}
+	
+	private MessageTable compileMessageTable(Locale locale) {
+		Map<String, String> messages = new HashMap<>();
+		Collection<PresentationMessage> presentations = getPresentationsInLocale(locale);
+		if (presentations != null) {
+			for (PresentationMessage presentation : presentations) {
+				messages.put(presentation.getCode(), presentation.getMessage());
+			}
 		}
-		return resolvedMessageFormatForCode;
+		return new MessageTable(locale, messages);
+	}
+	
+	/**
+	 * Replaces the message tables at once, they are rebuilt from the current messages when they are
+	 * used next
+	 */
+	private void clearMessageTables() {
+		messageTables = new ConcurrentHashMap<>();
 	}
 	
 }
@@ -38,7 +38,7 @@ public class MessageSourceServiceImpl implements MessageSourceService {
 	
 	private Set<MutableMessageSource> availableMessageSources = new HashSet<>();
 	
-	private MutableMessageSource activeMessageSource;
+	private volatile MutableMessageSource activeMessageSource;
 	
 	/**
 	 * @see org.openmrs.messagesource.MessageSourceService#getMessage(java.lang.String)
@@ -98,12 +98,12 @@ public class MessageSourceServiceImpl implements MessageSourceService {
 	 */
 	@Override
 	public String getMessage(MessageSourceResolvable resolvable, Locale locale) {
-		if((resolvable.getCodes()[0]).equals((activeMessageSource.getMessage(resolvable, locale)))){
-			return (resolvable.getCodes()[(resolvable.getCodes().length) - 1]);
-		}
-		else{
-			return activeMessageSource.getMessage(resolvable, locale);
+		String message = activeMessageSource.getMessage(resolvable, locale);
+		String[] codes = resolvable.getCodes();
+		if (codes[0].equals(message)) {
+			return codes[codes.length - 1];
 		}
+		return message;
 	}
 	
 	/**
@@ -0,0 +1,79 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.messagesource.impl;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable table of the messages available in a locale, with the locale fallbacks of the
+ * message source already applied so that a message is resolved with a single lookup. The
+ * MessageFormat of a message is created the first time the message is resolved with arguments and
+ * reused afterwards, callers have to synchronize on it while formatting since MessageFormat isn't
+ * thread safe.
+ * 
+ * @since 2.8.0
+ */
+final class MessageTable {
+	
+	private final Locale locale;
+	
+	private final Map<String, String> messages;
+	
+	private final Map<String, MessageFormat> messageFormats = new ConcurrentHashMap<>();
+	
+	/**
+	 * @param locale the locale of the messages
+	 * @param messages the messages keyed by their codes, the map is copied
+	 */
+	MessageTable(Locale locale, Map<?, ?> messages) {
+		Map<String, String> copy = new HashMap<>(messages.size() * 4 / 3 + 1);
+		for (Map.Entry<?, ?> entry : messages.entrySet()) {
+			copy.put(entry.getKey().toString(), entry.getValue().toString());
+		}
+		this.locale = locale;
+		this.messages = Collections.unmodifiableMap(copy);
+	}
+	
+	/**
+	 * @param code the message code
+	 * @return the message or null if the table has no message for the code
+	 */
+	String getMessage(String code) {
+		return messages.get(code);
+	}
+	
+	/**
+	 * @param code the message code
+	 * @return the MessageFormat of the message or null if the table has no message for the code
+	 */
+	MessageFormat getMessageFormat(String code) {
+		MessageFormat messageFormat = messageFormats.get(code);
+		if (messageFormat == null) {
+			String message = messages.get(code);
+			if (message == null) {
+				return null;
+			}
+			messageFormat = messageFormats.computeIfAbsent(code, c -> new MessageFormat(message, locale));
+		}
+		return messageFormat;
+	}
+	
+	/**
+	 * @return the number of messages in the table
+	 */
+	int size() {
+		return messages.size();
+	}
+}
@@ -10,6 +10,7 @@
 package org.openmrs.messagesource.impl;
 
 import java.io.IOException;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -21,6 +22,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.messagesource.MutableMessageSource;
 import org.openmrs.messagesource.PresentationMessage;
@@ -32,6 +34,8 @@ import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -40,8 +44,12 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 /**
  * ResourceBundleMessageSource extends ReloadableResourceBundleMessageSource to provide the
  * additional features of a MutableMessageSource.
+ * <p>
+ * Messages are resolved from a {@link MessageTable} per locale which merges the properties files of
+ * all basenames and locale fallbacks, the tables are rebuilt when the cache is cleared and when the
+ * application context is refreshed, e.g. after a module was started or stopped.
  */
-public class MutableResourceBundleMessageSource extends ReloadableResourceBundleMessageSource implements MutableMessageSource {
+public class MutableResourceBundleMessageSource extends ReloadableResourceBundleMessageSource implements MutableMessageSource, ApplicationListener<ContextRefreshedEvent> {
 
 	private static final Logger log = LoggerFactory.getLogger(MutableResourceBundleMessageSource.class);
 	
@@ -50,31 +58,95 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 	 */
 	private String[] basenames = new String[0];
 	
-	private int cacheMilliseconds = -1;
-	
-	private long lastCached = System.currentTimeMillis();
-	
 	/** Cached list of available locales. */
-	private Collection<Locale> locales;
+	private volatile Collection<Locale> locales;
+	
+	private volatile Map<Locale, MessageTable> messageTables = new ConcurrentHashMap<>();
 	
 	/**
 	 * @see org.openmrs.messagesource.MessageSourceService#getLocales()
 	 */
 	@Override
 	public Collection<Locale> getLocales() {
-		long now = System.currentTimeMillis();
-		if (locales == null || cacheMilliseconds <= 0 || now - cacheMilliseconds > lastCached) {
-			locales = findLocales();
-			lastCached = now;
+		Collection<Locale> foundLocales = locales;
+		if (foundLocales == null) {
+			foundLocales = Collections.unmodifiableCollection(findLocales());
+			locales = foundLocales;
 		}
 		
-		return locales;
+		return foundLocales;
 	}
 	
+	/**
+	 * @see org.springframework.context.support.ReloadableResourceBundleMessageSource#resolveCodeWithoutArguments(java.lang.String,
+	 *      java.util.Locale)
+	 */
 	@Override
-	public void setCacheSeconds(int cacheSeconds) {
-		this.cacheMilliseconds = cacheSeconds * 1000;
-		super.setCacheSeconds(cacheSeconds);
+	protected String resolveCodeWithoutArguments(String code, Locale locale) {
+		return getMessageTable(locale).getMessage(code);
+	}
+	
+	/**
+	 * @see org.springframework.context.support.ReloadableResourceBundleMessageSource#resolveCode(java.lang.String,
+	 *      java.util.Locale)
+	 */
+	@Override
+	protected MessageFormat resolveCode(String code, Locale locale) {
+		return getMessageTable(locale).getMessageFormat(code);
+	}
+	
+	private MessageTable getMessageTable(Locale locale) {
+		Map<Locale, MessageTable> tables = messageTables;
+		MessageTable table = tables.get(locale);
+		if (table == null) {
+			table = tables.computeIfAbsent(locale, this::compileMessageTable);
+		}
+		return table;
+	}
+	
+	private MessageTable compileMessageTable(Locale locale) {
+		MessageTable table = new MessageTable(locale, getMergedProperties(locale).getProperties());
+		log.debug("Compiled {} messages for locale {}", table.size(), locale);
+		return table;
+	}
+	
+	/**
+	 * Reloads the properties files and rebuilds the message tables of the locales used so far, the
+	 * rebuilt tables replace the current ones at once so that messages keep being resolved from the
+	 * current tables while the new ones are built.
+	 * 
+	 * @see org.springframework.context.support.ReloadableResourceBundleMessageSource#clearCache()
+	 */
+	@Override
+	public synchronized void clearCache() {
+		super.clearCache();
+		
+		Map<Locale, MessageTable> tables = new ConcurrentHashMap<>();
+		for (Locale locale : messageTables.keySet()) {
+			tables.put(locale, compileMessageTable(locale));
+		}
+		messageTables = tables;
+		locales = null;
+	}
+	
+	/**
+	 * Picks up the messages of the modules started or stopped since the context was last refreshed
+	 * 
+	 * @see org.springframework.context.ApplicationListener#onApplicationEvent(org.springframework.context.ApplicationEvent)
+	 */
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		reloadModuleMessages();
+	}
+	
+	/**
+	 * Picks up the messages of the modules started or stopped since the last reload
+	 * 
+	 * @since 2.8.0
+	 */
+	public synchronized void reloadModuleMessages() {
+		super.setBasenames(addModuleBasenames(basenames));
+		clearCache();
 	}
 	
 	/**
@@ -179,21 +251,27 @@ public class MutableResourceBundleMessageSource extends ReloadableResourceBundle
 			this.basenames = Arrays.copyOf(basenames, basenames.length);
 		}
 		
-		//add module file urls to basenames used for locating message properties files
+		super.setBasenames(addModuleBasenames(this.basenames));
+	}
+	
+	/**
+	 * Adds the messages of the started modules to the given basenames used for locating message
+	 * properties files
+	 */
+	private String[] addModuleBasenames(String[] basenames) {
 		Collection<Module> modules = ModuleFactory.getStartedModules();
-		if (!modules.isEmpty()) {
-			String[] names =  new String[this.basenames.length + modules.size()];
-			System.arraycopy(this.basenames, 0, names, 0, this.basenames.length);
-			int index = this.basenames.length;
-			for (Module module : modules) {
-				names[index] = "jar:file:" + module.getFile().getAbsolutePath() + "!/messages";
-				index++;
-			}
-			
-			basenames = names;
+		if (modules.isEmpty()) {
+			return basenames;
 		}
 		
-		super.setBasenames(basenames);
+		String[] names = new String[basenames.length + modules.size()];
+		System.arraycopy(basenames, 0, names, 0, basenames.length);
+		int index = basenames.length;
+		for (Module module : modules) {
+			names[index] = "jar:file:" + module.getFile().getAbsolutePath() + "!/messages";
+			index++;
+		}
+		return names;
 	}
 	
 	/**
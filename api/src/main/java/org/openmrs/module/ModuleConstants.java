@@ -78,6 +78,17 @@ public class ModuleConstants {
 	 */
 	public static final String REPOSITORY_FOLDER_RUNTIME_PROPERTY = "module.repository_folder";
 	
+	/**
+	 * Name of the runtime property that sets how the application context is refreshed when a module
+	 * is started, either <tt>full</tt> (the default) or <tt>incremental</tt>. In incremental mode
+	 * modules that map no entities and have no web application context are started in a child
+	 * application context, so service lookups are not blocked while they start.
+	 * 
+	 * @see ModuleUtil#canStartInChildApplicationContext(Module)
+	 * @since 2.8.0
+	 */
+	public static final String CONTEXT_REFRESH_MODE_RUNTIME_PROPERTY = "module.context_refresh_mode";
+	
 	/**
 	 * A module message.properties file containing this key mapped to "true" will be allowed to define messages outside of the module's namespace.
 	 *
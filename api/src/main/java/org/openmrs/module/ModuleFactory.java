@@ -40,6 +40,7 @@ import org.openmrs.api.AdministrationService;
 import org.openmrs.api.OpenmrsService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Daemon;
+import org.openmrs.api.context.ServiceContext;
 import org.openmrs.module.Extension.MEDIA_TYPE;
 import org.openmrs.util.CycleException;
 import org.openmrs.util.DatabaseUpdater;
@@ -716,6 +717,7 @@ public class ModuleFactory {
 				
 				// effectively mark this module as started successfully
 				getStartedModulesMap().put(moduleId, module);
+				ServiceContext.getInstance().clearComponentIndex();
 
 				actualStartupOrder.add(moduleId);
 				
@@ -1079,6 +1081,7 @@ public class ModuleFactory {
 			}
 			
 			getStartedModulesMap().remove(moduleId);
+			ServiceContext.getInstance().clearComponentIndex();
 			if (actualStartupOrder != null) {
 				actualStartupOrder.remove(moduleId);
 				for (Module depModule : dependentModulesStopped) {
@@ -1155,6 +1158,9 @@ public class ModuleFactory {
 				log.warn("Unable to call module's Activator.shutdown() method", t);
 			}
 			
+			// a module started without refreshing the application context has its beans in a child
+			ModuleUtil.closeModuleApplicationContext(mod);
+			
 			//Since extensions are loaded by the module class loader which is about to be disposed,
 			//we need to clear them, else we shall never be able to unload the class loader until
 			//when we unload the module, hence resulting into two problems:
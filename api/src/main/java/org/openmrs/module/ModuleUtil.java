@@ -18,6 +18,7 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -31,26 +32,54 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.MappedSuperclass;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.openmrs.GlobalProperty;
+import org.openmrs.annotation.Handler;
+import org.openmrs.annotation.OpenmrsProfileExcludeFilter;
+import org.openmrs.annotation.OpenmrsProfileIncludeFilter;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.ServiceContext;
+import org.openmrs.customdatatype.CustomDatatypeUtil;
+import org.openmrs.messagesource.impl.MutableResourceBundleMessageSource;
 import org.openmrs.scheduler.SchedulerUtil;
+import org.openmrs.util.HandlerUtil;
 import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.TestTypeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.autoproxy.DefaultAdvisorAutoProxyCreator;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
 import org.springframework.context.support.AbstractRefreshableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.TypeFilter;
 
 /**
  * Utility methods for working and manipulating modules
@@ -62,6 +91,16 @@ public class ModuleUtil {
 	
 	private static final Logger log = LoggerFactory.getLogger(ModuleUtil.class);
 	
+	private static final String MODULE_APPLICATION_CONTEXT = "moduleApplicationContext.xml";
+	
+	/**
+	 * The ids of the modules started in child application contexts since the last refresh of the
+	 * application context, their beans are not part of it
+	 */
+	private static final Set<String> modulesInChildApplicationContexts = ConcurrentHashMap.newKeySet();
+	
+	private static final Map<String, ConfigurableApplicationContext> moduleApplicationContexts = new ConcurrentHashMap<>();
+	
 	/**
 	 * Start up the module system with the given properties.
 	 *
@@ -820,6 +859,8 @@ public class ModuleUtil {
 	 */
 	public static AbstractRefreshableApplicationContext refreshApplicationContext(AbstractRefreshableApplicationContext ctx,
 	        boolean isOpenmrsStartup, Module startedModule) {
+		long startedAt = System.nanoTime();
+		
 		//notify all started modules that we are about to refresh the context
 		Set<Module> startedModules = new LinkedHashSet<>(ModuleFactory.getStartedModulesInOrder());
 		for (Module module : startedModules) {
@@ -838,6 +879,9 @@ public class ModuleUtil {
 		SchedulerUtil.shutdown();
 		ServiceContext.destroyInstance();
 		
+		// the refreshed context contains the beans of all started modules
+		closeModuleApplicationContexts();
+		
 		try {
 			ctx.stop();
 			ctx.close();
@@ -913,9 +957,249 @@ public class ModuleUtil {
 			Context.closeSessionWithCurrentUser();
 		}
 		
+		log.info("Refreshed the application context in {} ms, service lookups were blocked for {} ms",
+		    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+		    ServiceContext.getInstance().getLastRefreshBlockingTime());
+		
 		return ctx;
 	}
 	
+	/**
+	 * Checks if the given module can be started in a child application context instead of
+	 * refreshing the application context. That needs the incremental
+	 * {@link ModuleConstants#CONTEXT_REFRESH_MODE_RUNTIME_PROPERTY refresh mode}, a module that maps
+	 * no entities, because a session factory cannot be given more mappings once it is built, and
+	 * none of the modules it depends on started in a child application context, because the beans
+	 * of one child application context are not visible to another. The module must be started, so
+	 * that the jars in its lib folder can be searched for entities through its class loader.
+	 *
+	 * @param module the module to start
+	 * @return true if the module can be started without refreshing the application context
+	 * @since 2.8.0
+	 * <strong>Should</strong> return false in the full refresh mode
+	 * <strong>Should</strong> return false for a module mapping entities
+	 * <strong>Should</strong> return false for a module whose config lists mapping files
+	 * <strong>Should</strong> return false for a module with entities in the jars of its lib folder
+	 * <strong>Should</strong> return true in the incremental refresh mode for a module without entities
+	 */
+	public static boolean canStartInChildApplicationContext(Module module) {
+		String mode = Context.getRuntimeProperties().getProperty(ModuleConstants.CONTEXT_REFRESH_MODE_RUNTIME_PROPERTY,
+		    "full");
+		if (!"incremental".equalsIgnoreCase(mode.trim())) {
+			return false;
+		}
+		
+		List<String> modulePackages = new ArrayList<>();
+		if (module.getRequiredModules() != null) {
+			modulePackages.addAll(module.getRequiredModules());
+		}
+		if (module.getAwareOfModules() != null) {
+			modulePackages.addAll(module.getAwareOfModules());
+		}
+		for (String modulePackage : modulePackages) {
+			Module dependency = ModuleFactory.getModuleByPackage(modulePackage);
+			if (dependency != null && modulesInChildApplicationContexts.contains(dependency.getModuleId())) {
+				return false;
+			}
+		}
+		
+		return !mapsEntities(module);
+	}
+	
+	private static boolean mapsEntities(Module module) {
+		if (!module.getMappingFiles().isEmpty() || !module.getPackagesWithMappedClasses().isEmpty()) {
+			return true;
+		}
+		ModuleClassLoader moduleClassLoader = ModuleFactory.getModuleClassLoader(module);
+		if (moduleClassLoader == null) {
+			return true;
+		}
+		
+		// the session factory also maps the annotated classes it finds in the org.openmrs packages,
+		// which are usually in the api jar in the lib folder of the module
+		MetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(OpenmrsClassLoader.getInstance());
+		List<TypeFilter> filters = new ArrayList<>();
+		filters.add(new AnnotationTypeFilter(Entity.class));
+		filters.add(new AnnotationTypeFilter(Embeddable.class));
+		filters.add(new AnnotationTypeFilter(MappedSuperclass.class));
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+		try {
+			for (URL url : moduleClassLoader.getURLs()) {
+				// class loader urls ending with a slash are directories, all others are jars
+				String root = url.toString().endsWith("/") ? url.toString() : "jar:" + url + "!/";
+				for (Resource resource : resolver.getResources(root + "org/openmrs/**/*.class")) {
+					MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
+					for (TypeFilter filter : filters) {
+						if (filter.match(metadataReader, metadataReaderFactory)) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			log.warn("Unable to look for entities in module " + module.getModuleId(), e);
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Starts the beans of the given module in a child application context of the given one. This
+	 * does for the module what
+	 * {@link #refreshApplicationContext(AbstractRefreshableApplicationContext, boolean, Module)} does
+	 * for all started modules, without blocking service lookups meanwhile.
+	 *
+	 * @param parent the application context of OpenMRS
+	 * @param module the module that was just started
+	 * @see #canStartInChildApplicationContext(Module)
+	 * @since 2.8.0
+	 */
+	public static void startInChildApplicationContext(ApplicationContext parent, Module module) {
+		long startedAt = System.nanoTime();
+		String moduleId = module.getModuleId();
+		
+		GenericApplicationContext moduleContext = new GenericApplicationContext(parent);
+		moduleContext.setDisplayName("Application context of module " + moduleId);
+		moduleContext.setClassLoader(OpenmrsClassLoader.getInstance());
+		
+		// the post processors of the parent do not apply to the beans of a child, the auto proxy
+		// creator of the child finds the transaction advisor of the parent
+		moduleContext.registerBeanDefinition(DefaultAdvisorAutoProxyCreator.class.getName(),
+		    new RootBeanDefinition(DefaultAdvisorAutoProxyCreator.class));
+		
+		// the components the component scan of the parent would have found in the module
+		ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(moduleContext, true);
+		scanner.setResourceLoader(new PathMatchingResourcePatternResolver(OpenmrsClassLoader.getInstance()));
+		scanner.addIncludeFilter(new AnnotationTypeFilter(Handler.class));
+		scanner.addIncludeFilter(new OpenmrsProfileIncludeFilter());
+		scanner.addExcludeFilter(new TestTypeFilter());
+		scanner.addExcludeFilter(new OpenmrsProfileExcludeFilter());
+		scanner.scan(module.getPackageName());
+		
+		XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(moduleContext);
+		for (Resource moduleApplicationContext : getModuleApplicationContexts(module)) {
+			beanDefinitionReader.loadBeanDefinitions(moduleApplicationContext);
+		}
+		
+		Thread.currentThread().setContextClassLoader(OpenmrsClassLoader.getInstance());
+		moduleContext.refresh();
+		
+		moduleApplicationContexts.put(moduleId, moduleContext);
+		modulesInChildApplicationContexts.add(moduleId);
+		ServiceContext.getInstance().addModuleApplicationContext(moduleContext);
+		
+		try {
+			Context.openSessionWithCurrentUser();
+			ModuleFactory.loadAdvice(module);
+			try {
+				ModuleFactory.passDaemonToken(module);
+				
+				if (module.getModuleActivator() != null) {
+					module.getModuleActivator().contextRefreshed();
+					try {
+						module.getModuleActivator().started();
+					}
+					catch (Exception e) {
+						log.warn("Unable to invoke started() method on the module's activator", e);
+						ModuleFactory.stopModule(module, true, true);
+					}
+				}
+			}
+			catch (Exception e) {
+				log.warn("Unable to invoke method on the module's activator ", e);
+			}
+		}
+		finally {
+			Context.closeSessionWithCurrentUser();
+		}
+		
+		log.info("Started module {} in a child application context in {} ms without blocking service lookups", moduleId,
+		    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+	}
+	
+	private static List<Resource> getModuleApplicationContexts(Module module) {
+		ModuleClassLoader moduleClassLoader = ModuleFactory.getModuleClassLoader(module);
+		if (moduleClassLoader == null) {
+			throw new ModuleException("Unable to read " + MODULE_APPLICATION_CONTEXT + " of a module that is not started",
+			        module.getModuleId());
+		}
+		
+		// like the classpath*: lookup of the full refresh, but limited to the jars and directories of
+		// this module rather than those of its parent class loader and required modules
+		List<Resource> result = new ArrayList<>();
+		try (URLClassLoader moduleResources = new URLClassLoader(moduleClassLoader.getURLs(), null)) {
+			Enumeration<URL> urls = moduleResources.getResources(MODULE_APPLICATION_CONTEXT);
+			while (urls.hasMoreElements()) {
+				result.add(new UrlResource(urls.nextElement()));
+			}
+		}
+		catch (IOException e) {
+			throw new ModuleException("Unable to read " + MODULE_APPLICATION_CONTEXT, module.getModuleId(), e);
+		}
+		return result;
+	}
+	
+	/**
+	 * @param module the module
+	 * @return true if the module was started in a child application context since the last refresh
+	 *         of the application context, which then does not need to be refreshed to stop it
+	 * @since 2.8.0
+	 */
+	public static boolean isStartedInChildApplicationContext(Module module) {
+		return modulesInChildApplicationContexts.contains(module.getModuleId());
+	}
+	
+	/**
+	 * Closes the child application context the given module was started in, if any, and removes the
+	 * services of the module. This must be called before the class loader of the module is disposed.
+	 *
+	 * @param module the module that is stopped
+	 * @since 2.8.0
+	 */
+	public static void closeModuleApplicationContext(Module module) {
+		if (!isStartedInChildApplicationContext(module)) {
+			return;
+		}
+		
+		ConfigurableApplicationContext moduleContext = moduleApplicationContexts.remove(module.getModuleId());
+		if (moduleContext != null) {
+			ServiceContext.getInstance().removeModuleApplicationContext(moduleContext);
+			ApplicationContext parent = moduleContext.getParent();
+			moduleContext.close();
+			
+			// closing a child publishes no refresh to the parent, so clear what a refresh would have
+			// cleared, otherwise the caches keep the beans and the class loader of the module
+			HandlerUtil.clearCachedHandlers();
+			CustomDatatypeUtil.clearCachedDatatypesAndHandlers();
+			if (parent != null) {
+				for (MutableResourceBundleMessageSource messageSource : parent.getBeansOfType(
+				    MutableResourceBundleMessageSource.class).values()) {
+					messageSource.reloadModuleMessages();
+				}
+			}
+		}
+		
+		ModuleClassLoader moduleClassLoader = ModuleFactory.getModuleClassLoaderMap().get(module);
+		if (moduleClassLoader != null) {
+			ServiceContext.getInstance().removeModuleServices(moduleClassLoader);
+		}
+	}
+	
+	private static void closeModuleApplicationContexts() {
+		for (ConfigurableApplicationContext moduleContext : moduleApplicationContexts.values()) {
+			try {
+				moduleContext.close();
+			}
+			catch (Exception e) {
+				log.warn("Exception while closing " + moduleContext.getDisplayName(), e);
+			}
+		}
+		moduleApplicationContexts.clear();
+		modulesInChildApplicationContexts.clear();
+	}
+	
 	/**
 	 * Looks at the &lt;moduleid&gt;.mandatory properties and at the currently started modules to make
 	 * sure that all mandatory modules have been started successfully.
@@ -10,6 +10,7 @@
 package org.openmrs.notification;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.openmrs.User;
 import org.openmrs.annotation.Authorized;
@@ -93,6 +94,44 @@ public interface AlertService extends OpenmrsService {
 	@Authorized
 	public List<Alert> getAlertsByUser(User user) throws APIException;
 	
+	/**
+	 * Gets the number of unread alerts of a user that have not expired together with a version that
+	 * changes whenever they might have changed. The unread alerts are kept in memory per user, so this
+	 * is cheap enough to be polled. If null is passed in for <code>user</code>, the summary of the
+	 * currently authenticated user is returned.
+	 * 
+	 * @param user the user that is assigned to the alerts
+	 * @return the summary of the unread alerts that have not expired
+	 * @throws APIException
+	 * @since 2.8.0
+	 * <strong>Should</strong> count the unread alerts that have not expired
+	 * <strong>Should</strong> change the version when an alert of the user is saved
+	 * <strong>Should</strong> not count alerts marked as read
+	 */
+	@Authorized
+	public AlertSummary getActiveAlertSummary(User user) throws APIException;
+	
+	/**
+	 * Waits until the summary of the unread alerts of a user differs from the given version, and
+	 * returns it. Returns the current summary once the timeout elapses, so that callers like long
+	 * polling requests can pass the version they know and get an answer as soon as something changed.
+	 * No transaction is held while waiting.
+	 * 
+	 * @param user the user that is assigned to the alerts, null for the authenticated user
+	 * @param version the version of the summary the caller knows
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return the summary of the unread alerts that have not expired
+	 * @throws APIException if the thread is interrupted while waiting
+	 * @see #getActiveAlertSummary(User)
+	 * @since 2.8.0
+	 * <strong>Should</strong> return right away if the version differs
+	 * <strong>Should</strong> return the current summary once the timeout elapsed
+	 */
+	@Authorized
+	public AlertSummary awaitActiveAlertSummary(User user, long version, long timeout, TimeUnit unit)
+	        throws APIException;
+	
 	/**
 	 * Finds alerts for the given user with the given status
 	 * 
@@ -0,0 +1,53 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.notification;
+
+import java.io.Serializable;
+
+/**
+ * The number of unread alerts of a user that have not expired, together with a version that
+ * changes whenever the alerts of the user might have changed. Clients can keep the version and only
+ * fetch the alerts again once it changed.
+ * 
+ * @see AlertService#getActiveAlertSummary(org.openmrs.User)
+ * @since 2.8.0
+ */
+public class AlertSummary implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final int unreadCount;
+	
+	private final long version;
+	
+	public AlertSummary(int unreadCount, long version) {
+		this.unreadCount = unreadCount;
+		this.version = version;
+	}
+	
+	/**
+	 * @return the number of unread alerts that have not expired
+	 */
+	public int getUnreadCount() {
+		return unreadCount;
+	}
+	
+	/**
+	 * @return the version of the alerts of the user
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	@Override
+	public String toString() {
+		return "AlertSummary[unreadCount=" + unreadCount + ", version=" + version + "]";
+	}
+}
@@ -0,0 +1,219 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.notification.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.openmrs.notification.Alert;
+import org.openmrs.notification.AlertRecipient;
+import org.openmrs.notification.AlertSummary;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the ids of the unread alerts that have not expired per user, so that the number of unread
+ * alerts of a user can be looked up without querying the database each time.
+ * <p>
+ * Every entry carries a version which changes whenever the alerts of the user might have changed,
+ * i.e. when an alert of the user is saved or purged or one of the alerts expires. The users of a
+ * saved or purged alert are invalidated right away and again once the transaction completes, a
+ * transaction that changed alerts of a user loads the unread alerts of that user without caching
+ * them until it completes.
+ */
+class ActiveAlertIndex {
+	
+	private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+	
+	private final AtomicLong versions = new AtomicLong();
+	
+	private final Object monitor = new Object();
+	
+	/**
+	 * Gets the summary of the unread alerts of the given user, loading them with the given loader if
+	 * they are not known or one of them expired since they were loaded
+	 * 
+	 * @param userId the user id
+	 * @param loader loads the unread alerts of the user that have not expired
+	 * @return the summary
+	 */
+	AlertSummary getSummary(Integer userId, Supplier<List<Alert>> loader) {
+		Entry entry = entries.get(userId);
+		if (entry != null && entry.isValid(System.currentTimeMillis())) {
+			return entry.toSummary();
+		}
+		
+		// a stale entry already got a new version when it was invalidated
+		long version = entry != null && entry.stale ? entry.version : versions.incrementAndGet();
+		Entry loaded = Entry.of(loader.get(), version);
+		if (!hasPendingChanges(userId)) {
+			boolean cached = entry == null ? entries.putIfAbsent(userId, loaded) == null : entries.replace(userId, entry,
+			    loaded);
+			if (cached && entry != null && !entry.stale) {
+				// one of the alerts expired
+				notifyWaiters();
+			}
+		}
+		return loaded.toSummary();
+	}
+	
+	/**
+	 * Waits until the alerts of the given user might have changed since the given version, one of
+	 * them expires or the timeout elapses
+	 * 
+	 * @param userId the user id
+	 * @param version the version the caller knows
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	void awaitChange(Integer userId, long version, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+		synchronized (monitor) {
+			while (true) {
+				Entry entry = entries.get(userId);
+				long now = System.currentTimeMillis();
+				if (entry == null || entry.version != version || !entry.isValid(now) || now >= deadline) {
+					return;
+				}
+				monitor.wait(Math.min(deadline, entry.expiresAt) - now);
+			}
+		}
+	}
+	
+	/**
+	 * Invalidates the users the given alert is or was counted for
+	 * 
+	 * @param alert the saved or purged alert
+	 */
+	void alertChanged(Alert alert) {
+		Set<Integer> userIds = new LinkedHashSet<>();
+		if (alert.getRecipients() != null) {
+			for (AlertRecipient recipient : alert.getRecipients()) {
+				if (recipient.getRecipient() != null && recipient.getRecipient().getUserId() != null) {
+					userIds.add(recipient.getRecipient().getUserId());
+				}
+			}
+		}
+		if (alert.getAlertId() != null) {
+			// recipients that were removed from the alert
+			entries.forEach((userId, entry) -> {
+				if (entry.contains(alert.getAlertId())) {
+					userIds.add(userId);
+				}
+			});
+		}
+		if (userIds.isEmpty()) {
+			return;
+		}
+		
+		invalidate(userIds);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+			if (pending == null) {
+				pending = new PendingChanges();
+				TransactionSynchronizationManager.bindResource(this, pending);
+				TransactionSynchronizationManager.registerSynchronization(pending);
+			}
+			pending.userIds.addAll(userIds);
+		}
+	}
+	
+	private void invalidate(Collection<Integer> userIds) {
+		for (Integer userId : userIds) {
+			entries.put(userId, Entry.stale(versions.incrementAndGet()));
+		}
+		notifyWaiters();
+	}
+	
+	private void notifyWaiters() {
+		synchronized (monitor) {
+			monitor.notifyAll();
+		}
+	}
+	
+	private boolean hasPendingChanges(Integer userId) {
+		PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+		return pending != null && pending.userIds.contains(userId);
+	}
+	
+	/**
+	 * The sorted ids of the unread alerts of a user, the time the first of them expires and the
+	 * version
+	 */
+	private static final class Entry {
+		
+		private static final int[] NO_ALERTS = new int[0];
+		
+		private final int[] alertIds;
+		
+		private final long expiresAt;
+		
+		private final long version;
+		
+		private final boolean stale;
+		
+		private Entry(int[] alertIds, long expiresAt, long version, boolean stale) {
+			this.alertIds = alertIds;
+			this.expiresAt = expiresAt;
+			this.version = version;
+			this.stale = stale;
+		}
+		
+		static Entry of(List<Alert> alerts, long version) {
+			int[] alertIds = new int[alerts.size()];
+			long expiresAt = Long.MAX_VALUE;
+			int i = 0;
+			for (Alert alert : alerts) {
+				alertIds[i++] = alert.getAlertId();
+				if (alert.getDateToExpire() != null) {
+					expiresAt = Math.min(expiresAt, alert.getDateToExpire().getTime());
+				}
+			}
+			Arrays.sort(alertIds);
+			return new Entry(alertIds, expiresAt, version, false);
+		}
+		
+		static Entry stale(long version) {
+			return new Entry(NO_ALERTS, 0, version, true);
+		}
+		
+		boolean isValid(long now) {
+			return !stale && now < expiresAt;
+		}
+		
+		boolean contains(int alertId) {
+			return Arrays.binarySearch(alertIds, alertId) >= 0;
+		}
+		
+		AlertSummary toSummary() {
+			return new AlertSummary(alertIds.length, version);
+		}
+	}
+	
+	private class PendingChanges implements TransactionSynchronization {
+		
+		private final Set<Integer> userIds = new LinkedHashSet<>();
+		
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(ActiveAlertIndex.this);
+			invalidate(userIds);
+		}
+	}
+}
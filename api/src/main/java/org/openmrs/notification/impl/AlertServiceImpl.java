@@ -12,6 +12,7 @@ package org.openmrs.notification.impl;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.openmrs.Role;
 import org.openmrs.User;
@@ -22,10 +23,12 @@ import org.openmrs.api.impl.BaseOpenmrsService;
 import org.openmrs.notification.Alert;
 import org.openmrs.notification.AlertRecipient;
 import org.openmrs.notification.AlertService;
+import org.openmrs.notification.AlertSummary;
 import org.openmrs.notification.db.AlertDAO;
 import org.openmrs.util.RoleConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -42,6 +45,8 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 	
 	private AlertDAO dao;
 	
+	private final transient ActiveAlertIndex activeAlerts = new ActiveAlertIndex();
+	
 	/**
 	 * Default constructor
 	 */
@@ -84,7 +89,9 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 			}
 		}
 		
-		return dao.saveAlert(alert);
+		Alert savedAlert = dao.saveAlert(alert);
+		activeAlerts.alertChanged(savedAlert);
+		return savedAlert;
 	}
 
 	/**
@@ -101,6 +108,7 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 	 */
 	@Override
 	public void purgeAlert(Alert alert) throws APIException {
+		activeAlerts.alertChanged(alert);
 		dao.deleteAlert(alert);
 	}
 	
@@ -133,6 +141,46 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 		return Context.getAlertService().getAlerts(user, false, false);
 	}
 
+	/**
+	 * @see org.openmrs.notification.AlertService#getActiveAlertSummary(org.openmrs.User)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public AlertSummary getActiveAlertSummary(User user) throws APIException {
+		User recipient = user != null ? user : Context.getAuthenticatedUser();
+		if (recipient == null || recipient.getUserId() == null) {
+			return new AlertSummary(0, 0);
+		}
+		return activeAlerts.getSummary(recipient.getUserId(), () -> dao.getAlerts(recipient, false, false));
+	}
+	
+	/**
+	 * @see org.openmrs.notification.AlertService#awaitActiveAlertSummary(org.openmrs.User, long, long,
+	 *      java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public AlertSummary awaitActiveAlertSummary(User user, long version, long timeout, TimeUnit unit)
+	        throws APIException {
+		User recipient = user != null ? user : Context.getAuthenticatedUser();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (true) {
+			AlertSummary summary = Context.getAlertService().getActiveAlertSummary(recipient);
+			long remaining = deadline - System.nanoTime();
+			if (summary.getVersion() != version || remaining <= 0 || recipient == null
+			        || recipient.getUserId() == null) {
+				return summary;
+			}
+			try {
+				activeAlerts.awaitChange(recipient.getUserId(), version, remaining, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new APIException("Interrupted while waiting for alerts of " + recipient, e);
+			}
+		}
+	}
+	
 	/**
 	 * @see org.openmrs.notification.AlertService#getAlerts(org.openmrs.User, boolean, boolean)
 	 */
@@ -0,0 +1,123 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Groups patients into blocks of potential duplicates, only patients with the same key are
+ * compared with each other. A patient without a key is not compared in the block of that key.
+ * 
+ * @since 2.8.0
+ */
+public interface BlockingKey {
+	
+	/**
+	 * Soundex of the family name, year of birth and gender, e.g. "S530|1975|M"
+	 */
+	BlockingKey FAMILY_NAME_BIRTH_YEAR_GENDER = new BlockingKey() {
+		
+		@Override
+		public String getName() {
+			return "familyNameBirthYearGender";
+		}
+		
+		@Override
+		public String getKey(PatientRecord record) {
+			String soundex = soundex(record.getFamilyName());
+			if (soundex == null || record.getBirthdate() == null) {
+				return null;
+			}
+			return soundex + "|" + birthYear(record.getBirthdate()) + "|" + StringUtils.defaultString(record.getGender());
+		}
+	};
+	
+	/**
+	 * Soundex of the given name and the birthdate, finds duplicates with a misspelled family name
+	 */
+	BlockingKey GIVEN_NAME_BIRTHDATE = new BlockingKey() {
+		
+		@Override
+		public String getName() {
+			return "givenNameBirthdate";
+		}
+		
+		@Override
+		public String getKey(PatientRecord record) {
+			String soundex = soundex(record.getGivenName());
+			if (soundex == null || record.getBirthdate() == null) {
+				return null;
+			}
+			return soundex + "|" + record.getBirthdate().getTime();
+		}
+	};
+	
+	/**
+	 * @return the name of this key, used in logs and as the blocking key of the candidates
+	 */
+	String getName();
+	
+	/**
+	 * @param record the patient
+	 * @return the key of the block the patient belongs to or null
+	 */
+	String getKey(PatientRecord record);
+	
+	/**
+	 * Encodes a name with the American Soundex algorithm, e.g. "Robert" and "Rupert" are both encoded
+	 * as "R163"
+	 * 
+	 * @param name the name to encode
+	 * @return the soundex code or null if the name contains no letters
+	 */
+	static String soundex(String name) {
+		if (name == null) {
+			return null;
+		}
+		String codes = "01230120022455012623010202";
+		StringBuilder soundex = new StringBuilder(4);
+		char previous = 0;
+		for (char c : name.toUpperCase(Locale.ENGLISH).toCharArray()) {
+			if (c < 'A' || c > 'Z') {
+				continue;
+			}
+			char code = codes.charAt(c - 'A');
+			if (soundex.length() == 0) {
+				soundex.append(c);
+			} else if (code != '0' && code != previous) {
+				soundex.append(code);
+				if (soundex.length() == 4) {
+					break;
+				}
+			}
+			// H and W do not separate letters with the same code, vowels do
+			if (c != 'H' && c != 'W') {
+				previous = code;
+			}
+		}
+		if (soundex.length() == 0) {
+			return null;
+		}
+		while (soundex.length() < 4) {
+			soundex.append('0');
+		}
+		return soundex.toString();
+	}
+	
+	static int birthYear(Date birthdate) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(birthdate);
+		return calendar.get(Calendar.YEAR);
+	}
+}
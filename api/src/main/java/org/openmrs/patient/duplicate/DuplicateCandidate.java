@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+/**
+ * A pair of patients that are likely duplicates of each other, ordered by descending score
+ * 
+ * @since 2.8.0
+ */
+public class DuplicateCandidate implements Comparable<DuplicateCandidate> {
+	
+	private final int patientId;
+	
+	private final int otherPatientId;
+	
+	private final double score;
+	
+	private final String blockingKey;
+	
+	/**
+	 * @param patientId the lower patient id of the pair
+	 * @param otherPatientId the higher patient id of the pair
+	 * @param score the weighted score between 0 and 1
+	 * @param blockingKey the name of the blocking key the pair was found with
+	 */
+	public DuplicateCandidate(int patientId, int otherPatientId, double score, String blockingKey) {
+		this.patientId = Math.min(patientId, otherPatientId);
+		this.otherPatientId = Math.max(patientId, otherPatientId);
+		this.score = score;
+		this.blockingKey = blockingKey;
+	}
+	
+	public int getPatientId() {
+		return patientId;
+	}
+	
+	public int getOtherPatientId() {
+		return otherPatientId;
+	}
+	
+	public double getScore() {
+		return score;
+	}
+	
+	public String getBlockingKey() {
+		return blockingKey;
+	}
+	
+	@Override
+	public int compareTo(DuplicateCandidate other) {
+		int ret = Double.compare(other.score, score);
+		if (ret == 0) {
+			ret = Integer.compare(patientId, other.patientId);
+		}
+		if (ret == 0) {
+			ret = Integer.compare(otherPatientId, other.otherPatientId);
+		}
+		return ret;
+	}
+	
+	@Override
+	public String toString() {
+		return "DuplicateCandidate[" + patientId + ", " + otherPatientId + ", " + score + "]";
+	}
+}
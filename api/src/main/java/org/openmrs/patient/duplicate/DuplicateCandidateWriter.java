@@ -0,0 +1,32 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the candidates of a duplicate detection run as soon as each block has been scored, so
+ * that results are written while the run is still going and never have to be held in memory at
+ * once.
+ * 
+ * @since 2.8.0
+ */
+@FunctionalInterface
+public interface DuplicateCandidateWriter {
+	
+	/**
+	 * Called from the thread that started the run, one call per block with candidates
+	 * 
+	 * @param candidates the candidates of one block, ranked by descending score
+	 * @throws IOException if the candidates cannot be written, which ends the run
+	 */
+	void write(List<DuplicateCandidate> candidates) throws IOException;
+}
@@ -0,0 +1,306 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openmrs.api.APIException;
+import org.openmrs.api.db.PatientDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds likely duplicate patients without comparing every patient with every other patient.
+ * <p>
+ * All patients are read in a single streaming pass and grouped into blocks by each
+ * {@link BlockingKey}, then the patients within each block are compared pairwise in parallel by
+ * the weighted {@link DuplicateScorer}s. Pairs scoring at least the threshold are handed to a
+ * {@link DuplicateCandidateWriter} block by block. When a date is passed only blocks that contain
+ * a patient changed since that date are built and only pairs involving such a patient are scored,
+ * so repeated runs cost little more than the streaming pass.
+ * 
+ * @since 2.8.0
+ */
+public class DuplicatePatientDetector {
+	
+	private static final Logger log = LoggerFactory.getLogger(DuplicatePatientDetector.class);
+	
+	private static final int IDENTIFIER_BATCH_SIZE = 1000;
+	
+	private final PatientDAO dao;
+	
+	private List<BlockingKey> blockingKeys = Arrays.asList(BlockingKey.FAMILY_NAME_BIRTH_YEAR_GENDER,
+	    BlockingKey.GIVEN_NAME_BIRTHDATE);
+	
+	private final Map<DuplicateScorer, Double> scorers = new LinkedHashMap<>();
+	
+	private double threshold = 0.85;
+	
+	private int maxBlockSize = 1000;
+	
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Creates a detector with the default blocking keys and scorers
+	 * 
+	 * @param dao the dao the patients are read from
+	 */
+	public DuplicatePatientDetector(PatientDAO dao) {
+		this.dao = dao;
+		scorers.put(DuplicateScorer.GIVEN_NAME, 0.3);
+		scorers.put(DuplicateScorer.FAMILY_NAME, 0.3);
+		scorers.put(DuplicateScorer.BIRTHDATE, 0.2);
+		scorers.put(DuplicateScorer.GENDER, 0.1);
+		scorers.put(DuplicateScorer.IDENTIFIER, 0.1);
+	}
+	
+	/**
+	 * @param blockingKeys the keys used to build blocks, a pair of patients sharing several keys is
+	 *            only scored in the block of the first of them
+	 */
+	public void setBlockingKeys(List<BlockingKey> blockingKeys) {
+		if (blockingKeys == null || blockingKeys.isEmpty()) {
+			throw new IllegalArgumentException("At least one blocking key is required");
+		}
+		this.blockingKeys = new ArrayList<>(blockingKeys);
+	}
+	
+	/**
+	 * Replaces the scorers, the score of a pair is the weighted average of their scores
+	 * 
+	 * @param scorers the scorers and their weights
+	 */
+	public void setScorers(Map<DuplicateScorer, Double> scorers) {
+		if (scorers == null || scorers.values().stream().mapToDouble(Double::doubleValue).sum() <= 0) {
+			throw new IllegalArgumentException("At least one scorer with a positive weight is required");
+		}
+		this.scorers.clear();
+		this.scorers.putAll(scorers);
+	}
+	
+	/**
+	 * @param threshold the minimum score of a candidate between 0 and 1, defaults to 0.85
+	 */
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+	
+	/**
+	 * @param maxBlockSize blocks with more patients are skipped and logged since they would need
+	 *            too many comparisons, usually a sign of placeholder names or birthdates
+	 */
+	public void setMaxBlockSize(int maxBlockSize) {
+		this.maxBlockSize = maxBlockSize;
+	}
+	
+	/**
+	 * @param parallelism the number of threads scoring blocks, defaults to the number of processors
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+	
+	/**
+	 * Runs the detection, must be called within a transaction since the patients are read with the
+	 * current session
+	 * 
+	 * @param changedSince only patients created or changed after this date are compared with the
+	 *            others, null to compare all patients
+	 * @param writer receives the candidates
+	 * @return the number of candidates written
+	 * @throws APIException if the candidates cannot be written
+	 */
+	public int detect(Date changedSince, DuplicateCandidateWriter writer) {
+		long start = System.currentTimeMillis();
+		
+		List<Set<String>> changedKeys = null;
+		if (changedSince != null) {
+			changedKeys = new ArrayList<>(blockingKeys.size());
+			for (int i = 0; i < blockingKeys.size(); i++) {
+				changedKeys.add(new HashSet<>());
+			}
+			final List<Set<String>> keys = changedKeys;
+			dao.forEachDuplicateDetectionRecord(changedSince, record -> {
+				for (int i = 0; i < blockingKeys.size(); i++) {
+					String key = blockingKeys.get(i).getKey(record);
+					if (key != null) {
+						keys.get(i).add(key);
+					}
+				}
+			});
+			if (changedKeys.stream().allMatch(Set::isEmpty)) {
+				log.info("No patients changed since {}, skipping duplicate detection", changedSince);
+				return 0;
+			}
+		}
+		
+		List<Map<String, List<PatientRecord>>> blocksByKey = readBlocks(changedKeys);
+		
+		List<List<PatientRecord>> blocks = new ArrayList<>();
+		List<Integer> blockKeyIndexes = new ArrayList<>();
+		List<Set<String>> skippedKeys = new ArrayList<>(blockingKeys.size());
+		Set<PatientRecord> blocked = new HashSet<>();
+		for (int i = 0; i < blocksByKey.size(); i++) {
+			skippedKeys.add(new HashSet<>());
+			for (Map.Entry<String, List<PatientRecord>> block : blocksByKey.get(i).entrySet()) {
+				List<PatientRecord> records = block.getValue();
+				if (records.size() < 2) {
+					continue;
+				}
+				if (records.size() > maxBlockSize) {
+					log.warn("Skipping block {} of {} with {} patients, the maximum block size is {}", block.getKey(),
+					    blockingKeys.get(i).getName(), records.size(), maxBlockSize);
+					skippedKeys.get(i).add(block.getKey());
+					continue;
+				}
+				blocks.add(records);
+				blockKeyIndexes.add(i);
+				blocked.addAll(records);
+			}
+		}
+		loadIdentifiers(blocked);
+		
+		int candidates = score(blocks, blockKeyIndexes, skippedKeys, changedSince, writer);
+		log.info("Found {} duplicate candidates among {} patients in {} blocks in {} ms", candidates, blocked.size(),
+		    blocks.size(), System.currentTimeMillis() - start);
+		return candidates;
+	}
+	
+	private List<Map<String, List<PatientRecord>>> readBlocks(List<Set<String>> changedKeys) {
+		List<Map<String, List<PatientRecord>>> blocksByKey = new ArrayList<>(blockingKeys.size());
+		for (int i = 0; i < blockingKeys.size(); i++) {
+			blocksByKey.add(new HashMap<>());
+		}
+		dao.forEachDuplicateDetectionRecord(null, record -> {
+			for (int i = 0; i < blockingKeys.size(); i++) {
+				String key = blockingKeys.get(i).getKey(record);
+				if (key != null && (changedKeys == null || changedKeys.get(i).contains(key))) {
+					blocksByKey.get(i).computeIfAbsent(key, k -> new ArrayList<>(2)).add(record);
+				}
+			}
+		});
+		return blocksByKey;
+	}
+	
+	private void loadIdentifiers(Set<PatientRecord> records) {
+		Map<Integer, PatientRecord> batch = new HashMap<>();
+		for (PatientRecord record : records) {
+			batch.put(record.getPatientId(), record);
+			if (batch.size() == IDENTIFIER_BATCH_SIZE) {
+				loadIdentifierBatch(batch);
+			}
+		}
+		if (!batch.isEmpty()) {
+			loadIdentifierBatch(batch);
+		}
+	}
+	
+	private void loadIdentifierBatch(Map<Integer, PatientRecord> batch) {
+		Map<Integer, Set<String>> identifiers = dao.getPatientIdentifierValues(batch.keySet());
+		for (PatientRecord record : batch.values()) {
+			record.setIdentifiers(identifiers.get(record.getPatientId()));
+		}
+		batch.clear();
+	}
+	
+	private int score(List<List<PatientRecord>> blocks, List<Integer> blockKeyIndexes, List<Set<String>> skippedKeys,
+	        Date changedSince, DuplicateCandidateWriter writer) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r, "OpenMRS duplicate patient detector " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			CompletionService<List<DuplicateCandidate>> completionService = new ExecutorCompletionService<>(executor);
+			for (int i = 0; i < blocks.size(); i++) {
+				List<PatientRecord> block = blocks.get(i);
+				int keyIndex = blockKeyIndexes.get(i);
+				completionService.submit(() -> scoreBlock(block, keyIndex, skippedKeys, changedSince));
+			}
+			
+			int candidates = 0;
+			for (int i = 0; i < blocks.size(); i++) {
+				List<DuplicateCandidate> scored = completionService.take().get();
+				if (!scored.isEmpty()) {
+					writer.write(scored);
+					candidates += scored.size();
+				}
+			}
+			return candidates;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Interrupted while detecting duplicate patients", e);
+		}
+		catch (ExecutionException e) {
+			throw new APIException("Failed to score duplicate patients", e.getCause());
+		}
+		catch (IOException e) {
+			throw new APIException("Failed to write duplicate patient candidates", e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private List<DuplicateCandidate> scoreBlock(List<PatientRecord> block, int keyIndex, List<Set<String>> skippedKeys,
+	        Date changedSince) {
+		String keyName = blockingKeys.get(keyIndex).getName();
+		double totalWeight = scorers.values().stream().mapToDouble(Double::doubleValue).sum();
+		List<DuplicateCandidate> candidates = new ArrayList<>();
+		for (int i = 0; i < block.size(); i++) {
+			PatientRecord a = block.get(i);
+			for (int j = i + 1; j < block.size(); j++) {
+				PatientRecord b = block.get(j);
+				if ((!a.isChangedSince(changedSince) && !b.isChangedSince(changedSince))
+				        || isScoredInEarlierBlock(a, b, keyIndex, skippedKeys)) {
+					continue;
+				}
+				double score = 0;
+				for (Map.Entry<DuplicateScorer, Double> scorer : scorers.entrySet()) {
+					score += scorer.getKey().score(a, b) * scorer.getValue();
+				}
+				score /= totalWeight;
+				if (score >= threshold) {
+					candidates.add(new DuplicateCandidate(a.getPatientId(), b.getPatientId(), score, keyName));
+				}
+			}
+		}
+		Collections.sort(candidates);
+		return candidates;
+	}
+	
+	private boolean isScoredInEarlierBlock(PatientRecord a, PatientRecord b, int keyIndex, List<Set<String>> skippedKeys) {
+		for (int i = 0; i < keyIndex; i++) {
+			String key = blockingKeys.get(i).getKey(a);
+			if (key != null && key.equals(blockingKeys.get(i).getKey(b)) && !skippedKeys.get(i).contains(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
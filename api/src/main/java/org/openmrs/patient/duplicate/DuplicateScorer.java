@@ -0,0 +1,123 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Scores how similar two patients are. Scorers are combined by weight into the score of a
+ * {@link DuplicateCandidate}.
+ * 
+ * @since 2.8.0
+ */
+@FunctionalInterface
+public interface DuplicateScorer {
+	
+	/**
+	 * Jaro-Winkler similarity of the given names
+	 */
+	DuplicateScorer GIVEN_NAME = (a, b) -> similarity(a.getGivenName(), b.getGivenName());
+	
+	/**
+	 * Jaro-Winkler similarity of the family names
+	 */
+	DuplicateScorer FAMILY_NAME = (a, b) -> similarity(a.getFamilyName(), b.getFamilyName());
+	
+	/**
+	 * 1 for the same birthdate, 0.5 for the same year of birth and 0 otherwise
+	 */
+	DuplicateScorer BIRTHDATE = (a, b) -> {
+		if (a.getBirthdate() == null || b.getBirthdate() == null) {
+			return 0;
+		}
+		if (a.getBirthdate().getTime() == b.getBirthdate().getTime()) {
+			return 1;
+		}
+		return BlockingKey.birthYear(a.getBirthdate()) == BlockingKey.birthYear(b.getBirthdate()) ? 0.5 : 0;
+	};
+	
+	/**
+	 * 1 for the same gender and 0 otherwise
+	 */
+	DuplicateScorer GENDER = (a, b) -> a.getGender() != null && a.getGender().equalsIgnoreCase(b.getGender()) ? 1 : 0;
+	
+	/**
+	 * 1 if the patients share an identifier and 0 otherwise
+	 */
+	DuplicateScorer IDENTIFIER = (a, b) -> Collections.disjoint(a.getIdentifiers(), b.getIdentifiers()) ? 0 : 1;
+	
+	/**
+	 * @param a a patient
+	 * @param b another patient
+	 * @return the similarity of the patients between 0 (nothing in common) and 1 (identical)
+	 */
+	double score(PatientRecord a, PatientRecord b);
+	
+	/**
+	 * Compares two names ignoring case and surrounding whitespace with the Jaro-Winkler similarity
+	 * 
+	 * @param a a name
+	 * @param b another name
+	 * @return the similarity between 0 and 1, 0 if one of the names is blank
+	 */
+	static double similarity(String a, String b) {
+		if (StringUtils.isBlank(a) || StringUtils.isBlank(b)) {
+			return 0;
+		}
+		String s1 = a.trim().toLowerCase(Locale.ENGLISH);
+		String s2 = b.trim().toLowerCase(Locale.ENGLISH);
+		if (s1.equals(s2)) {
+			return 1;
+		}
+		
+		int window = Math.max(0, Math.max(s1.length(), s2.length()) / 2 - 1);
+		boolean[] matched1 = new boolean[s1.length()];
+		boolean[] matched2 = new boolean[s2.length()];
+		int matches = 0;
+		for (int i = 0; i < s1.length(); i++) {
+			int end = Math.min(i + window + 1, s2.length());
+			for (int j = Math.max(0, i - window); j < end; j++) {
+				if (!matched2[j] && s1.charAt(i) == s2.charAt(j)) {
+					matched1[i] = true;
+					matched2[j] = true;
+					matches++;
+					break;
+				}
+			}
+		}
+		if (matches == 0) {
+			return 0;
+		}
+		
+		int transpositions = 0;
+		for (int i = 0, j = 0; i < s1.length(); i++) {
+			if (matched1[i]) {
+				while (!matched2[j]) {
+					j++;
+				}
+				if (s1.charAt(i) != s2.charAt(j)) {
+					transpositions++;
+				}
+				j++;
+			}
+		}
+		double m = matches;
+		double jaro = (m / s1.length() + m / s2.length() + (m - transpositions / 2.0) / m) / 3;
+		
+		int prefix = 0;
+		while (prefix < Math.min(4, Math.min(s1.length(), s2.length())) && s1.charAt(prefix) == s2.charAt(prefix)) {
+			prefix++;
+		}
+		return jaro + prefix * 0.1 * (1 - jaro);
+	}
+}
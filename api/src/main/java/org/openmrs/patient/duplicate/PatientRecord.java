@@ -0,0 +1,104 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * The data of one patient that is compared during duplicate detection, loaded with scalar queries
+ * so that millions of patients can be held without their Hibernate entities.
+ * 
+ * @since 2.8.0
+ */
+public class PatientRecord {
+	
+	private final int patientId;
+	
+	private final String givenName;
+	
+	private final String familyName;
+	
+	private final String gender;
+	
+	private final Date birthdate;
+	
+	private final Date lastChanged;
+	
+	private Set<String> identifiers = Collections.emptySet();
+	
+	/**
+	 * @param patientId the patient id
+	 * @param givenName the given name of the preferred name
+	 * @param familyName the family name of the preferred name
+	 * @param gender the gender
+	 * @param birthdate the birthdate
+	 * @param lastChanged the latest date the patient or its preferred name was created or changed
+	 */
+	public PatientRecord(int patientId, String givenName, String familyName, String gender, Date birthdate,
+	    Date lastChanged) {
+		this.patientId = patientId;
+		this.givenName = givenName;
+		this.familyName = familyName;
+		this.gender = gender;
+		this.birthdate = birthdate;
+		this.lastChanged = lastChanged;
+	}
+	
+	public int getPatientId() {
+		return patientId;
+	}
+	
+	public String getGivenName() {
+		return givenName;
+	}
+	
+	public String getFamilyName() {
+		return familyName;
+	}
+	
+	public String getGender() {
+		return gender;
+	}
+	
+	public Date getBirthdate() {
+		return birthdate;
+	}
+	
+	public Date getLastChanged() {
+		return lastChanged;
+	}
+	
+	/**
+	 * @return the values of the non voided identifiers, only loaded for patients that share a
+	 *         blocking key with another patient
+	 */
+	public Set<String> getIdentifiers() {
+		return identifiers;
+	}
+	
+	void setIdentifiers(Set<String> identifiers) {
+		this.identifiers = identifiers == null ? Collections.emptySet() : identifiers;
+	}
+	
+	/**
+	 * @param date the date to compare with, null matches all patients
+	 * @return true if the patient was created or changed after the given date
+	 */
+	public boolean isChangedSince(Date date) {
+		return date == null || (lastChanged != null && lastChanged.after(date));
+	}
+	
+	@Override
+	public String toString() {
+		return "PatientRecord[" + patientId + "]";
+	}
+}
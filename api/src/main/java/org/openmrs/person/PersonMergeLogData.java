@@ -10,6 +10,7 @@
 package org.openmrs.person;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -150,6 +151,28 @@ public class PersonMergeLogData {
 		movedEncounters.add(uuid);
 	}
 	
+	/**
+	 * @param uuids the uuids of the visits moved in bulk
+	 * @since 2.8.0
+	 */
+	public void addMovedVisits(Collection<String> uuids) {
+		if (movedVisits == null) {
+			movedVisits = new ArrayList<>(uuids.size());
+		}
+		movedVisits.addAll(uuids);
+	}
+	
+	/**
+	 * @param uuids the uuids of the encounters moved in bulk
+	 * @since 2.8.0
+	 */
+	public void addMovedEncounters(Collection<String> uuids) {
+		if (movedEncounters == null) {
+			movedEncounters = new ArrayList<>(uuids.size());
+		}
+		movedEncounters.addAll(uuids);
+	}
+	
 	@Deprecated
 	public List<String> getCreatedPrograms() {
 		return createdPrograms;
@@ -174,6 +197,17 @@ public class PersonMergeLogData {
 		movedPrograms.add(uuid);
 	}
 	
+	/**
+	 * @param uuids the uuids of the program enrollments moved in bulk
+	 * @since 2.8.0
+	 */
+	public void addMovedPrograms(Collection<String> uuids) {
+		if (movedPrograms == null) {
+			movedPrograms = new ArrayList<>(uuids.size());
+		}
+		movedPrograms.addAll(uuids);
+	}
+	
 	public List<String> getVoidedRelationships() {
 		return voidedRelationships;
 	}
@@ -200,6 +234,17 @@ public class PersonMergeLogData {
 		return movedIndependentObservations;
 	}
 	
+	/**
+	 * @param uuids the uuids of the observations moved in bulk
+	 * @since 2.8.0
+	 */
+	public void addMovedIndependentObservations(Collection<String> uuids) {
+		if (movedIndependentObservations == null) {
+			movedIndependentObservations = new ArrayList<>(uuids.size());
+		}
+		movedIndependentObservations.addAll(uuids);
+	}
+	
 	public void addMovedIndependentObservation(String uuid) {
 		if (movedIndependentObservations == null) {
 			movedIndependentObservations = new ArrayList<>();
@@ -10,7 +10,9 @@
 package org.openmrs.scheduler.tasks;
 
 import java.util.Date;
+import java.util.List;
 
+import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
@@ -20,6 +22,10 @@ import org.slf4j.LoggerFactory;
  * A scheduled task that automatically closes all unvoided active visits that match the visit
  * type(s) set as the value of the global property
  * {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE}
+ * <p>
+ * The visits are closed in batches of {@value #DEFAULT_BATCH_SIZE} by default, each in its own
+ * transaction. The batch size and the maximum time of a run can be set with the <tt>batchSize</tt>
+ * and <tt>maxRunTimeInSeconds</tt> properties of the task.
  *
  * @since 1.9
  */
@@ -27,6 +33,8 @@ public class AutoCloseVisitsTask extends AbstractTask {
 	
 	private static final Logger log = LoggerFactory.getLogger(AutoCloseVisitsTask.class);
 	
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	
 	/**
 	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
 	 */
@@ -37,7 +45,20 @@ public class AutoCloseVisitsTask extends AbstractTask {
 
 			startExecuting();
 			try {
-				Context.getVisitService().stopVisits(new Date());
+				VisitService visitService = Context.getVisitService();
+				BatchedTaskRun run = new BatchedTaskRun(taskDefinition, DEFAULT_BATCH_SIZE);
+				Date maximumStartDate = new Date();
+				Integer lastVisitId = null;
+				boolean complete = false;
+				while (!complete && run.hasTimeLeft()) {
+					List<Integer> visitIds = visitService.stopVisits(maximumStartDate, lastVisitId, run.getBatchSize());
+					run.processed(visitIds.size());
+					complete = visitIds.size() < run.getBatchSize();
+					if (!visitIds.isEmpty()) {
+						lastVisitId = visitIds.get(visitIds.size() - 1);
+					}
+				}
+				run.log(log, "visits closed", complete);
 			}
 			catch (Exception e) {
 				log.error("Error while auto closing visits:", e);
@@ -10,25 +10,25 @@
 package org.openmrs.scheduler.tasks;
 
 import org.apache.commons.lang.StringUtils;
-import org.openmrs.User;
 import org.openmrs.api.UserService;
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * A scheduled task that automatically retires users after the set number of days of inactivity. 
  * The inactivity duration is set as a global property. 
  * <a href="https://openmrs.atlassian.net/wiki/spaces/docs/pages/101318663/Creating+Auto-Deactivating+User+Task">Documentation</a>
  * {@link OpenmrsConstants#GP_NUMBER_OF_DAYS_TO_AUTO_RETIRE_USERS}
+ * <p>
+ * The users are retired in batches of {@value #DEFAULT_BATCH_SIZE} by default, each in its own
+ * transaction. The batch size and the maximum time of a run can be set with the <tt>batchSize</tt>
+ * and <tt>maxRunTimeInSeconds</tt> properties of the task.
  * 
  * @since 2.7.0
  */
@@ -36,6 +36,8 @@ public class AutoRetireUsersTask extends AbstractTask {
 	
 	private static final Logger log = LoggerFactory.getLogger(AutoRetireUsersTask.class);
 	private static final String AUTO_RETIRE_REASON = "User retired due to inactivity";
+	
+	public static final int DEFAULT_BATCH_SIZE = 1000;
 
 	/**
 	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
@@ -48,10 +50,12 @@ public class AutoRetireUsersTask extends AbstractTask {
 			startExecuting();
 			
 			try {
-				UserService userService = Context.getUserService();
-				Set<User> usersToRetire = getUsersToRetire(userService);
-				
-				usersToRetire.forEach(user -> userService.retireUser(user, AUTO_RETIRE_REASON));
+				String numberOfDaysToRetire = Context.getAdministrationService()
+				        .getGlobalProperty(OpenmrsConstants.GP_NUMBER_OF_DAYS_TO_AUTO_RETIRE_USERS);
+				if (StringUtils.isNotBlank(numberOfDaysToRetire)) {
+					retireInactiveUsers(new Date(System.currentTimeMillis()
+					        - TimeUnit.DAYS.toMillis(Long.parseLong(numberOfDaysToRetire.trim()))));
+				}
 			} catch (Exception e) {
 				log.error("Error occurred while auto-retiring users: ", e);
 			} finally {
@@ -61,39 +65,20 @@ public class AutoRetireUsersTask extends AbstractTask {
 		}
 	}
 
-	private Set<User> getUsersToRetire(UserService userService) {
-		final List<User> allUsers = userService.getAllUsers();
-		String numberOfDaysToRetire = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GP_NUMBER_OF_DAYS_TO_AUTO_RETIRE_USERS);
-		
-		if (StringUtils.isBlank(numberOfDaysToRetire)) {
-			return Collections.emptySet();
-		}
-		
-		long numberOfMillisecondsToRetire = TimeUnit.DAYS.toMillis(Long.parseLong(numberOfDaysToRetire));
-
-		return allUsers.stream()
-			.filter(user -> !user.isSuperUser() 
-				&& !user.isRetired() 
-				&& userInactivityExceedsDaysToRetire(user, numberOfMillisecondsToRetire)
-			)
-			.collect(Collectors.toSet());
-	}
-
-	private boolean userInactivityExceedsDaysToRetire(User user, long numberOfMillisecondsToRetire) {
-		String lastLoginTimeString = Context.getUserService().getLastLoginTime(user);
-
-		if (StringUtils.isNotBlank(lastLoginTimeString)) {
-			long lastLoginTime = Long.parseLong(lastLoginTimeString);
-
-			return System.currentTimeMillis() - lastLoginTime >= numberOfMillisecondsToRetire;
-		} else {
-			Date dateCreated = user.getDateCreated();
-			
-			if (dateCreated != null) {
-				return System.currentTimeMillis() - dateCreated.getTime() >= numberOfMillisecondsToRetire;
+	private void retireInactiveUsers(Date inactiveSince) {
+		UserService userService = Context.getUserService();
+		BatchedTaskRun run = new BatchedTaskRun(taskDefinition, DEFAULT_BATCH_SIZE);
+		Integer lastUserId = null;
+		boolean complete = false;
+		while (!complete && run.hasTimeLeft()) {
+			List<Integer> userIds = userService.retireInactiveUsers(inactiveSince, AUTO_RETIRE_REASON, lastUserId,
+			    run.getBatchSize());
+			run.processed(userIds.size());
+			complete = userIds.size() < run.getBatchSize();
+			if (!userIds.isEmpty()) {
+				lastUserId = userIds.get(userIds.size() - 1);
 			}
 		}
-		
-		return false;
+		run.log(log, "users retired", complete);
 	}
 }
@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.tasks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.scheduler.TaskDefinition;
+import org.slf4j.Logger;
+
+/**
+ * Keeps track of a run of a task that processes rows in batches. The batch size and the maximum
+ * time a run may take can be set with the {@value #BATCH_SIZE_PROPERTY} and
+ * {@value #MAX_RUN_TIME_PROPERTY} properties of the task. A run stops starting batches once the
+ * maximum time elapsed, the remaining rows are processed by the next run.
+ */
+class BatchedTaskRun {
+	
+	static final String BATCH_SIZE_PROPERTY = "batchSize";
+	
+	static final String MAX_RUN_TIME_PROPERTY = "maxRunTimeInSeconds";
+	
+	private final int batchSize;
+	
+	private final long start = System.nanoTime();
+	
+	private final long deadline;
+	
+	private long rows;
+	
+	private int batches;
+	
+	BatchedTaskRun(TaskDefinition taskDefinition, int defaultBatchSize) {
+		this.batchSize = getProperty(taskDefinition, BATCH_SIZE_PROPERTY, defaultBatchSize);
+		long maxRunTime = getProperty(taskDefinition, MAX_RUN_TIME_PROPERTY, 0);
+		this.deadline = maxRunTime > 0 ? start + TimeUnit.SECONDS.toNanos(maxRunTime) : Long.MAX_VALUE;
+	}
+	
+	int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * @return true if another batch may be started
+	 */
+	boolean hasTimeLeft() {
+		return deadline == Long.MAX_VALUE || System.nanoTime() - deadline < 0;
+	}
+	
+	/**
+	 * Records a processed batch
+	 * 
+	 * @param count the number of rows of the batch
+	 */
+	void processed(int count) {
+		if (count > 0) {
+			rows += count;
+			batches++;
+		}
+	}
+	
+	/**
+	 * Logs the number of processed rows and the rows per second of the run
+	 * 
+	 * @param log the logger of the task
+	 * @param rowName what the rows are, e.g. "visits closed"
+	 * @param complete whether all rows were processed, false if the run stopped since its time was up
+	 */
+	void log(Logger log, String rowName, boolean complete) {
+		long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		log.info("{} {} in {} batches in {} ms ({} rows/s){}", rows, rowName, batches, millis, rows * 1000 / millis,
+		    complete ? "" : ", the rest is processed by the next run");
+	}
+	
+	private static int getProperty(TaskDefinition taskDefinition, String name, int defaultValue) {
+		String value = taskDefinition != null ? taskDefinition.getProperty(name) : null;
+		return StringUtils.isNotBlank(value) ? Integer.parseInt(value.trim()) : defaultValue;
+	}
+}
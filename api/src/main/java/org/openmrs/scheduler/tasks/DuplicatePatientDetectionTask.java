@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.scheduler.tasks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.api.context.Context;
+import org.openmrs.patient.duplicate.DuplicateCandidate;
+import org.openmrs.util.OpenmrsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A scheduled task that finds likely duplicate patients and writes them as comma separated values
+ * to a new file in the duplicate_patients folder of the application data directory. The first run
+ * compares all patients, later runs only compare the patients changed since the previous run,
+ * whose start time is kept in the {@value #LAST_RUN_PROPERTY} property of the task.
+ * 
+ * @since 2.8.0
+ */
+public class DuplicatePatientDetectionTask extends AbstractTask {
+	
+	private static final Logger log = LoggerFactory.getLogger(DuplicatePatientDetectionTask.class);
+	
+	public static final String LAST_RUN_PROPERTY = "lastRun";
+	
+	/**
+	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
+	 */
+	@Override
+	public void execute() {
+		if (!isExecuting) {
+			log.debug("Starting Duplicate Patient Detection Task...");
+			
+			startExecuting();
+			try {
+				Date start = new Date();
+				String lastRun = taskDefinition.getProperty(LAST_RUN_PROPERTY);
+				Date changedSince = StringUtils.isBlank(lastRun) ? null : new Date(Long.parseLong(lastRun));
+				
+				File folder = OpenmrsUtil.getDirectoryInApplicationDataDirectory("duplicate_patients");
+				String name = "duplicate-patients-" + new SimpleDateFormat("yyyyMMddHHmmss", Locale.ENGLISH).format(start)
+				        + ".csv";
+				try (BufferedWriter writer = Files.newBufferedWriter(new File(folder, name).toPath(),
+				    StandardCharsets.UTF_8)) {
+					writer.write("patient_id,other_patient_id,score,blocking_key");
+					writer.newLine();
+					Context.getPatientService().findDuplicatePatients(changedSince, candidates -> {
+						for (DuplicateCandidate candidate : candidates) {
+							writer.write(candidate.getPatientId() + "," + candidate.getOtherPatientId() + ","
+							        + String.format(Locale.ENGLISH, "%.4f", candidate.getScore()) + ","
+							        + candidate.getBlockingKey());
+							writer.newLine();
+						}
+						writer.flush();
+					});
+				}
+				
+				taskDefinition.setProperty(LAST_RUN_PROPERTY, String.valueOf(start.getTime()));
+				Context.getSchedulerService().saveTaskDefinition(taskDefinition);
+			}
+			catch (Exception e) {
+				log.error("Error while detecting duplicate patients:", e);
+			}
+			finally {
+				stopExecuting();
+			}
+		}
+	}
+}
@@ -0,0 +1,900 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A set of non-negative int ids, such as the patient ids of a cohort, stored as a compressed
+ * bitmap in the style of Roaring bitmaps: ids are grouped by their upper 16 bits and each group is
+ * kept either as a sorted array of the lower 16 bits, while it has at most 4096 members, or as a
+ * bitmap of 65536 bits. A million sequential patient ids take about 128KB instead of tens of
+ * megabytes of boxed Integers.
+ * <p>
+ * Union, intersection and difference work group by group on the arrays and bitmap words and return
+ * new sets, the operands are left unchanged. Iteration is in ascending order without boxing. Sets
+ * are not thread safe while they are being modified.
+ * 
+ * @since 2.8.0
+ */
+public final class CompressedIdSet implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final int SERIAL_MAGIC = 0x4F4D4953;
+	
+	/**
+	 * Groups with more members than this are stored as bitmaps
+	 */
+	static final int MAX_ARRAY_SIZE = 4096;
+	
+	private static final int BITMAP_WORDS = 1024;
+	
+	private transient char[] keys;
+	
+	private transient Container[] containers;
+	
+	private transient int groups;
+	
+	public CompressedIdSet() {
+		keys = new char[4];
+		containers = new Container[4];
+	}
+	
+	/**
+	 * @param ids the ids
+	 * @return a new set containing the given ids
+	 */
+	public static CompressedIdSet of(int... ids) {
+		CompressedIdSet set = new CompressedIdSet();
+		for (int id : ids) {
+			set.add(id);
+		}
+		return set;
+	}
+	
+	/**
+	 * @param ids the ids, nulls are ignored
+	 * @return a new set containing the given ids
+	 */
+	public static CompressedIdSet of(Collection<Integer> ids) {
+		CompressedIdSet set = new CompressedIdSet();
+		for (Integer id : ids) {
+			if (id != null) {
+				set.add(id);
+			}
+		}
+		return set;
+	}
+	
+	/**
+	 * Adds an id to the set
+	 * 
+	 * @param id the id, must not be negative
+	 * @return true if the id was not in the set yet
+	 */
+	public boolean add(int id) {
+		if (id < 0) {
+			throw new IllegalArgumentException("Ids must not be negative: " + id);
+		}
+		char high = (char) (id >>> 16);
+		char low = (char) id;
+		int index = indexOf(high);
+		if (index < 0) {
+			index = -index - 1;
+			insertGroup(index, high, new ArrayContainer());
+		}
+		Container container = containers[index];
+		int before = container.cardinality();
+		containers[index] = container.add(low);
+		return containers[index].cardinality() > before;
+	}
+	
+	/**
+	 * Removes an id from the set
+	 * 
+	 * @param id the id
+	 * @return true if the id was in the set
+	 */
+	public boolean remove(int id) {
+		if (id < 0) {
+			return false;
+		}
+		int index = indexOf((char) (id >>> 16));
+		if (index < 0) {
+			return false;
+		}
+		Container container = containers[index];
+		int before = container.cardinality();
+		container = container.remove((char) id);
+		if (container.cardinality() == before) {
+			return false;
+		}
+		if (container.cardinality() == 0) {
+			removeGroup(index);
+		} else {
+			containers[index] = container;
+		}
+		return true;
+	}
+	
+	/**
+	 * @param id the id
+	 * @return true if the id is in the set
+	 */
+	public boolean contains(int id) {
+		if (id < 0) {
+			return false;
+		}
+		int index = indexOf((char) (id >>> 16));
+		return index >= 0 && containers[index].contains((char) id);
+	}
+	
+	/**
+	 * @return the number of ids in the set
+	 */
+	public int size() {
+		int size = 0;
+		for (int i = 0; i < groups; i++) {
+			size += containers[i].cardinality();
+		}
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return groups == 0;
+	}
+	
+	/**
+	 * @param a the first set, may be null
+	 * @param b the second set, may be null
+	 * @return a new set with the ids that are in either set
+	 */
+	public static CompressedIdSet union(CompressedIdSet a, CompressedIdSet b) {
+		if (a == null || b == null) {
+			return a == null ? (b == null ? new CompressedIdSet() : b.copy()) : a.copy();
+		}
+		CompressedIdSet result = new CompressedIdSet(a.groups + b.groups);
+		int i = 0;
+		int j = 0;
+		while (i < a.groups && j < b.groups) {
+			if (a.keys[i] == b.keys[j]) {
+				result.appendGroup(a.keys[i], a.containers[i].or(b.containers[j]));
+				i++;
+				j++;
+			} else if (a.keys[i] < b.keys[j]) {
+				result.appendGroup(a.keys[i], a.containers[i].copy());
+				i++;
+			} else {
+				result.appendGroup(b.keys[j], b.containers[j].copy());
+				j++;
+			}
+		}
+		for (; i < a.groups; i++) {
+			result.appendGroup(a.keys[i], a.containers[i].copy());
+		}
+		for (; j < b.groups; j++) {
+			result.appendGroup(b.keys[j], b.containers[j].copy());
+		}
+		return result;
+	}
+	
+	/**
+	 * @param a the first set, null is treated as an empty set
+	 * @param b the second set, null is treated as an empty set
+	 * @return a new set with the ids that are in both sets
+	 */
+	public static CompressedIdSet intersect(CompressedIdSet a, CompressedIdSet b) {
+		CompressedIdSet result = new CompressedIdSet();
+		if (a == null || b == null) {
+			return result;
+		}
+		int i = 0;
+		int j = 0;
+		while (i < a.groups && j < b.groups) {
+			if (a.keys[i] == b.keys[j]) {
+				Container container = a.containers[i].and(b.containers[j]);
+				if (container.cardinality() > 0) {
+					result.appendGroup(a.keys[i], container);
+				}
+				i++;
+				j++;
+			} else if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param a the set to subtract from, null is treated as an empty set
+	 * @param b the set to subtract, may be null
+	 * @return a new set with the ids of the first set that are not in the second set
+	 */
+	public static CompressedIdSet subtract(CompressedIdSet a, CompressedIdSet b) {
+		if (a == null) {
+			return new CompressedIdSet();
+		}
+		if (b == null) {
+			return a.copy();
+		}
+		CompressedIdSet result = new CompressedIdSet(a.groups);
+		int j = 0;
+		for (int i = 0; i < a.groups; i++) {
+			while (j < b.groups && b.keys[j] < a.keys[i]) {
+				j++;
+			}
+			Container container = j < b.groups && b.keys[j] == a.keys[i] ? a.containers[i].andNot(b.containers[j])
+			        : a.containers[i].copy();
+			if (container.cardinality() > 0) {
+				result.appendGroup(a.keys[i], container);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @return an independent copy of this set
+	 */
+	public CompressedIdSet copy() {
+		CompressedIdSet copy = new CompressedIdSet(groups);
+		for (int i = 0; i < groups; i++) {
+			copy.appendGroup(keys[i], containers[i].copy());
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return an iterator over the ids in ascending order
+	 */
+	public PrimitiveIterator.OfInt iterator() {
+		return new IdIterator();
+	}
+	
+	/**
+	 * Calls the consumer with every id in ascending order
+	 * 
+	 * @param consumer the consumer
+	 */
+	public void forEach(IntConsumer consumer) {
+		for (int i = 0; i < groups; i++) {
+			containers[i].forEach(keys[i] << 16, consumer);
+		}
+	}
+	
+	/**
+	 * @return the ids in ascending order
+	 */
+	public IntStream stream() {
+		return StreamSupport.intStream(Spliterators.spliterator(iterator(), size(),
+		    Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+	}
+	
+	/**
+	 * @return the ids in ascending order
+	 */
+	public int[] toArray() {
+		int[] ids = new int[size()];
+		int[] position = new int[1];
+		forEach(id -> ids[position[0]++] = id);
+		return ids;
+	}
+	
+	/**
+	 * Writes the set in a compact binary format that can be read with {@link #readFrom(DataInput)}
+	 * 
+	 * @param out the output to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(SERIAL_MAGIC);
+		out.writeInt(groups);
+		for (int i = 0; i < groups; i++) {
+			out.writeChar(keys[i]);
+			containers[i].writeTo(out);
+		}
+	}
+	
+	/**
+	 * @param in the input to read from
+	 * @return the set written by {@link #writeTo(DataOutput)}
+	 * @throws IOException if reading fails or the input is not a serialized set
+	 */
+	public static CompressedIdSet readFrom(DataInput in) throws IOException {
+		if (in.readInt() != SERIAL_MAGIC) {
+			throw new IOException("Not a serialized id set");
+		}
+		int groups = in.readInt();
+		if (groups < 0 || groups > 65536) {
+			throw new IOException("Invalid number of groups: " + groups);
+		}
+		CompressedIdSet set = new CompressedIdSet(groups);
+		int previousKey = -1;
+		for (int i = 0; i < groups; i++) {
+			char key = in.readChar();
+			if (key <= previousKey) {
+				throw new IOException("Groups are not in ascending order");
+			}
+			previousKey = key;
+			set.appendGroup(key, Container.readFrom(in));
+		}
+		return set;
+	}
+	
+	/**
+	 * @return the set in the format of {@link #writeTo(DataOutput)}
+	 */
+	public byte[] toByteArray() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			writeTo(new DataOutputStream(bytes));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * @param bytes the output of {@link #toByteArray()}
+	 * @return the set
+	 * @throws IOException if the bytes are not a serialized set
+	 */
+	public static CompressedIdSet fromByteArray(byte[] bytes) throws IOException {
+		return readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		writeTo(out);
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		CompressedIdSet read = readFrom(in);
+		keys = read.keys;
+		containers = read.containers;
+		groups = read.groups;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CompressedIdSet)) {
+			return false;
+		}
+		CompressedIdSet other = (CompressedIdSet) o;
+		if (groups != other.groups) {
+			return false;
+		}
+		for (int i = 0; i < groups; i++) {
+			if (keys[i] != other.keys[i] || !containers[i].sameValues(other.containers[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		int[] hash = { 1 };
+		forEach(id -> hash[0] = 31 * hash[0] + id);
+		return hash[0];
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		PrimitiveIterator.OfInt ids = iterator();
+		for (int i = 0; ids.hasNext() && i < 100; i++) {
+			sb.append(i == 0 ? "" : ", ").append(ids.nextInt());
+		}
+		if (ids.hasNext()) {
+			sb.append(", ... (").append(size()).append(" ids)");
+		}
+		return sb.append(']').toString();
+	}
+	
+	private CompressedIdSet(int capacity) {
+		keys = new char[Math.max(4, capacity)];
+		containers = new Container[keys.length];
+	}
+	
+	private int indexOf(char key) {
+		return Arrays.binarySearch(keys, 0, groups, key);
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity > keys.length) {
+			int newLength = Math.max(capacity, keys.length * 2);
+			keys = Arrays.copyOf(keys, newLength);
+			containers = Arrays.copyOf(containers, newLength);
+		}
+	}
+	
+	private void insertGroup(int index, char key, Container container) {
+		ensureCapacity(groups + 1);
+		System.arraycopy(keys, index, keys, index + 1, groups - index);
+		System.arraycopy(containers, index, containers, index + 1, groups - index);
+		keys[index] = key;
+		containers[index] = container;
+		groups++;
+	}
+	
+	private void appendGroup(char key, Container container) {
+		ensureCapacity(groups + 1);
+		keys[groups] = key;
+		containers[groups] = container;
+		groups++;
+	}
+	
+	private void removeGroup(int index) {
+		System.arraycopy(keys, index + 1, keys, index, groups - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, groups - index - 1);
+		groups--;
+		containers[groups] = null;
+	}
+	
+	/**
+	 * Iterates over the groups and within each group over its members
+	 */
+	private class IdIterator implements PrimitiveIterator.OfInt {
+		
+		private int group;
+		
+		private int next = -1;
+		
+		private int nextLow;
+		
+		IdIterator() {
+			advance(0);
+		}
+		
+		private void advance(int fromLow) {
+			while (group < groups) {
+				int low = containers[group].nextValue(fromLow);
+				if (low >= 0) {
+					next = (keys[group] << 16) | low;
+					nextLow = low + 1;
+					return;
+				}
+				group++;
+				fromLow = 0;
+			}
+			next = -1;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+		
+		@Override
+		public int nextInt() {
+			if (next < 0) {
+				throw new NoSuchElementException();
+			}
+			int current = next;
+			if (nextLow > 0xFFFF) {
+				group++;
+				advance(0);
+			} else {
+				advance(nextLow);
+			}
+			return current;
+		}
+	}
+	
+	/**
+	 * The lower 16 bits of the members of one group
+	 */
+	private abstract static class Container {
+		
+		abstract int cardinality();
+		
+		abstract boolean contains(char value);
+		
+		abstract Container add(char value);
+		
+		abstract Container remove(char value);
+		
+		abstract Container or(Container other);
+		
+		abstract Container and(Container other);
+		
+		abstract Container andNot(Container other);
+		
+		abstract Container copy();
+		
+		/**
+		 * @return the smallest member greater than or equal to the given value, -1 if there is none
+		 */
+		abstract int nextValue(int from);
+		
+		abstract void forEach(int high, IntConsumer consumer);
+		
+		abstract void writeTo(DataOutput out) throws IOException;
+		
+		boolean sameValues(Container other) {
+			if (cardinality() != other.cardinality()) {
+				return false;
+			}
+			for (int value = nextValue(0); value >= 0; value = value == 0xFFFF ? -1 : nextValue(value + 1)) {
+				if (!other.contains((char) value)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		static Container readFrom(DataInput in) throws IOException {
+			int cardinality = in.readInt();
+			if (cardinality <= 0 || cardinality > 65536) {
+				throw new IOException("Invalid group size: " + cardinality);
+			}
+			if (cardinality <= MAX_ARRAY_SIZE) {
+				char[] values = new char[cardinality];
+				for (int i = 0; i < cardinality; i++) {
+					values[i] = in.readChar();
+					if (i > 0 && values[i] <= values[i - 1]) {
+						throw new IOException("Group members are not in ascending order");
+					}
+				}
+				return new ArrayContainer(values, cardinality);
+			}
+			long[] words = new long[BITMAP_WORDS];
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				words[i] = in.readLong();
+			}
+			BitmapContainer bitmap = new BitmapContainer(words);
+			if (bitmap.cardinality() != cardinality) {
+				throw new IOException("Group size does not match its bitmap");
+			}
+			return bitmap;
+		}
+	}
+	
+	private static final class ArrayContainer extends Container {
+		
+		private char[] values;
+		
+		private int cardinality;
+		
+		ArrayContainer() {
+			values = new char[4];
+		}
+		
+		ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+		
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+		
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+		
+		@Override
+		Container add(char value) {
+			int index = Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				return this;
+			}
+			if (cardinality >= MAX_ARRAY_SIZE) {
+				return toBitmap().add(value);
+			}
+			index = -index - 1;
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, Math.max(4, values.length * 2)));
+			}
+			System.arraycopy(values, index, values, index + 1, cardinality - index);
+			values[index] = value;
+			cardinality++;
+			return this;
+		}
+		
+		@Override
+		Container remove(char value) {
+			int index = Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+				cardinality--;
+			}
+			return this;
+		}
+		
+		@Override
+		Container or(Container other) {
+			if (other instanceof BitmapContainer) {
+				return other.or(this);
+			}
+			ArrayContainer o = (ArrayContainer) other;
+			char[] merged = new char[cardinality + o.cardinality];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < cardinality && j < o.cardinality) {
+				if (values[i] == o.values[j]) {
+					merged[k++] = values[i++];
+					j++;
+				} else if (values[i] < o.values[j]) {
+					merged[k++] = values[i++];
+				} else {
+					merged[k++] = o.values[j++];
+				}
+			}
+			while (i < cardinality) {
+				merged[k++] = values[i++];
+			}
+			while (j < o.cardinality) {
+				merged[k++] = o.values[j++];
+			}
+			ArrayContainer result = new ArrayContainer(merged, k);
+			return k > MAX_ARRAY_SIZE ? result.toBitmap() : result;
+		}
+		
+		@Override
+		Container and(Container other) {
+			char[] common = new char[cardinality];
+			int k = 0;
+			if (other instanceof BitmapContainer) {
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(values[i])) {
+						common[k++] = values[i];
+					}
+				}
+			} else {
+				ArrayContainer o = (ArrayContainer) other;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality && j < o.cardinality) {
+					if (values[i] == o.values[j]) {
+						common[k++] = values[i++];
+						j++;
+					} else if (values[i] < o.values[j]) {
+						i++;
+					} else {
+						j++;
+					}
+				}
+			}
+			return new ArrayContainer(common, k);
+		}
+		
+		@Override
+		Container andNot(Container other) {
+			char[] remaining = new char[cardinality];
+			int k = 0;
+			for (int i = 0; i < cardinality; i++) {
+				if (!other.contains(values[i])) {
+					remaining[k++] = values[i];
+				}
+			}
+			return new ArrayContainer(remaining, k);
+		}
+		
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+		}
+		
+		@Override
+		int nextValue(int from) {
+			int index = Arrays.binarySearch(values, 0, cardinality, (char) from);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			return index < cardinality ? values[index] : -1;
+		}
+		
+		@Override
+		void forEach(int high, IntConsumer consumer) {
+			for (int i = 0; i < cardinality; i++) {
+				consumer.accept(high | values[i]);
+			}
+		}
+		
+		@Override
+		void writeTo(DataOutput out) throws IOException {
+			out.writeInt(cardinality);
+			for (int i = 0; i < cardinality; i++) {
+				out.writeChar(values[i]);
+			}
+		}
+		
+		BitmapContainer toBitmap() {
+			long[] words = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				words[values[i] >>> 6] |= 1L << values[i];
+			}
+			return new BitmapContainer(words);
+		}
+	}
+	
+	private static final class BitmapContainer extends Container {
+		
+		private final long[] words;
+		
+		private int cardinality;
+		
+		BitmapContainer(long[] words) {
+			this.words = words;
+			for (long word : words) {
+				cardinality += Long.bitCount(word);
+			}
+		}
+		
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+		
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+		
+		@Override
+		Container add(char value) {
+			long before = words[value >>> 6];
+			long after = before | (1L << value);
+			if (before != after) {
+				words[value >>> 6] = after;
+				cardinality++;
+			}
+			return this;
+		}
+		
+		@Override
+		Container remove(char value) {
+			long before = words[value >>> 6];
+			long after = before & ~(1L << value);
+			if (before != after) {
+				words[value >>> 6] = after;
+				cardinality--;
+			}
+			return cardinality <= MAX_ARRAY_SIZE ? toArray() : this;
+		}
+		
+		@Override
+		Container or(Container other) {
+			long[] result = words.clone();
+			if (other instanceof BitmapContainer) {
+				long[] otherWords = ((BitmapContainer) other).words;
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					result[i] |= otherWords[i];
+				}
+			} else {
+				ArrayContainer o = (ArrayContainer) other;
+				for (int i = 0; i < o.cardinality; i++) {
+					result[o.values[i] >>> 6] |= 1L << o.values[i];
+				}
+			}
+			return new BitmapContainer(result);
+		}
+		
+		@Override
+		Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			long[] otherWords = ((BitmapContainer) other).words;
+			long[] result = new long[BITMAP_WORDS];
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				result[i] = words[i] & otherWords[i];
+			}
+			return shrink(new BitmapContainer(result));
+		}
+		
+		@Override
+		Container andNot(Container other) {
+			long[] result = words.clone();
+			if (other instanceof BitmapContainer) {
+				long[] otherWords = ((BitmapContainer) other).words;
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					result[i] &= ~otherWords[i];
+				}
+			} else {
+				ArrayContainer o = (ArrayContainer) other;
+				for (int i = 0; i < o.cardinality; i++) {
+					result[o.values[i] >>> 6] &= ~(1L << o.values[i]);
+				}
+			}
+			return shrink(new BitmapContainer(result));
+		}
+		
+		@Override
+		Container copy() {
+			return new BitmapContainer(words.clone());
+		}
+		
+		@Override
+		int nextValue(int from) {
+			int index = from >>> 6;
+			if (index >= BITMAP_WORDS) {
+				return -1;
+			}
+			long word = words[index] & (-1L << from);
+			while (true) {
+				if (word != 0) {
+					return (index << 6) + Long.numberOfTrailingZeros(word);
+				}
+				if (++index == BITMAP_WORDS) {
+					return -1;
+				}
+				word = words[index];
+			}
+		}
+		
+		@Override
+		void forEach(int high, IntConsumer consumer) {
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+		
+		@Override
+		void writeTo(DataOutput out) throws IOException {
+			out.writeInt(cardinality);
+			for (long word : words) {
+				out.writeLong(word);
+			}
+		}
+		
+		private static Container shrink(BitmapContainer bitmap) {
+			return bitmap.cardinality <= MAX_ARRAY_SIZE ? bitmap.toArray() : bitmap;
+		}
+		
+		ArrayContainer toArray() {
+			char[] values = new char[Math.max(cardinality, 1)];
+			int k = 0;
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					values[k++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return new ArrayContainer(values, k);
+		}
+	}
+}
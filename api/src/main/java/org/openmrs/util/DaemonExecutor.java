@@ -0,0 +1,606 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openmrs.util.metrics.LatencyHistogram;
+import org.openmrs.util.metrics.MBeans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor running the tasks of {@link org.openmrs.api.context.Daemon} and the other background
+ * work of OpenMRS and its modules. It limits how many tasks run at once, in total and per module,
+ * and queues the others. Tasks run on virtual threads if the JVM supports them (Java 21 and later)
+ * and on platform threads otherwise.
+ * <p>
+ * It is configured with the following runtime properties:
+ * <ul>
+ * <li><tt>daemon.executor.maxConcurrency</tt> the maximum number of tasks running at once, defaults
+ * to 256</li>
+ * <li><tt>daemon.executor.maxConcurrencyPerModule</tt> the maximum number of tasks submitted with
+ * the daemon token of one module running at once, defaults to 64</li>
+ * <li><tt>daemon.executor.queueCapacity</tt> the maximum number of tasks waiting to run, defaults
+ * to 10000</li>
+ * <li><tt>daemon.executor.rejectionPolicy</tt> <tt>block</tt>, the default, makes threads
+ * submitting tasks while the queue is full wait for room, <tt>abort</tt> rejects those tasks with a
+ * {@link RejectedExecutionException}</li>
+ * <li><tt>daemon.executor.virtualThreads</tt> set to false to use platform threads on Java 21,
+ * only takes effect before the first task is run</li>
+ * </ul>
+ * A task waiting for other tasks of the same module can never finish once the module runs as many
+ * tasks as it may, so the limits should leave room for daemon tasks started by daemon tasks. Those
+ * count against the limit of the owner of the task that started them.
+ * 
+ * @since 2.8.0
+ */
+public class DaemonExecutor extends AbstractExecutorService implements DaemonExecutorMBean {
+	
+	private static final Logger log = LoggerFactory.getLogger(DaemonExecutor.class);
+	
+	public static final String OBJECT_NAME = "org.openmrs:type=DaemonExecutor";
+	
+	public static final String MAX_CONCURRENCY_PROPERTY = "daemon.executor.maxConcurrency";
+	
+	public static final String MAX_CONCURRENCY_PER_MODULE_PROPERTY = "daemon.executor.maxConcurrencyPerModule";
+	
+	public static final String QUEUE_CAPACITY_PROPERTY = "daemon.executor.queueCapacity";
+	
+	public static final String REJECTION_POLICY_PROPERTY = "daemon.executor.rejectionPolicy";
+	
+	public static final String VIRTUAL_THREADS_PROPERTY = "daemon.executor.virtualThreads";
+	
+	/**
+	 * The owner of the tasks not submitted with the daemon token of a module, these are only
+	 * limited by the maximum concurrency
+	 */
+	public static final String CORE_OWNER = "openmrs-core";
+	
+	private static final int DEFAULT_MAX_CONCURRENCY = 256;
+	
+	private static final int DEFAULT_MAX_CONCURRENCY_PER_MODULE = 64;
+	
+	private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+	
+	/**
+	 * What happens to tasks submitted while the queue is full
+	 */
+	public enum RejectionPolicy {
+		BLOCK,
+		ABORT
+	}
+	
+	// the owner of the task running on the current thread, if any
+	private static final ThreadLocal<String> currentOwner = new ThreadLocal<>();
+	
+	private final Object lock = new Object();
+	
+	// the owners with running or queued tasks, in the order they get to run queued tasks
+	private final Map<String, Owner> owners = new LinkedHashMap<>();
+	
+	private int active;
+	
+	private int queued;
+	
+	private boolean shutdown;
+	
+	private ExecutorService threads;
+	
+	private volatile boolean useVirtualThreads = true;
+	
+	private volatile int maxConcurrency;
+	
+	private volatile int maxConcurrencyPerModule;
+	
+	private volatile int queueCapacity;
+	
+	private volatile RejectionPolicy rejectionPolicy;
+	
+	private final LongAdder completed = new LongAdder();
+	
+	private final LongAdder rejected = new LongAdder();
+	
+	private final LatencyHistogram waitTime = new LatencyHistogram();
+	
+	private final LatencyHistogram runTime = new LatencyHistogram();
+	
+	public DaemonExecutor() {
+		this(DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY_PER_MODULE, DEFAULT_QUEUE_CAPACITY, RejectionPolicy.BLOCK);
+	}
+	
+	DaemonExecutor(int maxConcurrency, int maxConcurrencyPerModule, int queueCapacity, RejectionPolicy rejectionPolicy) {
+		this.maxConcurrency = maxConcurrency;
+		this.maxConcurrencyPerModule = maxConcurrencyPerModule;
+		this.queueCapacity = queueCapacity;
+		this.rejectionPolicy = rejectionPolicy;
+	}
+	
+	/**
+	 * Applies the limits set in the given runtime properties and registers the MBean
+	 * 
+	 * @param properties the runtime properties
+	 */
+	public void configure(Properties properties) {
+		try {
+			setMaxConcurrency(Integer.parseInt(properties.getProperty(MAX_CONCURRENCY_PROPERTY,
+			    String.valueOf(DEFAULT_MAX_CONCURRENCY))));
+			setMaxConcurrencyPerModule(Integer.parseInt(properties.getProperty(MAX_CONCURRENCY_PER_MODULE_PROPERTY,
+			    String.valueOf(DEFAULT_MAX_CONCURRENCY_PER_MODULE))));
+			setQueueCapacity(Integer.parseInt(properties.getProperty(QUEUE_CAPACITY_PROPERTY,
+			    String.valueOf(DEFAULT_QUEUE_CAPACITY))));
+		}
+		catch (NumberFormatException e) {
+			log.warn("Invalid daemon executor runtime properties", e);
+		}
+		
+		String policy = properties.getProperty(REJECTION_POLICY_PROPERTY, "block").trim();
+		try {
+			rejectionPolicy = RejectionPolicy.valueOf(policy.toUpperCase());
+		}
+		catch (IllegalArgumentException e) {
+			log.warn("Invalid daemon executor rejection policy {}, using block", policy);
+			rejectionPolicy = RejectionPolicy.BLOCK;
+		}
+		
+		useVirtualThreads = Boolean.parseBoolean(properties.getProperty(VIRTUAL_THREADS_PROPERTY, "true"));
+		
+		MBeans.register(this, OBJECT_NAME);
+	}
+	
+	/**
+	 * Runs the given command on behalf of the given owner
+	 * 
+	 * @param owner the id of the module submitting the command or {@link #CORE_OWNER}
+	 * @param command the command to run
+	 * @throws RejectedExecutionException if the executor is shut down or the queue is full and the
+	 *             rejection policy is abort
+	 * <strong>Should</strong> limit the number of running tasks per module
+	 * <strong>Should</strong> run the tasks of other owners while a module is at its limit
+	 * <strong>Should</strong> reject tasks if the queue is full and the rejection policy is abort
+	 * <strong>Should</strong> make the submitting thread wait if the queue is full and the rejection policy is block
+	 */
+	public void execute(String owner, Runnable command) {
+		executeOrQueue(owner, command);
+	}
+	
+	/**
+	 * Runs the given command on behalf of the given owner like {@link #execute(String, Runnable)}
+	 * 
+	 * @param owner the id of the module submitting the command or {@link #CORE_OWNER}
+	 * @param command the command to run
+	 * @return true if the command was started right away, false if it was queued
+	 * @throws RejectedExecutionException if the executor is shut down or the queue is full and the
+	 *             rejection policy is abort
+	 * <strong>Should</strong> return whether the command was started or queued
+	 */
+	public boolean executeOrQueue(String owner, Runnable command) {
+		Objects.requireNonNull(command);
+		Task task = new Task(owner == null ? CORE_OWNER : owner, command);
+		
+		synchronized (lock) {
+			while (true) {
+				if (shutdown) {
+					throw new RejectedExecutionException("The daemon executor is shut down");
+				}
+				
+				Owner taskOwner = owners.computeIfAbsent(task.owner, Owner::new);
+				if (taskOwner.queue.isEmpty() && canRun(taskOwner)) {
+					start(taskOwner, task);
+					return true;
+				}
+				if (queued < queueCapacity) {
+					taskOwner.queue.add(task);
+					queued++;
+					return false;
+				}
+				
+				if (taskOwner.active == 0 && taskOwner.queue.isEmpty()) {
+					owners.remove(task.owner);
+				}
+				if (rejectionPolicy == RejectionPolicy.ABORT) {
+					break;
+				}
+				try {
+					lock.wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					rejected.increment();
+					throw new RejectedExecutionException("Interrupted while waiting for room in the daemon task queue", e);
+				}
+			}
+		}
+		
+		rejected.increment();
+		throw new RejectedExecutionException("The daemon task queue is full, rejected task of " + task.owner);
+	}
+	
+	/**
+	 * @see #execute(String, Runnable)
+	 */
+	public <T> Future<T> submit(String owner, Callable<T> task) {
+		RunnableFuture<T> future = newTaskFor(task);
+		execute(owner, future);
+		return future;
+	}
+	
+	/**
+	 * @see #execute(String, Runnable)
+	 */
+	public Future<?> submit(String owner, Runnable task) {
+		RunnableFuture<Void> future = newTaskFor(task, null);
+		execute(owner, future);
+		return future;
+	}
+	
+	@Override
+	public void execute(Runnable command) {
+		execute(CORE_OWNER, command);
+	}
+	
+	/**
+	 * @return the owner of the daemon task running on the current thread, or null if the current
+	 *         thread does not run a daemon task
+	 * <strong>Should</strong> return the owner of the task running on the current thread
+	 */
+	public static String getCurrentOwner() {
+		return currentOwner.get();
+	}
+	
+	private boolean canRun(Owner owner) {
+		return active < maxConcurrency && (CORE_OWNER.equals(owner.id) || owner.active < maxConcurrencyPerModule);
+	}
+	
+	// called holding the lock
+	private void start(Owner owner, Task task) {
+		active++;
+		owner.active++;
+		try {
+			getThreads().execute(() -> run(owner, task));
+		}
+		catch (RejectedExecutionException e) {
+			active--;
+			owner.active--;
+			throw e;
+		}
+	}
+	
+	private void run(Owner owner, Task task) {
+		long startedAt = System.nanoTime();
+		waitTime.record(startedAt - task.submittedAt);
+		currentOwner.set(owner.id);
+		try {
+			task.command.run();
+		}
+		finally {
+			currentOwner.remove();
+			runTime.record(System.nanoTime() - startedAt);
+			completed.increment();
+			finished(owner);
+		}
+	}
+	
+	private void finished(Owner owner) {
+		synchronized (lock) {
+			active--;
+			owner.active--;
+			startQueuedTasks();
+			if (owner.active == 0 && owner.queue.isEmpty()) {
+				owners.remove(owner.id);
+			}
+			if (shutdown && isTerminated() && threads != null) {
+				threads.shutdown();
+			}
+			lock.notifyAll();
+		}
+	}
+	
+	// called holding the lock
+	private void startQueuedTasks() {
+		if (queued == 0) {
+			return;
+		}
+		
+		for (Owner owner : new ArrayList<>(owners.values())) {
+			boolean started = false;
+			while (!owner.queue.isEmpty() && canRun(owner)) {
+				queued--;
+				start(owner, owner.queue.poll());
+				started = true;
+			}
+			if (started) {
+				// let the other owners go first next time
+				owners.remove(owner.id);
+				owners.put(owner.id, owner);
+			}
+			if (active >= maxConcurrency) {
+				return;
+			}
+		}
+	}
+	
+	// called holding the lock
+	private ExecutorService getThreads() {
+		if (threads == null) {
+			threads = useVirtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+			if (threads == null) {
+				AtomicInteger threadNumber = new AtomicInteger();
+				ThreadFactory threadFactory = Executors.defaultThreadFactory();
+				// the concurrency is limited by this executor already
+				threads = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				        runnable -> {
+					        Thread thread = threadFactory.newThread(runnable);
+					        thread.setName("openmrs-daemon-" + threadNumber.incrementAndGet());
+					        return thread;
+				        });
+			}
+			log.info("Running daemon tasks on {} threads", isVirtualThreads() ? "virtual" : "platform");
+		}
+		return threads;
+	}
+	
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			log.debug("Virtual threads are not available", e);
+			return null;
+		}
+	}
+	
+	@Override
+	public void shutdown() {
+		synchronized (lock) {
+			shutdown = true;
+			if (isTerminated() && threads != null) {
+				threads.shutdown();
+			}
+			lock.notifyAll();
+		}
+	}
+	
+	@Override
+	public List<Runnable> shutdownNow() {
+		synchronized (lock) {
+			shutdown = true;
+			List<Runnable> commands = new ArrayList<>();
+			for (Owner owner : owners.values()) {
+				for (Task task : owner.queue) {
+					commands.add(task.command);
+				}
+				owner.queue.clear();
+			}
+			queued = 0;
+			if (threads != null) {
+				threads.shutdownNow();
+			}
+			lock.notifyAll();
+			return commands;
+		}
+	}
+	
+	@Override
+	public boolean isShutdown() {
+		synchronized (lock) {
+			return shutdown;
+		}
+	}
+	
+	@Override
+	public boolean isTerminated() {
+		synchronized (lock) {
+			return shutdown && active == 0 && queued == 0;
+		}
+	}
+	
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (lock) {
+			while (!isTerminated()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * @param owner the id of a module or {@link #CORE_OWNER}
+	 * @return the number of running tasks of the owner
+	 */
+	public int getActiveCount(String owner) {
+		synchronized (lock) {
+			Owner taskOwner = owners.get(owner);
+			return taskOwner == null ? 0 : taskOwner.active;
+		}
+	}
+	
+	/**
+	 * @param owner the id of a module or {@link #CORE_OWNER}
+	 * @return the number of queued tasks of the owner
+	 */
+	public int getQueueDepth(String owner) {
+		synchronized (lock) {
+			Owner taskOwner = owners.get(owner);
+			return taskOwner == null ? 0 : taskOwner.queue.size();
+		}
+	}
+	
+	@Override
+	public boolean isVirtualThreads() {
+		synchronized (lock) {
+			return threads != null && !(threads instanceof ThreadPoolExecutor);
+		}
+	}
+	
+	@Override
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+	
+	@Override
+	public void setMaxConcurrency(int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("The maximum concurrency must be at least 1");
+		}
+		synchronized (lock) {
+			this.maxConcurrency = maxConcurrency;
+			startQueuedTasks();
+		}
+	}
+	
+	@Override
+	public int getMaxConcurrencyPerModule() {
+		return maxConcurrencyPerModule;
+	}
+	
+	@Override
+	public void setMaxConcurrencyPerModule(int maxConcurrencyPerModule) {
+		if (maxConcurrencyPerModule < 1) {
+			throw new IllegalArgumentException("The maximum concurrency per module must be at least 1");
+		}
+		synchronized (lock) {
+			this.maxConcurrencyPerModule = maxConcurrencyPerModule;
+			startQueuedTasks();
+		}
+	}
+	
+	@Override
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+	
+	@Override
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 0) {
+			throw new IllegalArgumentException("The queue capacity cannot be negative");
+		}
+		synchronized (lock) {
+			this.queueCapacity = queueCapacity;
+			lock.notifyAll();
+		}
+	}
+	
+	@Override
+	public String getRejectionPolicy() {
+		return rejectionPolicy.name().toLowerCase();
+	}
+	
+	@Override
+	public int getActiveCount() {
+		synchronized (lock) {
+			return active;
+		}
+	}
+	
+	@Override
+	public int getQueueDepth() {
+		synchronized (lock) {
+			return queued;
+		}
+	}
+	
+	@Override
+	public String[] getModuleReport() {
+		synchronized (lock) {
+			List<String> report = new ArrayList<>();
+			for (Owner owner : owners.values()) {
+				report.add(owner.id + ": " + owner.active + " running, " + owner.queue.size() + " queued");
+			}
+			return report.toArray(new String[0]);
+		}
+	}
+	
+	@Override
+	public long getCompletedCount() {
+		return completed.sum();
+	}
+	
+	@Override
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+	
+	@Override
+	public long getWaitTimePercentileMillis(double percentile) {
+		return TimeUnit.NANOSECONDS.toMillis(waitTime.getPercentile(percentile));
+	}
+	
+	@Override
+	public long getRunTimePercentileMillis(double percentile) {
+		return TimeUnit.NANOSECONDS.toMillis(runTime.getPercentile(percentile));
+	}
+	
+	@Override
+	public void reset() {
+		completed.reset();
+		rejected.reset();
+		waitTime.reset();
+		runTime.reset();
+	}
+	
+	private static final class Owner {
+		
+		private final String id;
+		
+		private final Deque<Task> queue = new ArrayDeque<>();
+		
+		private int active;
+		
+		private Owner(String id) {
+			this.id = id;
+		}
+	}
+	
+	private static final class Task {
+		
+		private final String owner;
+		
+		private final Runnable command;
+		
+		private final long submittedAt = System.nanoTime();
+		
+		private Task(String owner, Runnable command) {
+			this.owner = owner;
+			this.command = command;
+		}
+	}
+}
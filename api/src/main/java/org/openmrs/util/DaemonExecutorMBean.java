@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+/**
+ * JMX view of the executor running daemon tasks, registered as
+ * <code>org.openmrs:type=DaemonExecutor</code>
+ * 
+ * @since 2.8.0
+ */
+public interface DaemonExecutorMBean {
+	
+	/**
+	 * @return true if tasks run on virtual threads
+	 */
+	boolean isVirtualThreads();
+	
+	int getMaxConcurrency();
+	
+	void setMaxConcurrency(int maxConcurrency);
+	
+	int getMaxConcurrencyPerModule();
+	
+	void setMaxConcurrencyPerModule(int maxConcurrencyPerModule);
+	
+	int getQueueCapacity();
+	
+	void setQueueCapacity(int queueCapacity);
+	
+	String getRejectionPolicy();
+	
+	/**
+	 * @return the number of tasks running
+	 */
+	int getActiveCount();
+	
+	/**
+	 * @return the number of tasks waiting to run
+	 */
+	int getQueueDepth();
+	
+	/**
+	 * @return one line per module with tasks running or waiting to run
+	 */
+	String[] getModuleReport();
+	
+	long getCompletedCount();
+	
+	/**
+	 * @return the number of tasks rejected because the queue was full
+	 */
+	long getRejectedCount();
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the time tasks waited in the queue at the given percentile
+	 */
+	long getWaitTimePercentileMillis(double percentile);
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the time tasks took to run at the given percentile
+	 */
+	long getRunTimePercentileMillis(double percentile);
+	
+	/**
+	 * Discards all recorded statistics
+	 */
+	void reset();
+}
@@ -26,6 +26,8 @@ import org.openmrs.ConceptName;
 import org.openmrs.Drug;
 import org.openmrs.Form;
 import org.openmrs.FormField;
+import org.openmrs.api.cache.FormSchema;
+import org.openmrs.api.cache.FormSchemaCache;
 import org.openmrs.hl7.HL7Constants;
 
 /**
@@ -156,6 +158,7 @@ public class FormUtil {
 	 * @param form form for which structure is requested
 	 * @return sorted map of <code>FormField</code>s, where the top-level fields are under the key
 	 *         zero and all other leaves are stored under their parent <code>FormField</code>'s id.
+	 * @see #getFormSchema(Form)
 	 */
 	public static Map<Integer, TreeSet<FormField>> getFormStructure(Form form) {
 		Map<Integer, TreeSet<FormField>> formStructure = new TreeMap<>();
@@ -179,6 +182,20 @@ public class FormUtil {
 		return formStructure;
 	}
 	
+	/**
+	 * Returns the compiled schema of the given version of a form, with the form fields in the same
+	 * order as {@link #getFormStructure(Form)}. Schemas are cached per form version, so this is
+	 * the cheaper choice for code that renders forms repeatedly and doesn't need the
+	 * <code>FormField</code> objects themselves.
+	 *
+	 * @param form the form for which the schema is requested
+	 * @return the compiled schema of the form
+	 * @since 2.8.0
+	 */
+	public static FormSchema getFormSchema(Form form) {
+		return FormSchemaCache.getFormSchema(form);
+	}
+	
 	public static String dateToString() {
 		return dateToString(new Date());
 	}
@@ -9,11 +9,15 @@
  */
 package org.openmrs.util;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.MissingResourceException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.LocaleUtils;
 import org.openmrs.GlobalProperty;
@@ -42,6 +46,37 @@ public class LocaleUtility implements GlobalPropertyListener {
 	 */
 	private static List<Locale> localesAllowedListCache = null;
 	
+	/**
+	 * The result of {@link #getLocalesInOrder()} by user locale, cleared whenever the default locale
+	 * or the allowed locales change
+	 */
+	private static final ConcurrentMap<Locale, LocalesInOrder> localesInOrderCache = new ConcurrentHashMap<>();
+	
+	private static final int LOCALES_IN_ORDER_CACHE_SIZE = 100;
+	
+	/**
+	 * Incremented whenever {@link #localesInOrderCache} is cleared, so that results computed from
+	 * the values before are not cached
+	 */
+	private static final AtomicLong localesInOrderGeneration = new AtomicLong();
+	
+	/**
+	 * Guards puts into {@link #localesInOrderCache} against clears, not taken for lookups
+	 */
+	private static final Object localesInOrderLock = new Object();
+	
+	private static final class LocalesInOrder {
+		
+		private final Locale defaultLocale;
+		
+		private final Set<Locale> locales;
+		
+		private LocalesInOrder(Locale defaultLocale, Set<Locale> locales) {
+			this.defaultLocale = defaultLocale;
+			this.locales = locales;
+		}
+	}
+	
 	/**
 	 * Gets the default locale specified as a global property.
 	 *
@@ -169,9 +204,10 @@ public class LocaleUtility implements GlobalPropertyListener {
 	 * Utility method that returns a collection of all openmrs system locales, the set includes the
 	 * current logged in user's preferred locale if any is set, the default locale, allowed locales
 	 * in the order they are specified in the 'allowed.locale.list' global property and 'en' at the
-	 * very end of the set if it isn't yet among them.
+	 * very end of the set if it isn't yet among them. The set is computed once per user locale and
+	 * cached until the default locale or the allowed locales change.
 	 *
-	 * @return a collection of all specified and allowed locales with no duplicates.
+	 * @return an unmodifiable collection of all specified and allowed locales with no duplicates.
 	 * <strong>Should</strong> return a set of locales with a predictable order
 	 * <strong>Should</strong> return a set of locales with no duplicates
 	 * <strong>Should</strong> have default locale as the first element if user has no preferred locale
@@ -181,30 +217,73 @@ public class LocaleUtility implements GlobalPropertyListener {
 	 * @since 1.7
 	 */
 	public static Set<Locale> getLocalesInOrder() {
+		long generation = localesInOrderGeneration.get();
+		Locale userLocale = Context.getLocale();
+		Locale defaultLocale = getDefaultLocale();
+		if (userLocale != null) {
+			LocalesInOrder cached = localesInOrderCache.get(userLocale);
+			if (cached != null && cached.defaultLocale.equals(defaultLocale)) {
+				return cached.locales;
+			}
+		}
 		
 		Set<Locale> locales = new LinkedHashSet<>();
-		locales.add(Context.getLocale());
-		locales.add(getDefaultLocale());
-		if (localesAllowedListCache == null) {
-			localesAllowedListCache = Context.getAdministrationService().getAllowedLocales();
+		locales.add(userLocale);
+		locales.add(defaultLocale);
+		List<Locale> allowedLocales = localesAllowedListCache;
+		if (allowedLocales == null) {
+			allowedLocales = Context.getAdministrationService().getAllowedLocales();
+			synchronized (localesInOrderLock) {
+				// the allowed locales may have changed meanwhile
+				if (localesInOrderGeneration.get() == generation) {
+					localesAllowedListCache = allowedLocales;
+				}
+			}
 		}
 		
-		if (localesAllowedListCache != null) {
-			locales.addAll(localesAllowedListCache);
+		if (allowedLocales != null) {
+			locales.addAll(allowedLocales);
 		}
 		
 		locales.add(Locale.ENGLISH);
 		locales.add(fromSpecification(OpenmrsConstants.GLOBAL_PROPERTY_DEFAULT_LOCALE_DEFAULT_VALUE));
 		
-		return locales;
+		Set<Locale> result = Collections.unmodifiableSet(locales);
+		if (userLocale != null && defaultLocale != null) {
+			putLocalesInOrder(userLocale, new LocalesInOrder(defaultLocale, result), generation);
+		}
+		return result;
+	}
+	
+	/**
+	 * Caches locales in order unless the cache was cleared since they started being computed
+	 */
+	private static void putLocalesInOrder(Locale userLocale, LocalesInOrder localesInOrder, long computedGeneration) {
+		synchronized (localesInOrderLock) {
+			if (localesInOrderGeneration.get() == computedGeneration) {
+				if (localesInOrderCache.size() >= LOCALES_IN_ORDER_CACHE_SIZE) {
+					localesInOrderCache.clear();
+				}
+				localesInOrderCache.put(userLocale, localesInOrder);
+			}
+		}
+	}
+	
+	private static void clearLocalesInOrderCache() {
+		synchronized (localesInOrderLock) {
+			localesInOrderGeneration.incrementAndGet();
+			localesInOrderCache.clear();
+		}
 	}
 	
 	public static void setDefaultLocaleCache(Locale defaultLocaleCache) {
 		LocaleUtility.defaultLocaleCache = defaultLocaleCache;
+		clearLocalesInOrderCache();
 	}
 	
 	public static void setLocalesAllowedListCache(List<Locale> localesAllowedListCache) {
 		LocaleUtility.localesAllowedListCache = localesAllowedListCache;
+		clearLocalesInOrderCache();
 	}
 	
 	@Override
@@ -10,10 +10,16 @@
 package org.openmrs.util;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,10 +31,16 @@ import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.util.StringUtils;
 
 /**
  * Reflection utilities to search the classpath for classes that have a given annotation, implement
  * a given interface, etc
+ * <p>
+ * Jars and class directories built with the openmrs-tools annotation processor contain an index of
+ * their annotated classes at {@value #INDEX_LOCATION}, which is read instead of scanning their class
+ * files. Only the ones without an index, like those of modules built against older versions, are
+ * scanned.
  * 
  * @since 1.10
  */
@@ -36,11 +48,22 @@ public class OpenmrsClassScanner {
 	
 	private static final Logger log = LoggerFactory.getLogger(OpenmrsClassScanner.class);
 	
+	/**
+	 * The location of the index written by org.openmrs.tools.index.ClassIndexProcessor
+	 * 
+	 * @since 2.8.0
+	 */
+	public static final String INDEX_LOCATION = "META-INF/openmrs-class-index.properties";
+	
+	private static final String SCANNED_PACKAGE = "org/openmrs/";
+	
+	private static final String INDEXED_ANNOTATION_PREFIX = "org.openmrs.";
+	
 	private final MetadataReaderFactory metadataReaderFactory;
 	
 	private final ResourcePatternResolver resourceResolver;
 	
-	private Map<Class<?>, Set<Class<?>>> annotationToClassMap;
+	private final Map<Class<?>, Set<Class<?>>> annotationToClassMap = new ConcurrentHashMap<>();
 	
 	private OpenmrsClassScanner() {
 		this.metadataReaderFactory = new SimpleMetadataReaderFactory(OpenmrsClassLoader.getInstance());
@@ -67,39 +90,45 @@ public class OpenmrsClassScanner {
 	 * 
 	 * @param annotationClass the annotation class
 	 * @return the list of found classes
+	 * <strong>Should</strong> find classes with the given annotation
+	 * <strong>Should</strong> return the cached classes for repeated lookups
 	 */
 	public Set<Class<?>> getClassesWithAnnotation(Class annotationClass) {
-		
-		if (annotationToClassMap != null) {
-			if (annotationToClassMap.containsKey(annotationClass)) {
-				return annotationToClassMap.get(annotationClass);
-			}
-		} else {
-			annotationToClassMap = new HashMap<>();
+		Set<Class<?>> types = annotationToClassMap.get(annotationClass);
+		if (types != null) {
+			return types;
 		}
 		
+		// not computeIfAbsent, loading the classes may initialize classes looking up other annotations
+		types = findClassesWithAnnotation(annotationClass);
+		Set<Class<?>> existing = annotationToClassMap.putIfAbsent(annotationClass, types);
+		
+		return existing != null ? existing : types;
+	}
+	
+	private Set<Class<?>> findClassesWithAnnotation(Class<?> annotationClass) {
 		Set<Class<?>> types = new HashSet<>();
-		String pattern = "classpath*:org/openmrs/**/*.class";
 		
 		try {
-			Resource[] resources = resourceResolver.getResources(pattern);
-			TypeFilter typeFilter = new AnnotationTypeFilter(annotationClass);
-			for (Resource resource : resources) {
+			Map<String, Properties> indexes = annotationClass.getName().startsWith(INDEXED_ANNOTATION_PREFIX)
+			        ? getIndexes() : new HashMap<>();
+			Set<String> classnames = new LinkedHashSet<>();
+			for (String root : getClasspathRoots()) {
+				Properties index = indexes.get(root);
+				if (index != null) {
+					classnames.addAll(StringUtils.commaDelimitedListToSet(index.getProperty(annotationClass.getName())));
+				} else {
+					log.debug("Scanning {} for classes with annotation {}", root, annotationClass.getName());
+					classnames.addAll(scan(root, annotationClass));
+				}
+			}
+			
+			for (String classname : classnames) {
 				try {
-					MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
-					if (typeFilter.match(metadataReader, metadataReaderFactory)) {
-						String classname = metadataReader.getClassMetadata().getClassName();
-						try {
-							Class<?> metadata = OpenmrsClassLoader.getInstance().loadClass(classname);
-							types.add(metadata);
-						}
-						catch (ClassNotFoundException e) {
-							throw new IOException("Class cannot be loaded: " + classname, e);
-						}
-					}
+					types.add(OpenmrsClassLoader.getInstance().loadClass(classname));
 				}
-				catch (IOException e) {
-					log.debug("Resource cannot be loaded: " + resource);
+				catch (ClassNotFoundException | LinkageError e) {
+					log.debug("Class cannot be loaded: " + classname, e);
 				}
 			}
 		}
@@ -107,11 +136,63 @@ public class OpenmrsClassScanner {
 			log.error("Failed to look for classes with annocation" + annotationClass, ex);
 		}
 		
-		annotationToClassMap.put(annotationClass, types);
-		
 		return types;
 	}
 	
+	/**
+	 * @return the jars and directories containing org.openmrs classes as URL strings ending with /
+	 */
+	private Set<String> getClasspathRoots() throws IOException {
+		Set<String> roots = new LinkedHashSet<>();
+		Enumeration<URL> urls = OpenmrsClassLoader.getInstance().getResources(SCANNED_PACKAGE);
+		while (urls.hasMoreElements()) {
+			String url = urls.nextElement().toString();
+			if (url.endsWith(SCANNED_PACKAGE)) {
+				roots.add(url.substring(0, url.length() - SCANNED_PACKAGE.length()));
+			}
+		}
+		return roots;
+	}
+	
+	/**
+	 * @return the class indexes by the root of the jar or directory containing them
+	 */
+	private Map<String, Properties> getIndexes() throws IOException {
+		Map<String, Properties> indexes = new HashMap<>();
+		Enumeration<URL> urls = OpenmrsClassLoader.getInstance().getResources(INDEX_LOCATION);
+		while (urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			Properties index = new Properties();
+			try (InputStream in = url.openStream()) {
+				index.load(in);
+			}
+			catch (IOException e) {
+				log.warn("Failed to read class index {}, the classes next to it will be scanned", url, e);
+				continue;
+			}
+			String location = url.toString();
+			indexes.put(location.substring(0, location.length() - INDEX_LOCATION.length()), index);
+		}
+		return indexes;
+	}
+	
+	private Set<String> scan(String root, Class<?> annotationClass) throws IOException {
+		Set<String> classnames = new HashSet<>();
+		TypeFilter typeFilter = new AnnotationTypeFilter((Class) annotationClass);
+		for (Resource resource : resourceResolver.getResources(root + SCANNED_PACKAGE + "**/*.class")) {
+			try {
+				MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
+				if (typeFilter.match(metadataReader, metadataReaderFactory)) {
+					classnames.add(metadataReader.getClassMetadata().getClassName());
+				}
+			}
+			catch (IOException e) {
+				log.debug("Resource cannot be loaded: " + resource);
+			}
+		}
+		return classnames;
+	}
+	
 	/**
 	 * Private class to hold the one class scanner used throughout openmrs. This is an alternative
 	 * to storing the instance object on {@link OpenmrsClassScanner} itself so that garbage
@@ -641,6 +641,22 @@ public final class OpenmrsConstants {
 	 */
 	public static final String GP_NUMBER_OF_DAYS_TO_AUTO_RETIRE_USERS = "users.numberOfDaysToRetire";
 	
+	/**
+	 * Global property that makes patient merges reassign visits, encounters, obs, orders, diagnoses and
+	 * program enrollments with bulk updates instead of saving them one at a time
+	 * 
+	 * @since 2.8.0
+	 */
+	public static final String GP_PATIENT_MERGE_BULK_UPDATES = "patient.merge.bulkUpdates";
+	
+	/**
+	 * Global property for the maximum number of rows changed by a single statement of a bulk patient
+	 * merge
+	 * 
+	 * @since 2.8.0
+	 */
+	public static final String GP_PATIENT_MERGE_BATCH_SIZE = "patient.merge.batchSize";
+	
 	/**
 	 * At OpenMRS startup these global properties/default values/descriptions are inserted into the
 	 * database if they do not exist yet.
@@ -1117,6 +1133,14 @@ public final class OpenmrsConstants {
 				.add(new GlobalProperty(GP_DRUG_ORDER_DRUG_OTHER, "", "Specifies the uuid of the concept which represents drug other non coded"));
 		props.add(new GlobalProperty(GP_LOGIN_URL, LOGIN_URL,
 			"Responsible for defining the Authentication URL "));
+		
+		props.add(new GlobalProperty(GP_PATIENT_MERGE_BULK_UPDATES, "false",
+		        "If true, patient merges move visits, encounters, obs, orders, diagnoses and program enrollments with bulk "
+		                + "updates. Obs are then moved as they are instead of being voided and copied to the preferred patient.",
+		        BooleanDatatype.class, null));
+		
+		props.add(new GlobalProperty(GP_PATIENT_MERGE_BATCH_SIZE, "1000",
+		        "The maximum number of rows updated by a single statement when patients are merged with bulk updates"));
 		props.addAll(ModuleFactory.getGlobalProperties());
 		
 		return props;
@@ -10,9 +10,16 @@
 package org.openmrs.util;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class OpenmrsThreadPoolHolder {
 	
-	public static final ExecutorService threadExecutor = Executors.newCachedThreadPool();
+	public static final ExecutorService threadExecutor = new DaemonExecutor();
+	
+	/**
+	 * @return the executor behind {@link #threadExecutor}, which runs tasks on behalf of modules
+	 * @since 2.8.0
+	 */
+	public static DaemonExecutor getDaemonExecutor() {
+		return (DaemonExecutor) threadExecutor;
+	}
 }
@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A fixed number of locks shared by all keys, where equal keys always get the same lock. It makes
+ * work on one key, e.g. a patient, exclusive without making all work exclusive and without keeping
+ * a lock per key.
+ * 
+ * @since 2.8.0
+ */
+public class StripedLock {
+	
+	private final ReentrantLock[] locks;
+	
+	/**
+	 * @param stripes the number of locks, rounded up to a power of two
+	 */
+	public StripedLock(int stripes) {
+		if (stripes < 1) {
+			throw new IllegalArgumentException("The number of stripes must be at least 1");
+		}
+		int size = Integer.highestOneBit(stripes);
+		if (size < stripes) {
+			size <<= 1;
+		}
+		locks = new ReentrantLock[size];
+		for (int i = 0; i < size; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+	
+	/**
+	 * @param key the key, may be null
+	 * @return the lock of the given key
+	 */
+	public Lock getLock(Object key) {
+		int hash = key == null ? 0 : key.hashCode();
+		return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+	}
+	
+	/**
+	 * Acquires the lock of the given key and releases it when the current transaction completes, so
+	 * that the changes made holding it are committed before the next holder can read them. The lock
+	 * is reentrant, a transaction may lock the same key several times.
+	 * <p>
+	 * Transactions locking several keys can wait for each other, also because keys share locks, so
+	 * the wait is bounded by the given timeout.
+	 * 
+	 * @param key the key, may be null
+	 * @param timeout the maximum time to wait for the lock
+	 * @param unit the unit of the timeout
+	 * @return true if the lock was acquired, false if the timeout elapsed first
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * @throws IllegalStateException if transaction synchronization is not active
+	 * <strong>Should</strong> let transactions locking different keys proceed in parallel
+	 * <strong>Should</strong> keep the lock until the transaction completes
+	 * <strong>Should</strong> return false if the lock is not acquired within the timeout
+	 */
+	public boolean lockUntilTransactionCompletes(Object key, long timeout, TimeUnit unit) throws InterruptedException {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Transaction synchronization is not active");
+		}
+		
+		Lock lock = getLock(key);
+		if (!lock.tryLock(timeout, unit)) {
+			return false;
+		}
+		try {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					lock.unlock();
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			lock.unlock();
+			throw e;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations in nanoseconds with one bucket per power of two. Recording a
+ * value only increments a counter, so it neither blocks nor allocates; percentiles are reported as
+ * the upper bound of the bucket they fall in, i.e. with a precision of a factor of two.
+ * 
+ * @since 2.8.0
+ */
+public class LatencyHistogram {
+	
+	private static final int BUCKETS = 64;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	
+	/**
+	 * @param nanos the duration to record
+	 */
+	public void record(long nanos) {
+		counts.incrementAndGet(bucket(nanos));
+	}
+	
+	/**
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+	
+	/**
+	 * @param percentile the percentile between 0 and 100
+	 * @return the upper bound in nanoseconds of the bucket containing the percentile, 0 if nothing
+	 *         has been recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		
+		long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank && snapshot[i] > 0) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(BUCKETS - 1);
+	}
+	
+	/**
+	 * Discards all recorded values
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+	
+	static int bucket(long nanos) {
+		return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+	}
+	
+	private static long upperBound(int bucket) {
+		return bucket >= 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+	}
+}
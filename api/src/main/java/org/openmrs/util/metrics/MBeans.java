@@ -0,0 +1,74 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers the MBeans of OpenMRS with the platform MBean server. Failures are logged rather than
+ * thrown, since the metrics must never keep the application from starting or stopping.
+ * 
+ * @since 2.8.0
+ */
+public final class MBeans {
+	
+	private static final Logger log = LoggerFactory.getLogger(MBeans.class);
+	
+	private MBeans() {
+	}
+	
+	/**
+	 * Registers the given object with the platform MBean server unless an MBean of the given name is
+	 * registered already
+	 * 
+	 * @param mbean the object to register
+	 * @param objectName the name to register it under
+	 * <strong>Should</strong> register the object under the given name
+	 * <strong>Should</strong> keep an object that is registered already
+	 */
+	public static void register(Object mbean, String objectName) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(objectName);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(mbean, name);
+			}
+		}
+		catch (JMException | SecurityException e) {
+			log.warn("Unable to register the MBean {}", objectName, e);
+		}
+	}
+	
+	/**
+	 * Removes the MBean of the given name from the platform MBean server if it is registered
+	 * 
+	 * @param objectName the name of the MBean to remove
+	 * <strong>Should</strong> unregister the object of the given name
+	 */
+	public static void unregister(String objectName) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(objectName);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		}
+		catch (JMException | SecurityException e) {
+			log.warn("Unable to unregister the MBean {}", objectName, e);
+		}
+	}
+}
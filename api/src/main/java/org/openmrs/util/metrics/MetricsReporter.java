@@ -0,0 +1,37 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import java.lang.reflect.Method;
+
+/**
+ * Service provider interface for exporting OpenMRS metrics to a monitoring system. Any Spring bean
+ * implementing this interface, in core or in a module, is called for every measured service call.
+ * Implementations are called on the thread of the service call and must therefore be fast and
+ * must not throw exceptions.
+ * 
+ * @see org.openmrs.aop.ServiceMetricsAdvice
+ * @since 2.8.0
+ */
+public interface MetricsReporter {
+	
+	/**
+	 * Called after each service method call
+	 * 
+	 * @param method the service interface method that was called
+	 * @param durationNanos the duration of the call in nanoseconds
+	 * @param failed true if the call threw an exception
+	 * @param sqlStatements the number of SQL statements prepared during the call, including nested
+	 *            service calls
+	 * @param entityLoads the number of entities loaded by hibernate during the call, including
+	 *            nested service calls
+	 */
+	void recordServiceCall(Method method, long durationNanos, boolean failed, long sqlStatements, long entityLoads);
+}
@@ -0,0 +1,144 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of all calls of a single service method
+ * 
+ * @since 2.8.0
+ */
+public class ServiceMethodStats {
+	
+	private final String name;
+	
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	
+	private final LongAdder calls = new LongAdder();
+	
+	private final LongAdder errors = new LongAdder();
+	
+	private final LongAdder totalNanos = new LongAdder();
+	
+	private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+	
+	private final LongAdder sqlStatements = new LongAdder();
+	
+	private final LongAdder entityLoads = new LongAdder();
+	
+	public ServiceMethodStats(Method method) {
+		this.name = getName(method);
+	}
+	
+	/**
+	 * @param method a service method
+	 * @return the simple name of the declaring class, the method name and the simple names of the
+	 *         parameter types, e.g. <code>PatientService.getPatient(Integer)</code>
+	 */
+	public static String getName(Method method) {
+		StringBuilder sb = new StringBuilder(method.getDeclaringClass().getSimpleName()).append('.')
+		        .append(method.getName()).append('(');
+		Class<?>[] types = method.getParameterTypes();
+		for (int i = 0; i < types.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(types[i].getSimpleName());
+		}
+		return sb.append(')').toString();
+	}
+	
+	/**
+	 * Records a single call, this neither blocks nor allocates
+	 * 
+	 * @param nanos the duration of the call
+	 * @param failed whether the call threw an exception
+	 * @param statements the number of SQL statements prepared during the call
+	 * @param loads the number of entities loaded during the call
+	 */
+	public void record(long nanos, boolean failed, long statements, long loads) {
+		calls.increment();
+		if (failed) {
+			errors.increment();
+		}
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		latencies.record(nanos);
+		sqlStatements.add(statements);
+		entityLoads.add(loads);
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public long getCalls() {
+		return calls.sum();
+	}
+	
+	public long getErrors() {
+		return errors.sum();
+	}
+	
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+	
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+	
+	public long getSqlStatements() {
+		return sqlStatements.sum();
+	}
+	
+	public long getEntityLoads() {
+		return entityLoads.sum();
+	}
+	
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+	
+	/**
+	 * @return the average number of SQL statements per call, a high value hints at N+1 queries
+	 */
+	public double getSqlStatementsPerCall() {
+		long count = getCalls();
+		return count == 0 ? 0 : (double) getSqlStatements() / count;
+	}
+	
+	public void reset() {
+		calls.reset();
+		errors.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		latencies.reset();
+		sqlStatements.reset();
+		entityLoads.reset();
+	}
+	
+	@Override
+	public String toString() {
+		long count = getCalls();
+		return String.format("%s calls=%d errors=%d avg=%.3fms p50=%.3fms p99=%.3fms max=%.3fms sql/call=%.1f loads/call=%.1f",
+		    name, count, getErrors(), count == 0 ? 0 : toMillis(getTotalNanos() / count),
+		    toMillis(latencies.getPercentile(50)), toMillis(latencies.getPercentile(99)), toMillis(getMaxNanos()),
+		    getSqlStatementsPerCall(), count == 0 ? 0 : (double) getEntityLoads() / count);
+	}
+	
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link ServiceMethodStats} of every measured service method. The statistics are kept
+ * by method signature and only looked up by {@link Method} through the declaring class, so that
+ * they neither pin the class loaders of stopped modules nor start over when a module is reloaded.
+ * 
+ * @see org.openmrs.aop.ServiceMetricsAdvice
+ * @since 2.8.0
+ */
+public class ServiceMetrics implements ServiceMetricsMBean {
+	
+	public static final String OBJECT_NAME = "org.openmrs:type=ServiceMetrics";
+	
+	/**
+	 * The default duration after which a service call is logged as slow
+	 */
+	public static final long DEFAULT_SLOW_CALL_THRESHOLD_MILLIS = 1000;
+	
+	private static final ServiceMetrics INSTANCE = new ServiceMetrics();
+	
+	private final ConcurrentMap<String, ServiceMethodStats> stats = new ConcurrentHashMap<>();
+	
+	private final ClassValue<Map<Method, ServiceMethodStats>> statsByClass = new ClassValue<Map<Method, ServiceMethodStats>>() {
+		
+		@Override
+		protected Map<Method, ServiceMethodStats> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
+	private volatile boolean enabled = true;
+	
+	private volatile long slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_CALL_THRESHOLD_MILLIS);
+	
+	public ServiceMetrics() {
+	}
+	
+	public static ServiceMetrics getInstance() {
+		return INSTANCE;
+	}
+	
+	/**
+	 * @param method the service method
+	 * @return the statistics of the method, created on first use
+	 */
+	public ServiceMethodStats getStats(Method method) {
+		Map<Method, ServiceMethodStats> classStats = statsByClass.get(method.getDeclaringClass());
+		ServiceMethodStats methodStats = classStats.get(method);
+		if (methodStats == null) {
+			methodStats = classStats.computeIfAbsent(method,
+			    m -> stats.computeIfAbsent(m.toString(), signature -> new ServiceMethodStats(m)));
+		}
+		return methodStats;
+	}
+	
+	/**
+	 * @return the statistics of all methods called so far
+	 */
+	public Collection<ServiceMethodStats> getAllStats() {
+		return stats.values();
+	}
+	
+	/**
+	 * @param nanos the duration of a call
+	 * @return true if the duration exceeds the slow call threshold
+	 */
+	public boolean isSlow(long nanos) {
+		long threshold = slowCallThresholdNanos;
+		return threshold > 0 && nanos >= threshold;
+	}
+	
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	@Override
+	public long getSlowCallThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(slowCallThresholdNanos);
+	}
+	
+	/**
+	 * @param slowCallThresholdMillis the duration after which calls are logged as slow, 0 disables
+	 *            the slow call log
+	 */
+	@Override
+	public void setSlowCallThresholdMillis(long slowCallThresholdMillis) {
+		this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMillis);
+	}
+	
+	@Override
+	public String[] getMethodNames() {
+		List<String> names = new ArrayList<>();
+		for (ServiceMethodStats methodStats : stats.values()) {
+			names.add(methodStats.getName());
+		}
+		names.sort(null);
+		return names.toArray(new String[0]);
+	}
+	
+	@Override
+	public String[] getReport() {
+		List<ServiceMethodStats> sorted = new ArrayList<>(stats.values());
+		sorted.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+		String[] report = new String[sorted.size()];
+		for (int i = 0; i < report.length; i++) {
+			report[i] = sorted.get(i).toString();
+		}
+		return report;
+	}
+	
+	@Override
+	public String getStatistics(String methodName) {
+		for (ServiceMethodStats methodStats : stats.values()) {
+			if (methodStats.getName().equals(methodName)) {
+				return methodStats.toString();
+			}
+		}
+		return null;
+	}
+	
+	@Override
+	public void reset() {
+		for (ServiceMethodStats methodStats : stats.values()) {
+			methodStats.reset();
+		}
+	}
+	
+	/**
+	 * Registers this object with the platform MBean server unless it already is
+	 */
+	public void registerMBean() {
+		MBeans.register(this, OBJECT_NAME);
+	}
+	
+	/**
+	 * Removes this object from the platform MBean server
+	 */
+	public void unregisterMBean() {
+		MBeans.unregister(OBJECT_NAME);
+	}
+}
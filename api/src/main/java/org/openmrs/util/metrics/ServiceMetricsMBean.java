@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+/**
+ * JMX view of the service method statistics, registered as
+ * <code>org.openmrs:type=ServiceMetrics</code>
+ * 
+ * @since 2.8.0
+ */
+public interface ServiceMetricsMBean {
+	
+	boolean isEnabled();
+	
+	void setEnabled(boolean enabled);
+	
+	long getSlowCallThresholdMillis();
+	
+	void setSlowCallThresholdMillis(long slowCallThresholdMillis);
+	
+	/**
+	 * @return the names of all methods with recorded calls
+	 */
+	String[] getMethodNames();
+	
+	/**
+	 * @return one line of statistics per method, ordered by total time spent descending
+	 */
+	String[] getReport();
+	
+	/**
+	 * @param methodName a name as returned by {@link #getMethodNames()}
+	 * @return the statistics of the method or null if no calls have been recorded
+	 */
+	String getStatistics(String methodName);
+	
+	/**
+	 * Discards all recorded statistics
+	 */
+	void reset();
+}
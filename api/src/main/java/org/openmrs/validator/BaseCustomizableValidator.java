@@ -9,11 +9,15 @@
  */
 package org.openmrs.validator;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.openmrs.api.APIException;
 import org.openmrs.attribute.Attribute;
 import org.openmrs.attribute.AttributeType;
+import org.openmrs.attribute.BaseAttribute;
+import org.openmrs.customdatatype.CustomDatatypeUtil;
 import org.openmrs.customdatatype.Customizable;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
@@ -57,6 +61,7 @@ public abstract class BaseCustomizableValidator implements Validator {
 		}
 		
 		// validate all non-voided attributes for their values (we already checked minOccurs and maxOccurs for the types)
+		loadValues(customizable.getActiveAttributes());
 		boolean errorsInAttributes = false;
 		for (Attribute attr : customizable.getActiveAttributes()) {
 			try {
@@ -72,4 +77,18 @@ public abstract class BaseCustomizableValidator implements Validator {
 		}
 	}
 	
+	/**
+	 * Loads the values of the given attributes in bulk, since validating them reads every value
+	 */
+	@SuppressWarnings("rawtypes")
+	private static void loadValues(Collection<? extends Attribute> attributes) {
+		List<BaseAttribute<?, ?>> baseAttributes = new ArrayList<>();
+		for (Attribute attribute : attributes) {
+			if (attribute instanceof BaseAttribute) {
+				baseAttributes.add((BaseAttribute<?, ?>) attribute);
+			}
+		}
+		CustomDatatypeUtil.loadValues(baseAttributes);
+	}
+	
 }
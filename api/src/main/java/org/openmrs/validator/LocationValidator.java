@@ -50,6 +50,7 @@ public class LocationValidator extends BaseCustomizableValidator implements Vali
 	 * <strong>Should</strong> fail validation if name is exist in non retired locations
 	 * <strong>Should</strong> pass validation if field lengths are correct
 	 * <strong>Should</strong> fail validation if field lengths are not correct
+	 * <strong>Should</strong> validate the values of long free text attributes
 	 */
 	@Override
 	public void validate(Object obj, Errors errors) {
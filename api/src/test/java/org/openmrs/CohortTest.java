@@ -27,6 +27,7 @@ import java.util.Set;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
+import org.openmrs.util.CompressedIdSet;
 
 /**
  * Behavior-driven tests of the Cohort class.
@@ -336,4 +337,58 @@ public class CohortTest {
 		assertFalse(cohort.hasNoActiveMemberships());
 		
 	}
+	
+	@Test
+	public void constructorWithCompressedIdSet_shouldNotCreateMembershipsUntilAccessed() {
+		Cohort cohort = new Cohort("ids", "description", CompressedIdSet.of(1, 2, 3));
+		
+		assertEquals(3, cohort.size());
+		assertTrue(cohort.contains(2));
+		assertFalse(cohort.contains(4));
+		assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), cohort.getMemberIds());
+		
+		assertEquals(3, cohort.getMemberships().size());
+		assertTrue(cohort.getMemberships().stream().allMatch(m -> m.getStartDate() != null));
+		assertEquals(3, cohort.size());
+	}
+	
+	@Test
+	public void union_shouldCombineCohortsCreatedFromCompressedIdSets() {
+		Cohort a = new Cohort("a", "", CompressedIdSet.of(1, 2, 3));
+		Cohort b = new Cohort("b", "", CompressedIdSet.of(3, 4));
+		
+		Cohort union = Cohort.union(a, b);
+		assertEquals("(a + b)", union.getName());
+		assertEquals(CompressedIdSet.of(1, 2, 3, 4), union.getMemberIdSet());
+		
+		Cohort intersection = Cohort.intersect(a, b);
+		assertEquals("(a * b)", intersection.getName());
+		assertEquals(CompressedIdSet.of(3), intersection.getMemberIdSet());
+		
+		Cohort difference = Cohort.subtract(a, b);
+		assertEquals("(a - b)", difference.getName());
+		assertEquals(CompressedIdSet.of(1, 2), difference.getMemberIdSet());
+		
+		// the operands are left untouched
+		assertEquals(3, a.size());
+		assertEquals(2, b.size());
+	}
+	
+	@Test
+	public void union_shouldCombineCohortsCreatedFromIdsWithCohortsWithMemberships() {
+		Cohort a = new Cohort("a", "", CompressedIdSet.of(1, 2, 3));
+		Cohort b = new Cohort("b", "", new Integer[] { 3, 4 });
+		
+		assertEquals(new HashSet<>(Arrays.asList(1, 2, 3, 4)), Cohort.union(a, b).getMemberIds());
+	}
+	
+	@Test
+	public void getMemberIdSet_shouldExcludeVoidedMemberships() {
+		Cohort cohort = new Cohort("name", "description", ids);
+		CohortMembership voided = new CohortMembership(4);
+		voided.setVoided(true);
+		cohort.addMembership(voided);
+		
+		assertEquals(CompressedIdSet.of(1, 2, 3), cohort.getMemberIdSet());
+	}
 }
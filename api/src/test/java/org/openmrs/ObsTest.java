@@ -53,20 +53,13 @@ public class ObsTest {
 	private static final String FORM_NAMESPACE_PATH_SEPARATOR = "^";
 	
 	//ignore these fields, groupMembers and formNamespaceAndPath field are taken care of by other tests
-	private static final List<String> IGNORED_FIELDS = Arrays.asList("dirty", "log", "serialVersionUID",
+	private static final List<String> IGNORED_FIELDS = Arrays.asList("dirtyProperties", "OTHER_PROPERTY_MASK", "log", "serialVersionUID",
 	    "DATE_TIME_PATTERN", "TIME_PATTERN", "DATE_PATTERN", "FORM_NAMESPACE_PATH_SEPARATOR",
 	    "FORM_NAMESPACE_PATH_MAX_LENGTH", "obsId", "groupMembers", "uuid", "changedBy", "dateChanged", "voided", "voidedBy",
 	    "voidReason", "dateVoided", "formNamespaceAndPath", "$jacocoData", "referenceRange");
 	
-	private void resetObs(Obs obs) throws Exception {
-		Field field = Obs.class.getDeclaredField("dirty");
-		field.setAccessible(true);
-		try {
-			field.set(obs, false);
-		}
-		finally {
-			field.setAccessible(false);
-		}
+	private void resetObs(Obs obs) {
+		obs.clearDirtyProperties();
 		assertFalse(obs.isDirty());
 	}
 	
@@ -562,6 +555,7 @@ public class ObsTest {
 				BeanUtils.setProperty(obs, fieldName, generateValue(field, true));
 			}
 			assertEquals(obs.isDirty(), assertion, "Obs was not marked as dirty after changing: " + fieldName);
+			assertEquals(obs.isDirty(fieldName), assertion, "Obs did not track the change of: " + fieldName);
 			if ("person".equals(fieldName)) {
 				//Because setPerson updates the personId we need to reset personId to its original value 
 				//that matches that of person otherwise the test will fail for the personId field
@@ -637,6 +631,39 @@ public class ObsTest {
 		obs.setComment("some non null value");
 		assertFalse(obs.isDirty());
 	}
+
+	/**
+	 * @see Obs#isDirty(String)
+	 */
+	@Test
+	public void isDirty_shouldReturnTrueOnlyForTheChangedProperties() throws Exception {
+		Obs obs = createObs(2);
+		obs.setComment("some other comment");
+		obs.setStatus(Obs.Status.AMENDED);
+
+		assertTrue(obs.isDirty("comment"));
+		assertTrue(obs.isDirty("status"));
+		assertFalse(obs.isDirty("valueNumeric"));
+		assertFalse(obs.isDirty("concept"));
+		assertFalse(obs.isDirty("voided"));
+
+		resetObs(obs);
+		assertFalse(obs.isDirty("comment"));
+		assertFalse(obs.isDirty("status"));
+	}
+
+	/**
+	 * @see Obs#isDirty(String)
+	 */
+	@Test
+	public void isDirty_shouldReturnFalseForPropertiesSetBeforeTheObsWasSaved() throws Exception {
+		Obs obs = new Obs();
+		obs.setComment("some comment");
+		obs.setValueNumeric(10.0);
+
+		assertFalse(obs.isDirty("comment"));
+		assertFalse(obs.isDirty("valueNumeric"));
+	}
 	
 	/**
 	 * @see Obs#setFormField(String,String)
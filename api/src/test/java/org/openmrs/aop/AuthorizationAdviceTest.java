@@ -93,6 +93,15 @@ public class AuthorizationAdviceTest extends BaseContextSensitiveTest {
 	@Component("listener2")
 	public static class Listener2 extends Listener1 {}
 	
+	@Test
+	public void before_shouldLetUsersLackingAPrivilegeListedBeforeABlankOneCallTheMethodEvenIfAllAreRequired()
+	        throws Throwable {
+		Context.getUserContext().logout();
+		
+		new AuthorizationAdvice().before(
+		    AuthorizationPlanTest.SecuredService.class.getMethod("blankAfterRequiredPrivilege"), new Object[0], null);
+	}
+	
 	@Test
 	public void before_shouldThrowAPIAuthenticationException() {
 		Context.getUserContext().logout();
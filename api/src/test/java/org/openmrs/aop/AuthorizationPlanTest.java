@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.annotation.Authorized;
+
+/**
+ * Tests {@link AuthorizationPlan}.
+ */
+public class AuthorizationPlanTest {
+	
+	@Test
+	public void of_shouldKeepThePrivilegesInTheOrderOfTheAnnotation() throws Exception {
+		AuthorizationPlan plan = AuthorizationPlan.of(SecuredService.class.getMethod("requireAll"));
+		
+		assertArrayEquals(new String[] { "Privilege B", "Privilege A" }, plan.getPrivileges());
+		assertTrue(plan.isRequireAll());
+		assertFalse(plan.isAuthenticatedOnly());
+		assertFalse(plan.isUnrestricted());
+	}
+	
+	@Test
+	public void of_shouldOnlyRequireAuthenticationIfNoPrivilegesAreListed() throws Exception {
+		AuthorizationPlan plan = AuthorizationPlan.of(SecuredService.class.getMethod("authenticated"));
+		
+		assertArrayEquals(new String[0], plan.getPrivileges());
+		assertTrue(plan.isAuthenticatedOnly());
+		assertFalse(plan.isUnrestricted());
+	}
+	
+	@Test
+	public void of_shouldBeUnrestrictedWithoutAnnotationOrWithABlankPrivilege() throws Exception {
+		assertSame(AuthorizationPlan.UNRESTRICTED, AuthorizationPlan.of(SecuredService.class.getMethod("unsecured")));
+		assertSame(AuthorizationPlan.UNRESTRICTED, AuthorizationPlan.of(SecuredService.class.getMethod("blank")));
+	}
+	
+	@Test
+	public void of_shouldBeUnrestrictedWithABlankPrivilegeAfterPrivilegesThatAreAllRequired() throws Exception {
+		assertSame(AuthorizationPlan.UNRESTRICTED,
+		    AuthorizationPlan.of(SecuredService.class.getMethod("blankAfterRequiredPrivilege")));
+	}
+	
+	public interface SecuredService {
+		
+		@Authorized(value = { "Privilege B", "Privilege A", "Privilege B" }, requireAll = true)
+		void requireAll();
+		
+		@Authorized
+		void authenticated();
+		
+		@Authorized({ "Privilege A", "" })
+		void blank();
+		
+		@Authorized(value = { "Privilege A", "" }, requireAll = true)
+		void blankAfterRequiredPrivilege();
+		
+		void unsecured();
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.APIException;
+import org.openmrs.api.LocationService;
+import org.openmrs.util.metrics.MetricsReporter;
+import org.openmrs.util.metrics.ServiceMethodStats;
+import org.openmrs.util.metrics.ServiceMetrics;
+
+/**
+ * Tests the {@link ServiceMetricsAdvice} class.
+ */
+public class ServiceMetricsAdviceTest {
+	
+	private ServiceMetrics metrics;
+	
+	private ServiceMetricsAdvice advice;
+	
+	private MethodInvocation invocation;
+	
+	private Method method;
+	
+	@BeforeEach
+	public void setUp() throws Exception {
+		metrics = new ServiceMetrics();
+		advice = new ServiceMetricsAdvice(metrics);
+		method = LocationService.class.getMethod("getLocation", Integer.class);
+		invocation = mock(MethodInvocation.class);
+		when(invocation.getMethod()).thenReturn(method);
+	}
+	
+	@Test
+	public void invoke_shouldRecordSuccessfulCalls() throws Throwable {
+		Object location = new Object();
+		when(invocation.proceed()).thenReturn(location);
+		
+		assertSame(location, advice.invoke(invocation));
+		assertSame(location, advice.invoke(invocation));
+		
+		ServiceMethodStats stats = metrics.getStats(method);
+		assertEquals("LocationService.getLocation(Integer)", stats.getName());
+		assertEquals(2, stats.getCalls());
+		assertEquals(0, stats.getErrors());
+		assertEquals(2, stats.getLatencies().getCount());
+	}
+	
+	@Test
+	public void invoke_shouldRecordFailedCallsAndRethrow() throws Throwable {
+		when(invocation.proceed()).thenThrow(new APIException("failed"));
+		
+		assertThrows(APIException.class, () -> advice.invoke(invocation));
+		
+		ServiceMethodStats stats = metrics.getStats(method);
+		assertEquals(1, stats.getCalls());
+		assertEquals(1, stats.getErrors());
+	}
+	
+	@Test
+	public void invoke_shouldPassCallsToReporters() throws Throwable {
+		MetricsReporter reporter = mock(MetricsReporter.class);
+		advice.setReporters(Collections.singletonList(reporter));
+		
+		advice.invoke(invocation);
+		
+		verify(reporter).recordServiceCall(eq(method), anyLong(), eq(false), eq(0L), eq(0L));
+	}
+	
+	@Test
+	public void invoke_shouldNotRecordAnythingWhenDisabled() throws Throwable {
+		MetricsReporter reporter = mock(MetricsReporter.class);
+		advice.setReporters(Collections.singletonList(reporter));
+		metrics.setEnabled(false);
+		
+		advice.invoke(invocation);
+		
+		verify(invocation).proceed();
+		verify(reporter, never()).recordServiceCall(eq(method), anyLong(), eq(false), anyLong(), anyLong());
+		assertEquals(0, metrics.getMethodNames().length);
+	}
+}
@@ -34,6 +34,7 @@ import org.openmrs.Patient;
 import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.openmrs.util.CompressedIdSet;
 
 /**
  * Tests methods in the CohortService class TODO add all the rest of the tests
@@ -214,6 +215,21 @@ public class CohortServiceTest extends BaseContextSensitiveTest {
 		assertEquals(3, allCohorts.size());
 	}
 	
+	/**
+	 * @see CohortService#saveCohort(Cohort)
+	 */
+	@Test
+	public void saveCohort_shouldSaveMembershipsOfCohortsCreatedFromCompressedIdSets() {
+		Cohort cohort = new Cohort("compressed", "a cohort created from ids", CompressedIdSet.of(2, 6, 7));
+		service.saveCohort(cohort);
+		Context.flushSession();
+		Context.clearSession();
+		
+		Cohort saved = service.getCohortByUuid(cohort.getUuid());
+		assertEquals(3, saved.getMemberships().size());
+		assertEquals(CompressedIdSet.of(2, 6, 7), saved.getMemberIdSet());
+	}
+	
 	/**
 	 * @see CohortService#saveCohort(Cohort)
 	 */
@@ -10,9 +10,17 @@
 package org.openmrs.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.ClobDatatypeStorage;
 import org.openmrs.attribute.handler.DateDatatypeHandler;
 import org.openmrs.attribute.handler.LocationDatatypeHandler;
 import org.openmrs.customdatatype.CustomDatatype;
@@ -42,4 +50,35 @@ public class DatatypeServiceTest extends BaseContextSensitiveTest {
 		CustomDatatype locationDatatype = CustomDatatypeUtil.getDatatype(LocationDatatype.class.getName(), null);
 		assertEquals(LocationDatatypeHandler.class, service.getHandler(locationDatatype, null).getClass());
 	}
+	
+	/**
+	 * @see DatatypeService#getClobDatatypeStoragesByUuids(java.util.Collection)
+	 */
+	@Test
+	public void getClobDatatypeStoragesByUuids_shouldReturnAllClobStorageObjectsWithTheGivenUuids() {
+		DatatypeService service = Context.getDatatypeService();
+		ClobDatatypeStorage first = new ClobDatatypeStorage();
+		first.setValue("first");
+		service.saveClobDatatypeStorage(first);
+		ClobDatatypeStorage second = new ClobDatatypeStorage();
+		second.setValue("second");
+		service.saveClobDatatypeStorage(second);
+		
+		List<ClobDatatypeStorage> storages = service.getClobDatatypeStoragesByUuids(Arrays.asList(first.getUuid(), second
+		        .getUuid(), "no-such-uuid"));
+		
+		Set<String> values = new HashSet<>();
+		for (ClobDatatypeStorage storage : storages) {
+			values.add(storage.getValue());
+		}
+		assertEquals(new HashSet<>(Arrays.asList("first", "second")), values);
+	}
+	
+	/**
+	 * @see DatatypeService#getClobDatatypeStoragesByUuids(java.util.Collection)
+	 */
+	@Test
+	public void getClobDatatypeStoragesByUuids_shouldReturnAnEmptyListIfNoUuidsAreGiven() {
+		assertTrue(Context.getDatatypeService().getClobDatatypeStoragesByUuids(Collections.emptyList()).isEmpty());
+	}
 }
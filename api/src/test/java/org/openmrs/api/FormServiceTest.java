@@ -14,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -41,11 +42,13 @@ import org.openmrs.FormField;
 import org.openmrs.FormResource;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Obs;
+import org.openmrs.api.cache.FormSchema;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.obs.SerializableComplexObsHandler;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.openmrs.util.DateUtil;
+import org.openmrs.util.FormUtil;
 import org.openmrs.util.OpenmrsConstants;
 
 /**
@@ -1282,4 +1285,54 @@ public class FormServiceTest extends BaseContextSensitiveTest {
 		form = Context.getFormService().getForm("form_name_3", "3.0");
 		assertNull(form);
 	}
+	
+	/**
+	 * @see FormUtil#getFormSchema(Form)
+	 */
+	@Test
+	public void getFormSchema_shouldCompileTheFormFieldsInTheOrderOfTheFormStructure() {
+		Form form = Context.getFormService().getForm(1);
+		
+		FormSchema schema = FormUtil.getFormSchema(form);
+		
+		assertEquals(form.getFormFields().size(), schema.size());
+		List<Integer> expected = FormUtil.getFormStructure(form).get(0).stream().map(FormField::getFormFieldId)
+		        .collect(Collectors.toList());
+		assertEquals(expected, schema.getRoots().stream().map(FormSchema.Node::getFormFieldId).collect(Collectors.toList()));
+		assertSame(schema, FormUtil.getFormSchema(form));
+	}
+	
+	/**
+	 * @see FormService#saveFormField(FormField)
+	 */
+	@Test
+	public void saveFormField_shouldEvictTheCompiledSchemaOfTheForm() {
+		Form form = Context.getFormService().getForm(1);
+		FormSchema schema = FormUtil.getFormSchema(form);
+		
+		FormField formField = Context.getFormService().getFormField(2);
+		formField.setMaxOccurs(5);
+		Context.getFormService().saveFormField(formField);
+		
+		FormSchema updatedSchema = FormUtil.getFormSchema(form);
+		assertNotSame(schema, updatedSchema);
+		assertEquals(5, updatedSchema.getNode(2).getMaxOccurs().intValue());
+	}
+	
+	/**
+	 * @see ConceptService#saveConcept(Concept)
+	 */
+	@Test
+	public void saveConcept_shouldEvictTheCompiledSchemasOfForms() {
+		Form form = Context.getFormService().getForm(1);
+		FormSchema schema = FormUtil.getFormSchema(form);
+		FormField formField = form.getFormFields().stream().filter(ff -> ff.getField().getConcept() != null).findFirst()
+		        .get();
+		
+		Concept concept = formField.getField().getConcept();
+		concept.setVersion("2.0");
+		Context.getConceptService().saveConcept(concept);
+		
+		assertNotSame(schema, FormUtil.getFormSchema(form));
+	}
 }
@@ -0,0 +1,141 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.openmrs.Patient;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.api.db.ContextDAO;
+import org.openmrs.test.jupiter.BaseContextMockTest;
+import org.powermock.reflect.Whitebox;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Tests the {@link PatientMergeJob} class.
+ */
+public class PatientMergeJobTest extends BaseContextMockTest {
+	
+	@Mock
+	private PatientService patientService;
+	
+	@Mock
+	private ContextDAO contextDAO;
+	
+	@Mock
+	private ApplicationContext applicationContext;
+	
+	private final User user = new User(1);
+	
+	private UserContext callerContext;
+	
+	private final Patient preferred = new Patient(1);
+	
+	private final Patient first = new Patient(2);
+	
+	private final Patient second = new Patient(3);
+	
+	@BeforeEach
+	public void authenticateCaller() {
+		callerContext = new UserContext(Context.getAuthenticationScheme());
+		Whitebox.setInternalState(callerContext, "user", user);
+		when(contextDAO.getUser(1)).thenReturn(user);
+	}
+	
+	/**
+	 * @see PatientMergeJob#run()
+	 */
+	@Test
+	public void run_shouldMergeAllPatientsAndReportProgress() throws Exception {
+		when(patientService.getPatient(1)).thenReturn(preferred);
+		when(patientService.getPatient(2)).thenReturn(first);
+		when(patientService.getPatient(3)).thenReturn(second);
+		PatientMergeJob job = new PatientMergeJob(preferred, Arrays.asList(first, second), callerContext);
+		assertEquals(PatientMergeJob.Status.PENDING, job.getStatus());
+		assertEquals(0, job.getProgress());
+		
+		job.run();
+		
+		verify(patientService).mergePatients(preferred, first);
+		verify(patientService).mergePatients(preferred, second);
+		assertEquals(PatientMergeJob.Status.COMPLETED, job.getStatus());
+		assertTrue(job.isDone());
+		assertEquals(2, job.getMergedCount());
+		assertEquals(2, job.getTotalCount());
+		assertEquals(100, job.getProgress());
+		assertNull(job.getFailedPatientId());
+	}
+	
+	/**
+	 * @see PatientMergeJob#run()
+	 */
+	@Test
+	public void run_shouldStopAndReportTheFailingPatientIfAMergeFails() throws Exception {
+		when(patientService.getPatient(1)).thenReturn(preferred);
+		when(patientService.getPatient(2)).thenReturn(first);
+		APIException failure = new APIException("Patient.merge.cancelled");
+		doThrow(failure).when(patientService).mergePatients(preferred, first);
+		PatientMergeJob job = new PatientMergeJob(preferred, Arrays.asList(first, second), callerContext);
+		
+		job.run();
+		
+		verify(patientService, never()).mergePatients(preferred, second);
+		assertEquals(PatientMergeJob.Status.FAILED, job.getStatus());
+		assertTrue(job.isDone());
+		assertEquals(0, job.getMergedCount());
+		assertEquals(Integer.valueOf(2), job.getFailedPatientId());
+		assertEquals(failure, job.getFailure());
+	}
+	
+	/**
+	 * @see PatientMergeJob#run()
+	 */
+	@Test
+	public void run_shouldKeepRunningAsTheUserWhoStartedItIfTheCallerLogsOut() throws Exception {
+		when(patientService.getPatient(1)).thenReturn(preferred);
+		when(patientService.getPatient(2)).thenReturn(first);
+		when(patientService.getPatient(3)).thenReturn(second);
+		List<User> mergingUsers = new ArrayList<>();
+		doAnswer(invocation -> {
+			assertNotSame(callerContext, Context.getUserContext());
+			mergingUsers.add(Context.getAuthenticatedUser());
+			// the caller logs out while the job runs
+			callerContext.logout();
+			return null;
+		}).when(patientService).mergePatients(any(Patient.class), any(Patient.class));
+		PatientMergeJob job = new PatientMergeJob(preferred, Arrays.asList(first, second), callerContext);
+		
+		job.run();
+		
+		assertEquals(PatientMergeJob.Status.COMPLETED, job.getStatus());
+		assertEquals(2, mergingUsers.size());
+		assertSame(user, mergingUsers.get(0));
+		assertSame(user, mergingUsers.get(1));
+	}
+}
@@ -71,6 +71,8 @@ import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.PatientServiceImpl;
 import org.openmrs.api.impl.PatientServiceImplTest;
 import org.openmrs.comparator.PatientIdentifierTypeDefaultComparator;
+import org.openmrs.parameter.EncounterSearchCriteria;
+import org.openmrs.parameter.EncounterSearchCriteriaBuilder;
 import org.openmrs.patient.IdentifierValidator;
 import org.openmrs.patient.impl.LuhnIdentifierValidator;
 import org.openmrs.person.PersonMergeLog;
@@ -3276,6 +3278,50 @@ public class PatientServiceTest extends BaseContextSensitiveTest {
 		assertEquals(1, encounterService.getEncounter(57).getObsAtTopLevel(false).size());
 		assertEquals(2, encounterService.getEncounter(57).getObsAtTopLevel(true).size());
 	}
+	
+	/**
+	 * @see PatientService#mergePatients(Patient,Patient)
+	 */
+	@Test
+	public void mergePatients_shouldMoveVisitsEncountersAndObsWithBulkUpdatesIfEnabled() throws Exception {
+		executeDataSet(ENCOUNTERS_FOR_VISITS_XML);
+		Context.getAdministrationService().setGlobalProperty(OpenmrsConstants.GP_PATIENT_MERGE_BULK_UPDATES, "true");
+		Context.getAdministrationService().setGlobalProperty(OpenmrsConstants.GP_PATIENT_MERGE_BATCH_SIZE, "2");
+		
+		Patient notPreferred = patientService.getPatient(2);
+		voidOrders(Collections.singleton(notPreferred));
+		Patient preferred = patientService.getPatient(6);
+		
+		List<String> visitUuids = Context.getVisitService().getVisitsByPatient(notPreferred, true, true).stream()
+		        .map(Visit::getUuid).collect(Collectors.toList());
+		List<String> encounterUuids = new ArrayList<>();
+		List<Integer> obsIds = new ArrayList<>();
+		EncounterSearchCriteria criteria = new EncounterSearchCriteriaBuilder().setIncludeVoided(true)
+		        .setPatient(notPreferred).createEncounterSearchCriteria();
+		for (Encounter e : Context.getEncounterService().getEncounters(criteria)) {
+			encounterUuids.add(e.getUuid());
+			for (Obs o : e.getAllObs(true)) {
+				obsIds.add(o.getObsId());
+			}
+		}
+		assertFalse(encounterUuids.isEmpty());
+		
+		PersonMergeLog mergeLog = mergeAndRetrieveAudit(preferred, notPreferred);
+		
+		PersonMergeLogData mergeLogData = mergeLog.getPersonMergeLogData();
+		assertThat(mergeLogData.getMovedVisits(), containsInAnyOrder(visitUuids.toArray()));
+		assertThat(mergeLogData.getMovedEncounters(), containsInAnyOrder(encounterUuids.toArray()));
+		assertThat(Context.getVisitService().getVisitsByPatient(notPreferred, true, true), is(empty()));
+		for (String uuid : encounterUuids) {
+			assertThat(Context.getEncounterService().getEncounterByUuid(uuid).getPatient().getId(), is(6));
+		}
+		// obs are moved as they are instead of being voided and copied
+		for (Integer obsId : obsIds) {
+			Obs obs = Context.getObsService().getObs(obsId);
+			assertThat(obs.getPerson().getId(), is(6));
+			assertThat(obs.getEncounter().getPatient().getId(), is(6));
+		}
+	}
 
 
 	/**
@@ -29,6 +29,7 @@ import static org.openmrs.test.TestUtil.containsId;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -1267,6 +1268,54 @@ public class UserServiceTest extends BaseContextSensitiveTest {
 		assertEquals("because", user.getRetireReason());
 	}
 	
+	/**
+	 * @see UserService#retireInactiveUsers(Date, String, Integer, int)
+	 */
+	@Test
+	public void retireInactiveUsers_shouldRetireUsersThatDidNotLogInSinceTheGivenDate() {
+		User user = userService.getUser(502);
+		assertFalse(user.getRetired());
+		userService.setUserProperty(user, OpenmrsConstants.USER_PROPERTY_LAST_LOGIN_TIMESTAMP,
+		    String.valueOf(System.currentTimeMillis() - 60000));
+		
+		List<Integer> retired = userService.retireInactiveUsers(new Date(System.currentTimeMillis() - 3600000),
+		    "inactive", null, 1000);
+		assertFalse(retired.contains(502));
+		assertFalse(user.getRetired());
+		
+		retired = userService.retireInactiveUsers(new Date(), "inactive", null, 1000);
+		assertTrue(retired.contains(502));
+		assertTrue(user.getRetired());
+		assertEquals("inactive", user.getRetireReason());
+		assertNotNull(user.getDateRetired());
+		assertEquals(Context.getAuthenticatedUser(), user.getRetiredBy());
+	}
+	
+	/**
+	 * @see UserService#retireInactiveUsers(Date, String, Integer, int)
+	 */
+	@Test
+	public void retireInactiveUsers_shouldUseTheCreationDateOfUsersWithAMalformedLastLoginTime() {
+		User user = userService.getUser(502);
+		userService.setUserProperty(user, OpenmrsConstants.USER_PROPERTY_LAST_LOGIN_TIMESTAMP, "yesterday");
+		
+		List<Integer> retired = userService.retireInactiveUsers(new Date(), "inactive", null, 1000);
+		
+		assertTrue(retired.contains(502));
+		assertTrue(user.getRetired());
+	}
+	
+	/**
+	 * @see UserService#retireInactiveUsers(Date, String, Integer, int)
+	 */
+	@Test
+	public void retireInactiveUsers_shouldNotRetireSuperusers() {
+		List<Integer> retired = userService.retireInactiveUsers(new Date(), "inactive", null, 1000);
+		
+		assertFalse(retired.contains(1));
+		assertFalse(userService.getUser(1).getRetired());
+	}
+	
 	/**
 	 * @see UserService#unretireUser(User)
 	 */
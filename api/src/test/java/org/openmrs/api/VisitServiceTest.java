@@ -434,6 +434,53 @@ public class VisitServiceTest extends BaseContextSensitiveTest {
 		assertEquals(3, visitService.getVisitsByPatient(new Patient(2)).size());
 	}
 	
+	@Test
+	public void getOpenVisit_shouldReturnTheMostRecentlyStartedVisitMatchingThePatientLocationAndDate() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		LocationService locationService = Context.getLocationService();
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+		
+		assertEquals(3, visitService.getOpenVisit(patient, locationService.getLocation(2), format.parse("2006-01-01 12:00"))
+		        .getVisitId().intValue());
+		assertEquals(1, visitService.getOpenVisit(patient, locationService.getLocation(1), format.parse("2005-01-01 12:00"))
+		        .getVisitId().intValue());
+		// visit 1 is at another location and visit 6 is voided
+		assertNull(visitService.getOpenVisit(patient, locationService.getLocation(2), format.parse("2005-01-01 12:00")));
+		assertNull(visitService.getOpenVisit(patient, null, format.parse("2004-12-31 12:00")));
+	}
+	
+	@Test
+	public void getOpenVisit_shouldNotReturnVisitsWhichStoppedBeforeTheDate() throws Exception {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+		Visit visit = visitService.getVisit(1);
+		visitService.endVisit(visit, format.parse("2005-01-01 06:00"));
+		
+		assertNull(visitService.getOpenVisit(visit.getPatient(), visit.getLocation(), format.parse("2005-01-01 12:00")));
+	}
+	
+	@Test
+	public void getOpenVisit_shouldNotReturnARememberedVisitAfterItWasVoided() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		Date date = new SimpleDateFormat("yyyy-MM-dd").parse("2006-01-01");
+		Visit visit = visitService.getOpenVisit(patient, null, date);
+		assertEquals(3, visit.getVisitId().intValue());
+		
+		// changed without the service, so the remembered visit is only found invalid when checked again
+		visit.setVoided(true);
+		
+		assertEquals(2, visitService.getOpenVisit(patient, null, date).getVisitId().intValue());
+	}
+	
+	@Test
+	public void getOpenVisit_shouldNotReturnARememberedVisitForADateAVisitStartedLaterIsOpenAt() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+		assertEquals(2, visitService.getOpenVisit(patient, null, format.parse("2005-01-02 12:00")).getVisitId().intValue());
+		
+		// visit 2 is still open, but visit 3 started after it
+		assertEquals(3, visitService.getOpenVisit(patient, null, format.parse("2006-01-01 12:00")).getVisitId().intValue());
+	}
+	
 	/**
 	 * @see VisitService#getActiveVisitsByPatient(Patient)
 	 */
@@ -889,6 +936,44 @@ public class VisitServiceTest extends BaseContextSensitiveTest {
 		assertTrue(activeVisitCount == 0, "Not all active unvoided vists were closed");
 	}
 	
+	@Test
+	public void stopVisits_shouldStopAtMostTheGivenNumberOfVisits() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		
+		List<Integer> firstBatch = visitService.stopVisits(null, null, 2);
+		assertEquals(2, firstBatch.size());
+		assertTrue(firstBatch.get(0) < firstBatch.get(1));
+		
+		List<Integer> secondBatch = visitService.stopVisits(null, firstBatch.get(1), 2);
+		assertFalse(secondBatch.isEmpty());
+		assertTrue(secondBatch.get(0) > firstBatch.get(1));
+		
+		// stopped visits are not stopped again
+		List<Integer> remainingIds = visitService.stopVisits(null, null, 1000);
+		assertFalse(remainingIds.contains(firstBatch.get(0)));
+		assertFalse(remainingIds.contains(secondBatch.get(0)));
+	}
+	
+	@Test
+	public void stopVisits_shouldSetTheChangedByAndDateChangedOfTheStoppedVisits() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		Visit visit = visitService.getVisit(104);
+		assertNull(visit.getStopDatetime());
+		
+		List<Integer> visitIds = new ArrayList<>();
+		for (List<Integer> batch = visitService.stopVisits(null, null, 2); !batch.isEmpty(); batch = visitService
+		        .stopVisits(null, batch.get(batch.size() - 1), 2)) {
+			visitIds.addAll(batch);
+		}
+		
+		assertTrue(visitIds.contains(104));
+		assertFalse(visitIds.contains(102));
+		assertFalse(visitIds.contains(103));
+		assertNotNull(visit.getStopDatetime());
+		assertEquals(Context.getAuthenticatedUser(), visit.getChangedBy());
+		assertNotNull(visit.getDateChanged());
+	}
+	
 	/**
 	 * @see VisitService#saveVisit(Visit)
 	 */
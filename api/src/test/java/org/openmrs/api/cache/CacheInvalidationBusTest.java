@@ -0,0 +1,159 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.openmrs.PersonName;
+import org.openmrs.User;
+import org.openmrs.Visit;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Tests {@link CacheInvalidationBus}
+ */
+public class CacheInvalidationBusTest extends BaseContextSensitiveTest {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	@Qualifier("apiCacheManager")
+	private CacheManager cacheManager;
+	
+	@Autowired
+	private CacheInvalidationBus bus;
+	
+	@Test
+	public void receive_shouldEvictEntitiesChangedOnOtherNodes() {
+		Context.getPersonService().getPersonName(2);
+		Context.getPersonService().getPersonName(8);
+		assertTrue(sessionFactory.getCache().containsEntity(PersonName.class, 2));
+		assertTrue(sessionFactory.getCache().containsEntity(PersonName.class, 8));
+		
+		bus.receive(message("other-node", CacheInvalidation.entity(PersonName.class.getName(), 2)));
+		
+		assertFalse(sessionFactory.getCache().containsEntity(PersonName.class, 2));
+		assertTrue(sessionFactory.getCache().containsEntity(PersonName.class, 8));
+	}
+	
+	@Test
+	public void receive_shouldEvictAllEntitiesOfATypeIfNoKeyIsGiven() {
+		Context.getPersonService().getPersonName(2);
+		Context.getPersonService().getPersonName(8);
+		
+		bus.receive(message("other-node", CacheInvalidation.entity(PersonName.class.getName(), null)));
+		
+		assertFalse(sessionFactory.getCache().containsEntity(PersonName.class, 2));
+		assertFalse(sessionFactory.getCache().containsEntity(PersonName.class, 8));
+	}
+	
+	@Test
+	public void receive_shouldIgnoreMessagesSentByThisNode() {
+		Context.getPersonService().getPersonName(2);
+		
+		bus.receive(message(bus.getNodeId(), CacheInvalidation.entity(PersonName.class.getName(), 2)));
+		
+		assertTrue(sessionFactory.getCache().containsEntity(PersonName.class, 2));
+	}
+	
+	@Test
+	public void receive_shouldEvictSpringCacheEntriesAndNotifyListeners() {
+		Cache cache = cacheManager.getCache("userSearchLocales");
+		cache.put("evicted", "value");
+		cache.put("kept", "value");
+		List<CacheInvalidation> notified = new ArrayList<>();
+		CacheInvalidationBus listeningBus = new CacheInvalidationBus(sessionFactory, cacheManager,
+		        Collections.singletonList(notified::add));
+		CacheInvalidation invalidation = CacheInvalidation.namedCache("userSearchLocales", "evicted");
+		
+		listeningBus.receive(message("other-node", invalidation));
+		
+		assertNull(cache.get("evicted"));
+		assertNotNull(cache.get("kept"));
+		assertEquals(Collections.singletonList(invalidation), notified);
+		assertEquals(1, listeningBus.getReceivedCount());
+		assertEquals(1, listeningBus.getAppliedCount());
+		assertTrue(listeningBus.getLastReceived() > 0);
+	}
+	
+	@Test
+	public void namedCache_shouldInvalidateTheWholeCacheForKeysThatCannotBeSent() {
+		CacheInvalidation invalidation = CacheInvalidation.namedCache("userSearchLocales", Arrays.asList("a", "b"));
+		
+		assertNull(invalidation.getKey());
+	}
+	
+	@Test
+	public void entitiesChanged_shouldBroadcastAnInvalidationOfEachEntityOfACachedType() throws Exception {
+		List<CacheInvalidationMessage> published = new ArrayList<>();
+		bus.start(new RecordingTransport(published), new Properties());
+		try {
+			// outside of a transaction the invalidations are sent right away
+			Thread thread = new Thread(() -> {
+				bus.entitiesChanged(User.class, Arrays.asList(501, 502));
+				bus.entitiesChanged(Visit.class, Collections.singletonList(1));
+			});
+			thread.start();
+			thread.join();
+		}
+		finally {
+			bus.stop();
+		}
+		
+		assertEquals(2, published.size());
+		assertEquals(CacheInvalidation.entity(User.class.getName(), 501), published.get(0).getInvalidations().get(0));
+		assertEquals(CacheInvalidation.entity(User.class.getName(), 502), published.get(1).getInvalidations().get(0));
+	}
+	
+	private CacheInvalidationMessage message(String origin, CacheInvalidation... invalidations) {
+		return new CacheInvalidationMessage(origin, System.currentTimeMillis(), Arrays.asList(invalidations));
+	}
+	
+	private static class RecordingTransport implements CacheInvalidationTransport {
+		
+		private final List<CacheInvalidationMessage> published;
+		
+		RecordingTransport(List<CacheInvalidationMessage> published) {
+			this.published = published;
+		}
+		
+		@Override
+		public void start(Properties properties, Consumer<CacheInvalidationMessage> receiver) {
+		}
+		
+		@Override
+		public void publish(CacheInvalidationMessage message) {
+			published.add(message);
+		}
+		
+		@Override
+		public void stop() {
+		}
+	}
+}
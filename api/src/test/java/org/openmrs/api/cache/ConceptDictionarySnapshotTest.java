@@ -0,0 +1,117 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.ConceptNameType;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.ConceptEntry;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.ConceptNameEntry;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.Mapping;
+
+/**
+ * Tests {@link ConceptDictionarySnapshot}
+ */
+public class ConceptDictionarySnapshotTest {
+	
+	private static final Locale EN_GB = new Locale("en", "GB");
+	
+	private static final Locale FR = Locale.FRENCH;
+	
+	@Test
+	public void getName_shouldPreferTheLocalePreferredName() {
+		ConceptDictionarySnapshot snapshot = snapshot(concept(1, false,
+		    name(1, "FULLY SPECIFIED", Locale.ENGLISH, ConceptNameType.FULLY_SPECIFIED, false),
+		    name(2, "PREFERRED", Locale.ENGLISH, null, true)));
+		
+		assertEquals("PREFERRED", snapshot.getName(1, Locale.ENGLISH).getName());
+	}
+	
+	@Test
+	public void getName_shouldReturnTheFullySpecifiedNameIfNoNameIsPreferred() {
+		ConceptDictionarySnapshot snapshot = snapshot(concept(1, false,
+		    name(1, "SYNONYM", FR, null, false),
+		    name(2, "NOM", FR, ConceptNameType.FULLY_SPECIFIED, false)));
+		
+		assertEquals("NOM", snapshot.getName(1, FR).getName());
+	}
+	
+	@Test
+	public void getName_shouldReturnANameOfTheSameLanguageIfNoneIsFoundInTheLocale() {
+		ConceptDictionarySnapshot snapshot = snapshot(concept(1, false,
+		    name(1, "NOM", FR, ConceptNameType.FULLY_SPECIFIED, true),
+		    name(2, "NAME", Locale.ENGLISH, ConceptNameType.FULLY_SPECIFIED, true)));
+		
+		assertEquals("NAME", snapshot.getName(1, EN_GB).getName());
+	}
+	
+	@Test
+	public void getName_shouldReturnNullForUnknownConcepts() {
+		assertNull(snapshot().getName(1, Locale.ENGLISH));
+	}
+	
+	@Test
+	public void getConceptIdsByMapping_shouldMatchSourceNameOrHl7CodeIgnoringCase() {
+		ConceptDictionarySnapshot snapshot = snapshot(concept(1, false), concept(2, true), concept(3, false));
+		
+		assertEquals(Arrays.asList(1, 3), snapshot.getConceptIdsByMapping("wgt234", "sstrm", false));
+		assertEquals(Arrays.asList(1, 3, 2), snapshot.getConceptIdsByMapping("WGT234", "Some Standardized Terminology", true));
+		assertTrue(snapshot.getConceptIdsByMapping("unknown", "SSTRM", true).isEmpty());
+	}
+	
+	@Test
+	public void update_shouldReturnANewSnapshotWithTheChangedConcepts() {
+		ConceptDictionarySnapshot snapshot = snapshot(concept(1, false), concept(2, false));
+		
+		ConceptDictionarySnapshot updated = snapshot.update(Collections.singletonList(concept(2, true)),
+		    Collections.singletonList(1));
+		
+		assertEquals(1, updated.size());
+		assertNull(updated.getConcept(1));
+		assertTrue(updated.getConcept(2).isRetired());
+		assertEquals(2, snapshot.size());
+		assertFalse(snapshot.getConcept(2).isRetired());
+		assertEquals(Collections.singletonList(2), updated.getConceptIdsByMapping("WGT234", "SSTRM", true));
+	}
+	
+	@Test
+	public void getAnswerIds_shouldNotExposeTheInternalArrays() {
+		ConceptDictionarySnapshot snapshot = snapshot(new ConceptEntry(1, "uuid-1", 2, 3, false, false,
+		        Collections.emptyList(), new int[] { 5, 6 }, new int[0], Collections.emptyList()));
+		
+		snapshot.getAnswerIds(1)[0] = 7;
+		
+		assertArrayEquals(new int[] { 5, 6 }, snapshot.getAnswerIds(1));
+	}
+	
+	private ConceptDictionarySnapshot snapshot(ConceptEntry... concepts) {
+		return new ConceptDictionarySnapshot(Arrays.asList(concepts));
+	}
+	
+	private ConceptEntry concept(int conceptId, boolean retired, ConceptNameEntry... names) {
+		List<Mapping> mappings = Collections.singletonList(new Mapping("WGT234", "Some Standardized Terminology", "SSTRM"));
+		return new ConceptEntry(conceptId, "uuid-" + conceptId, 1, 1, retired, false, Arrays.asList(names), new int[0],
+		        new int[0], mappings);
+	}
+	
+	private ConceptNameEntry name(int conceptNameId, String name, Locale locale, ConceptNameType type, boolean preferred) {
+		return new ConceptNameEntry(conceptNameId, name, locale, type, preferred);
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.Concept;
+import org.openmrs.ConceptName;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.cache.ConceptDictionarySnapshot.ConceptEntry;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link ConceptDictionary}
+ */
+public class ConceptDictionaryTest extends BaseContextSensitiveTest {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private ConceptService conceptService;
+	
+	private ConceptDictionary dictionary;
+	
+	@AfterEach
+	public void tearDown() {
+		if (dictionary != null) {
+			dictionary.shutdown();
+		}
+	}
+	
+	@Test
+	public void load_shouldLoadNamesAnswersSetMembersAndMappings() {
+		dictionary = new ConceptDictionary(sessionFactory);
+		
+		ConceptDictionarySnapshot snapshot = new ConceptDictionarySnapshot(dictionary.load(null));
+		
+		assertEquals(conceptService.getAllConcepts().size(), snapshot.size());
+		ConceptEntry weight = snapshot.getConcept(5089);
+		assertEquals("c607c80f-1ea9-4da3-bb88-6276ce8868dd", weight.getUuid());
+		assertEquals(Integer.valueOf(1), weight.getDatatypeId());
+		assertEquals(Integer.valueOf(1), weight.getConceptClassId());
+		assertEquals("WEIGHT (KG)", snapshot.getName(5089, new Locale("en", "GB")).getName());
+		assertArrayEquals(new int[] { 5, 6 }, snapshot.getAnswerIds(4));
+		assertArrayEquals(new int[] { 18, 20, 19 }, snapshot.getSetMemberIds(23));
+		assertEquals(conceptService.getConceptIdsByMapping("WGT234", "SSTRM", true),
+		    snapshot.getConceptIdsByMapping("wgt234", "sstrm", true));
+	}
+	
+	@Test
+	public void load_shouldLoadOnlyTheGivenConcepts() {
+		dictionary = new ConceptDictionary(sessionFactory);
+		
+		ConceptDictionarySnapshot snapshot = new ConceptDictionarySnapshot(dictionary.load(Arrays.asList(4, 5089)));
+		
+		assertEquals(2, snapshot.size());
+		assertNotNull(snapshot.getConcept(4));
+		assertNull(snapshot.getConcept(23));
+	}
+	
+	@Test
+	public void getSnapshot_shouldNotBeUsedByTransactionsThatChangedTheDictionary() {
+		dictionary = new ConceptDictionary(sessionFactory);
+		dictionary.start();
+		dictionary.loadAll();
+		assertNotNull(ConceptDictionary.getSnapshot());
+		
+		Concept concept = conceptService.getConcept(5089);
+		concept.addName(new ConceptName("BODY WEIGHT", Locale.ENGLISH));
+		conceptService.saveConcept(concept);
+		
+		assertNull(ConceptDictionary.getSnapshot());
+	}
+	
+	@Test
+	public void refresh_shouldReplaceChangedConcepts() {
+		dictionary = new ConceptDictionary(sessionFactory);
+		dictionary.start();
+		dictionary.loadAll();
+		ConceptDictionarySnapshot before = ConceptDictionary.getSnapshot();
+		
+		dictionary.refresh(Collections.singleton(5089));
+		
+		ConceptDictionarySnapshot after = ConceptDictionary.getSnapshot();
+		assertEquals(before.size(), after.size());
+		assertNotSame(before.getConcept(5089), after.getConcept(5089));
+		assertEquals("WEIGHT (KG)", after.getName(5089, new Locale("en", "GB")).getName());
+	}
+}
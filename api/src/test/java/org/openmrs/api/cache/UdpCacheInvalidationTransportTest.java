@@ -0,0 +1,116 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link UdpCacheInvalidationTransport}
+ */
+public class UdpCacheInvalidationTransportTest {
+	
+	private final UdpCacheInvalidationTransport first = new UdpCacheInvalidationTransport();
+	
+	private final UdpCacheInvalidationTransport second = new UdpCacheInvalidationTransport();
+	
+	private final BlockingQueue<CacheInvalidationMessage> receivedByFirst = new LinkedBlockingQueue<>();
+	
+	private final BlockingQueue<CacheInvalidationMessage> receivedBySecond = new LinkedBlockingQueue<>();
+	
+	@AfterEach
+	public void tearDown() {
+		first.stop();
+		second.stop();
+	}
+	
+	@Test
+	public void publish_shouldDeliverMessagesToPeers() throws Exception {
+		startBoth();
+		CacheInvalidationMessage sent = new CacheInvalidationMessage("first", 1234L,
+		        Arrays.asList(CacheInvalidation.entity("org.openmrs.Location", 1),
+		            CacheInvalidation.collection("org.openmrs.User.roles", 2L),
+		            CacheInvalidation.namedCache("userSearchLocales", null)));
+		
+		first.publish(sent);
+		
+		CacheInvalidationMessage received = receivedBySecond.poll(10, TimeUnit.SECONDS);
+		assertEquals("first", received.getOrigin());
+		assertEquals(1234L, received.getSentAt());
+		assertEquals(sent.getInvalidations(), received.getInvalidations());
+		assertNull(receivedByFirst.poll());
+	}
+	
+	@Test
+	public void publish_shouldSplitLargeMessagesIntoSeveralDatagrams() throws Exception {
+		startBoth();
+		List<CacheInvalidation> invalidations = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			invalidations.add(CacheInvalidation.entity("org.openmrs.Concept", i));
+		}
+		
+		first.publish(new CacheInvalidationMessage("first", 1L, invalidations));
+		
+		List<CacheInvalidation> received = new ArrayList<>();
+		while (received.size() < invalidations.size()) {
+			CacheInvalidationMessage message = receivedBySecond.poll(10, TimeUnit.SECONDS);
+			received.addAll(message.getInvalidations());
+		}
+		assertEquals(invalidations.size(), received.size());
+		assertTrue(received.containsAll(invalidations));
+	}
+	
+	@Test
+	public void receive_shouldIgnoreDatagramsFromHostsWhichAreNotPeers() throws Exception {
+		startBoth();
+		second.setPeers(Collections.singletonList(new InetSocketAddress("192.0.2.1", first.getLocalPort())));
+		
+		first.publish(new CacheInvalidationMessage("first", 1L,
+		        Collections.singletonList(CacheInvalidation.entity("org.openmrs.Location", 1))));
+		
+		assertNull(receivedBySecond.poll(500, TimeUnit.MILLISECONDS));
+	}
+	
+	@Test
+	public void decode_shouldReadWhatEncodeWrote() throws Exception {
+		CacheInvalidationMessage message = new CacheInvalidationMessage("node", 42L,
+		        Arrays.asList(CacheInvalidation.entity("org.openmrs.Location", 1),
+		            CacheInvalidation.entity("org.openmrs.GlobalProperty", "locale.allowed.list"),
+		            CacheInvalidation.collection("org.openmrs.Role.privileges", null)));
+		
+		byte[] data = UdpCacheInvalidationTransport.encode(message);
+		CacheInvalidationMessage decoded = UdpCacheInvalidationTransport.decode(data, 0, data.length);
+		
+		assertEquals("node", decoded.getOrigin());
+		assertEquals(42L, decoded.getSentAt());
+		assertEquals(message.getInvalidations(), decoded.getInvalidations());
+	}
+	
+	private void startBoth() throws Exception {
+		InetSocketAddress loopback = new InetSocketAddress("127.0.0.1", 0);
+		first.start(loopback, Collections.emptyList(), receivedByFirst::add);
+		second.start(loopback, Collections.emptyList(), receivedBySecond::add);
+		first.setPeers(Collections.singletonList(new InetSocketAddress("127.0.0.1", second.getLocalPort())));
+		second.setPeers(Collections.singletonList(new InetSocketAddress("127.0.0.1", first.getLocalPort())));
+	}
+}
@@ -9,6 +9,7 @@
  */
 package org.openmrs.api.context;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -18,11 +19,16 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
@@ -32,11 +38,17 @@ import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.APIAuthenticationException;
 import org.openmrs.api.APIException;
+import org.openmrs.module.DaemonToken;
+import org.openmrs.module.Module;
+import org.openmrs.module.ModuleFactory;
 import org.openmrs.scheduler.Task;
 import org.openmrs.scheduler.tasks.AbstractTask;
 import org.openmrs.scheduler.tasks.HelloWorldTask;
 import org.openmrs.scheduler.timer.TimerSchedulerTask;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.openmrs.util.DaemonExecutor;
+import org.openmrs.util.OpenmrsThreadPoolHolder;
+import org.powermock.reflect.Whitebox;
 
 /**
  * Tests the methods on the {@link Daemon} class
@@ -291,4 +303,49 @@ public class DaemonTest extends BaseContextSensitiveTest {
 		user.setUuid("any other value");
 		assertThat(Daemon.isDaemonUser(user), is(false));
 	}
+	
+	/**
+	 * @see Daemon#runInNewDaemonThread(Runnable)
+	 */
+	@Test
+	public void runInNewDaemonThread_shouldNotWaitForThreadsQueuedWhileTheExecutorRunsAsManyTasksAsItMay()
+	        throws Exception {
+		Module module = new Module("Daemon Test");
+		module.setModuleId("daemontest");
+		DaemonToken token = Whitebox.invokeMethod(ModuleFactory.class, "getDaemonToken", module);
+		DaemonExecutor executor = OpenmrsThreadPoolHolder.getDaemonExecutor();
+		int maxConcurrency = executor.getMaxConcurrency();
+		executor.setMaxConcurrency(2);
+		try {
+			CountDownLatch parentsRunning = new CountDownLatch(2);
+			CountDownLatch childrenDone = new CountDownLatch(2);
+			List<String> childOwners = Collections.synchronizedList(new ArrayList<>());
+			List<Future<?>> parents = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				parents.add(Daemon.runInDaemonThreadWithoutResult(() -> {
+					parentsRunning.countDown();
+					try {
+						parentsRunning.await(10, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					// the parents hold all slots of the executor, so the child is queued
+					Daemon.runInNewDaemonThread(() -> {
+						childOwners.add(DaemonExecutor.getCurrentOwner());
+						childrenDone.countDown();
+					});
+				}, token));
+			}
+			
+			for (Future<?> parent : parents) {
+				parent.get(10, TimeUnit.SECONDS);
+			}
+			assertThat(childrenDone.await(10, TimeUnit.SECONDS), is(true));
+			assertThat(childOwners, contains("daemontest", "daemontest"));
+		}
+		finally {
+			executor.setMaxConcurrency(maxConcurrency);
+		}
+	}
 }
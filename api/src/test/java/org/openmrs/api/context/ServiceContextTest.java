@@ -9,8 +9,10 @@
  */
 package org.openmrs.api.context;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -19,14 +21,19 @@ import static org.mockito.MockitoAnnotations.openMocks;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.api.APIException;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.handler.EncounterVisitHandler;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.openmrs.util.DatabaseUpdateException;
 import org.openmrs.util.InputRequiredException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.Validator;
 
 public class ServiceContextTest extends BaseContextSensitiveTest {
 	
@@ -96,4 +103,86 @@ public class ServiceContextTest extends BaseContextSensitiveTest {
 		verify(spiedServiceContext, never()).getMessageService();
 		verify(spiedServiceContext, never()).getMessageSourceService();
 	}
+	
+	@Test
+	public void getRegisteredComponents_shouldNotQueryTheApplicationContextAgainForATypeAlreadyLookedUp() {
+		List<Validator> validators = serviceContext.getRegisteredComponents(Validator.class);
+		long misses = serviceContext.getComponentIndexMissCount();
+		long hits = serviceContext.getComponentIndexHitCount();
+		
+		assertEquals(validators, serviceContext.getRegisteredComponents(Validator.class));
+		assertEquals(misses, serviceContext.getComponentIndexMissCount());
+		assertEquals(hits + 1, serviceContext.getComponentIndexHitCount());
+	}
+	
+	@Test
+	public void getRegisteredComponents_shouldReturnAListThatCanBeModifiedWithoutAffectingLaterLookups() {
+		List<Validator> validators = serviceContext.getRegisteredComponents(Validator.class);
+		int count = validators.size();
+		validators.clear();
+		
+		List<Validator> cached = serviceContext.getRegisteredComponents(Validator.class);
+		assertEquals(count, cached.size());
+		cached.remove(0);
+		assertEquals(count, serviceContext.getRegisteredComponents(Validator.class).size());
+	}
+	
+	@Test
+	public void getRegisteredComponents_shouldQueryTheApplicationContextAgainAfterTheIndexIsCleared() {
+		serviceContext.getRegisteredComponents(Validator.class);
+		serviceContext.clearComponentIndex();
+		long misses = serviceContext.getComponentIndexMissCount();
+		
+		serviceContext.getRegisteredComponents(Validator.class);
+		assertEquals(misses + 1, serviceContext.getComponentIndexMissCount());
+	}
+	
+	@Test
+	public void getRegisteredComponent_shouldNotQueryTheApplicationContextAgainForABeanAlreadyLookedUp() {
+		EncounterVisitHandler handler = serviceContext.getRegisteredComponent("existingOrNewVisitAssignmentHandler",
+		    EncounterVisitHandler.class);
+		long misses = serviceContext.getComponentIndexMissCount();
+		
+		assertSame(handler, serviceContext.getRegisteredComponent("existingOrNewVisitAssignmentHandler",
+		    EncounterVisitHandler.class));
+		assertEquals(misses, serviceContext.getComponentIndexMissCount());
+	}
+	
+	@Test
+	public void getService_shouldWaitForARefreshInProgressToFinish() throws Exception {
+		AtomicReference<PatientService> result = new AtomicReference<>();
+		Thread lookup = new Thread(() -> result.set(serviceContext.getService(PatientService.class)));
+		
+		serviceContext.startRefreshingContext();
+		try {
+			lookup.start();
+			long deadline = System.currentTimeMillis() + 10000;
+			while (lookup.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(Thread.State.WAITING, lookup.getState());
+			assertNull(result.get());
+		}
+		finally {
+			serviceContext.doneRefreshingContext();
+		}
+		
+		lookup.join(10000);
+		assertSame(Context.getPatientService(), result.get());
+	}
+	
+	@Test
+	public void getService_shouldNotBlockWhileNoRefreshIsInProgress() throws Exception {
+		AtomicReference<PatientService> result = new AtomicReference<>();
+		Thread lookup = new Thread(() -> result.set(serviceContext.getService(PatientService.class)));
+		
+		// lookups only take the refresh lock while a refresh is in progress
+		Object refreshingContextLock = ReflectionTestUtils.getField(ServiceContext.class, "refreshingContextLock");
+		synchronized (refreshingContextLock) {
+			lookup.start();
+			lookup.join(10000);
+		}
+		
+		assertNotNull(result.get());
+	}
 }
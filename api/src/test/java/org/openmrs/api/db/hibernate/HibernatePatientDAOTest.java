@@ -15,11 +15,17 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.sql.Date;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +36,7 @@ import org.openmrs.PatientIdentifierType;
 import org.openmrs.Person;
 import org.openmrs.PersonName;
 import org.openmrs.api.context.Context;
+import org.openmrs.patient.duplicate.PatientRecord;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 
 public class HibernatePatientDAOTest extends BaseContextSensitiveTest {
@@ -291,4 +298,35 @@ public class HibernatePatientDAOTest extends BaseContextSensitiveTest {
 		// then
 		assertThat(duplicatePatients.size(), equalTo(2));
 	}
+
+	@Test
+	public void forEachDuplicateDetectionRecord_shouldReturnOneRecordPerNonVoidedPatientWithItsPreferredName() {
+		List<PatientRecord> records = new ArrayList<>();
+		hibernatePatientDao.forEachDuplicateDetectionRecord(null, records::add);
+		
+		List<Integer> patientIds = records.stream().map(PatientRecord::getPatientId).collect(Collectors.toList());
+		assertEquals(patientIds.stream().sorted().distinct().collect(Collectors.toList()), patientIds);
+		assertThat(patientIds, hasItems(2, 6, 7, 8));
+		assertFalse(patientIds.contains(999));
+		
+		PatientRecord record = records.get(patientIds.indexOf(2));
+		assertEquals("Horatio", record.getGivenName());
+		assertEquals("Hornblower", record.getFamilyName());
+	}
+	
+	@Test
+	public void forEachDuplicateDetectionRecord_shouldOnlyReturnPatientsChangedSinceTheGivenDate() {
+		List<PatientRecord> records = new ArrayList<>();
+		hibernatePatientDao.forEachDuplicateDetectionRecord(Date.valueOf("2100-01-01"), records::add);
+		
+		assertTrue(records.isEmpty());
+	}
+	
+	@Test
+	public void getPatientIdentifierValues_shouldReturnTheNonVoidedIdentifiersByPatient() {
+		Map<Integer, Set<String>> identifiers = hibernatePatientDao.getPatientIdentifierValues(Arrays.asList(2, 8));
+		
+		assertEquals(new HashSet<>(Arrays.asList("101", "101-6")), identifiers.get(2));
+		assertEquals(Collections.singleton("7TU-8"), identifiers.get(8));
+	}
 }
@@ -113,4 +113,23 @@ public class ImmutableEntityInterceptorTest extends BaseContextSensitiveTest {
 		order.setVoided(true);
 		interceptor.onFlushDirty(order, null, currentState, previousState, propertyNames, null);
 	}
+	
+	/**
+	 * @see ImmutableEntityInterceptor#onFlushDirty(Object, java.io.Serializable, Object[],
+	 *      Object[], String[], org.hibernate.type.Type[])
+	 */
+	@Test
+	public void onFlushDirty_shouldPassIfTheChangedPropertyIsKnownToBeUnchanged() {
+		String[] propertyNames = new String[] { SomeImmutableEntityInterceptor.IMMUTABLE_FIELD_NAME };
+		String[] previousState = new String[] { "old" };
+		String[] currentState = new String[] { "new" };
+		ImmutableEntityInterceptor interceptor = new SomeImmutableEntityInterceptor() {
+			
+			@Override
+			protected boolean isUnchangedProperty(Object entity, String property) {
+				return IMMUTABLE_FIELD_NAME.equals(property);
+			}
+		};
+		interceptor.onFlushDirty(new Order(), null, currentState, previousState, propertyNames, null);
+	}
 }
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link LuceneQuery}
+ */
+public class LuceneQueryTest {
+	
+	@Test
+	public void toSuffixPrefixQuery_shouldReplaceTermQueriesOnAnywhereFieldsWithPrefixQueries() {
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		builder.add(new TermQuery(new Term("givenNameExact", "mit")), Occur.SHOULD);
+		builder.add(new TermQuery(new Term("givenNameAnywhere", "mit")), Occur.SHOULD);
+		
+		BooleanQuery rewritten = (BooleanQuery) LuceneQuery.toSuffixPrefixQuery(builder.build());
+		
+		assertEquals(2, rewritten.clauses().size());
+		assertTrue(rewritten.clauses().get(0).getQuery() instanceof TermQuery);
+		Query anywhere = rewritten.clauses().get(1).getQuery();
+		assertTrue(anywhere instanceof PrefixQuery);
+		assertEquals(new Term("givenNameAnywhere", "mit"), ((PrefixQuery) anywhere).getPrefix());
+		assertEquals(Occur.SHOULD, rewritten.clauses().get(1).getOccur());
+	}
+	
+	@Test
+	public void toSuffixPrefixQuery_shouldKeepSingleCharacterTermQueries() {
+		Query query = new TermQuery(new Term("identifierAnywhere", "1"));
+		
+		assertTrue(LuceneQuery.toSuffixPrefixQuery(query) instanceof TermQuery);
+	}
+}
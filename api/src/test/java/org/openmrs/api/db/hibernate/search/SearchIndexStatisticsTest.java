@@ -0,0 +1,60 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.PersonName;
+import org.openmrs.api.db.hibernate.search.SearchIndexStatistics.FieldStatistics;
+import org.openmrs.api.db.hibernate.search.SearchIndexStatistics.IndexStatistics;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link SearchIndexStatistics}
+ */
+public class SearchIndexStatisticsTest extends BaseContextSensitiveTest {
+	
+	@Autowired
+	private SearchIndexStatistics searchIndexStatistics;
+	
+	@Test
+	public void getIndexStatistics_shouldReportTheFieldsOfTheIndexedEntities() {
+		List<IndexStatistics> statistics = searchIndexStatistics.getIndexStatistics();
+		
+		IndexStatistics personNames = statistics.stream().filter(s -> s.getEntityName().equals(PersonName.class.getName()))
+		        .findFirst().orElse(null);
+		assertNotNull(personNames);
+		assertTrue(personNames.getDocuments() > 0);
+		
+		FieldStatistics exact = personNames.getField("givenNameExact");
+		FieldStatistics anywhere = personNames.getField("givenNameAnywhere");
+		assertNotNull(exact);
+		assertNotNull(anywhere);
+		assertTrue(exact.getUniqueTerms() > 0);
+		// every n-gram of a name is a term of its own
+		assertTrue(anywhere.getPostings() > exact.getPostings());
+	}
+	
+	@Test
+	public void getReport_shouldListEachIndexFollowedByItsFields() {
+		String[] report = searchIndexStatistics.getReport();
+		
+		assertTrue(report.length > 0);
+		assertTrue(report[0].contains("documents="));
+		assertTrue(report[0].startsWith("org.openmrs."));
+		assertTrue(Arrays.stream(report).anyMatch(line -> line.startsWith("  givenNameExact: documents=")));
+	}
+}
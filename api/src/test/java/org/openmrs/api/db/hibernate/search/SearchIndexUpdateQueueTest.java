@@ -0,0 +1,142 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.PersonName;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link SearchIndexUpdateQueue}
+ */
+public class SearchIndexUpdateQueueTest {
+	
+	private final List<List<SearchIndexUpdateQueue.IndexUpdate>> batches = Collections.synchronizedList(new ArrayList<>());
+	
+	private SearchIndexUpdateQueue queue;
+	
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		TransactionSynchronizationManager.unbindResourceIfPossible(queue);
+		queue.stop();
+	}
+	
+	@Test
+	public void submit_shouldIndexCommittedUpdatesInTheBackground() throws Exception {
+		queue = newQueue(10, 100);
+		queue.start();
+		
+		TransactionSynchronizationManager.initSynchronization();
+		assertTrue(queue.submit(personName(1)));
+		assertTrue(queue.submit(personName(2)));
+		// a second change of the same entity within the transaction is indexed once
+		assertTrue(queue.submit(personName(1)));
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertTrue(queue.awaitIdle(10, TimeUnit.SECONDS));
+		assertEquals(2, queue.getIndexedCount());
+		assertEquals(0, queue.getQueueDepth());
+		assertEquals(2, batches.stream().mapToInt(List::size).sum());
+	}
+	
+	@Test
+	public void submit_shouldNotQueueUpdatesOfRolledBackTransactions() throws Exception {
+		queue = newQueue(1, 100);
+		queue.start();
+		
+		TransactionSynchronizationManager.initSynchronization();
+		assertTrue(queue.submit(personName(1)));
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		
+		assertTrue(queue.awaitIdle(10, TimeUnit.SECONDS));
+		assertEquals(0, queue.getIndexedCount());
+		
+		// the capacity taken by the rolled back transaction is available again
+		TransactionSynchronizationManager.initSynchronization();
+		assertTrue(queue.submit(personName(2)));
+	}
+	
+	@Test
+	public void submit_shouldFallBackToSynchronousIndexingIfTheQueueIsFull() {
+		queue = newQueue(2, 100);
+		queue.start();
+		
+		TransactionSynchronizationManager.initSynchronization();
+		assertTrue(queue.submit(personName(1)));
+		assertTrue(queue.submit(personName(2)));
+		assertFalse(queue.submit(personName(3)));
+		assertEquals(1, queue.getSynchronousFallbackCount());
+	}
+	
+	@Test
+	public void submit_shouldReturnFalseOutsideOfTransactions() {
+		queue = newQueue(10, 100);
+		queue.start();
+		
+		assertFalse(queue.submit(personName(1)));
+	}
+	
+	@Test
+	public void submit_shouldReturnFalseIfTheWorkerIsNotRunning() {
+		queue = newQueue(10, 100);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		assertFalse(queue.submit(personName(1)));
+	}
+	
+	@Test
+	public void submit_shouldIndexInBatchesOfTheConfiguredSize() throws Exception {
+		queue = newQueue(100, 10);
+		queue.start();
+		
+		TransactionSynchronizationManager.initSynchronization();
+		for (int i = 1; i <= 25; i++) {
+			assertTrue(queue.submit(personName(i)));
+		}
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		
+		assertTrue(queue.awaitIdle(10, TimeUnit.SECONDS));
+		assertEquals(25, queue.getIndexedCount());
+		assertTrue(batches.stream().allMatch(batch -> batch.size() <= 10));
+		assertTrue(queue.getBatchCount() >= 3);
+	}
+	
+	private SearchIndexUpdateQueue newQueue(int capacity, int batchSize) {
+		return new SearchIndexUpdateQueue(updates -> batches.add(new ArrayList<>(updates)), capacity, batchSize, 0);
+	}
+	
+	private void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		for (TransactionSynchronization synchronization : synchronizations) {
+			synchronization.afterCompletion(status);
+		}
+	}
+	
+	private PersonName personName(int id) {
+		PersonName name = new PersonName();
+		name.setPersonNameId(id);
+		return name;
+	}
+}
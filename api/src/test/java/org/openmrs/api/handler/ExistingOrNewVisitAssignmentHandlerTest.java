@@ -18,6 +18,7 @@ import java.util.Calendar;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
 import org.openmrs.GlobalProperty;
 import org.openmrs.VisitType;
 import org.openmrs.api.context.Context;
@@ -98,6 +99,26 @@ public class ExistingOrNewVisitAssignmentHandlerTest extends BaseContextSensitiv
 		assertEquals(visitType, encounter.getVisit().getVisitType());
 	}
 	
+	/**
+	 * @see ExistingOrNewVisitAssignmentHandler#beforeCreateEncounter(Encounter)
+	 */
+	@Test
+	public void beforeCreateEncounter_shouldAssignFirstVisitTypeForAnUnsavedEncounterTypeIfMappingGlobalPropertyIsNotSet() {
+		VisitType visitType = Context.getVisitService().getAllVisitTypes().get(0);
+		
+		Encounter encounter = Context.getEncounterService().getEncounter(1);
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(encounter.getEncounterDatetime());
+		calendar.set(Calendar.YEAR, 1900);
+		encounter.setEncounterDatetime(calendar.getTime());
+		encounter.setEncounterType(new EncounterType("Unsaved", "not saved yet"));
+		
+		new ExistingOrNewVisitAssignmentHandler().beforeCreateEncounter(encounter);
+		
+		assertNotNull(encounter.getVisit());
+		assertEquals(visitType, encounter.getVisit().getVisitType());
+	}
+	
 	/**
 	 * @see ExistingVisitAssignmentHandler#beforeCreateEncounter(Encounter)
 	 */
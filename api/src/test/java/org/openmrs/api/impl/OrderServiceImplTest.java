@@ -0,0 +1,155 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.DrugOrder;
+import org.openmrs.FreeTextDosingInstructions;
+import org.openmrs.Order;
+import org.openmrs.api.APIException;
+import org.openmrs.api.AmbiguousOrderException;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+
+/**
+ * Tests the locking of {@link OrderServiceImpl} with orders saved concurrently by several threads,
+ * each committing its own transaction
+ */
+public class OrderServiceImplTest extends BaseContextSensitiveTest {
+	
+	private static final int PATIENT_2_ENCOUNTER = 6;
+	
+	private static final int PATIENT_7_ENCOUNTER = 3;
+	
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+	
+	private OrderServiceImpl orderService;
+	
+	private UserContext userContext;
+	
+	@BeforeEach
+	public void setUp() {
+		orderService = (OrderServiceImpl) applicationContext.getBean("orderServiceTarget");
+		userContext = Context.getUserContext();
+	}
+	
+	@AfterEach
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+		orderService.setPatientLockTimeoutMillis(30000);
+		// the orders saved by the other threads are committed
+		deleteAllData();
+	}
+	
+	/**
+	 * @see OrderServiceImpl#saveOrder(Order, org.openmrs.api.OrderContext)
+	 */
+	@Test
+	public void saveOrder_shouldRejectTheSecondOfTwoIdenticalDrugOrdersSavedConcurrentlyForAPatient() throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Order>> results = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return saveDrugOrderInNewSession(PATIENT_7_ENCOUNTER);
+			}));
+		}
+		start.countDown();
+		
+		int saved = 0;
+		List<Throwable> failures = new ArrayList<>();
+		for (Future<Order> result : results) {
+			try {
+				assertNotNull(result.get(60, TimeUnit.SECONDS).getOrderId());
+				saved++;
+			}
+			catch (ExecutionException e) {
+				failures.add(e.getCause());
+			}
+		}
+		
+		assertEquals(1, saved);
+		assertEquals(1, failures.size());
+		assertThat(failures.get(0), instanceOf(AmbiguousOrderException.class));
+		assertThat(failures.get(0).getMessage(), is("Order.cannot.have.more.than.one"));
+	}
+	
+	/**
+	 * @see OrderServiceImpl#saveOrder(Order, org.openmrs.api.OrderContext)
+	 */
+	@Test
+	public void saveOrder_shouldSaveOrdersOfOtherPatientsWhileAnOrderOfAPatientIsBeingSaved() throws Exception {
+		orderService.setPatientLockTimeoutMillis(500);
+		
+		// the order of patient 2 keeps the lock of the patient until the test transaction completes
+		Context.getOrderService().saveOrder(newDrugOrder(PATIENT_2_ENCOUNTER), null);
+		
+		Order otherPatientOrder = executor.submit(() -> saveDrugOrderInNewSession(PATIENT_7_ENCOUNTER)).get(60,
+		    TimeUnit.SECONDS);
+		assertNotNull(otherPatientOrder.getOrderId());
+		
+		Future<Order> samePatientOrder = executor.submit(() -> saveDrugOrderInNewSession(PATIENT_2_ENCOUNTER));
+		ExecutionException exception = assertThrows(ExecutionException.class, () -> samePatientOrder.get(60,
+		    TimeUnit.SECONDS));
+		assertThat(exception.getCause(), instanceOf(APIException.class));
+		assertThat(exception.getCause().getMessage(),
+		    is("Timed out waiting for another transaction saving an order of patient 2"));
+	}
+	
+	private Order saveDrugOrderInNewSession(int encounterId) {
+		Context.openSession();
+		try {
+			Context.setUserContext(userContext);
+			return Context.getOrderService().saveOrder(newDrugOrder(encounterId), null);
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	/**
+	 * @return a new inpatient aspirin order, the patients of the standard test dataset have no such
+	 *         order yet
+	 */
+	private DrugOrder newDrugOrder(int encounterId) {
+		DrugOrder order = new DrugOrder();
+		order.setEncounter(Context.getEncounterService().getEncounter(encounterId));
+		order.setPatient(order.getEncounter().getPatient());
+		order.setDrug(Context.getConceptService().getDrug(3));
+		order.setOrderer(Context.getProviderService().getProvider(1));
+		order.setCareSetting(Context.getOrderService().getCareSetting(2));
+		order.setDosingType(FreeTextDosingInstructions.class);
+		order.setDosingInstructions("2 for 5 days");
+		order.setQuantity(10.0);
+		order.setQuantityUnits(Context.getConceptService().getConcept(51));
+		order.setNumRefills(2);
+		return order;
+	}
+}
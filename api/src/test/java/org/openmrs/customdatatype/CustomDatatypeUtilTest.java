@@ -10,11 +10,22 @@
 package org.openmrs.customdatatype;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.openmrs.LocationAttribute;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.db.ClobDatatypeStorage;
+import org.openmrs.customdatatype.datatype.LongFreeTextDatatype;
+import org.openmrs.customdatatype.datatype.RegexValidatedTextDatatype;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 
 public class CustomDatatypeUtilTest extends BaseContextSensitiveTest {
@@ -34,4 +45,51 @@ public class CustomDatatypeUtilTest extends BaseContextSensitiveTest {
 		assertEquals("one value", deserialized.get("one property"));
 		assertEquals("another value < with > strange&nbsp;characters", deserialized.get("another property"));
 	}
+	
+	/**
+	 * @see CustomDatatypeUtil#getDatatype(String,String)
+	 */
+	@Test
+	public void getDatatype_shouldReturnTheSameInstanceForTheSameClassnameAndConfiguration() {
+		String classname = RegexValidatedTextDatatype.class.getName();
+		CustomDatatype<?> datatype = CustomDatatypeUtil.getDatatype(classname, "[a-z]+");
+		
+		assertSame(datatype, CustomDatatypeUtil.getDatatype(classname, "[a-z]+"));
+		assertNotSame(datatype, CustomDatatypeUtil.getDatatype(classname, "[0-9]+"));
+		
+		CustomDatatypeUtil.clearCachedDatatypesAndHandlers();
+		assertNotSame(datatype, CustomDatatypeUtil.getDatatype(classname, "[a-z]+"));
+	}
+	
+	/**
+	 * @see CustomDatatypeUtil#loadValues(java.util.Collection)
+	 */
+	@Test
+	public void loadValues_shouldLoadTheValuesOfLongFreeTextAttributes() {
+		LocationAttributeType type = new LocationAttributeType();
+		type.setDatatypeClassname(LongFreeTextDatatype.class.getName());
+		
+		LocationAttribute first = newAttribute(type, "first long text");
+		LocationAttribute second = newAttribute(type, "second long text");
+		assertFalse(first.isValueLoaded());
+		
+		CustomDatatypeUtil.loadValues(Arrays.asList(first, second));
+		
+		assertTrue(first.isValueLoaded());
+		assertTrue(second.isValueLoaded());
+		assertEquals("first long text", first.getValue());
+		assertEquals("second long text", second.getValue());
+		assertFalse(first.isDirty());
+	}
+	
+	private LocationAttribute newAttribute(LocationAttributeType type, String text) {
+		ClobDatatypeStorage storage = new ClobDatatypeStorage();
+		storage.setValue(text);
+		Context.getDatatypeService().saveClobDatatypeStorage(storage);
+		
+		LocationAttribute attribute = new LocationAttribute();
+		attribute.setAttributeType(type);
+		attribute.setValueReferenceInternal(storage.getUuid());
+		return attribute;
+	}
 }
@@ -59,4 +59,19 @@ public class CachedMessageSourceTest {
 		assertEquals(valueAsString, valueAsPM.getMessage());
 	}
 	
+	/**
+	 * @see CachedMessageSource#addPresentation(PresentationMessage)
+	 */
+	@Test
+	public void addPresentation_shouldReplaceTheMessageResolvedForACode() {
+		CachedMessageSource cachedMessages = new CachedMessageSource();
+		cachedMessages.addPresentation(new PresentationMessage("patient.greeting", Locale.ENGLISH, "Hello {0}", ""));
+		assertEquals("Hello John", cachedMessages.getMessage("patient.greeting", new Object[] { "John" }, Locale.ENGLISH));
+		
+		cachedMessages.addPresentation(new PresentationMessage("patient.greeting", Locale.ENGLISH, "Welcome {0}", ""));
+		assertEquals("Welcome John", cachedMessages.getMessage("patient.greeting", new Object[] { "John" }, Locale.ENGLISH));
+		
+		cachedMessages.removePresentation(new PresentationMessage("patient.greeting", Locale.ENGLISH, "Welcome {0}", ""));
+		assertEquals("default", cachedMessages.getMessage("patient.greeting", null, "default", Locale.ENGLISH));
+	}
 }
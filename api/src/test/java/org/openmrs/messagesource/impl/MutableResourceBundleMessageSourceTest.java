@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.messagesource.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link MutableResourceBundleMessageSource}.
+ */
+public class MutableResourceBundleMessageSourceTest {
+	
+	private static final Locale SWISS_GERMAN = new Locale("de", "CH");
+	
+	private MutableResourceBundleMessageSource messageSource;
+	
+	@BeforeEach
+	public void setUp() {
+		messageSource = new MutableResourceBundleMessageSource();
+		messageSource.setBasenames("classpath:messages");
+		messageSource.setFallbackToSystemLocale(false);
+		messageSource.setUseCodeAsDefaultMessage(true);
+		messageSource.setDefaultEncoding("UTF-8");
+	}
+	
+	/**
+	 * @see MutableResourceBundleMessageSource#getMessage(String, Object[], Locale)
+	 */
+	@Test
+	public void getMessage_shouldResolveMessagesThroughTheLocaleFallbacks() {
+		assertThat(messageSource.getMessage("index.title", null, SWISS_GERMAN), is("OpenMRS - Startseite"));
+		assertThat(messageSource.getMessage("openmrs.title", null, SWISS_GERMAN), is("OpenMRS"));
+		assertThat(messageSource.getMessage("no.such.code", null, SWISS_GERMAN), is("no.such.code"));
+	}
+	
+	/**
+	 * @see MutableResourceBundleMessageSource#getMessage(String, Object[], Locale)
+	 */
+	@Test
+	public void getMessage_shouldFormatMessagesWithArguments() {
+		Object[] args = new Object[] { "Add Patients" };
+		assertThat(messageSource.getMessage("error.privilegesRequired", args, SWISS_GERMAN),
+		    is("Berechtigungen erforderlich: Add Patients"));
+		assertThat(messageSource.getMessage("error.privilegesRequired", args, Locale.ENGLISH),
+		    is("Privileges required: Add Patients"));
+	}
+	
+	/**
+	 * @see MutableResourceBundleMessageSource#clearCache()
+	 */
+	@Test
+	public void clearCache_shouldKeepResolvingMessagesAfterTheTablesAreRebuilt() {
+		assertThat(messageSource.getMessage("index.title", null, Locale.GERMAN), is("OpenMRS - Startseite"));
+		
+		messageSource.clearCache();
+		
+		assertThat(messageSource.getMessage("index.title", null, Locale.GERMAN), is("OpenMRS - Startseite"));
+		assertThat(messageSource.getLocales(), hasItem(Locale.GERMAN));
+	}
+}
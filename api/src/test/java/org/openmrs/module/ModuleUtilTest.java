@@ -16,10 +16,12 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -27,22 +29,31 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.openmrs.GlobalProperty;
+import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.openmrs.util.HandlerUtil;
 import org.openmrs.util.OpenmrsConstants;
 import org.powermock.reflect.Whitebox;
+import org.springframework.validation.Validator;
 
 /**
  * Tests methods on the {@link org.openmrs.module.ModuleUtil} class
@@ -790,6 +801,146 @@ public class ModuleUtilTest extends BaseContextSensitiveTest {
 		assertEquals(expected, ModuleUtil.matchRequiredVersions(configVersion, versionRange));
 	}
 	
+	/**
+	 * @see ModuleUtil#canStartInChildApplicationContext(Module)
+	 */
+	@Test
+	public void canStartInChildApplicationContext_shouldReturnFalseInTheFullRefreshMode() {
+		assertFalse(ModuleUtil.canStartInChildApplicationContext(getTest1Module()));
+	}
+	
+	/**
+	 * @see ModuleUtil#canStartInChildApplicationContext(Module)
+	 */
+	@Test
+	public void canStartInChildApplicationContext_shouldReturnFalseForAModuleMappingEntities() {
+		setIncrementalRefreshMode();
+		Module module = getTest1Module();
+		module.setMappingFiles(Collections.singletonList("Test1.hbm.xml"));
+		
+		assertFalse(ModuleUtil.canStartInChildApplicationContext(module));
+	}
+	
+	/**
+	 * @see ModuleUtil#canStartInChildApplicationContext(Module)
+	 */
+	@Test
+	public void canStartInChildApplicationContext_shouldReturnFalseForAModuleWhoseConfigListsMappingFiles() {
+		setIncrementalRefreshMode();
+		Module module = ModuleFactory.loadModule(getTest1Module().getFile());
+		try {
+			assertThat(module.getMappingFiles(), contains("Test1.hbm.xml"));
+			
+			assertFalse(ModuleUtil.canStartInChildApplicationContext(module));
+		}
+		finally {
+			ModuleFactory.unloadModule(module);
+		}
+	}
+	
+	/**
+	 * @see ModuleUtil#canStartInChildApplicationContext(Module)
+	 */
+	@Test
+	public void canStartInChildApplicationContext_shouldReturnFalseForAModuleWithEntitiesInTheJarsOfItsLibFolder(
+	        @TempDir File directory) throws IOException {
+		setIncrementalRefreshMode();
+		// the class file of a core entity, renamed into the package of the module
+		Module module = ModuleFactory.loadModule(createModuleFile(directory, "org/openmrs/Allergy.class"));
+		try {
+			ModuleFactory.startModule(module);
+			
+			assertFalse(ModuleUtil.canStartInChildApplicationContext(module));
+		}
+		finally {
+			ModuleFactory.unloadModule(module);
+		}
+	}
+	
+	/**
+	 * @see ModuleUtil#canStartInChildApplicationContext(Module)
+	 */
+	@Test
+	public void canStartInChildApplicationContext_shouldReturnTrueInTheIncrementalRefreshModeForAModuleWithoutEntities(
+	        @TempDir File directory) throws IOException {
+		setIncrementalRefreshMode();
+		Module module = ModuleFactory.loadModule(createModuleFile(directory, "org/openmrs/util/OpenmrsUtil.class"));
+		try {
+			ModuleFactory.startModule(module);
+			assertNotNull(ModuleFactory.getModuleClassLoader(module));
+			
+			assertTrue(ModuleUtil.canStartInChildApplicationContext(module));
+		}
+		finally {
+			ModuleFactory.unloadModule(module);
+		}
+	}
+	
+	/**
+	 * @see ModuleUtil#closeModuleApplicationContext(Module)
+	 */
+	@Test
+	public void closeModuleApplicationContext_shouldClearTheCachesHoldingTheBeansAndMessagesOfTheModule() {
+		Module module = ModuleFactory.loadModule(getTest1Module().getFile());
+		try {
+			ModuleFactory.startModule(module);
+			ModuleUtil.startInChildApplicationContext(applicationContext, module);
+			
+			assertTrue(ModuleUtil.isStartedInChildApplicationContext(module));
+			assertEquals("Test1 Module", Context.getMessageSourceService().getMessage("test1.title", null, Locale.ENGLISH));
+			List<Validator> handlers = HandlerUtil.getHandlersForType(Validator.class, Patient.class);
+			
+			ModuleFactory.stopModule(module);
+			
+			assertNotSame(handlers, HandlerUtil.getHandlersForType(Validator.class, Patient.class));
+			assertEquals("test1.title", Context.getMessageSourceService().getMessage("test1.title", null, Locale.ENGLISH));
+		}
+		finally {
+			ModuleFactory.unloadModule(module);
+		}
+	}
+	
+	private void setIncrementalRefreshMode() {
+		initialRuntimeProperties = Context.getRuntimeProperties();
+		Properties properties = Context.getRuntimeProperties();
+		properties.setProperty(ModuleConstants.CONTEXT_REFRESH_MODE_RUNTIME_PROPERTY, "incremental");
+		Context.setRuntimeProperties(properties);
+	}
+	
+	/**
+	 * Creates a module without mapping files, with the given class file in the api jar in its lib
+	 * folder like in the standard module layout
+	 */
+	private File createModuleFile(File directory, String classFile) throws IOException {
+		ByteArrayOutputStream apiJar = new ByteArrayOutputStream();
+		try (JarOutputStream jar = new JarOutputStream(apiJar);
+		        InputStream in = getClass().getResourceAsStream("/" + classFile)) {
+			jar.putNextEntry(new JarEntry("org/openmrs/module/childcontext/" + new File(classFile).getName()));
+			IOUtils.copy(in, jar);
+		}
+		
+		String config = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<module configVersion=\"1.2\">\n"
+		        + "<id>childcontext</id>\n<name>Child Context Module</name>\n<version>1.0</version>\n"
+		        + "<package>org.openmrs.module.childcontext</package>\n<author>OpenMRS</author>\n"
+		        + "<description>A module to test starting in a child application context</description>\n</module>\n";
+		File moduleFile = new File(directory, "childcontext-1.0.omod");
+		try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(moduleFile))) {
+			jar.putNextEntry(new JarEntry("config.xml"));
+			jar.write(config.getBytes(StandardCharsets.UTF_8));
+			jar.putNextEntry(new JarEntry("lib/childcontext-api-1.0.jar"));
+			jar.write(apiJar.toByteArray());
+		}
+		return moduleFile;
+	}
+	
+	private Module getTest1Module() {
+		Module module = new Module("Test1");
+		module.setModuleId("test1");
+		module.setPackageName("org.openmrs.module.test1");
+		module.setFile(new File(getClass().getResource("/org/openmrs/module/include/test1-1.0-SNAPSHOT.omod").getFile()));
+		return module;
+	}
+	
 	/**
 	 * Gets Jar file to be expanded.
 	 * 
@@ -10,9 +10,14 @@
 package org.openmrs.notification;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
+import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.notification.impl.AlertServiceImpl;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
@@ -63,4 +68,66 @@ public class AlertServiceTest extends BaseContextSensitiveTest {
 		//Test that alert contains the expected content
 		assertTrue(alertOne.getText().equals(Context.getMessageSourceService().getMessage("Module.startupError.notification.message", new Object[] { "test" }, null)));
 	}
+	
+	/**
+	 * @see AlertService#getActiveAlertSummary(User)
+	 */
+	@Test
+	public void getActiveAlertSummary_shouldCountTheUnreadAlertsThatHaveNotExpired() {
+		User user = Context.getAuthenticatedUser();
+		AlertSummary before = Context.getAlertService().getActiveAlertSummary(user);
+		
+		Context.getAlertService().saveAlert(new Alert("active alert", user));
+		Alert expiredAlert = new Alert("expired alert", user);
+		expiredAlert.setDateToExpire(new Date(System.currentTimeMillis() - 60000));
+		Context.getAlertService().saveAlert(expiredAlert);
+		
+		AlertSummary after = Context.getAlertService().getActiveAlertSummary(null);
+		assertEquals(before.getUnreadCount() + 1, after.getUnreadCount());
+		assertEquals(Context.getAlertService().getAlertsByUser(user).size(), after.getUnreadCount());
+	}
+	
+	/**
+	 * @see AlertService#getActiveAlertSummary(User)
+	 */
+	@Test
+	public void getActiveAlertSummary_shouldChangeTheVersionWhenAnAlertOfTheUserIsSaved() {
+		User user = Context.getAuthenticatedUser();
+		AlertSummary before = Context.getAlertService().getActiveAlertSummary(user);
+		assertEquals(before.getVersion(), Context.getAlertService().getActiveAlertSummary(user).getVersion());
+		
+		Context.getAlertService().saveAlert(new Alert("new alert", user));
+		
+		assertNotEquals(before.getVersion(), Context.getAlertService().getActiveAlertSummary(user).getVersion());
+	}
+	
+	/**
+	 * @see AlertService#getActiveAlertSummary(User)
+	 */
+	@Test
+	public void getActiveAlertSummary_shouldNotCountAlertsMarkedAsRead() {
+		User user = Context.getAuthenticatedUser();
+		int unreadCount = Context.getAlertService().getActiveAlertSummary(user).getUnreadCount();
+		Alert alert = Context.getAlertService().saveAlert(new Alert("alert to read", user));
+		assertEquals(unreadCount + 1, Context.getAlertService().getActiveAlertSummary(user).getUnreadCount());
+		
+		Context.getAlertService().saveAlert(alert.markAlertRead());
+		
+		assertEquals(unreadCount, Context.getAlertService().getActiveAlertSummary(user).getUnreadCount());
+	}
+	
+	/**
+	 * @see AlertService#awaitActiveAlertSummary(User,long,long,TimeUnit)
+	 */
+	@Test
+	public void awaitActiveAlertSummary_shouldReturnRightAwayIfTheVersionDiffers() {
+		AlertSummary summary = Context.getAlertService().getActiveAlertSummary(null);
+		
+		long start = System.nanoTime();
+		AlertSummary awaited = Context.getAlertService().awaitActiveAlertSummary(null, summary.getVersion() - 1, 1,
+		    TimeUnit.MINUTES);
+		
+		assertNotEquals(summary.getVersion() - 1, awaited.getVersion());
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+	}
 }
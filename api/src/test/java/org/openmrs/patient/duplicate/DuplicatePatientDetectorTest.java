@@ -0,0 +1,159 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.patient.duplicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.db.PatientDAO;
+
+/**
+ * Tests {@link DuplicatePatientDetector}
+ */
+public class DuplicatePatientDetectorTest {
+	
+	private static final Date BIRTHDATE = new GregorianCalendar(1975, 3, 8).getTime();
+	
+	private static final Date LAST_RUN = new GregorianCalendar(2020, 0, 1).getTime();
+	
+	private static final Date BEFORE_LAST_RUN = new GregorianCalendar(2019, 0, 1).getTime();
+	
+	private static final Date AFTER_LAST_RUN = new GregorianCalendar(2021, 0, 1).getTime();
+	
+	private final List<PatientRecord> records = new ArrayList<>();
+	
+	private final List<DuplicateCandidate> candidates = new ArrayList<>();
+	
+	private DuplicatePatientDetector detector;
+	
+	@BeforeEach
+	public void setUp() {
+		PatientDAO dao = mock(PatientDAO.class);
+		doAnswer(invocation -> {
+			Date changedSince = invocation.getArgument(0);
+			Consumer<PatientRecord> consumer = invocation.getArgument(1);
+			records.stream().filter(r -> r.isChangedSince(changedSince)).forEach(consumer);
+			return null;
+		}).when(dao).forEachDuplicateDetectionRecord(any(), any());
+		Map<Integer, Set<String>> identifiers = new HashMap<>();
+		identifiers.put(1, Collections.singleton("100-1"));
+		identifiers.put(2, Collections.singleton("100-1"));
+		when(dao.getPatientIdentifierValues(anyCollection())).thenReturn(identifiers);
+		
+		detector = new DuplicatePatientDetector(dao);
+		detector.setParallelism(2);
+	}
+	
+	@Test
+	public void detect_shouldFindPatientsWithSimilarNamesAndTheSameBirthdate() {
+		records.add(new PatientRecord(1, "Martha", "Smith", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(2, "Marhta", "Smyth", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(3, "John", "Smith", "M", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(4, "Joan", "Doe", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		
+		assertEquals(1, detector.detect(null, candidates::addAll));
+		
+		assertEquals(1, candidates.size());
+		DuplicateCandidate candidate = candidates.get(0);
+		assertEquals(1, candidate.getPatientId());
+		assertEquals(2, candidate.getOtherPatientId());
+		assertEquals(BlockingKey.FAMILY_NAME_BIRTH_YEAR_GENDER.getName(), candidate.getBlockingKey());
+		assertTrue(candidate.getScore() > 0.9);
+	}
+	
+	@Test
+	public void detect_shouldFindPatientsWithMisspelledFamilyNamesByTheirGivenNames() {
+		records.add(new PatientRecord(5, "Robert", "Kowalski", "M", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(6, "Robert", "Cowalski", "M", BIRTHDATE, BEFORE_LAST_RUN));
+		
+		detector.detect(null, candidates::addAll);
+		
+		assertEquals(1, candidates.size());
+		assertEquals(BlockingKey.GIVEN_NAME_BIRTHDATE.getName(), candidates.get(0).getBlockingKey());
+	}
+	
+	@Test
+	public void detect_shouldOnlyScorePairsInvolvingPatientsChangedSinceTheGivenDate() {
+		records.add(new PatientRecord(5, "Robert", "Smith", "M", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(6, "Robert", "Smith", "M", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(7, "Roberta", "Smith", "M", BIRTHDATE, AFTER_LAST_RUN));
+		records.add(new PatientRecord(8, "Anna", "Jones", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(9, "Anna", "Jones", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		
+		detector.detect(LAST_RUN, candidates::addAll);
+		
+		assertEquals(2, candidates.size());
+		assertTrue(candidates.stream().allMatch(c -> c.getOtherPatientId() == 7));
+	}
+	
+	@Test
+	public void detect_shouldSkipBlocksLargerThanTheMaximumBlockSize() {
+		for (int i = 1; i <= 5; i++) {
+			records.add(new PatientRecord(10 + i, "Unknown", "Unknown", "M", BIRTHDATE, BEFORE_LAST_RUN));
+		}
+		detector.setMaxBlockSize(4);
+		
+		assertEquals(0, detector.detect(null, candidates::addAll));
+	}
+	
+	@Test
+	public void detect_shouldRankCandidatesByDescendingScore() {
+		records.add(new PatientRecord(1, "Martha", "Smith", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(2, "Martha", "Smith", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		records.add(new PatientRecord(3, "Marta", "Smith", "F", BIRTHDATE, BEFORE_LAST_RUN));
+		
+		detector.detect(null, candidates::addAll);
+		
+		assertEquals(3, candidates.size());
+		// patients 1 and 2 share their names and an identifier
+		assertEquals(1.0, candidates.get(0).getScore(), 0.0001);
+		for (int i = 1; i < candidates.size(); i++) {
+			assertTrue(candidates.get(i - 1).getScore() >= candidates.get(i).getScore());
+		}
+	}
+	
+	@Test
+	public void soundex_shouldEncodeNames() {
+		assertEquals("R163", BlockingKey.soundex("Robert"));
+		assertEquals("R163", BlockingKey.soundex("Rupert"));
+		assertEquals("A261", BlockingKey.soundex("Ashcraft"));
+		assertEquals("T522", BlockingKey.soundex("Tymczak"));
+		assertEquals("P236", BlockingKey.soundex("Pfister"));
+		assertEquals("L000", BlockingKey.soundex("Lee"));
+		assertNull(BlockingKey.soundex("  "));
+		assertNull(BlockingKey.soundex(null));
+	}
+	
+	@Test
+	public void similarity_shouldReturnTheJaroWinklerSimilarity() {
+		assertEquals(1.0, DuplicateScorer.similarity("Martha", " martha"), 0.0001);
+		assertEquals(0.9611, DuplicateScorer.similarity("Martha", "Marhta"), 0.0001);
+		assertEquals(0.84, DuplicateScorer.similarity("Dwayne", "Duane"), 0.0001);
+		assertEquals(0.0, DuplicateScorer.similarity("Martha", null), 0.0001);
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link CompressedIdSet}
+ */
+public class CompressedIdSetTest {
+	
+	@Test
+	public void add_shouldKeepMembersWhenConvertingBetweenContainers() {
+		CompressedIdSet set = new CompressedIdSet();
+		for (int i = 0; i < 10000; i += 2) {
+			assertTrue(set.add(i));
+		}
+		assertFalse(set.add(0));
+		assertEquals(5000, set.size());
+		assertTrue(set.contains(9998));
+		assertFalse(set.contains(9999));
+		
+		for (int i = 0; i < 10000; i += 4) {
+			assertTrue(set.remove(i));
+		}
+		assertFalse(set.remove(0));
+		assertEquals(2500, set.size());
+		assertTrue(set.contains(2));
+		assertFalse(set.contains(4));
+	}
+	
+	@Test
+	public void add_shouldRejectNegativeIds() {
+		assertThrows(IllegalArgumentException.class, () -> new CompressedIdSet().add(-1));
+	}
+	
+	@Test
+	public void iterator_shouldReturnIdsInAscendingOrder() {
+		CompressedIdSet set = CompressedIdSet.of(70000, 3, 65536, 1, 200000);
+		assertArrayEquals(new int[] { 1, 3, 65536, 70000, 200000 }, set.toArray());
+		assertEquals("[1, 3, 65536, 70000, 200000]", set.toString());
+	}
+	
+	@Test
+	public void setOperations_shouldMatchTheResultsOfTreeSets() {
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			TreeSet<Integer> expectedA = new TreeSet<>();
+			TreeSet<Integer> expectedB = new TreeSet<>();
+			// dense and sparse ranges so that both container types are combined
+			int bound = round % 2 == 0 ? 20000 : 1000000;
+			for (int i = 0; i < 8000; i++) {
+				expectedA.add(random.nextInt(bound));
+				expectedB.add(random.nextInt(bound));
+			}
+			CompressedIdSet a = CompressedIdSet.of(expectedA);
+			CompressedIdSet b = CompressedIdSet.of(expectedB);
+			
+			TreeSet<Integer> union = new TreeSet<>(expectedA);
+			union.addAll(expectedB);
+			TreeSet<Integer> intersection = new TreeSet<>(expectedA);
+			intersection.retainAll(expectedB);
+			TreeSet<Integer> difference = new TreeSet<>(expectedA);
+			difference.removeAll(expectedB);
+			
+			assertEquals(CompressedIdSet.of(union), CompressedIdSet.union(a, b));
+			assertEquals(CompressedIdSet.of(intersection), CompressedIdSet.intersect(a, b));
+			assertEquals(CompressedIdSet.of(difference), CompressedIdSet.subtract(a, b));
+			assertEquals(difference.size(), CompressedIdSet.subtract(a, b).size());
+			// the operands are left untouched
+			assertEquals(expectedA.size(), a.size());
+			assertEquals(expectedB.size(), b.size());
+		}
+	}
+	
+	@Test
+	public void union_shouldTreatNullAsAnEmptySet() {
+		CompressedIdSet set = CompressedIdSet.of(1, 2);
+		assertEquals(set, CompressedIdSet.union(set, null));
+		assertTrue(CompressedIdSet.intersect(set, null).isEmpty());
+		assertEquals(set, CompressedIdSet.subtract(set, null));
+	}
+	
+	@Test
+	public void toByteArray_shouldRoundTripTheSet() throws Exception {
+		CompressedIdSet set = new CompressedIdSet();
+		for (int i = 0; i < 100000; i++) {
+			set.add(i);
+		}
+		set.add(5000000);
+		
+		CompressedIdSet copy = CompressedIdSet.fromByteArray(set.toByteArray());
+		assertEquals(set, copy);
+		assertEquals(set.hashCode(), copy.hashCode());
+		// dense groups are stored as bitmaps of 8 KB each rather than 4 bytes per id
+		assertTrue(set.toByteArray().length < 20000);
+	}
+	
+	@Test
+	public void writeObject_shouldSupportJavaSerialization() throws Exception {
+		CompressedIdSet set = CompressedIdSet.of(1, 5, 100000);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(set);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(set, in.readObject());
+		}
+	}
+}
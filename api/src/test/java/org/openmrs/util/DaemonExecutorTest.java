@@ -0,0 +1,143 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link DaemonExecutor}
+ */
+public class DaemonExecutorTest {
+	
+	private final CountDownLatch release = new CountDownLatch(1);
+	
+	private DaemonExecutor executor;
+	
+	@AfterEach
+	public void tearDown() throws Exception {
+		release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void execute_shouldLimitTheNumberOfRunningTasksPerModule() throws Exception {
+		executor = new DaemonExecutor(10, 2, 10, DaemonExecutor.RejectionPolicy.ABORT);
+		CountDownLatch started = new CountDownLatch(2);
+		
+		for (int i = 0; i < 3; i++) {
+			executor.execute("module", blocking(started));
+		}
+		
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertEquals(2, executor.getActiveCount("module"));
+		assertEquals(1, executor.getQueueDepth("module"));
+		
+		release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(3, executor.getCompletedCount());
+	}
+	
+	@Test
+	public void execute_shouldRunTheTasksOfOtherOwnersWhileAModuleIsAtItsLimit() throws Exception {
+		executor = new DaemonExecutor(10, 1, 10, DaemonExecutor.RejectionPolicy.ABORT);
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute("module", blocking(started));
+		executor.execute("module", blocking(started));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		
+		Future<String> otherModule = executor.submit("otherModule", () -> "done");
+		Future<String> core = executor.submit(() -> "done");
+		
+		assertEquals("done", otherModule.get(10, TimeUnit.SECONDS));
+		assertEquals("done", core.get(10, TimeUnit.SECONDS));
+		assertEquals(1, executor.getQueueDepth("module"));
+	}
+	
+	@Test
+	public void execute_shouldRejectTasksIfTheQueueIsFullAndTheRejectionPolicyIsAbort() throws Exception {
+		executor = new DaemonExecutor(1, 1, 1, DaemonExecutor.RejectionPolicy.ABORT);
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(blocking(started));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		executor.execute(() -> {});
+		
+		assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+		assertEquals(1, executor.getRejectedCount());
+		assertEquals(1, executor.getQueueDepth());
+	}
+	
+	@Test
+	public void execute_shouldMakeTheSubmittingThreadWaitIfTheQueueIsFullAndTheRejectionPolicyIsBlock() throws Exception {
+		executor = new DaemonExecutor(1, 1, 1, DaemonExecutor.RejectionPolicy.BLOCK);
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(blocking(started));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		executor.execute(() -> {});
+		
+		CountDownLatch submitted = new CountDownLatch(1);
+		Thread submitter = new Thread(() -> {
+			executor.execute(() -> {});
+			submitted.countDown();
+		});
+		submitter.start();
+		
+		assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+		release.countDown();
+		assertTrue(submitted.await(10, TimeUnit.SECONDS));
+		submitter.join();
+		assertEquals(0, executor.getRejectedCount());
+	}
+	
+	@Test
+	public void executeOrQueue_shouldReturnWhetherTheCommandWasStartedOrQueued() throws Exception {
+		executor = new DaemonExecutor(1, 1, 10, DaemonExecutor.RejectionPolicy.ABORT);
+		CountDownLatch started = new CountDownLatch(1);
+		
+		assertTrue(executor.executeOrQueue("module", blocking(started)));
+		assertFalse(executor.executeOrQueue("module", blocking(started)));
+		assertEquals(1, executor.getQueueDepth("module"));
+	}
+	
+	@Test
+	public void getCurrentOwner_shouldReturnTheOwnerOfTheTaskRunningOnTheCurrentThread() throws Exception {
+		executor = new DaemonExecutor(10, 10, 10, DaemonExecutor.RejectionPolicy.ABORT);
+		
+		assertEquals("module", executor.submit("module", DaemonExecutor::getCurrentOwner).get(10, TimeUnit.SECONDS));
+		assertEquals(DaemonExecutor.CORE_OWNER, executor.submit(DaemonExecutor::getCurrentOwner).get(10,
+		    TimeUnit.SECONDS));
+		assertNull(DaemonExecutor.getCurrentOwner());
+	}
+	
+	private Runnable blocking(CountDownLatch started) {
+		return () -> {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.annotation.HasAddOnStartupPrivileges;
+
+/**
+ * Tests the {@link OpenmrsClassScanner} class.
+ */
+public class OpenmrsClassScannerTest {
+	
+	@AfterEach
+	public void destroyScanner() {
+		OpenmrsClassScanner.destroyInstance();
+	}
+	
+	/**
+	 * @see OpenmrsClassScanner#getClassesWithAnnotation(Class)
+	 */
+	@Test
+	public void getClassesWithAnnotation_shouldFindClassesWithTheGivenAnnotation() {
+		Set<Class<?>> classes = OpenmrsClassScanner.getInstance().getClassesWithAnnotation(
+		    HasAddOnStartupPrivileges.class);
+		
+		assertThat(classes, hasItems(PrivilegeConstants.class, AnnotatedClass.class, InheritingClass.class));
+		assertThat(classes, not(hasItem(OpenmrsClassScannerTest.class)));
+	}
+	
+	/**
+	 * @see OpenmrsClassScanner#getClassesWithAnnotation(Class)
+	 */
+	@Test
+	public void getClassesWithAnnotation_shouldReturnTheCachedClassesForRepeatedLookups() {
+		OpenmrsClassScanner scanner = OpenmrsClassScanner.getInstance();
+		
+		assertThat(scanner.getClassesWithAnnotation(HasAddOnStartupPrivileges.class),
+		    sameInstance(scanner.getClassesWithAnnotation(HasAddOnStartupPrivileges.class)));
+	}
+	
+	@HasAddOnStartupPrivileges
+	static class AnnotatedClass {
+		
+	}
+	
+	static class InheritingClass extends AnnotatedClass {
+		
+	}
+}
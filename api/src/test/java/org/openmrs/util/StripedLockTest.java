@@ -0,0 +1,151 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link StripedLock}
+ */
+public class StripedLockTest {
+	
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+	
+	private final StripedLock locks = new StripedLock(16);
+	
+	// the committed "orders" as patient id and orderable
+	private final Set<String> committedOrders = ConcurrentHashMap.newKeySet();
+	
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void getLock_shouldReturnTheSameLockForEqualKeys() {
+		assertSame(locks.getLock(1), locks.getLock(Integer.valueOf(1)));
+		assertNotSame(locks.getLock(1), locks.getLock(2));
+	}
+	
+	@Test
+	public void lockUntilTransactionCompletes_shouldFailIfTransactionSynchronizationIsNotActive() {
+		assertThrows(IllegalStateException.class, () -> locks.lockUntilTransactionCompletes(1, 1, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void lockUntilTransactionCompletes_shouldLetTransactionsLockingDifferentKeysProceedInParallel() throws Exception {
+		CyclicBarrier bothLocked = new CyclicBarrier(2);
+		
+		Future<Boolean> first = executor.submit(saveOrder(1, "aspirin", bothLocked));
+		Future<Boolean> second = executor.submit(saveOrder(2, "aspirin", bothLocked));
+		
+		// each transaction only commits once the other one holds its lock too
+		assertTrue(first.get(10, TimeUnit.SECONDS));
+		assertTrue(second.get(10, TimeUnit.SECONDS));
+		assertEquals(2, committedOrders.size());
+	}
+	
+	@Test
+	public void lockUntilTransactionCompletes_shouldKeepTheLockUntilTheTransactionCompletes() throws Exception {
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			results.add(executor.submit(saveOrder(1, "aspirin", null)));
+		}
+		
+		int saved = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(10, TimeUnit.SECONDS)) {
+				saved++;
+			}
+		}
+		// the second transaction checks the committed order of the first and is rejected
+		assertEquals(1, saved);
+		assertEquals(1, committedOrders.size());
+		assertTrue(locks.getLock(1).tryLock());
+		locks.getLock(1).unlock();
+	}
+	
+	@Test
+	public void lockUntilTransactionCompletes_shouldReturnFalseIfTheLockIsNotAcquiredWithinTheTimeout() throws Exception {
+		executor.submit(() -> locks.getLock(1).lock()).get(10, TimeUnit.SECONDS);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertFalse(locks.lockUntilTransactionCompletes(1, 100, TimeUnit.MILLISECONDS));
+			assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+	
+	/**
+	 * Does what saving an order does: locks the patient, checks the committed orders for a
+	 * duplicate and commits the new order unless it is a duplicate
+	 */
+	private Callable<Boolean> saveOrder(int patientId, String orderable, CyclicBarrier barrier) {
+		return () -> {
+			TransactionSynchronizationManager.initSynchronization();
+			try {
+				assertTrue(locks.lockUntilTransactionCompletes(patientId, 10, TimeUnit.SECONDS));
+				if (barrier != null) {
+					barrier.await(10, TimeUnit.SECONDS);
+				}
+				
+				String order = patientId + ":" + orderable;
+				boolean duplicate = committedOrders.contains(order);
+				if (!duplicate) {
+					// give a concurrent transaction of the same patient the chance to check before this commits
+					Thread.sleep(100);
+				}
+				complete(duplicate ? null : order);
+				return !duplicate;
+			}
+			finally {
+				if (TransactionSynchronizationManager.isSynchronizationActive()) {
+					TransactionSynchronizationManager.clearSynchronization();
+				}
+			}
+		};
+	}
+	
+	private void complete(String order) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		if (order != null) {
+			committedOrders.add(order);
+		}
+		for (TransactionSynchronization synchronization : synchronizations) {
+			synchronization.afterCompletion(order == null ? TransactionSynchronization.STATUS_ROLLED_BACK
+			        : TransactionSynchronization.STATUS_COMMITTED);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest {
+	
+	@Test
+	public void getPercentile_shouldReturnZeroWhenEmpty() {
+		assertEquals(0, new LatencyHistogram().getPercentile(99));
+	}
+	
+	@Test
+	public void getPercentile_shouldReturnTheUpperBoundOfTheBucketContainingThePercentile() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) {
+			histogram.record(1000);
+		}
+		histogram.record(1_000_000);
+		
+		assertEquals(100, histogram.getCount());
+		assertEquals(1023, histogram.getPercentile(50));
+		assertEquals(1023, histogram.getPercentile(99));
+		long max = histogram.getPercentile(100);
+		assertTrue(max >= 1_000_000 && max < 2_000_000);
+	}
+	
+	@Test
+	public void reset_shouldDiscardAllValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(5);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+	
+	@Test
+	public void bucket_shouldHandleExtremeValues() {
+		assertEquals(0, LatencyHistogram.bucket(0));
+		assertEquals(0, LatencyHistogram.bucket(-1));
+		assertEquals(62, LatencyHistogram.bucket(Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link MBeans} class.
+ */
+public class MBeansTest {
+	
+	private static final String OBJECT_NAME = "org.openmrs:type=MBeansTest";
+	
+	@AfterEach
+	public void unregister() {
+		MBeans.unregister(OBJECT_NAME);
+	}
+	
+	@Test
+	public void register_shouldRegisterTheObjectUnderTheGivenName() throws Exception {
+		MBeans.register(new Counter(1), OBJECT_NAME);
+		
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(1, server.getAttribute(new ObjectName(OBJECT_NAME), "Count"));
+	}
+	
+	@Test
+	public void register_shouldKeepAnObjectThatIsRegisteredAlready() throws Exception {
+		MBeans.register(new Counter(1), OBJECT_NAME);
+		MBeans.register(new Counter(2), OBJECT_NAME);
+		
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(1, server.getAttribute(new ObjectName(OBJECT_NAME), "Count"));
+	}
+	
+	@Test
+	public void unregister_shouldUnregisterTheObjectOfTheGivenName() throws Exception {
+		MBeans.register(new Counter(1), OBJECT_NAME);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertTrue(server.isRegistered(new ObjectName(OBJECT_NAME)));
+		
+		MBeans.unregister(OBJECT_NAME);
+		
+		assertFalse(server.isRegistered(new ObjectName(OBJECT_NAME)));
+	}
+	
+	public interface CounterMBean {
+		
+		int getCount();
+	}
+	
+	public static class Counter implements CounterMBean {
+		
+		private final int count;
+		
+		public Counter(int count) {
+			this.count = count;
+		}
+		
+		@Override
+		public int getCount() {
+			return count;
+		}
+	}
+}
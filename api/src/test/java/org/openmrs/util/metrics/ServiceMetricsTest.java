@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.util.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ServiceMetrics} class.
+ */
+public class ServiceMetricsTest {
+	
+	@Test
+	public void getStats_shouldReturnTheSameStatisticsForEveryCallOfAMethod() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics();
+		Method method = Service.class.getMethod("get", Integer.class);
+		
+		assertSame(metrics.getStats(method), metrics.getStats(method));
+		assertEquals(1, metrics.getAllStats().size());
+	}
+	
+	@Test
+	public void getStats_shouldShareTheStatisticsOfAMethodWithTheSameMethodOfAReloadedClass() throws Exception {
+		ServiceMetrics metrics = new ServiceMetrics();
+		Method method = Service.class.getMethod("get", Integer.class);
+		URL classes = Service.class.getProtectionDomain().getCodeSource().getLocation();
+		
+		try (URLClassLoader moduleClassLoader = new URLClassLoader(new URL[] { classes }, null)) {
+			Class<?> reloaded = moduleClassLoader.loadClass(Service.class.getName());
+			assertNotSame(Service.class, reloaded);
+			
+			assertSame(metrics.getStats(method), metrics.getStats(reloaded.getMethod("get", Integer.class)));
+		}
+		assertEquals(1, metrics.getAllStats().size());
+	}
+	
+	public static class Service {
+		
+		public String get(Integer id) {
+			return String.valueOf(id);
+		}
+	}
+}
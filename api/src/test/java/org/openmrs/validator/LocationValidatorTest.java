@@ -9,11 +9,17 @@
  */
 package org.openmrs.validator;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 import org.openmrs.Location;
+import org.openmrs.LocationAttribute;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.db.ClobDatatypeStorage;
+import org.openmrs.customdatatype.datatype.LongFreeTextDatatype;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.springframework.validation.BindException;
 import org.springframework.validation.Errors;
@@ -227,4 +233,40 @@ public class LocationValidatorTest extends BaseContextSensitiveTest {
 		assertTrue(errors.hasFieldErrors("countyDistrict"));
 		assertTrue(errors.hasFieldErrors("retireReason"));
 	}
+	
+	/**
+	 * @see LocationValidator#validate(Object,Errors)
+	 */
+	@Test
+	public void validate_shouldValidateTheValuesOfLongFreeTextAttributes() {
+		LocationAttributeType type = new LocationAttributeType();
+		type.setName("Directions");
+		type.setDatatypeClassname(LongFreeTextDatatype.class.getName());
+		Location location = new Location();
+		location.setName("County General");
+		location.setDescription("desc");
+		location.addAttribute(newAttribute(type, "Turn left at the market"));
+		location.addAttribute(newAttribute(type, "Second floor"));
+		
+		Errors errors = new BindException(location, "location");
+		new LocationValidator().validate(location, errors);
+		
+		assertFalse(errors.hasErrors());
+		for (LocationAttribute attribute : location.getActiveAttributes()) {
+			assertTrue(attribute.isValueLoaded());
+			assertFalse(attribute.isDirty());
+		}
+		assertEquals("Turn left at the market", location.getActiveAttributes(type).get(0).getValue());
+	}
+	
+	private LocationAttribute newAttribute(LocationAttributeType type, String text) {
+		ClobDatatypeStorage storage = new ClobDatatypeStorage();
+		storage.setValue(text);
+		Context.getDatatypeService().saveClobDatatypeStorage(storage);
+		
+		LocationAttribute attribute = new LocationAttribute();
+		attribute.setAttributeType(type);
+		attribute.setValueReferenceInternal(storage.getUuid());
+		return attribute;
+	}
 }
@@ -0,0 +1,74 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openmrs.api.context.Context;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Opens an authenticated OpenMRS session for each benchmark thread, the way a web request or
+ * daemon thread would use the API
+ */
+@State(Scope.Thread)
+public class AuthenticatedSession {
+	
+	private BenchmarkEnvironment environment;
+	
+	@Setup(Level.Trial)
+	public void openSession() {
+		environment = BenchmarkEnvironment.getInstance();
+		Context.openSession();
+		Context.authenticate(BenchmarkEnvironment.getCredentials());
+	}
+	
+	@TearDown(Level.Trial)
+	public void closeSession() {
+		Context.closeSession();
+	}
+	
+	/**
+	 * Clears the hibernate session between iterations so that it does not grow without bounds
+	 */
+	@TearDown(Level.Iteration)
+	public void clearSession() {
+		Context.clearSession();
+	}
+	
+	public BenchmarkDataset getDataset() {
+		return environment.getDataset();
+	}
+	
+	public Integer randomPatientId() {
+		return random(getDataset().getPatientIds());
+	}
+	
+	public Integer randomConceptId() {
+		return random(getDataset().getConceptIds());
+	}
+	
+	public String randomFamilyName() {
+		return random(getDataset().getFamilyNames());
+	}
+	
+	public String randomConceptNameFragment() {
+		return random(getDataset().getConceptNameFragments());
+	}
+	
+	private static <T> T random(List<T> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+}
@@ -0,0 +1,184 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.openmrs.Concept;
+import org.openmrs.ConceptDescription;
+import org.openmrs.ConceptName;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.context.Context;
+
+/**
+ * Generates locations, concepts, patients, encounters and obs through the API so that the
+ * generated rows are as close as possible to what a real installation contains. The same size and
+ * seed always generate the same data, which keeps results comparable across commits.
+ */
+public class BenchmarkDataGenerator {
+	
+	private static final String[] SYLLABLES = { "ka", "mo", "ri", "te", "su", "na", "lo", "pe", "di", "ba", "ge",
+	        "fu", "zi", "wa", "jo", "me" };
+	
+	private static final int CONCEPT_CLASS_MISC = 11;
+	
+	private static final int CONCEPT_DATATYPE_TEXT = 3;
+	
+	private static final int IDENTIFIER_TYPE_WITHOUT_VALIDATOR = 2;
+	
+	private static final int ENCOUNTER_TYPE_SCHEDULED = 1;
+	
+	private static final int BATCH_SIZE = 50;
+	
+	private final BenchmarkDataset.Size size;
+	
+	private final Random random = new Random(20241019L);
+	
+	public BenchmarkDataGenerator(BenchmarkDataset.Size size) {
+		this.size = size;
+	}
+	
+	/**
+	 * Generates the data, the caller must have an open and authenticated session
+	 * 
+	 * @return the ids of the generated data
+	 */
+	public BenchmarkDataset generate() {
+		List<Integer> locationIds = generateLocations();
+		List<String> conceptNameFragments = new ArrayList<>();
+		List<Integer> conceptIds = generateConcepts(conceptNameFragments);
+		List<String> familyNames = new ArrayList<>();
+		List<Integer> patientIds = generatePatients(locationIds, conceptIds, familyNames);
+		return new BenchmarkDataset(locationIds, conceptIds, patientIds, conceptNameFragments, familyNames);
+	}
+	
+	private List<Integer> generateLocations() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < size.getLocations(); i++) {
+			Location location = new Location();
+			location.setName("Benchmark Location " + i);
+			location.setDescription("Generated for benchmarks");
+			ids.add(Context.getLocationService().saveLocation(location).getLocationId());
+		}
+		return ids;
+	}
+	
+	private List<Integer> generateConcepts(List<String> nameFragments) {
+		ConceptService cs = Context.getConceptService();
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < size.getConcepts(); i++) {
+			String word = word(3);
+			if (nameFragments.size() < 100) {
+				nameFragments.add(word);
+			}
+			
+			Concept concept = new Concept();
+			concept.setFullySpecifiedName(new ConceptName(word + " " + word(2) + " " + i, Locale.ENGLISH));
+			concept.addDescription(new ConceptDescription("Generated for benchmarks", Locale.ENGLISH));
+			concept.setConceptClass(cs.getConceptClass(CONCEPT_CLASS_MISC));
+			concept.setDatatype(cs.getConceptDatatype(CONCEPT_DATATYPE_TEXT));
+			ids.add(cs.saveConcept(concept).getConceptId());
+			
+			if (i % BATCH_SIZE == 0) {
+				Context.flushSession();
+				Context.clearSession();
+			}
+		}
+		return ids;
+	}
+	
+	private List<Integer> generatePatients(List<Integer> locationIds, List<Integer> conceptIds, List<String> familyNames) {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < size.getPatients(); i++) {
+			Location location = Context.getLocationService().getLocation(pick(locationIds));
+			String familyName = capitalize(word(3));
+			if (familyNames.size() < 100) {
+				familyNames.add(familyName);
+			}
+			
+			Patient patient = new Patient();
+			patient.addName(new PersonName(capitalize(word(2)), null, familyName));
+			patient.setGender(random.nextBoolean() ? "M" : "F");
+			patient.setBirthdate(daysAgo(365 * 20 + random.nextInt(365 * 50)));
+			PatientIdentifier identifier = new PatientIdentifier("BM-" + i, Context.getPatientService()
+			        .getPatientIdentifierType(IDENTIFIER_TYPE_WITHOUT_VALIDATOR), location);
+			identifier.setPreferred(true);
+			patient.addIdentifier(identifier);
+			patient = Context.getPatientService().savePatient(patient);
+			ids.add(patient.getPatientId());
+			
+			for (int e = 0; e < size.getEncountersPerPatient(); e++) {
+				Context.getEncounterService().saveEncounter(newEncounter(patient, location, conceptIds));
+			}
+			
+			if (i % BATCH_SIZE == 0) {
+				Context.flushSession();
+				Context.clearSession();
+			}
+		}
+		return ids;
+	}
+	
+	/**
+	 * Creates an unsaved encounter with the configured number of text obs
+	 * 
+	 * @param patient the patient of the encounter
+	 * @param location the location of the encounter
+	 * @param conceptIds the concepts to pick the obs questions from
+	 * @return the new encounter
+	 */
+	Encounter newEncounter(Patient patient, Location location, List<Integer> conceptIds) {
+		Date date = daysAgo(1 + random.nextInt(3650));
+		Encounter encounter = new Encounter();
+		encounter.setPatient(patient);
+		encounter.setLocation(location);
+		encounter.setEncounterType(Context.getEncounterService().getEncounterType(ENCOUNTER_TYPE_SCHEDULED));
+		encounter.setEncounterDatetime(date);
+		for (int o = 0; o < size.getObsPerEncounter(); o++) {
+			Obs obs = new Obs(patient, Context.getConceptService().getConcept(pick(conceptIds)), date, location);
+			obs.setValueText(word(4));
+			encounter.addObs(obs);
+		}
+		return encounter;
+	}
+	
+	private Integer pick(List<Integer> ids) {
+		return ids.get(random.nextInt(ids.size()));
+	}
+	
+	private String word(int syllables) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < syllables; i++) {
+			sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		return sb.toString();
+	}
+	
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+	
+	private static Date daysAgo(int days) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.DAY_OF_YEAR, -days);
+		return calendar.getTime();
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ids and search terms of the data generated for the benchmarks
+ */
+public class BenchmarkDataset {
+	
+	private final List<Integer> locationIds;
+	
+	private final List<Integer> conceptIds;
+	
+	private final List<Integer> patientIds;
+	
+	private final List<String> conceptNameFragments;
+	
+	private final List<String> familyNames;
+	
+	BenchmarkDataset(List<Integer> locationIds, List<Integer> conceptIds, List<Integer> patientIds,
+	    List<String> conceptNameFragments, List<String> familyNames) {
+		this.locationIds = Collections.unmodifiableList(locationIds);
+		this.conceptIds = Collections.unmodifiableList(conceptIds);
+		this.patientIds = Collections.unmodifiableList(patientIds);
+		this.conceptNameFragments = Collections.unmodifiableList(conceptNameFragments);
+		this.familyNames = Collections.unmodifiableList(familyNames);
+	}
+	
+	public List<Integer> getLocationIds() {
+		return locationIds;
+	}
+	
+	public List<Integer> getConceptIds() {
+		return conceptIds;
+	}
+	
+	public List<Integer> getPatientIds() {
+		return patientIds;
+	}
+	
+	/**
+	 * @return words that occur in the names of the generated concepts
+	 */
+	public List<String> getConceptNameFragments() {
+		return conceptNameFragments;
+	}
+	
+	/**
+	 * @return family names of the generated patients
+	 */
+	public List<String> getFamilyNames() {
+		return familyNames;
+	}
+	
+	@Override
+	public String toString() {
+		return "BenchmarkDataset[locations=" + locationIds.size() + ", concepts=" + conceptIds.size() + ", patients="
+		        + patientIds.size() + "]";
+	}
+	
+	/**
+	 * The number of rows to generate, read from the <code>benchmark.*</code> system properties
+	 */
+	public static class Size {
+		
+		private final int patients;
+		
+		private final int encountersPerPatient;
+		
+		private final int obsPerEncounter;
+		
+		private final int concepts;
+		
+		private final int locations;
+		
+		public Size(int patients, int encountersPerPatient, int obsPerEncounter, int concepts, int locations) {
+			this.patients = patients;
+			this.encountersPerPatient = encountersPerPatient;
+			this.obsPerEncounter = obsPerEncounter;
+			this.concepts = Math.max(concepts, 1);
+			this.locations = Math.max(locations, 1);
+		}
+		
+		public static Size fromSystemProperties() {
+			return new Size(Integer.getInteger("benchmark.patients", 1000),
+			        Integer.getInteger("benchmark.encountersPerPatient", 2),
+			        Integer.getInteger("benchmark.obsPerEncounter", 5), Integer.getInteger("benchmark.concepts", 500),
+			        Integer.getInteger("benchmark.locations", 20));
+		}
+		
+		public int getPatients() {
+			return patients;
+		}
+		
+		public int getEncountersPerPatient() {
+			return encountersPerPatient;
+		}
+		
+		public int getObsPerEncounter() {
+			return obsPerEncounter;
+		}
+		
+		public int getConcepts() {
+			return concepts;
+		}
+		
+		public int getLocations() {
+			return locations;
+		}
+	}
+}
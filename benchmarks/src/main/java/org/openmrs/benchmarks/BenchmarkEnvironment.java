@@ -0,0 +1,196 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.ReplacementDataSet;
+import org.dbunit.dataset.xml.FlatXmlDataSet;
+import org.dbunit.ext.h2.H2DataTypeFactory;
+import org.dbunit.operation.DatabaseOperation;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.H2Dialect;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Credentials;
+import org.openmrs.api.context.UsernamePasswordCredentials;
+import org.openmrs.module.ModuleConstants;
+import org.openmrs.util.OpenmrsClassLoader;
+import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.OpenmrsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Boots the OpenMRS Spring context against the same in-memory H2 database used by
+ * {@link org.openmrs.test.jupiter.BaseContextSensitiveTest}, loads the standard test dataset and
+ * adds a generated dataset whose size is controlled by {@link BenchmarkDataset.Size}. <br>
+ * <br>
+ * Only one environment exists per JVM, so every benchmark in a JMH fork shares the same context
+ * and data.
+ */
+public final class BenchmarkEnvironment {
+	
+	private static final Logger log = LoggerFactory.getLogger(BenchmarkEnvironment.class);
+	
+	private static final String[] CONTEXT_LOCATIONS = { "classpath:applicationContext-service.xml",
+	        "classpath*:openmrs-servlet.xml", "classpath*:moduleApplicationContext.xml",
+	        "classpath*:TestingApplicationContext.xml" };
+	
+	private static final String[] DATASETS = { "org/openmrs/include/initialInMemoryTestDataSet.xml",
+	        "org/openmrs/include/standardTestDataset.xml" };
+	
+	private static final String URL = "jdbc:h2:mem:openmrs-benchmarks;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;IGNORECASE=TRUE";
+	
+	private static BenchmarkEnvironment instance;
+	
+	private final ClassPathXmlApplicationContext applicationContext;
+	
+	private final BenchmarkDataset dataset;
+	
+	private BenchmarkEnvironment() {
+		Thread.currentThread().setContextClassLoader(OpenmrsClassLoader.getInstance());
+		Context.setRuntimeProperties(getRuntimeProperties());
+		
+		long start = System.currentTimeMillis();
+		applicationContext = new ClassPathXmlApplicationContext(CONTEXT_LOCATIONS);
+		log.info("Started the application context in {} ms", System.currentTimeMillis() - start);
+		
+		Context.openSession();
+		try {
+			initializeDatabase(applicationContext.getBean("sessionFactory", SessionFactory.class));
+			Context.authenticate(getCredentials());
+			
+			start = System.currentTimeMillis();
+			dataset = new BenchmarkDataGenerator(BenchmarkDataset.Size.fromSystemProperties()).generate();
+			Context.updateSearchIndex();
+			log.info("Generated {} in {} ms", dataset, System.currentTimeMillis() - start);
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	/**
+	 * @return the environment of this JVM, started on first use
+	 */
+	public static synchronized BenchmarkEnvironment getInstance() {
+		if (instance == null) {
+			instance = new BenchmarkEnvironment();
+		}
+		return instance;
+	}
+	
+	/**
+	 * @return the credentials of the user benchmarks run as
+	 */
+	public static Credentials getCredentials() {
+		return new UsernamePasswordCredentials("admin", "test");
+	}
+	
+	public BenchmarkDataset getDataset() {
+		return dataset;
+	}
+	
+	public ClassPathXmlApplicationContext getApplicationContext() {
+		return applicationContext;
+	}
+	
+	private static Properties getRuntimeProperties() {
+		Properties props = new Properties();
+		props.setProperty(Environment.DIALECT, H2Dialect.class.getName());
+		props.setProperty(Environment.URL, URL);
+		props.setProperty(Environment.DRIVER, "org.h2.Driver");
+		props.setProperty(Environment.USER, "sa");
+		props.setProperty(Environment.PASS, "");
+		props.setProperty("connection.username", "sa");
+		props.setProperty("connection.password", "");
+		props.setProperty("connection.url", URL);
+		props.setProperty(Environment.HBM2DDL_AUTO, "create-drop");
+		props.setProperty(ModuleConstants.IGNORE_CORE_MODULES_PROPERTY, "true");
+		
+		try {
+			File appDataDir = File.createTempFile("appdir-for-benchmarks-", "");
+			appDataDir.delete();
+			appDataDir.mkdir();
+			appDataDir.deleteOnExit();
+			props.setProperty(OpenmrsConstants.APPLICATION_DATA_DIRECTORY_RUNTIME_PROPERTY, appDataDir.getAbsolutePath());
+			OpenmrsUtil.setApplicationDataDirectory(appDataDir.getAbsolutePath());
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to create the application data directory", e);
+		}
+		
+		return props;
+	}
+	
+	/**
+	 * Prepares the schema created by hbm2ddl the same way BaseContextSensitiveTest does and loads
+	 * the standard test datasets
+	 */
+	private static void initializeDatabase(SessionFactory sessionFactory) {
+		try (Session session = sessionFactory.openSession()) {
+			session.doWork(connection -> {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("ALTER TABLE person ALTER COLUMN creator SET NULL");
+					statement.execute("ALTER TABLE concept ALTER COLUMN concept_id INT AUTO_INCREMENT");
+				}
+				
+				try {
+					IDatabaseConnection dbUnitConnection = new DatabaseConnection(connection);
+					dbUnitConnection.getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
+					    new H2DataTypeFactory());
+					for (String dataset : DATASETS) {
+						executeDataSet(dbUnitConnection, dataset);
+					}
+				}
+				catch (DatabaseUnitException | IOException e) {
+					throw new SQLException("Unable to load the benchmark datasets", e);
+				}
+				
+				commit(connection);
+			});
+		}
+	}
+	
+	private static void executeDataSet(IDatabaseConnection connection, String datasetFilename)
+	        throws DatabaseUnitException, SQLException, IOException {
+		InputStream in = BenchmarkEnvironment.class.getClassLoader().getResourceAsStream(datasetFilename);
+		if (in == null) {
+			throw new IOException("Unable to find '" + datasetFilename + "' in the classpath");
+		}
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			ReplacementDataSet dataset = new ReplacementDataSet(new FlatXmlDataSet(reader, false, true, false));
+			dataset.addReplacementObject("[NULL]", null);
+			DatabaseOperation.REFRESH.execute(connection, dataset);
+		}
+	}
+	
+	private static void commit(Connection connection) throws SQLException {
+		if (!connection.getAutoCommit()) {
+			connection.commit();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON so that runs of different commits can be
+ * compared, e.g. with https://jmh.morethan.io
+ * <p>
+ * Arguments: an optional regular expression selecting the benchmarks to run and an optional path
+ * of the JSON result file.
+ */
+public class BenchmarkRunner {
+	
+	private BenchmarkRunner() {
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		String includes = args.length > 0 ? args[0] : ".*";
+		String result = args.length > 1 ? args[1] : "jmh-result.json";
+		
+		Options options = new OptionsBuilder().include(includes).resultFormat(ResultFormatType.JSON).result(result)
+		        .build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openmrs.Concept;
+import org.openmrs.ConceptSearchResult;
+import org.openmrs.api.context.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks concept lookups and the Lucene backed concept search
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConceptServiceBenchmark {
+	
+	@Benchmark
+	public List<ConceptSearchResult> getConceptsByPhrase(AuthenticatedSession session) {
+		return Context.getConceptService().getConcepts(session.randomConceptNameFragment(), Locale.ENGLISH, false);
+	}
+	
+	@Benchmark
+	public String getConceptName(AuthenticatedSession session) {
+		Context.clearSession();
+		Concept concept = Context.getConceptService().getConcept(session.randomConceptId());
+		return concept.getName(Locale.ENGLISH).getName();
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks saving an encounter with obs, which runs the authorization, required data and
+ * validation advice, the encounter save handlers and the obs save logic
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EncounterServiceBenchmark {
+	
+	private static final BenchmarkDataset.Size ENCOUNTER_SIZE = new BenchmarkDataset.Size(0, 1, 5, 1, 1);
+	
+	@Benchmark
+	public Encounter saveEncounter(AuthenticatedSession session) {
+		Context.clearSession();
+		Patient patient = Context.getPatientService().getPatient(session.randomPatientId());
+		Location location = Context.getLocationService().getLocation(session.getDataset().getLocationIds().get(0));
+		Encounter encounter = new BenchmarkDataGenerator(ENCOUNTER_SIZE).newEncounter(patient, location, session
+		        .getDataset().getConceptIds());
+		return Context.getEncounterService().saveEncounter(encounter);
+	}
+}
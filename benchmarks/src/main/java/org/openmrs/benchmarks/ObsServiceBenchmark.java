@@ -0,0 +1,63 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openmrs.Concept;
+import org.openmrs.Obs;
+import org.openmrs.Person;
+import org.openmrs.api.context.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks obs queries by patient and by question and the bulk loading of obs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ObsServiceBenchmark {
+	
+	@Benchmark
+	public List<Obs> getObservationsForPatient(AuthenticatedSession session) {
+		Context.clearSession();
+		Person person = Context.getPersonService().getPerson(session.randomPatientId());
+		return Context.getObsService().getObservations(Collections.singletonList(person), null, null, null, null, null,
+		    null, null, null, null, null, false);
+	}
+	
+	@Benchmark
+	public List<Obs> getMostRecentObservationsForQuestion(AuthenticatedSession session) {
+		Context.clearSession();
+		Concept question = Context.getConceptService().getConcept(session.randomConceptId());
+		return Context.getObsService().getObservations(null, null, Collections.singletonList(question), null, null,
+		    null, null, 50, null, null, null, false);
+	}
+	
+	@Benchmark
+	public int loadAndFlushAllObservationsForQuestion(AuthenticatedSession session) {
+		Context.clearSession();
+		Concept question = Context.getConceptService().getConcept(session.randomConceptId());
+		List<Obs> observations = Context.getObsService().getObservations(null, null,
+		    Collections.singletonList(question), null, null, null, null, null, null, null, null, false);
+		Context.flushSession();
+		return observations.size();
+	}
+}
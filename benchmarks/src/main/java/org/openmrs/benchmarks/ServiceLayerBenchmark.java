@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.context.Context;
+import org.openmrs.util.PrivilegeConstants;
+import org.openmrs.validator.ValidateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the per call overhead of the service layer: service lookup, privilege checks, the
+ * {@link org.openmrs.aop.AuthorizationAdvice} around a cheap service method and validation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceLayerBenchmark {
+	
+	private static final int NESTED_CALLS = 100;
+	
+	@Benchmark
+	public PatientService getService(AuthenticatedSession session) {
+		return Context.getPatientService();
+	}
+	
+	/**
+	 * Service lookups from many threads at once, as happens with a busy servlet container
+	 */
+	@Benchmark
+	@Threads(16)
+	public PatientService getServiceContended(AuthenticatedSession session) {
+		return Context.getPatientService();
+	}
+	
+	@Benchmark
+	public boolean hasPrivilege(AuthenticatedSession session) {
+		return Context.hasPrivilege(PrivilegeConstants.GET_PATIENTS);
+	}
+	
+	/**
+	 * An @Authorized read that is served from the hibernate session, so mostly advice overhead
+	 */
+	@Benchmark
+	public Location authorizedServiceCall(AuthenticatedSession session) {
+		return Context.getLocationService().getLocation(1);
+	}
+	
+	/**
+	 * A burst of @Authorized reads of different services, like the nested calls made while saving an
+	 * encounter, reported per call
+	 */
+	@Benchmark
+	@OperationsPerInvocation(NESTED_CALLS)
+	public void nestedAuthorizedServiceCalls(AuthenticatedSession session, Blackhole blackhole) {
+		for (int i = 0; i < NESTED_CALLS / 4; i++) {
+			blackhole.consume(Context.getLocationService().getLocation(1));
+			blackhole.consume(Context.getConceptService().getConcept(session.randomConceptId()));
+			blackhole.consume(Context.getPatientService().getPatient(session.randomPatientId()));
+			blackhole.consume(Context.getAdministrationService().getGlobalProperty("concept.true"));
+		}
+	}
+	
+	@Benchmark
+	public Patient validatePatient(AuthenticatedSession session) {
+		Patient patient = new Patient();
+		patient.addName(new PersonName("Benchmark", null, session.randomFamilyName()));
+		patient.setGender("F");
+		ValidateUtil.validate(patient);
+		return patient;
+	}
+}
@@ -0,0 +1,187 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.tools.index;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Inherited;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes an index of the classes in the org.openmrs packages by the
+ * org.openmrs annotations they carry to {@value #INDEX_LOCATION}. Meta-annotations and
+ * {@link Inherited} annotations of superclasses are indexed as well, so the index answers the same
+ * questions as a classpath scan with an annotation type filter. The index is read by
+ * OpenmrsClassScanner instead of scanning the class files of the jar or directory that contains it.
+ * <p>
+ * Incremental compilers, e.g. of IDEs, only pass the changed sources to the processor, so the
+ * classes of an existing index that were not compiled again are indexed again from their class
+ * files as long as these still exist.
+ * <p>
+ * The processor is registered as a service, so it runs for every build that has openmrs-tools on
+ * its compile classpath or annotation processor path. openmrs-api lists it as a provided dependency,
+ * so modules opt in by adding that dependency themselves, see the README.
+ * 
+ * @since 2.8.0
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+	
+	public static final String INDEX_LOCATION = "META-INF/openmrs-class-index.properties";
+	
+	private static final String INDEXED_PACKAGE = "org.openmrs.";
+	
+	private final Map<String, Set<String>> index = new TreeMap<>();
+	
+	private final Set<String> indexedClasses = new HashSet<>();
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		} else {
+			for (Element element : roundEnv.getRootElements()) {
+				indexType(element);
+			}
+		}
+		
+		// never claim the annotations, other processors may need them too
+		return false;
+	}
+	
+	private void indexType(Element element) {
+		if (!(element instanceof TypeElement)) {
+			return;
+		}
+		
+		TypeElement type = (TypeElement) element;
+		if (type.getQualifiedName().toString().startsWith(INDEXED_PACKAGE)) {
+			String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+			if (!indexedClasses.add(className)) {
+				return;
+			}
+			for (String annotation : getAnnotations(type)) {
+				index.computeIfAbsent(annotation, a -> new TreeSet<>()).add(className);
+			}
+		}
+		
+		for (Element enclosed : type.getEnclosedElements()) {
+			indexType(enclosed);
+		}
+	}
+	
+	/**
+	 * Gets the names of the indexed annotations present on the given type, directly, as
+	 * meta-annotations or inherited from a superclass
+	 */
+	private Set<String> getAnnotations(TypeElement type) {
+		Set<String> annotations = new TreeSet<>();
+		addAnnotations(type, annotations, new HashSet<>(), false);
+		
+		TypeMirror superclass = type.getSuperclass();
+		while (superclass.getKind() == TypeKind.DECLARED) {
+			TypeElement superType = (TypeElement) ((DeclaredType) superclass).asElement();
+			addAnnotations(superType, annotations, new HashSet<>(), true);
+			superclass = superType.getSuperclass();
+		}
+		
+		return annotations;
+	}
+	
+	private void addAnnotations(Element element, Set<String> annotations, Set<String> visited, boolean inheritedOnly) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			String name = annotationType.getQualifiedName().toString();
+			// annotations like @Documented annotate themselves
+			if (!visited.add(name)) {
+				continue;
+			}
+			
+			if (name.startsWith(INDEXED_PACKAGE) && (!inheritedOnly || annotationType.getAnnotation(Inherited.class) != null)) {
+				annotations.add(name);
+			}
+			addAnnotations(annotationType, annotations, visited, inheritedOnly);
+		}
+	}
+	
+	/**
+	 * Writes the index, also when it is empty so that readers know there is nothing to scan for
+	 */
+	private void writeIndex() {
+		mergeExistingIndex();
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+			try (Writer writer = file.openWriter()) {
+				writer.write("# Generated by " + ClassIndexProcessor.class.getName() + ", do not edit\n");
+				for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+					writer.write(entry.getKey() + "=" + String.join(",", entry.getValue()) + "\n");
+				}
+			}
+		}
+		catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+			    "Failed to write " + INDEX_LOCATION + ", classes will be found by scanning: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Indexes the classes listed in the index of an earlier compilation that were not compiled this
+	 * time and still exist
+	 */
+	private void mergeExistingIndex() {
+		Properties existing = new Properties();
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+			try (Reader reader = file.openReader(true)) {
+				existing.load(reader);
+			}
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// there is no earlier index
+			return;
+		}
+		
+		for (String annotation : existing.stringPropertyNames()) {
+			for (String className : existing.getProperty(annotation).split(",")) {
+				if (!className.isEmpty() && !indexedClasses.contains(className)) {
+					TypeElement type = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+					if (type != null) {
+						indexType(type);
+					}
+				}
+			}
+		}
+	}
+}
@@ -21,6 +21,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleUtil;
 import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.web.filter.PrecompressedResourceCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +65,10 @@ public class ModuleResourcesServlet extends HttpServlet {
 		String mimeType = getServletContext().getMimeType(f.getName());
 		response.setContentType(mimeType);
 		
+		if (PrecompressedResourceCache.serveFromCache(request, response, f.lastModified())) {
+			return;
+		}
+		
 		FileInputStream is = new FileInputStream(f);
 		try {
 			OpenmrsUtil.copyFile(is, response.getOutputStream());
@@ -315,7 +315,12 @@ public class WebModuleUtil {
 				log.debug("Refreshing context for module {}", mod);
 				
 				try {
-					refreshWAC(servletContext, false, mod);
+					if (canStartInChildApplicationContext(mod)) {
+						ModuleUtil.startInChildApplicationContext(
+						    WebApplicationContextUtils.getWebApplicationContext(servletContext), mod);
+					} else {
+						refreshWAC(servletContext, false, mod);
+					}
 					log.debug("Done Refreshing WAC");
 				}
 				catch (Exception e) {
@@ -368,6 +373,28 @@ public class WebModuleUtil {
 		return false;
 	}
 	
+	/**
+	 * A module with a web application context or DWR configuration needs the dispatcher servlet to
+	 * be refreshed along with the application context
+	 */
+	private static boolean canStartInChildApplicationContext(Module mod) {
+		if (!ModuleUtil.canStartInChildApplicationContext(mod)) {
+			return false;
+		}
+		
+		if (mod.getConfig().getDocumentElement().getElementsByTagName("dwr").getLength() > 0) {
+			return false;
+		}
+		
+		try (JarFile jarFile = new JarFile(mod.getFile())) {
+			return jarFile.getEntry("webModuleApplicationContext.xml") == null;
+		}
+		catch (IOException e) {
+			log.warn("Unable to read module " + mod.getModuleId(), e);
+			return false;
+		}
+	}
+	
 	/** Stops all tasks started by given module
 	 * @param mod
 	 */
@@ -915,7 +942,8 @@ public class WebModuleUtil {
 			}
 		}
 		
-		if (!skipRefresh) {	
+		// the beans of a module started in a child application context are gone with it
+		if (!skipRefresh && !ModuleUtil.isStartedInChildApplicationContext(mod)) {
 			refreshWAC(servletContext, false, null);
 		}
 		
@@ -13,6 +13,7 @@ import javax.servlet.ServletException;
 
 import org.openmrs.module.web.WebModuleUtil;
 import org.openmrs.util.OpenmrsClassLoader;
+import org.openmrs.web.filter.PrecompressedResourceCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -57,6 +58,9 @@ public class StaticDispatcherServlet extends org.springframework.web.servlet.Dis
 		Thread.currentThread().setContextClassLoader(OpenmrsClassLoader.getInstance());
 		((XmlWebApplicationContext) getWebApplicationContext()).setClassLoader(OpenmrsClassLoader.getInstance());
 		
+		// modules may have replaced static resources
+		PrecompressedResourceCache.getInstance().clear();
+		
 		refresh();
 	}
 	
@@ -9,6 +9,7 @@
  */
 package org.openmrs.web.controller;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 
@@ -18,6 +19,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.openmrs.GlobalProperty;
 import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.web.filter.PrecompressedResourceCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.servlet.ModelAndView;
@@ -37,6 +39,8 @@ public class PseudoStaticContentController implements Controller, LastModified,
 	
 	private static final Logger log = LoggerFactory.getLogger(PseudoStaticContentController.class);
 	
+	private static final String VIEW_PREFIX = "/WEB-INF/view";
+	
 	private Boolean interpretJstl = false;
 	
 	private Map<String, String> rewrites;
@@ -67,13 +71,31 @@ public class PseudoStaticContentController implements Controller, LastModified,
 		if (rewrites != null && rewrites.containsKey(path)) {
 			path = rewrites.get(path);
 		}
+		
+		// jstl content is rendered in the locale of the user, it cannot be shared between users
 		if (interpretJstl) {
-			path += ".withjstl";
+			return new ModelAndView(path + ".withjstl");
+		}
+		
+		if (PrecompressedResourceCache.serveFromCache(request, response, getResourceLastModified(request, path))) {
+			return null;
 		}
 		
 		return new ModelAndView(path);
 	}
 	
+	/**
+	 * Gets the date the content for the given path last changed, used to key precompressed content
+	 * 
+	 * @param request the current request
+	 * @param path the path of the view being rendered
+	 * @return the last modified date or 0 if unknown
+	 */
+	private long getResourceLastModified(HttpServletRequest request, String path) {
+		String realPath = request.getServletContext().getRealPath(VIEW_PREFIX + path);
+		return realPath == null ? 0 : new File(realPath).lastModified();
+	}
+	
 	@Override
 	public long getLastModified(HttpServletRequest request) {
 		
@@ -28,7 +28,17 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * Filter that compresses output with gzip (assuming that browser supports gzip). Code from <a
  * href="http://www.onjava.com/pub/a/onjava/2003/11/19/filters.html">
  * http://www.onjava.com/pub/a/onjava/2003/11/19/filters.html</a>. &copy; 2003 Jayson Falkner You
- * may freely use the code both commercially and non-commercially.
+ * may freely use the code both commercially and non-commercially. <br>
+ * <br>
+ * The following optional init-params are supported:
+ * <ul>
+ * <li>bufferThreshold: the number of uncompressed bytes buffered before the response is streamed
+ * through the compressor without a Content-Length header</li>
+ * <li>cacheMaxSize: the total number of bytes the {@link PrecompressedResourceCache} may hold, 0
+ * disables it</li>
+ * <li>cacheMaxEntrySize: the largest compressed resource the {@link PrecompressedResourceCache}
+ * keeps</li>
+ * </ul>
  */
 public class GZIPFilter extends OncePerRequestFilter {
 	
@@ -38,6 +48,32 @@ public class GZIPFilter extends OncePerRequestFilter {
 	
 	private String cachedGZipCompressedRequestForPathAccepted = null;
 	
+	private int bufferThreshold = GZIPResponseStream.DEFAULT_BUFFER_THRESHOLD;
+	
+	/**
+	 * @param bufferThreshold the number of uncompressed bytes to buffer before streaming
+	 * @since 2.8.0
+	 */
+	public void setBufferThreshold(int bufferThreshold) {
+		this.bufferThreshold = bufferThreshold;
+	}
+	
+	/**
+	 * @param cacheMaxSize the total number of compressed bytes to cache for static resources
+	 * @since 2.8.0
+	 */
+	public void setCacheMaxSize(long cacheMaxSize) {
+		PrecompressedResourceCache.getInstance().setMaxSize(cacheMaxSize);
+	}
+	
+	/**
+	 * @param cacheMaxEntrySize the maximum compressed size of a single cached static resource
+	 * @since 2.8.0
+	 */
+	public void setCacheMaxEntrySize(int cacheMaxEntrySize) {
+		PrecompressedResourceCache.getInstance().setMaxEntrySize(cacheMaxEntrySize);
+	}
+	
 	/**
 	 * @see org.springframework.web.filter.OncePerRequestFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
 	 *      javax.servlet.http.HttpServletResponse, javax.servlet.FilterChain)
@@ -55,7 +91,7 @@ public class GZIPFilter extends OncePerRequestFilter {
 		if (isGZIPSupported(request) && isGZIPEnabled()) {
 			log.debug("GZIP supported and enabled, compressing response");
 			
-			GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response);
+			GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response, bufferThreshold);
 			
 			chain.doFilter(request, wrappedResponse);
 			wrappedResponse.finishResponse();
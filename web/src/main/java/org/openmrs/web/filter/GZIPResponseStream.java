@@ -19,15 +19,25 @@ import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
 
 /**
- * Wraps Response Stream for GZipFilter
+ * Wraps Response Stream for GZipFilter. <br>
+ * <br>
+ * Content is held in a fixed size buffer until it exceeds the configured threshold. Small responses
+ * are compressed in one go so that a Content-Length header can be sent, larger ones are compressed
+ * straight into the underlying output stream so the memory held per request never exceeds the
+ * threshold.
  * 
  * @author Matt Raible
  * @version $Revision: 1.3 $ $Date: 2004/05/16 02:17:00 $
  */
 public class GZIPResponseStream extends ServletOutputStream {
 	
-	// abstraction of the output stream used for compression
-	protected OutputStream bufferedOutput;
+	/**
+	 * The default number of uncompressed bytes buffered before switching to streaming compression
+	 */
+	public static final int DEFAULT_BUFFER_THRESHOLD = 8192;
+	
+	// the compressing stream, null as long as the content still fits in the buffer
+	protected GZIPOutputStream gzipOutput;
 	
 	// state keeping variable for if close() has been called
 	protected boolean closed;
@@ -38,15 +48,53 @@ public class GZIPResponseStream extends ServletOutputStream {
 	// reference to the output stream to the client's browser
 	protected ServletOutputStream output;
 	
-	// default size of the in-memory buffer
-	private int bufferSize = 50000;
+	// the in-memory buffer for uncompressed content, released once streaming starts
+	private byte[] buffer;
+	
+	private int count;
+	
+	// copy of the compressed bytes kept for the precompressed resource cache, null when not captured
+	private ByteArrayOutputStream capture;
+	
+	private int maxCaptureSize;
 	
 	public GZIPResponseStream(HttpServletResponse response) throws IOException {
+		this(response, DEFAULT_BUFFER_THRESHOLD);
+	}
+	
+	/**
+	 * @param response the response to write the compressed content to
+	 * @param bufferThreshold the number of uncompressed bytes to buffer before streaming
+	 * @throws IOException
+	 */
+	public GZIPResponseStream(HttpServletResponse response, int bufferThreshold) throws IOException {
 		super();
 		closed = false;
 		this.response = response;
 		this.output = response.getOutputStream();
-		bufferedOutput = new ByteArrayOutputStream();
+		this.buffer = new byte[Math.max(bufferThreshold, 0)];
+	}
+	
+	/**
+	 * Keeps a copy of the compressed content as long as it does not exceed the given size, so that it
+	 * can be served again without compressing it a second time
+	 * 
+	 * @param maxSize the maximum number of compressed bytes to keep
+	 * @see #getCapturedBytes()
+	 */
+	public void captureCompressedContent(int maxSize) {
+		if (gzipOutput == null && maxSize > 0) {
+			this.maxCaptureSize = maxSize;
+			this.capture = new ByteArrayOutputStream(Math.min(maxSize, 4096));
+		}
+	}
+	
+	/**
+	 * @return the compressed bytes written by this stream after it has been closed, or null if they
+	 *         were not captured or exceeded the maximum capture size
+	 */
+	public byte[] getCapturedBytes() {
+		return closed && capture != null ? capture.toByteArray() : null;
 	}
 	
 	@Override
@@ -56,42 +104,34 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("This output stream has already been closed");
 		}
 		
-		// if we buffered everything in memory, gzip it
-		if (bufferedOutput instanceof ByteArrayOutputStream) {
-			// get the content
-			ByteArrayOutputStream baos = (ByteArrayOutputStream) bufferedOutput;
-			
-			// prepare a gzip stream
-			ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
+		if (gzipOutput == null) {
+			// everything fit in the buffer, compress it in one go so the content length is known
+			ByteArrayOutputStream compressedContent = new ByteArrayOutputStream(Math.max(count / 2, 64));
 			GZIPOutputStream gzipstream = new GZIPOutputStream(compressedContent);
-			byte[] bytes = baos.toByteArray();
-			gzipstream.write(bytes);
+			gzipstream.write(buffer, 0, count);
 			gzipstream.finish();
-			
-			// get the compressed content
-			byte[] compressedBytes = compressedContent.toByteArray();
+			buffer = null;
 			
 			// set appropriate HTTP headers
-			response.setContentLength(compressedBytes.length);
+			response.setContentLength(compressedContent.size());
 			response.addHeader("Content-Encoding", "gzip");
-			output.write(compressedBytes);
-			output.flush();
-			output.close();
-			closed = true;
-		}
-		// if things were not buffered in memory, finish the GZIP stream and response
-		else if (bufferedOutput instanceof GZIPOutputStream) {
-			// cast to appropriate type
-			GZIPOutputStream gzipstream = (GZIPOutputStream) bufferedOutput;
-			
+			compressedContent.writeTo(output);
+			if (capture != null) {
+				if (compressedContent.size() <= maxCaptureSize) {
+					compressedContent.writeTo(capture);
+				} else {
+					capture = null;
+				}
+			}
+		} else {
 			// finish the compression
-			gzipstream.finish();
-			
-			// finish the response
-			output.flush();
-			output.close();
-			closed = true;
+			gzipOutput.finish();
 		}
+		
+		// finish the response
+		output.flush();
+		output.close();
+		closed = true;
 	}
 	
 	@Override
@@ -100,7 +140,9 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("Cannot flush a closed output stream");
 		}
 		
-		bufferedOutput.flush();
+		if (gzipOutput != null) {
+			gzipOutput.flush();
+		}
 	}
 	
 	@Override
@@ -112,29 +154,29 @@ public class GZIPResponseStream extends ServletOutputStream {
 		// make sure we aren't over the buffer's limit
 		checkBufferSize(1);
 		
-		// write the byte to the temporary output
-		bufferedOutput.write((byte) b);
+		if (gzipOutput != null) {
+			gzipOutput.write(b);
+		} else {
+			buffer[count++] = (byte) b;
+		}
 	}
 	
 	private void checkBufferSize(int length) throws IOException {
 		// check if we are buffering too large of a file
-		if (bufferedOutput instanceof ByteArrayOutputStream) {
-			ByteArrayOutputStream baos = (ByteArrayOutputStream) bufferedOutput;
+		if (gzipOutput == null && count + length > buffer.length) {
+			// content too large to keep in memory is sent to the client without Content-Length specified
+			response.addHeader("Content-Encoding", "gzip");
 			
-			if ((baos.size() + length) > bufferSize) {
-				// files too large to keep in memory are sent to the client without Content-Length specified
-				response.addHeader("Content-Encoding", "gzip");
-				
-				// get existing bytes
-				byte[] bytes = baos.toByteArray();
-				
-				// make new gzip stream using the response output stream
-				GZIPOutputStream gzipstream = new GZIPOutputStream(output);
-				gzipstream.write(bytes);
-				
-				// we are no longer buffering, send content via gzipstream
-				bufferedOutput = gzipstream;
+			OutputStream target = output;
+			if (capture != null) {
+				target = new CapturingOutputStream(output);
 			}
+			
+			// make new gzip stream using the response output stream and hand it what was buffered so far
+			gzipOutput = new GZIPOutputStream(target, Math.max(buffer.length, 512));
+			gzipOutput.write(buffer, 0, count);
+			buffer = null;
+			count = 0;
 		}
 	}
 	
@@ -153,8 +195,12 @@ public class GZIPResponseStream extends ServletOutputStream {
 		// make sure we aren't over the buffer's limit
 		checkBufferSize(len);
 		
-		// write the content to the buffer
-		bufferedOutput.write(b, off, len);
+		if (gzipOutput != null) {
+			gzipOutput.write(b, off, len);
+		} else {
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		}
 	}
 	
 	public boolean closed() {
@@ -164,14 +210,56 @@ public class GZIPResponseStream extends ServletOutputStream {
 	public void reset() {
 		//noop
 	}
-
+	
 	@Override
 	public boolean isReady() {
 		throw new UnsupportedOperationException("Asynchonous operation is not supported.");
 	}
-
+	
 	@Override
 	public void setWriteListener(WriteListener writeListener) {
 		throw new UnsupportedOperationException("Asynchonous operation is not supported.");
 	}
+	
+	/**
+	 * Passes compressed bytes on to the client while keeping a copy of them until the maximum capture
+	 * size is exceeded
+	 */
+	private class CapturingOutputStream extends OutputStream {
+		
+		private final OutputStream delegate;
+		
+		CapturingOutputStream(OutputStream delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write(b);
+			if (capture != null) {
+				if (capture.size() + 1 > maxCaptureSize) {
+					capture = null;
+				} else {
+					capture.write(b);
+				}
+			}
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write(b, off, len);
+			if (capture != null) {
+				if (capture.size() + len > maxCaptureSize) {
+					capture = null;
+				} else {
+					capture.write(b, off, len);
+				}
+			}
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+	}
 }
@@ -37,16 +37,42 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 	
 	protected int error = 0;
 	
+	private final int bufferThreshold;
+	
+	private boolean precompressed = false;
+	
+	private String cacheKey;
+	
+	private long cacheLastModified;
+	
 	public GZIPResponseWrapper(HttpServletResponse response) {
+		this(response, GZIPResponseStream.DEFAULT_BUFFER_THRESHOLD);
+	}
+	
+	/**
+	 * @param response the response to compress
+	 * @param bufferThreshold the number of uncompressed bytes to buffer before streaming
+	 * @since 2.8.0
+	 */
+	public GZIPResponseWrapper(HttpServletResponse response, int bufferThreshold) {
 		super(response);
 		origResponse = response;
+		this.bufferThreshold = bufferThreshold;
 	}
 	
 	public ServletOutputStream createOutputStream() throws IOException {
-		return new GZIPResponseStream(origResponse);
+		GZIPResponseStream gzipStream = new GZIPResponseStream(origResponse, bufferThreshold);
+		if (cacheKey != null) {
+			gzipStream.captureCompressedContent(PrecompressedResourceCache.getInstance().getMaxEntrySize());
+		}
+		return gzipStream;
 	}
 	
 	public void finishResponse() {
+		if (precompressed) {
+			return;
+		}
+		
 		try {
 			if (writer != null) {
 				writer.close();
@@ -58,12 +84,62 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 		}
 		catch (IOException e) {
 			log.error("Error during closing writer or stream", e);
+			return;
+		}
+		
+		if (cacheKey != null && stream != null && error == 0 && getStatus() == SC_OK) {
+			byte[] content = ((GZIPResponseStream) stream).getCapturedBytes();
+			if (content != null) {
+				PrecompressedResourceCache.getInstance().put(cacheKey, cacheLastModified, getContentType(), content);
+			}
 		}
 	}
 	
+	/**
+	 * Marks the compressed content of this response to be stored in the
+	 * {@link PrecompressedResourceCache} once the response is finished
+	 * 
+	 * @param key the cache key of the resource
+	 * @param lastModified the last modified date of the resource
+	 * @since 2.8.0
+	 */
+	public void cacheAs(String key, long lastModified) {
+		this.cacheKey = key;
+		this.cacheLastModified = lastModified;
+		if (stream instanceof GZIPResponseStream) {
+			((GZIPResponseStream) stream).captureCompressedContent(PrecompressedResourceCache.getInstance()
+			        .getMaxEntrySize());
+		}
+	}
+	
+	/**
+	 * Writes already compressed content directly to the underlying response
+	 * 
+	 * @param contentType the content type of the resource
+	 * @param content the gzip compressed content
+	 * @throws IOException
+	 * @since 2.8.0
+	 */
+	public void writePrecompressed(String contentType, byte[] content) throws IOException {
+		if (writer != null || stream != null) {
+			throw new IllegalStateException("The response content has already been written to");
+		}
+		
+		precompressed = true;
+		if (contentType != null) {
+			origResponse.setContentType(contentType);
+		}
+		origResponse.addHeader("Content-Encoding", "gzip");
+		origResponse.setContentLength(content.length);
+		
+		ServletOutputStream output = origResponse.getOutputStream();
+		output.write(content);
+		output.flush();
+	}
+	
 	@Override
 	public void flushBuffer() throws IOException {
-		if (stream != null) {
+		if (stream != null && !precompressed) {
 			stream.flush();
 		}
 	}
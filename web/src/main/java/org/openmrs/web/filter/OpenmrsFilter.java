@@ -10,6 +10,14 @@
 package org.openmrs.web.filter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -17,6 +25,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
+import org.apache.commons.lang3.StringUtils;
 import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.UserContext;
@@ -33,17 +42,90 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * keeps authentication information on the current Thread. Web applications use a different thread
  * per request, so before each request this filter will make sure that the UserContext (the
  * authentication information) is on the Thread.
+ * <p>
+ * Requests that do not need an HTTP session are served without creating one:
+ * <ul>
+ * <li>static resources (images, scripts, stylesheets, fonts) that are requested outside of an
+ * existing session get an anonymous userContext</li>
+ * <li>if enabled, requests carrying a <tt>Basic</tt> or <tt>Bearer</tt> Authorization header
+ * outside of an existing session get a userContext rebuilt from a cached snapshot of the context
+ * the same header authenticated to earlier, see {@link TokenUserContextCache}. The user is loaded
+ * again for every request and the snapshots of a user are dropped when the password, roles or
+ * status of the user change.</li>
+ * </ul>
+ * The behaviour can be configured with filter init-params or with the following runtime
+ * properties, the latter taking precedence:
+ * <ul>
+ * <li><tt>openmrsFilter.skipSessionForStaticResources</tt> defaults to true</li>
+ * <li><tt>openmrsFilter.staticResourceExtensions</tt> comma separated list of file extensions</li>
+ * <li><tt>openmrsFilter.sessionlessTokenRequests</tt> defaults to false</li>
+ * <li><tt>openmrsFilter.tokenContextTimeToLiveSeconds</tt> defaults to 300</li>
+ * <li><tt>openmrsFilter.tokenContextMaxEntries</tt> defaults to 1000</li>
+ * </ul>
  */
 public class OpenmrsFilter extends OncePerRequestFilter {
 	
 	private static final Logger log = LoggerFactory.getLogger(OpenmrsFilter.class);
 	
+	private static final String RUNTIME_PROPERTY_PREFIX = "openmrsFilter.";
+	
+	private static final String ANONYMOUS_USERNAME = "-anonymous user-";
+	
+	public static final String DEFAULT_STATIC_RESOURCE_EXTENSIONS = "js,css,map,png,gif,jpg,jpeg,ico,svg,woff,woff2,ttf,eot";
+	
+	private boolean skipSessionForStaticResources = true;
+	
+	private String staticResourceExtensions = DEFAULT_STATIC_RESOURCE_EXTENSIONS;
+	
+	private boolean sessionlessTokenRequests = false;
+	
+	private int tokenContextTimeToLiveSeconds = 300;
+	
+	private int tokenContextMaxEntries = 1000;
+	
+	private Set<String> staticResourceExtensionSet = parseExtensions(DEFAULT_STATIC_RESOURCE_EXTENSIONS);
+	
+	private TokenUserContextCache tokenContextCache = new TokenUserContextCache(tokenContextTimeToLiveSeconds * 1000L,
+	        tokenContextMaxEntries);
+	
+	private final Consumer<Integer> snapshotInvalidationListener = userId -> tokenContextCache.removeUser(userId);
+	
+	/**
+	 * @see org.springframework.web.filter.GenericFilterBean#initFilterBean()
+	 */
+	@Override
+	protected void initFilterBean() throws ServletException {
+		// the try-catch here is defensive; a broken setting should not stop the webapp from starting
+		try {
+			Properties properties = Context.getRuntimeProperties();
+			skipSessionForStaticResources = Boolean.parseBoolean(properties.getProperty(
+			    RUNTIME_PROPERTY_PREFIX + "skipSessionForStaticResources", String.valueOf(skipSessionForStaticResources)));
+			staticResourceExtensions = properties.getProperty(RUNTIME_PROPERTY_PREFIX + "staticResourceExtensions",
+			    staticResourceExtensions);
+			sessionlessTokenRequests = Boolean.parseBoolean(properties.getProperty(
+			    RUNTIME_PROPERTY_PREFIX + "sessionlessTokenRequests", String.valueOf(sessionlessTokenRequests)));
+			tokenContextTimeToLiveSeconds = Integer.parseInt(properties.getProperty(
+			    RUNTIME_PROPERTY_PREFIX + "tokenContextTimeToLiveSeconds", String.valueOf(tokenContextTimeToLiveSeconds)));
+			tokenContextMaxEntries = Integer.parseInt(properties.getProperty(
+			    RUNTIME_PROPERTY_PREFIX + "tokenContextMaxEntries", String.valueOf(tokenContextMaxEntries)));
+		}
+		catch (Exception e) {
+			log.warn("Caught exception while reading the OpenmrsFilter runtime properties, using the defaults", e);
+		}
+		
+		staticResourceExtensionSet = parseExtensions(staticResourceExtensions);
+		tokenContextCache = new TokenUserContextCache(tokenContextTimeToLiveSeconds * 1000L, tokenContextMaxEntries);
+		UserContext.addSnapshotInvalidationListener(snapshotInvalidationListener);
+	}
+	
 	/**
 	 * @see javax.servlet.Filter#destroy()
 	 */
 	@Override
 	public void destroy() {
 		log.debug("Destroying filter");
+		UserContext.removeSnapshotInvalidationListener(snapshotInvalidationListener);
+		tokenContextCache.clear();
 	}
 	
 	/**
@@ -58,8 +140,6 @@ public class OpenmrsFilter extends OncePerRequestFilter {
 	protected void doFilterInternal(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain chain)
 	        throws ServletException, IOException {
 		
-		HttpSession httpSession = httpRequest.getSession();
-		
 		// used by htmlInclude tag
 		httpRequest.setAttribute(WebConstants.INIT_REQ_UNIQUE_ID, String.valueOf(System.currentTimeMillis()));
 		
@@ -67,33 +147,35 @@ public class OpenmrsFilter extends OncePerRequestFilter {
 		log.debug("requestURL {}", httpRequest.getRequestURL());
 		log.debug("request path info {}", httpRequest.getPathInfo());
 		
-		// User context is created if it doesn't already exist and added to the session
-		// note: this usercontext storage logic is copied to webinf/view/uncaughtexception.jsp to 
-		// 		 prevent stack traces being shown to non-authenticated users
-		UserContext userContext = (UserContext) httpSession.getAttribute(WebConstants.OPENMRS_USER_CONTEXT_HTTPSESSION_ATTR);
+		HttpSession httpSession = httpRequest.getSession(false);
+		UserContext userContext;
+		String authorization = null;
+		boolean restoredFromCache = false;
 		
-		// default the session username attribute to anonymous
-		httpSession.setAttribute("username", "-anonymous user-");
-		
-		// if there isn't a userContext on the session yet, create one
-		// and set it onto the session
-		if (userContext == null) {
+		if (httpSession == null && isStaticResource(httpRequest)) {
+			// static resources never need a session of their own
 			userContext = new UserContext(Context.getAuthenticationScheme());
-			httpSession.setAttribute(WebConstants.OPENMRS_USER_CONTEXT_HTTPSESSION_ATTR, userContext);
-			
-			log.debug("Just set user context {} as attribute on session", userContext);
+		} else if (httpSession == null && (authorization = getTokenAuthorization(httpRequest)) != null) {
+			// stateless clients are (re)authenticated downstream, or from an earlier snapshot
+			UserContext.Snapshot snapshot = tokenContextCache.get(authorization);
+			userContext = new UserContext(Context.getAuthenticationScheme());
+			if (snapshot != null) {
+				UserContext restored = new UserContext(Context.getAuthenticationScheme(), snapshot);
+				if (restored.isAuthenticated()) {
+					userContext = restored;
+					restoredFromCache = true;
+				} else {
+					// the user has been retired or deleted meanwhile
+					tokenContextCache.remove(authorization);
+				}
+			}
 		} else {
-			// set username as attribute on session so parent servlet container 
-			// can identify sessions easier
-			User user = userContext.getAuthenticatedUser();
-			if (user != null) {
-				httpSession.setAttribute("username", user.getUsername());
+			if (httpSession == null) {
+				httpSession = httpRequest.getSession();
 			}
+			userContext = getSessionUserContext(httpSession);
 		}
 		
-		// set the locale on the session (for the servlet container as well)
-		httpSession.setAttribute("locale", userContext.getLocale());
-		
 		//TODO We do not cache the csrfguard javascript file because it contains the
 		//csrf token that is dynamically embedded in forms. For this to work,
 		//the OpenmrsFilter should be before the CSRFGuard filter in web.xml
@@ -114,6 +196,9 @@ public class OpenmrsFilter extends OncePerRequestFilter {
 			chain.doFilter(httpRequest, httpResponse);
 		}
 		finally {
+			if (authorization != null) {
+				rememberTokenUserContext(authorization, userContext, restoredFromCache);
+			}
 			Context.clearUserContext();
 		}
 		
@@ -121,4 +206,128 @@ public class OpenmrsFilter extends OncePerRequestFilter {
 		
 	}
 	
+	/**
+	 * Gets the user context stored on the given session, creating it if there isn't one yet, and
+	 * keeps the username and locale session attributes up to date. Attributes are only written when
+	 * their values change since every write may be replicated by the servlet container.
+	 */
+	private UserContext getSessionUserContext(HttpSession httpSession) {
+		// User context is created if it doesn't already exist and added to the session
+		// note: this usercontext storage logic is copied to webinf/view/uncaughtexception.jsp to 
+		// 		 prevent stack traces being shown to non-authenticated users
+		UserContext userContext = (UserContext) httpSession.getAttribute(WebConstants.OPENMRS_USER_CONTEXT_HTTPSESSION_ATTR);
+		
+		// if there isn't a userContext on the session yet, create one
+		// and set it onto the session
+		if (userContext == null) {
+			userContext = new UserContext(Context.getAuthenticationScheme());
+			httpSession.setAttribute(WebConstants.OPENMRS_USER_CONTEXT_HTTPSESSION_ATTR, userContext);
+			
+			log.debug("Just set user context {} as attribute on session", userContext);
+		}
+		
+		// set username as attribute on session so parent servlet container 
+		// can identify sessions easier, defaulting to anonymous
+		User user = userContext.getAuthenticatedUser();
+		setAttributeIfChanged(httpSession, "username", user != null ? user.getUsername() : ANONYMOUS_USERNAME);
+		
+		// set the locale on the session (for the servlet container as well)
+		setAttributeIfChanged(httpSession, "locale", userContext.getLocale());
+		
+		return userContext;
+	}
+	
+	private void rememberTokenUserContext(String authorization, UserContext userContext, boolean restoredFromCache) {
+		if (userContext.isAuthenticated()) {
+			if (!restoredFromCache) {
+				tokenContextCache.put(authorization, userContext.snapshot());
+			}
+		} else if (restoredFromCache) {
+			// logged out during the request
+			tokenContextCache.remove(authorization);
+		}
+	}
+	
+	private boolean isStaticResource(HttpServletRequest httpRequest) {
+		if (!skipSessionForStaticResources || staticResourceExtensionSet.isEmpty()) {
+			return false;
+		}
+		String uri = httpRequest.getRequestURI();
+		if (uri == null) {
+			return false;
+		}
+		int end = uri.indexOf(';');
+		if (end < 0) {
+			end = uri.length();
+		}
+		int dot = uri.lastIndexOf('.', end);
+		if (dot < 0 || dot < uri.lastIndexOf('/', end)) {
+			return false;
+		}
+		return staticResourceExtensionSet.contains(uri.substring(dot + 1, end).toLowerCase(Locale.ROOT));
+	}
+	
+	private String getTokenAuthorization(HttpServletRequest httpRequest) {
+		if (!sessionlessTokenRequests) {
+			return null;
+		}
+		String authorization = httpRequest.getHeader("Authorization");
+		if (StringUtils.startsWithIgnoreCase(authorization, "Basic ")
+		        || StringUtils.startsWithIgnoreCase(authorization, "Bearer ")) {
+			return authorization;
+		}
+		return null;
+	}
+	
+	private static void setAttributeIfChanged(HttpSession httpSession, String name, Object value) {
+		if (!Objects.equals(httpSession.getAttribute(name), value)) {
+			httpSession.setAttribute(name, value);
+		}
+	}
+	
+	private static Set<String> parseExtensions(String extensions) {
+		if (StringUtils.isBlank(extensions)) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(Arrays.stream(extensions.split("\\s*,\\s*")).map(String::trim)
+		        .filter(StringUtils::isNotEmpty).map(e -> StringUtils.removeStart(e, ".").toLowerCase(Locale.ROOT))
+		        .collect(Collectors.toSet()));
+	}
+	
+	/**
+	 * @param skipSessionForStaticResources whether static resources are served without a session
+	 */
+	public void setSkipSessionForStaticResources(boolean skipSessionForStaticResources) {
+		this.skipSessionForStaticResources = skipSessionForStaticResources;
+	}
+	
+	/**
+	 * @param staticResourceExtensions comma separated list of extensions of static resources
+	 */
+	public void setStaticResourceExtensions(String staticResourceExtensions) {
+		this.staticResourceExtensions = staticResourceExtensions;
+	}
+	
+	/**
+	 * @param sessionlessTokenRequests whether requests with Basic or Bearer authorization are
+	 *            served without a session
+	 */
+	public void setSessionlessTokenRequests(boolean sessionlessTokenRequests) {
+		this.sessionlessTokenRequests = sessionlessTokenRequests;
+	}
+	
+	/**
+	 * @param tokenContextTimeToLiveSeconds how long an authenticated token context is reused
+	 */
+	public void setTokenContextTimeToLiveSeconds(int tokenContextTimeToLiveSeconds) {
+		this.tokenContextTimeToLiveSeconds = tokenContextTimeToLiveSeconds;
+	}
+	
+	/**
+	 * @param tokenContextMaxEntries maximum number of cached token contexts
+	 */
+	public void setTokenContextMaxEntries(int tokenContextMaxEntries) {
+		this.tokenContextMaxEntries = tokenContextMaxEntries;
+	}
+	
 }
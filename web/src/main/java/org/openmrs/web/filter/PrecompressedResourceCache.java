@@ -0,0 +1,240 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size bounded, least recently used cache of gzip compressed static resources. Entries are keyed by
+ * the request path and the last modified date of the resource, so a resource that changes is
+ * simply compressed and cached again. <br>
+ * <br>
+ * Servlets and controllers that serve immutable resources call
+ * {@link #serveFromCache(HttpServletRequest, HttpServletResponse, long)} before writing their
+ * content. If the response is being compressed by the {@link GZIPFilter} and a matching entry
+ * exists, the cached bytes are written directly; otherwise the response is marked so that its
+ * compressed content is stored once it completes.
+ * 
+ * @since 2.8.0
+ */
+public class PrecompressedResourceCache {
+	
+	private static final Logger log = LoggerFactory.getLogger(PrecompressedResourceCache.class);
+	
+	/**
+	 * The default upper bound for the total number of compressed bytes held in the cache
+	 */
+	public static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+	
+	/**
+	 * The default upper bound for the compressed size of a single cached resource
+	 */
+	public static final int DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+	
+	private static final PrecompressedResourceCache INSTANCE = new PrecompressedResourceCache();
+	
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	
+	private long maxSize = DEFAULT_MAX_SIZE;
+	
+	private int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+	
+	private long size;
+	
+	PrecompressedResourceCache() {
+	}
+	
+	/**
+	 * @return the cache shared by the {@link GZIPFilter} and the static resource servlets
+	 */
+	public static PrecompressedResourceCache getInstance() {
+		return INSTANCE;
+	}
+	
+	/**
+	 * Writes the cached compressed content of the requested resource if the response is compressed
+	 * by the {@link GZIPFilter} and the cached copy is up to date, otherwise marks the response so its
+	 * compressed content gets cached once written.
+	 * 
+	 * @param request the current request
+	 * @param response the current response
+	 * @param lastModified the last modified date of the resource being served
+	 * @return true if the response has been written from the cache and the caller must not write
+	 *         anything else, false if the caller should serve the resource as usual
+	 * @throws IOException
+	 */
+	public static boolean serveFromCache(HttpServletRequest request, HttpServletResponse response, long lastModified)
+	        throws IOException {
+		GZIPResponseWrapper wrapper = getGZIPResponseWrapper(response);
+		if (wrapper == null || lastModified <= 0 || INSTANCE.getMaxSize() <= 0) {
+			return false;
+		}
+		
+		String key = request.getRequestURI();
+		Entry entry = INSTANCE.get(key, lastModified);
+		if (entry != null) {
+			log.debug("Serving precompressed content for {}", key);
+			wrapper.writePrecompressed(entry.getContentType(), entry.getContent());
+			return true;
+		}
+		
+		wrapper.cacheAs(key, lastModified);
+		return false;
+	}
+	
+	/**
+	 * Finds the {@link GZIPResponseWrapper} in the given chain of response wrappers
+	 * 
+	 * @param response the response to inspect
+	 * @return the wrapper or null if the response is not being compressed
+	 */
+	public static GZIPResponseWrapper getGZIPResponseWrapper(ServletResponse response) {
+		ServletResponse current = response;
+		while (current instanceof ServletResponseWrapper) {
+			if (current instanceof GZIPResponseWrapper) {
+				return (GZIPResponseWrapper) current;
+			}
+			current = ((ServletResponseWrapper) current).getResponse();
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the cached content for the given key if it was cached for the given last modified date
+	 * 
+	 * @param key the request path
+	 * @param lastModified the current last modified date of the resource
+	 * @return the entry or null if none or a stale one is cached
+	 */
+	public synchronized Entry get(String key, long lastModified) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.getLastModified() != lastModified) {
+			remove(key);
+			return null;
+		}
+		return entry;
+	}
+	
+	/**
+	 * Caches the compressed content of a resource, evicting the least recently used entries if the
+	 * cache grows beyond its maximum size. Content larger than the maximum entry size is ignored.
+	 * 
+	 * @param key the request path
+	 * @param lastModified the last modified date of the resource
+	 * @param contentType the content type of the resource
+	 * @param content the gzip compressed content
+	 */
+	public synchronized void put(String key, long lastModified, String contentType, byte[] content) {
+		if (content == null || content.length > maxEntrySize || content.length > maxSize) {
+			return;
+		}
+		
+		remove(key);
+		entries.put(key, new Entry(lastModified, contentType, content));
+		size += content.length;
+		
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			size -= iterator.next().getValue().getContent().length;
+			iterator.remove();
+		}
+	}
+	
+	private void remove(String key) {
+		Entry removed = entries.remove(key);
+		if (removed != null) {
+			size -= removed.getContent().length;
+		}
+	}
+	
+	/**
+	 * Removes all cached entries, e.g. after modules have been started or stopped
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+	
+	/**
+	 * @return the total number of compressed bytes currently cached
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+	
+	public synchronized long getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * @param maxSize the maximum total number of compressed bytes to cache, 0 disables the cache
+	 */
+	public synchronized void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		if (size > maxSize) {
+			clear();
+		}
+	}
+	
+	public synchronized int getMaxEntrySize() {
+		return maxEntrySize;
+	}
+	
+	/**
+	 * @param maxEntrySize the maximum number of compressed bytes of a single cached resource
+	 */
+	public synchronized void setMaxEntrySize(int maxEntrySize) {
+		this.maxEntrySize = maxEntrySize;
+	}
+	
+	/**
+	 * The compressed content of a single resource
+	 */
+	public static class Entry {
+		
+		private final long lastModified;
+		
+		private final String contentType;
+		
+		private final byte[] content;
+		
+		Entry(long lastModified, String contentType, byte[] content) {
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.content = content;
+		}
+		
+		public long getLastModified() {
+			return lastModified;
+		}
+		
+		public String getContentType() {
+			return contentType;
+		}
+		
+		public byte[] getContent() {
+			return content;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openmrs.api.context.UserContext;
+
+/**
+ * Small cache of authenticated {@link UserContext.Snapshot}s keyed by the value of the
+ * <tt>Authorization</tt> header of stateless clients. Entries are only ever added after a request
+ * carrying the exact same header value was successfully authenticated, so a hit carries the same
+ * proof as the original credentials. Keys are SHA-256 digests of the header value, the raw
+ * credentials or tokens are never retained. Snapshots only hold the id of the user, who is loaded
+ * again for every request. The entries of a user are removed when their password, roles or status
+ * change, see {@link #removeUser(Integer)}, and all entries expire after the configured time to live
+ * so that revoked tokens take effect without restarting.
+ *
+ * @since 2.8.0
+ */
+class TokenUserContextCache {
+	
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	
+	private final long timeToLiveMillis;
+	
+	private final int maxEntries;
+	
+	TokenUserContextCache(long timeToLiveMillis, int maxEntries) {
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxEntries = maxEntries;
+	}
+	
+	/**
+	 * @param authorization the value of the Authorization header
+	 * @return the cached snapshot or null if there is none or it has expired
+	 */
+	UserContext.Snapshot get(String authorization) {
+		String key = toKey(authorization);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expiresAt < System.currentTimeMillis()) {
+			entries.remove(key, entry);
+			return null;
+		}
+		return entry.snapshot;
+	}
+	
+	/**
+	 * @param authorization the value of the Authorization header
+	 * @param snapshot the authenticated state the header resolved to
+	 */
+	void put(String authorization, UserContext.Snapshot snapshot) {
+		if (timeToLiveMillis <= 0 || maxEntries <= 0) {
+			return;
+		}
+		if (entries.size() >= maxEntries) {
+			evictExpired();
+			if (entries.size() >= maxEntries) {
+				entries.clear();
+			}
+		}
+		entries.put(toKey(authorization), new Entry(snapshot, System.currentTimeMillis() + timeToLiveMillis));
+	}
+	
+	/**
+	 * @param authorization the value of the Authorization header to forget
+	 */
+	void remove(String authorization) {
+		entries.remove(toKey(authorization));
+	}
+	
+	/**
+	 * @param userId the id of the user whose entries to forget or null to forget all entries
+	 */
+	void removeUser(Integer userId) {
+		if (userId == null) {
+			entries.clear();
+		} else {
+			entries.values().removeIf(entry -> userId.equals(entry.snapshot.getUserId()));
+		}
+	}
+	
+	int size() {
+		return entries.size();
+	}
+	
+	void clear() {
+		entries.clear();
+	}
+	
+	private void evictExpired() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.expiresAt < now);
+	}
+	
+	private static String toKey(String authorization) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return key.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			// every JRE is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static final class Entry {
+		
+		private final UserContext.Snapshot snapshot;
+		
+		private final long expiresAt;
+		
+		private Entry(UserContext.Snapshot snapshot, long expiresAt) {
+			this.snapshot = snapshot;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.web.filter.GZIPResponseWrapper;
+import org.openmrs.web.filter.PrecompressedResourceCache;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Tests {@link PseudoStaticContentController}
+ */
+public class PseudoStaticContentControllerTest {
+	
+	private static final String URI = "/openmrs/scripts/openmrsmessages.js";
+	
+	@AfterEach
+	public void clearCache() {
+		PrecompressedResourceCache.getInstance().clear();
+	}
+	
+	/**
+	 * @see PseudoStaticContentController#handleRequest(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse)
+	 */
+	@Test
+	public void handleRequest_shouldRenderJstlContentForEveryLocale() throws Exception {
+		PseudoStaticContentController controller = new PseudoStaticContentController();
+		controller.setInterpretJstl(true);
+		PseudoStaticContentController.setLastModified(1000L);
+		
+		for (Locale locale : new Locale[] { Locale.ENGLISH, Locale.FRENCH }) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", URI);
+			request.setServletPath("/scripts");
+			request.setPathInfo("/openmrsmessages.js");
+			request.addPreferredLocale(locale);
+			GZIPResponseWrapper response = new GZIPResponseWrapper(new MockHttpServletResponse());
+			
+			ModelAndView view = controller.handleRequest(request, response);
+			
+			assertNotNull(view);
+			assertEquals("/scripts/openmrsmessages.js.withjstl", view.getViewName());
+			response.getWriter().write("var messages = '" + locale + "';");
+			response.finishResponse();
+			assertNull(PrecompressedResourceCache.getInstance().get(URI, 1000L));
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests the {@link GZIPResponseStream} and {@link PrecompressedResourceCache}
+ */
+public class GZIPResponseStreamTest {
+	
+	@AfterEach
+	public void clearCache() {
+		PrecompressedResourceCache.getInstance().clear();
+	}
+	
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+	}
+	
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+	
+	/**
+	 * @see GZIPResponseStream#close()
+	 */
+	@Test
+	public void close_shouldSetContentLengthForContentWithinTheThreshold() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024);
+		byte[] content = "var x = 1;".getBytes("UTF-8");
+		stream.write(content);
+		stream.close();
+		
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+		assertArrayEquals(content, gunzip(response.getContentAsByteArray()));
+	}
+	
+	/**
+	 * @see GZIPResponseStream#write(byte[], int, int)
+	 */
+	@Test
+	public void write_shouldStreamContentExceedingTheThreshold() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100);
+		byte[] content = randomBytes(10000);
+		stream.write(content, 0, 50);
+		stream.write(content[50]);
+		stream.write(content, 51, content.length - 51);
+		
+		assertTrue(response.getContentAsByteArray().length > 0);
+		stream.close();
+		
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(0, response.getContentLength());
+		assertArrayEquals(content, gunzip(response.getContentAsByteArray()));
+	}
+	
+	/**
+	 * @see GZIPResponseStream#getCapturedBytes()
+	 */
+	@Test
+	public void getCapturedBytes_shouldReturnTheCompressedContentWrittenToTheClient() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		GZIPResponseStream stream = new GZIPResponseStream(response, 100);
+		stream.captureCompressedContent(1024 * 1024);
+		stream.write(randomBytes(5000));
+		stream.close();
+		
+		assertArrayEquals(response.getContentAsByteArray(), stream.getCapturedBytes());
+	}
+	
+	/**
+	 * @see GZIPResponseStream#getCapturedBytes()
+	 */
+	@Test
+	public void getCapturedBytes_shouldReturnNullIfTheContentExceedsTheMaximumCaptureSize() throws Exception {
+		GZIPResponseStream stream = new GZIPResponseStream(new MockHttpServletResponse(), 100);
+		stream.captureCompressedContent(10);
+		stream.write(randomBytes(5000));
+		stream.close();
+		
+		assertNull(stream.getCapturedBytes());
+	}
+	
+	/**
+	 * @see PrecompressedResourceCache#serveFromCache(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, long)
+	 */
+	@Test
+	public void serveFromCache_shouldServeCachedContentOnceTheResourceHasBeenCompressed() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/scripts/test.js");
+		byte[] content = "alert('hello');".getBytes("UTF-8");
+		
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		GZIPResponseWrapper firstWrapper = new GZIPResponseWrapper(first);
+		assertFalse(PrecompressedResourceCache.serveFromCache(request, firstWrapper, 1000L));
+		firstWrapper.setContentType("text/javascript");
+		firstWrapper.getOutputStream().write(content);
+		firstWrapper.finishResponse();
+		
+		MockHttpServletResponse second = new MockHttpServletResponse();
+		GZIPResponseWrapper secondWrapper = new GZIPResponseWrapper(second);
+		assertTrue(PrecompressedResourceCache.serveFromCache(request, secondWrapper, 1000L));
+		secondWrapper.finishResponse();
+		
+		assertEquals("gzip", second.getHeader("Content-Encoding"));
+		assertEquals("text/javascript", second.getContentType());
+		assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+		assertArrayEquals(content, gunzip(second.getContentAsByteArray()));
+	}
+	
+	/**
+	 * @see PrecompressedResourceCache#serveFromCache(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, long)
+	 */
+	@Test
+	public void serveFromCache_shouldNotServeContentCachedForAnotherLastModifiedDate() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/scripts/test.js");
+		PrecompressedResourceCache.getInstance().put(request.getRequestURI(), 1000L, "text/javascript", new byte[] { 1 });
+		
+		assertFalse(PrecompressedResourceCache.serveFromCache(request,
+		    new GZIPResponseWrapper(new MockHttpServletResponse()), 2000L));
+		assertNull(PrecompressedResourceCache.getInstance().get(request.getRequestURI(), 1000L));
+	}
+	
+	/**
+	 * @see PrecompressedResourceCache#serveFromCache(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, long)
+	 */
+	@Test
+	public void serveFromCache_shouldNotServeResponsesThatAreNotCompressed() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/scripts/test.js");
+		PrecompressedResourceCache.getInstance().put(request.getRequestURI(), 1000L, "text/javascript", new byte[] { 1 });
+		
+		assertFalse(PrecompressedResourceCache.serveFromCache(request, new MockHttpServletResponse(), 1000L));
+	}
+	
+	/**
+	 * @see PrecompressedResourceCache#put(String, long, String, byte[])
+	 */
+	@Test
+	public void put_shouldEvictTheLeastRecentlyUsedEntriesWhenTheMaximumSizeIsExceeded() {
+		PrecompressedResourceCache cache = new PrecompressedResourceCache();
+		cache.setMaxSize(10);
+		cache.put("/a.js", 1L, null, new byte[4]);
+		cache.put("/b.js", 1L, null, new byte[4]);
+		assertNotNull(cache.get("/a.js", 1L));
+		cache.put("/c.js", 1L, null, new byte[4]);
+		
+		assertNotNull(cache.get("/a.js", 1L));
+		assertNull(cache.get("/b.js", 1L));
+		assertNotNull(cache.get("/c.js", 1L));
+		assertEquals(8, cache.getSize());
+	}
+}
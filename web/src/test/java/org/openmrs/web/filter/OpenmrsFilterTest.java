@@ -0,0 +1,243 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.api.context.UsernamePasswordCredentials;
+import org.openmrs.web.WebConstants;
+import org.openmrs.web.test.BaseWebContextSensitiveTest;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+/**
+ * Tests {@link OpenmrsFilter}
+ */
+public class OpenmrsFilterTest extends BaseWebContextSensitiveTest {
+	
+	private static final String BASIC_ADMIN = "Basic "
+	        + Base64.getEncoder().encodeToString("admin:test".getBytes(StandardCharsets.UTF_8));
+	
+	private OpenmrsFilter filter;
+	
+	private UserContext testUserContext;
+	
+	private final AtomicReference<UserContext> contextInChain = new AtomicReference<>();
+	
+	@BeforeEach
+	public void setUp() throws Exception {
+		testUserContext = Context.getUserContext();
+		filter = new OpenmrsFilter();
+		filter.setSessionlessTokenRequests(true);
+		filter.init(new MockFilterConfig());
+	}
+	
+	@AfterEach
+	public void restoreUserContext() {
+		filter.destroy();
+		// the filter clears the user context of the thread after each request
+		Context.setUserContext(testUserContext);
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldNotCreateSessionForStaticResources() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/scripts/jquery/jquery.min.js");
+		
+		filter.doFilter(request, new MockHttpServletResponse(), capturingChain());
+		
+		assertNull(request.getSession(false));
+		assertNotNull(contextInChain.get());
+		assertFalse(contextInChain.get().isAuthenticated());
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldUseTheSessionUserContextForStaticResourcesInExistingSessions() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/images/openmrs_logo_white.gif");
+		MockHttpSession session = new MockHttpSession();
+		UserContext sessionContext = new UserContext(Context.getAuthenticationScheme());
+		session.setAttribute(WebConstants.OPENMRS_USER_CONTEXT_HTTPSESSION_ATTR, sessionContext);
+		request.setSession(session);
+		
+		filter.doFilter(request, new MockHttpServletResponse(), capturingChain());
+		
+		assertSame(sessionContext, contextInChain.get());
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldOnlyWriteSessionAttributesWhenTheirValuesChange() throws Exception {
+		AttributeRecordingSession session = new AttributeRecordingSession();
+		
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/index.htm");
+			request.setSession(session);
+			filter.doFilter(request, new MockHttpServletResponse(), capturingChain());
+		}
+		
+		assertEquals("-anonymous user-", session.getAttribute("username"));
+		assertNotNull(session.getAttribute("locale"));
+		assertEquals(1, session.countWrites("username"));
+		assertEquals(1, session.countWrites("locale"));
+		assertEquals(1, session.countWrites(WebConstants.OPENMRS_USER_CONTEXT_HTTPSESSION_ATTR));
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldReuseTheAuthenticatedContextOfTokenRequestsWithoutCreatingSessions()
+	        throws Exception {
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		first.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(first, new MockHttpServletResponse(), (req, res) -> {
+			Context.authenticate(new UsernamePasswordCredentials("admin", "test"));
+			contextInChain.set(Context.getUserContext());
+		});
+		assertNull(first.getSession(false));
+		assertTrue(contextInChain.get().isAuthenticated());
+		
+		MockHttpServletRequest second = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		second.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(second, new MockHttpServletResponse(), capturingChain());
+		
+		assertNull(second.getSession(false));
+		assertTrue(contextInChain.get().isAuthenticated());
+		assertEquals("admin", contextInChain.get().getAuthenticatedUser().getSystemId());
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldNotReuseTheContextOfADifferentToken() throws Exception {
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		first.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(first, new MockHttpServletResponse(), (req, res) -> Context.authenticate(
+		    new UsernamePasswordCredentials("admin", "test")));
+		
+		MockHttpServletRequest second = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		second.addHeader("Authorization", "Bearer some-other-token");
+		filter.doFilter(second, new MockHttpServletResponse(), capturingChain());
+		
+		assertFalse(contextInChain.get().isAuthenticated());
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldNotReuseTheContextOfATokenAfterThePasswordOfItsUserChanged() throws Exception {
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		first.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(first, new MockHttpServletResponse(), (req, res) -> Context.authenticate(
+		    new UsernamePasswordCredentials("admin", "test")));
+		
+		Context.setUserContext(testUserContext);
+		Context.getUserService().changePassword(Context.getUserService().getUser(1), "Changed123");
+		
+		MockHttpServletRequest second = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		second.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(second, new MockHttpServletResponse(), capturingChain());
+		
+		assertFalse(contextInChain.get().isAuthenticated());
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldLoadTheUserOfACachedTokenContextAgainForEveryRequest() throws Exception {
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		first.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(first, new MockHttpServletResponse(), (req, res) -> Context.authenticate(
+		    new UsernamePasswordCredentials("admin", "test")));
+		
+		// retired without going through the service, so only a reload can notice it
+		Context.setUserContext(testUserContext);
+		Context.getUserService().getUser(1).setRetired(true);
+		
+		MockHttpServletRequest second = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		second.addHeader("Authorization", BASIC_ADMIN);
+		filter.doFilter(second, new MockHttpServletResponse(), capturingChain());
+		
+		assertFalse(contextInChain.get().isAuthenticated());
+	}
+	
+	/**
+	 * @see OpenmrsFilter#doFilterInternal(javax.servlet.http.HttpServletRequest,
+	 *      javax.servlet.http.HttpServletResponse, FilterChain)
+	 */
+	@Test
+	public void doFilterInternal_shouldCreateSessionsForTokenRequestsIfSessionlessTokenRequestsAreDisabled()
+	        throws Exception {
+		filter.setSessionlessTokenRequests(false);
+		filter.init(new MockFilterConfig());
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/openmrs/ws/rest/v1/patient");
+		request.addHeader("Authorization", BASIC_ADMIN);
+		
+		filter.doFilter(request, new MockHttpServletResponse(), capturingChain());
+		
+		assertNotNull(request.getSession(false));
+	}
+	
+	private FilterChain capturingChain() {
+		return (req, res) -> contextInChain.set(Context.getUserContext());
+	}
+	
+	private static class AttributeRecordingSession extends MockHttpSession {
+		
+		private final List<String> writes = new ArrayList<>();
+		
+		@Override
+		public void setAttribute(String name, Object value) {
+			writes.add(name);
+			super.setAttribute(name, value);
+		}
+		
+		long countWrites(String name) {
+			return writes.stream().filter(name::equals).count();
+		}
+	}
+}